@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.api.platform;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -75,4 +77,18 @@ public interface PlatformInfo {
      */
     long getStartTime();
 
+    /**
+     * Gets how long each phase of the plugins startup took, in milliseconds.
+     *
+     * <p>The map is ordered by when each phase started. Implementations which
+     * don't record timings return an empty map.</p>
+     *
+     * @return the startup timings
+     * @since 4.2
+     */
+    @Nonnull
+    default Map<String, Long> getStartupTimings() {
+        return Collections.emptyMap();
+    }
+
 }
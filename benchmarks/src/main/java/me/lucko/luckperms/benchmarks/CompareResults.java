@@ -0,0 +1,113 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two sets of JMH results, written using {@code -rf json}.
+ *
+ * <p>Usage: {@code CompareResults <baseline.json> <candidate.json> [threshold %]}</p>
+ *
+ * <p>Prints the change in score for each benchmark present in both files, and
+ * exits with status 1 if any benchmark regressed by more than the threshold
+ * (default 10%). All benchmarks in this module report time per operation, so
+ * a higher score is a regression.</p>
+ */
+public final class CompareResults {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <candidate.json> [threshold %]");
+            System.exit(2);
+            return;
+        }
+
+        Map<String, Double> baseline = read(args[0]);
+        Map<String, Double> candidate = read(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        boolean regressed = false;
+        for (Map.Entry<String, Double> e : new TreeMap<>(candidate).entrySet()) {
+            Double before = baseline.get(e.getKey());
+            if (before == null) {
+                continue;
+            }
+
+            double change = (e.getValue() - before) / before * 100.0;
+            String flag = "";
+            if (change > threshold) {
+                flag = "  REGRESSION";
+                regressed = true;
+            } else if (change < -threshold) {
+                flag = "  improvement";
+            }
+            System.out.println(String.format("%-100s %14.3f -> %14.3f  %+7.1f%%%s", e.getKey(), before, e.getValue(), change, flag));
+        }
+
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Double> read(String file) throws IOException {
+        JsonArray results;
+        try (Reader reader = Files.newBufferedReader(Paths.get(file))) {
+            results = new JsonParser().parse(reader).getAsJsonArray();
+        }
+
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+
+            StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+            JsonObject params = result.getAsJsonObject("params");
+            if (params != null) {
+                Map<String, String> sorted = new TreeMap<>();
+                for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+                    sorted.put(param.getKey(), param.getValue().getAsString());
+                }
+                sorted.forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+            }
+
+            scores.put(key.toString(), result.getAsJsonObject("primaryMetric").get("score").getAsDouble());
+        }
+        return scores;
+    }
+
+    private CompareResults() {}
+}
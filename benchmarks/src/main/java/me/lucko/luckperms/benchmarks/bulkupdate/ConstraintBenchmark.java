@@ -0,0 +1,111 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.bulkupdate;
+
+import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparisons.StandardComparison;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks evaluating a LIKE constraint over many node permissions, as done
+ * by bulk updates and permission searches on flatfile storage.
+ *
+ * <p>{@link #compiled()} uses a constraint, which compiles the expression once.
+ * {@link #perCall()} compiles it for every value, which is the cost of matching
+ * without a constraint.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstraintBenchmark {
+    private static final int VALUES = 10000;
+
+    @Param({"group.%", "%.fly", "plugin_.category%.action1_"})
+    public String expression;
+
+    private Constraint constraint;
+    private String[] values;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+
+        this.constraint = Constraint.of(StandardComparison.SIMILAR, this.expression);
+        this.values = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    this.values[i] = "group.group" + random.nextInt(100);
+                    break;
+                case 1:
+                    this.values[i] = "essentials." + (random.nextBoolean() ? "fly" : "home");
+                    break;
+                default:
+                    this.values[i] = "plugin" + random.nextInt(50) + ".category" + random.nextInt(10) + ".action" + random.nextInt(20);
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public int compiled() {
+        int matches = 0;
+        for (String value : this.values) {
+            if (this.constraint.eval(value)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int perCall() {
+        int matches = 0;
+        for (String value : this.values) {
+            if (StandardComparison.SIMILAR.matches(value, this.expression)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
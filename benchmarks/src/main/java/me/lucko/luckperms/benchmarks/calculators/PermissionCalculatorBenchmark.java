@@ -0,0 +1,119 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.calculators;
+
+import me.lucko.luckperms.api.Contexts;
+import me.lucko.luckperms.api.Tristate;
+import me.lucko.luckperms.api.context.ImmutableContextSet;
+import me.lucko.luckperms.benchmarks.data.BenchmarkEnvironment;
+import me.lucko.luckperms.benchmarks.data.SyntheticDataset;
+import me.lucko.luckperms.common.calculators.PermissionCalculator;
+import me.lucko.luckperms.common.calculators.PermissionCalculatorMetadata;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.verbose.CheckOrigin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks permission checks against a calculator built from a users
+ * resolved permissions.
+ *
+ * <p>{@link #cached()} measures the common case, where the result has already
+ * been computed. {@link #uncached()} measures the work done on a cache miss,
+ * i.e. running the permission through each processor.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionCalculatorBenchmark {
+
+    @Param({"100", "2000"})
+    public int nodesPerHolder;
+
+    @Param({"0.05", "0.3"})
+    public double wildcardRatio;
+
+    private BenchmarkEnvironment environment;
+    private PermissionCalculator calculator;
+    private String[] permissions;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.environment = BenchmarkEnvironment.start("calculator");
+        LuckPermsPlugin plugin = this.environment.getPlugin();
+
+        SyntheticDataset dataset = new SyntheticDataset(3, this.nodesPerHolder, 8, this.wildcardRatio);
+        User user = dataset.createUser(plugin, dataset.createGroups(plugin, 4));
+
+        // one of the contexts the dataset sets nodes in, see SyntheticDataset#randomContext
+        Contexts contexts = plugin.getContextManager().formContexts(ImmutableContextSet.of("server", "server1", "world", "world1"));
+        this.calculator = plugin.getCalculatorFactory().build(contexts, PermissionCalculatorMetadata.of(HolderType.USER, user.getObjectName(), contexts.getContexts()));
+        this.calculator.setSourcePermissions(user.exportPermissions(contexts, true, true));
+
+        List<String> permissions = dataset.randomPermissions(1024);
+        this.permissions = permissions.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.environment.close();
+    }
+
+    private String nextPermission() {
+        return this.permissions[this.index++ & (this.permissions.length - 1)];
+    }
+
+    @Benchmark
+    public Tristate cached() {
+        return this.calculator.getPermissionValue(nextPermission(), CheckOrigin.API);
+    }
+
+    @Benchmark
+    public Tristate uncached() {
+        return this.calculator.load(nextPermission());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.data;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.benchmarks.headless.HeadlessBootstrap;
+import me.lucko.luckperms.benchmarks.headless.HeadlessPlugin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A {@link HeadlessPlugin} instance running in its own data directory.
+ *
+ * <p>Data directories are created under the directory given by the
+ * {@code luckperms.benchmark.dir} system property, or "benchmark-data" in
+ * the working directory. Everything except downloaded libraries is deleted
+ * when an environment is started, so each run starts with no data.</p>
+ */
+public final class BenchmarkEnvironment implements AutoCloseable {
+
+    private static final Path ROOT = Paths.get(System.getProperty("luckperms.benchmark.dir", "benchmark-data"));
+
+    /**
+     * Options applied to every environment, unless overridden
+     */
+    private static final Map<String, Object> DEFAULT_OPTIONS = ImmutableMap.of(
+            "storage-method", "h2",
+            "watch-files", false
+    );
+
+    /**
+     * Starts a new environment.
+     *
+     * @param name the name of the environment, used for its data directory
+     * @param options configuration options, see {@link me.lucko.luckperms.benchmarks.headless.HeadlessConfigAdapter}
+     * @return the environment
+     */
+    public static BenchmarkEnvironment start(String name, Map<String, Object> options) {
+        Path dataDirectory = prepareDirectory(name);
+
+        Map<String, Object> combined = new HashMap<>(DEFAULT_OPTIONS);
+        combined.putAll(options);
+
+        HeadlessBootstrap bootstrap = new HeadlessBootstrap(name, dataDirectory, combined);
+        bootstrap.start();
+        return new BenchmarkEnvironment(bootstrap);
+    }
+
+    public static BenchmarkEnvironment start(String name) {
+        return start(name, ImmutableMap.of());
+    }
+
+    /**
+     * Gets an empty data directory for the given name.
+     *
+     * @param name the name
+     * @return the directory
+     */
+    public static Path prepareDirectory(String name) {
+        Path dataDirectory = ROOT.resolve(name);
+        clean(dataDirectory);
+        return dataDirectory;
+    }
+
+    private static void clean(Path dataDirectory) {
+        if (!Files.exists(dataDirectory)) {
+            return;
+        }
+
+        // keep downloaded dependencies between runs
+        Path lib = dataDirectory.resolve("lib");
+        try (Stream<Path> s = Files.walk(dataDirectory)) {
+            s.sorted(Comparator.reverseOrder())
+                    .filter(p -> !p.startsWith(lib) && !p.equals(dataDirectory))
+                    .forEach(p -> {
+                        try {
+                            Files.delete(p);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final HeadlessBootstrap bootstrap;
+
+    private BenchmarkEnvironment(HeadlessBootstrap bootstrap) {
+        this.bootstrap = bootstrap;
+    }
+
+    public HeadlessBootstrap getBootstrap() {
+        return this.bootstrap;
+    }
+
+    public HeadlessPlugin getPlugin() {
+        return this.bootstrap.getPlugin();
+    }
+
+    @Override
+    public void close() {
+        this.bootstrap.stop();
+    }
+}
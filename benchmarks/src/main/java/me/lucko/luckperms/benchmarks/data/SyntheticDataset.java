@@ -0,0 +1,220 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.data;
+
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.api.context.ImmutableContextSet;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.model.UserIdentifier;
+import me.lucko.luckperms.common.node.factory.NodeFactory;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Generates permission data which resembles that of a large network.
+ *
+ * <p>Permissions are named "plugin&lt;p&gt;.category&lt;c&gt;.action&lt;a&gt;".
+ * Groups form chains, where each group inherits from the one before it, and
+ * users inherit from the last group in a chain. Nodes are spread over a number
+ * of server/world combinations, and a proportion are wildcards.</p>
+ *
+ * <p>Generation is deterministic for a given seed, so results are comparable
+ * between runs.</p>
+ */
+public final class SyntheticDataset {
+    private static final int PLUGINS = 50;
+    private static final int CATEGORIES = 10;
+    private static final int ACTIONS = 20;
+
+    private final Random random;
+
+    /** The number of groups in each inheritance chain */
+    private final int inheritanceDepth;
+
+    /** The number of nodes given to each holder */
+    private final int nodesPerHolder;
+
+    /** The number of distinct server/world combinations nodes are set in, plus the global context */
+    private final int contexts;
+
+    /** The proportion of nodes which are wildcards */
+    private final double wildcardRatio;
+
+    public SyntheticDataset(long seed, int inheritanceDepth, int nodesPerHolder, int contexts, double wildcardRatio) {
+        this.random = new Random(seed);
+        this.inheritanceDepth = inheritanceDepth;
+        this.nodesPerHolder = nodesPerHolder;
+        this.contexts = contexts;
+        this.wildcardRatio = wildcardRatio;
+    }
+
+    public SyntheticDataset(int inheritanceDepth, int nodesPerHolder, int contexts, double wildcardRatio) {
+        this(42L, inheritanceDepth, nodesPerHolder, contexts, wildcardRatio);
+    }
+
+    /**
+     * Gets a random permission, which may or may not be set in the dataset.
+     *
+     * @return a permission
+     */
+    public String randomPermission() {
+        return "plugin" + this.random.nextInt(PLUGINS) + ".category" + this.random.nextInt(CATEGORIES) + ".action" + this.random.nextInt(ACTIONS);
+    }
+
+    /**
+     * Gets a list of random permissions to check.
+     *
+     * @param count the number of permissions
+     * @return the permissions
+     */
+    public List<String> randomPermissions(int count) {
+        List<String> permissions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            permissions.add(randomPermission());
+        }
+        return permissions;
+    }
+
+    /**
+     * Gets one of the contexts nodes in the dataset are set in.
+     *
+     * @return a context set, which is empty for the global context
+     */
+    public ImmutableContextSet randomContext() {
+        int i = this.random.nextInt(this.contexts + 1);
+        if (i == 0) {
+            return ImmutableContextSet.empty();
+        }
+        return ImmutableContextSet.of("server", "server" + (i % 4), "world", "world" + i);
+    }
+
+    /**
+     * Generates a random node.
+     *
+     * @return a node
+     */
+    public Node randomNode() {
+        String permission;
+        if (this.random.nextDouble() < this.wildcardRatio) {
+            permission = this.random.nextBoolean()
+                    ? "plugin" + this.random.nextInt(PLUGINS) + ".*"
+                    : "plugin" + this.random.nextInt(PLUGINS) + ".category" + this.random.nextInt(CATEGORIES) + ".*";
+        } else {
+            permission = randomPermission();
+        }
+
+        Node.Builder builder = NodeFactory.builder(permission)
+                .setValue(this.random.nextInt(10) != 0)
+                .withExtraContext(randomContext());
+
+        // a small number of temporary nodes
+        if (this.random.nextInt(50) == 0) {
+            builder.setExpiry(1, TimeUnit.DAYS);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gives the holder {@link #nodesPerHolder} random nodes.
+     *
+     * @param holder the holder
+     */
+    public void populate(PermissionHolder holder) {
+        populate(holder, this.nodesPerHolder);
+    }
+
+    /**
+     * Gives the holder the given number of random nodes.
+     *
+     * @param holder the holder
+     * @param nodes the number of nodes
+     */
+    public void populate(PermissionHolder holder, int nodes) {
+        for (int i = 0; i < nodes; i++) {
+            holder.setPermission(randomNode());
+        }
+    }
+
+    /**
+     * Creates the given number of inheritance chains, and returns the last
+     * group in each.
+     *
+     * @param plugin the plugin
+     * @param chains the number of chains
+     * @return the last group in each chain
+     */
+    public List<Group> createGroups(LuckPermsPlugin plugin, int chains) {
+        return createGroups(plugin.getGroupManager()::getOrMake, chains);
+    }
+
+    /**
+     * Creates the given number of inheritance chains, and returns the last
+     * group in each.
+     *
+     * @param factory the function used to create each group, by name
+     * @param chains the number of chains
+     * @return the last group in each chain
+     */
+    public List<Group> createGroups(Function<String, Group> factory, int chains) {
+        List<Group> leaves = new ArrayList<>(chains);
+        for (int chain = 0; chain < chains; chain++) {
+            Group previous = null;
+            for (int level = 0; level < this.inheritanceDepth; level++) {
+                Group group = factory.apply("chain" + chain + "-" + level);
+                populate(group);
+                if (previous != null) {
+                    group.setPermission(NodeFactory.buildGroupNode(previous.getName()).build());
+                }
+                previous = group;
+            }
+            leaves.add(previous);
+        }
+        return leaves;
+    }
+
+    /**
+     * Creates a user who inherits from one of the given groups.
+     *
+     * @param plugin the plugin
+     * @param groups the groups to choose from
+     * @return the user
+     */
+    public User createUser(LuckPermsPlugin plugin, List<Group> groups) {
+        UUID uuid = new UUID(this.random.nextLong(), this.random.nextLong());
+        User user = plugin.getUserManager().getOrMake(UserIdentifier.of(uuid, "user" + Math.abs(uuid.getLeastSignificantBits() % 100000)));
+        populate(user);
+        user.setPermission(NodeFactory.buildGroupNode(groups.get(this.random.nextInt(groups.size())).getName()).build());
+        return user;
+    }
+}
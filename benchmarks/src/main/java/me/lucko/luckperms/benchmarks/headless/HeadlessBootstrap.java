@@ -0,0 +1,306 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.api.platform.PlatformType;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.dependencies.classloader.PluginClassLoader;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.JavaPluginLogger;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Bootstrap for LuckPerms running without a server platform.
+ *
+ * <p>Players are simulated using {@link HeadlessPlayer}s, which join and
+ * leave through the {@link HeadlessConnectionListener}. Configuration is given
+ * as a map of option paths to values, see {@link HeadlessConfigAdapter}.</p>
+ *
+ * <p>Several instances can run in the same JVM, as long as they use different
+ * data directories, or are part of the same {@link HeadlessNetwork}.</p>
+ */
+public class HeadlessBootstrap implements LuckPermsBootstrap {
+
+    /**
+     * The plugin logger
+     */
+    private final PluginLogger logger;
+
+    /**
+     * A scheduler adapter for the platform
+     */
+    private final SchedulerAdapter schedulerAdapter;
+
+    /**
+     * The plugin classloader
+     */
+    private final PluginClassLoader classLoader;
+
+    /**
+     * The plugin instance
+     */
+    private final HeadlessPlugin plugin;
+
+    /**
+     * The directory used to store data
+     */
+    private final Path dataDirectory;
+
+    /**
+     * The configuration options
+     */
+    private final ImmutableMap<String, Object> options;
+
+    /**
+     * The network the server is part of, or null
+     */
+    private final HeadlessNetwork network;
+
+    /**
+     * The sender used for console output
+     */
+    private final HeadlessPlayer console = new HeadlessPlayer(CommandManager.CONSOLE_UUID, CommandManager.CONSOLE_NAME, null);
+
+    /**
+     * The players which are currently online
+     */
+    private final Map<UUID, HeadlessPlayer> players = new ConcurrentHashMap<>();
+
+    /**
+     * The time when the plugin was enabled
+     */
+    private long startTime;
+
+    // load/enable latches
+    private final CountDownLatch loadLatch = new CountDownLatch(1);
+    private final CountDownLatch enableLatch = new CountDownLatch(1);
+
+    public HeadlessBootstrap(String name, Path dataDirectory, Map<String, Object> options, HeadlessNetwork network) {
+        this.logger = new JavaPluginLogger(Logger.getLogger(name));
+        this.schedulerAdapter = new HeadlessSchedulerAdapter();
+        this.classLoader = new NoopClassLoader();
+        this.dataDirectory = dataDirectory.toAbsolutePath();
+        this.options = ImmutableMap.copyOf(options);
+        this.network = network;
+        this.plugin = new HeadlessPlugin(this);
+    }
+
+    public HeadlessBootstrap(String name, Path dataDirectory, Map<String, Object> options) {
+        this(name, dataDirectory, options, null);
+    }
+
+    public HeadlessPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    public ImmutableMap<String, Object> getOptions() {
+        return this.options;
+    }
+
+    public Optional<HeadlessNetwork> getNetwork() {
+        return Optional.ofNullable(this.network);
+    }
+
+    // provide adapters
+
+    @Override
+    public PluginLogger getPluginLogger() {
+        return this.logger;
+    }
+
+    @Override
+    public SchedulerAdapter getScheduler() {
+        return this.schedulerAdapter;
+    }
+
+    @Override
+    public PluginClassLoader getPluginClassLoader() {
+        return this.classLoader;
+    }
+
+    // lifecycle
+
+    /**
+     * Loads and enables the plugin.
+     */
+    public void start() {
+        try {
+            this.plugin.load();
+        } finally {
+            this.loadLatch.countDown();
+        }
+
+        this.startTime = System.currentTimeMillis();
+        try {
+            this.plugin.enable();
+        } finally {
+            this.enableLatch.countDown();
+        }
+    }
+
+    /**
+     * Disables the plugin.
+     */
+    public void stop() {
+        this.plugin.disable();
+    }
+
+    @Override
+    public CountDownLatch getEnableLatch() {
+        return this.enableLatch;
+    }
+
+    @Override
+    public CountDownLatch getLoadLatch() {
+        return this.loadLatch;
+    }
+
+    // provide information about the plugin
+
+    @Override
+    public String getVersion() {
+        return "headless";
+    }
+
+    @Override
+    public long getStartupTime() {
+        return this.startTime;
+    }
+
+    // provide information about the platform
+
+    @Override
+    public PlatformType getType() {
+        // behaves like a backend server - the brand identifies it as headless
+        return PlatformType.BUKKIT;
+    }
+
+    @Override
+    public String getServerBrand() {
+        return "Headless";
+    }
+
+    @Override
+    public String getServerVersion() {
+        return System.getProperty("java.version");
+    }
+
+    @Override
+    public Path getDataDirectory() {
+        return this.dataDirectory;
+    }
+
+    @Override
+    public InputStream getResourceStream(String path) {
+        return getClass().getClassLoader().getResourceAsStream(path);
+    }
+
+    // players
+
+    public HeadlessPlayer getConsole() {
+        return this.console;
+    }
+
+    void addPlayer(HeadlessPlayer player) {
+        this.players.put(player.getUniqueId(), player);
+    }
+
+    void removePlayer(UUID uuid) {
+        this.players.remove(uuid);
+    }
+
+    public Stream<HeadlessPlayer> getPlayers() {
+        return this.players.values().stream();
+    }
+
+    @Override
+    public Optional<HeadlessPlayer> getPlayer(UUID uuid) {
+        return Optional.ofNullable(this.players.get(uuid));
+    }
+
+    @Override
+    public Optional<UUID> lookupUuid(String username) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> lookupUsername(UUID uuid) {
+        return Optional.empty();
+    }
+
+    @Override
+    public int getPlayerCount() {
+        return this.players.size();
+    }
+
+    @Override
+    public Stream<String> getPlayerList() {
+        return getPlayers().map(HeadlessPlayer::getUsername);
+    }
+
+    @Override
+    public Stream<UUID> getOnlinePlayers() {
+        return getPlayers().map(HeadlessPlayer::getUniqueId);
+    }
+
+    @Override
+    public boolean isPlayerOnline(UUID uuid) {
+        return this.players.containsKey(uuid);
+    }
+
+    /**
+     * The dependencies LuckPerms would normally load at runtime are already
+     * on the classpath, without relocation, so there's nothing to add.
+     *
+     * <p>Storage drivers are still downloaded, as they are loaded in
+     * isolated classloaders.</p>
+     */
+    private static final class NoopClassLoader implements PluginClassLoader {
+        @Override
+        public void loadJar(URL url) {
+
+        }
+
+        @Override
+        public void loadJar(Path file) {
+
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.common.config.adapter.AbstractConfigurationAdapter;
+import me.lucko.luckperms.common.config.adapter.ConfigurationAdapter;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A configuration adapter backed by a map of option paths to values.
+ *
+ * <p>Paths are given in full, using dots to separate sections, e.g.
+ * "data.pool-settings.maximum-pool-size". Options which aren't present take
+ * their default value.</p>
+ */
+public class HeadlessConfigAdapter extends AbstractConfigurationAdapter implements ConfigurationAdapter {
+    private final Map<String, Object> options;
+
+    public HeadlessConfigAdapter(LuckPermsPlugin plugin, Map<String, Object> options) {
+        super(plugin);
+        this.options = ImmutableMap.copyOf(options);
+    }
+
+    @Override
+    public void reload() {
+        // the options are fixed
+    }
+
+    @Override
+    public String getString(String path, String def) {
+        Object value = this.options.get(path);
+        return value == null ? def : value.toString();
+    }
+
+    @Override
+    public int getInt(String path, int def) {
+        Object value = this.options.get(path);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return value == null ? def : Integer.parseInt(value.toString());
+    }
+
+    @Override
+    public boolean getBoolean(String path, boolean def) {
+        Object value = this.options.get(path);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value == null ? def : Boolean.parseBoolean(value.toString());
+    }
+
+    @Override
+    public List<String> getList(String path, List<String> def) {
+        Object value = this.options.get(path);
+        if (!(value instanceof List)) {
+            return def;
+        }
+
+        List<String> list = new ArrayList<>();
+        for (Object o : (List<?>) value) {
+            list.add(o.toString());
+        }
+        return list;
+    }
+
+    @Override
+    public List<String> getKeys(String path, List<String> def) {
+        Set<String> keys = new LinkedHashSet<>();
+        String prefix = path + ".";
+        for (String key : this.options.keySet()) {
+            if (key.startsWith(prefix)) {
+                String remaining = key.substring(prefix.length());
+                int end = remaining.indexOf('.');
+                keys.add(end == -1 ? remaining : remaining.substring(0, end));
+            }
+        }
+        return keys.isEmpty() ? def : new ArrayList<>(keys);
+    }
+
+    @Override
+    public Map<String, String> getMap(String path, Map<String, String> def) {
+        Map<String, String> map = new LinkedHashMap<>();
+        String prefix = path + ".";
+        for (Map.Entry<String, Object> e : this.options.entrySet()) {
+            if (e.getKey().startsWith(prefix)) {
+                map.put(e.getKey().substring(prefix.length()), e.getValue().toString());
+            }
+        }
+        return map.isEmpty() ? def : map;
+    }
+}
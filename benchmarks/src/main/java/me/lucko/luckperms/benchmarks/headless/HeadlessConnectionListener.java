@@ -0,0 +1,82 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
+
+/**
+ * Handles simulated players joining and leaving a {@link HeadlessBootstrap}.
+ *
+ * <p>Follows the same steps as the platform listeners, but runs them
+ * synchronously on the calling thread.</p>
+ */
+public class HeadlessConnectionListener extends AbstractConnectionListener {
+    private final HeadlessPlugin plugin;
+
+    public HeadlessConnectionListener(HeadlessPlugin plugin) {
+        super(plugin);
+        this.plugin = plugin;
+    }
+
+    /**
+     * Loads the data for the given player, then marks them as online.
+     *
+     * @param player the player
+     * @return the loaded user
+     */
+    public User join(HeadlessPlayer player) {
+        recordConnection(player.getUniqueId());
+
+        User user = loadUser(player.getUniqueId(), player.getUsername());
+        this.plugin.getEventFactory().handleUserLoginProcess(player.getUniqueId(), player.getUsername(), user);
+        this.plugin.getBootstrap().addPlayer(player);
+        return user;
+    }
+
+    /**
+     * Marks the given player as offline.
+     *
+     * @param player the player
+     */
+    public void quit(HeadlessPlayer player) {
+        this.plugin.getBootstrap().removePlayer(player.getUniqueId());
+        this.plugin.getContextManager().invalidateCache(player);
+        cancelPrefetch(player.getUniqueId());
+
+        // Register with the housekeeper, so the User's instance will stick
+        // around for a bit after they disconnect
+        this.plugin.getUserManager().getHouseKeeper().registerUsage(player.getUniqueId());
+
+        // force a clear of transient nodes
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+            User user = this.plugin.getUserManager().getIfLoaded(player.getUniqueId());
+            if (user != null) {
+                user.clearTransientNodes();
+            }
+        });
+    }
+}
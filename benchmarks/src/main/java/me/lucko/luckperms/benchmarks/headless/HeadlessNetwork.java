@@ -0,0 +1,135 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.common.dependencies.DependencyManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A group of {@link HeadlessBootstrap}s running in the same JVM, which behave
+ * like the servers on a network.
+ *
+ * <p>Servers share a data directory, and therefore the same file or H2/SQLite
+ * storage, and send messages to each other using the "local" messaging
+ * service.</p>
+ *
+ * <p>The isolated classloaders used to load storage drivers are also shared,
+ * as the H2 and SQLite drivers can only open a database from one classloader
+ * at a time.</p>
+ */
+public class HeadlessNetwork {
+
+    /**
+     * The data directory shared by all servers
+     */
+    private final Path dataDirectory;
+
+    /**
+     * The servers in the network, in the order they were started
+     */
+    private final List<HeadlessBootstrap> servers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The messengers of each server which has the local messaging service enabled
+     */
+    private final List<LocalMessenger> messengers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The dependency manager of the first server, used by all servers. Guarded by this.
+     */
+    private DependencyManager dependencyManager = null;
+
+    public HeadlessNetwork(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+    }
+
+    /**
+     * Starts a new server, and adds it to the network.
+     *
+     * <p>Servers should be started one at a time, as storage dependencies are
+     * downloaded into the shared data directory.</p>
+     *
+     * @param name the name of the server, used as the "server" option
+     * @param options configuration options, see {@link HeadlessConfigAdapter}
+     * @return the server
+     */
+    public HeadlessBootstrap startServer(String name, Map<String, Object> options) {
+        Map<String, Object> combined = new HashMap<>(options);
+        combined.put("server", name);
+        combined.putIfAbsent("messaging-service", "local");
+
+        HeadlessBootstrap bootstrap = new HeadlessBootstrap(name, this.dataDirectory, combined, this);
+        bootstrap.start();
+        this.servers.add(bootstrap);
+        return bootstrap;
+    }
+
+    public List<HeadlessBootstrap> getServers() {
+        return ImmutableList.copyOf(this.servers);
+    }
+
+    /**
+     * Stops all servers in the network, in the reverse order they were started.
+     */
+    public void stop() {
+        List<HeadlessBootstrap> servers = new ArrayList<>(this.servers);
+        this.servers.clear();
+        for (int i = servers.size() - 1; i >= 0; i--) {
+            servers.get(i).stop();
+        }
+    }
+
+    synchronized DependencyManager getDependencyManager(DependencyManager own) {
+        if (this.dependencyManager == null) {
+            this.dependencyManager = own;
+        }
+        return this.dependencyManager;
+    }
+
+    void register(LocalMessenger messenger) {
+        this.messengers.add(messenger);
+    }
+
+    void unregister(LocalMessenger messenger) {
+        this.messengers.remove(messenger);
+    }
+
+    void publish(LocalMessenger sender, String message) {
+        for (LocalMessenger messenger : this.messengers) {
+            if (messenger != sender) {
+                messenger.receive(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import java.util.UUID;
+
+/**
+ * A simulated player connected to a {@link HeadlessBootstrap}.
+ */
+public final class HeadlessPlayer {
+    private final UUID uuid;
+    private final String username;
+
+    /**
+     * The world the player is in, or null if the player isn't in a world
+     */
+    private volatile String world;
+
+    public HeadlessPlayer(UUID uuid, String username, String world) {
+        this.uuid = uuid;
+        this.username = username;
+        this.world = world;
+    }
+
+    public UUID getUniqueId() {
+        return this.uuid;
+    }
+
+    public String getUsername() {
+        return this.username;
+    }
+
+    public String getWorld() {
+        return this.world;
+    }
+
+    public void setWorld(String world) {
+        this.world = world;
+    }
+
+    @Override
+    public String toString() {
+        return "HeadlessPlayer(uuid=" + this.uuid + ", username=" + this.username + ")";
+    }
+}
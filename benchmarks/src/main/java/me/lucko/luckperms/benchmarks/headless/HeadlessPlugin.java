@@ -0,0 +1,228 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import me.lucko.luckperms.api.Contexts;
+import me.lucko.luckperms.api.LuckPermsApi;
+import me.lucko.luckperms.api.Tristate;
+import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.calculators.CalculatorFactory;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.config.adapter.ConfigurationAdapter;
+import me.lucko.luckperms.common.contexts.ContextManager;
+import me.lucko.luckperms.common.dependencies.Dependency;
+import me.lucko.luckperms.common.dependencies.DependencyManager;
+import me.lucko.luckperms.common.managers.group.StandardGroupManager;
+import me.lucko.luckperms.common.managers.track.StandardTrackManager;
+import me.lucko.luckperms.common.managers.user.StandardUserManager;
+import me.lucko.luckperms.common.messaging.MessagingFactory;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.AbstractLuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.tasks.CacheHousekeepingTask;
+import me.lucko.luckperms.common.tasks.ExpireTemporaryTask;
+import me.lucko.luckperms.common.verbose.CheckOrigin;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * LuckPerms implementation which runs without a server platform.
+ */
+public class HeadlessPlugin extends AbstractLuckPermsPlugin {
+    private final HeadlessBootstrap bootstrap;
+
+    private HeadlessSenderFactory senderFactory;
+    private HeadlessConnectionListener connectionListener;
+    private CommandManager commandManager;
+    private StandardUserManager userManager;
+    private StandardGroupManager groupManager;
+    private StandardTrackManager trackManager;
+    private ContextManager<HeadlessPlayer> contextManager;
+
+    public HeadlessPlugin(HeadlessBootstrap bootstrap) {
+        this.bootstrap = bootstrap;
+    }
+
+    @Override
+    public HeadlessBootstrap getBootstrap() {
+        return this.bootstrap;
+    }
+
+    @Override
+    protected void setupSenderFactory() {
+        this.senderFactory = new HeadlessSenderFactory(this);
+    }
+
+    @Override
+    protected Set<Dependency> getGlobalDependencies() {
+        // already on the classpath
+        return Collections.emptySet();
+    }
+
+    @Override
+    protected ConfigurationAdapter provideConfigurationAdapter() {
+        return new HeadlessConfigAdapter(this, this.bootstrap.getOptions());
+    }
+
+    @Override
+    protected void registerPlatformListeners() {
+        this.connectionListener = new HeadlessConnectionListener(this);
+    }
+
+    @Override
+    protected MessagingFactory<?> provideMessagingFactory() {
+        return new HeadlessMessagingFactory(this);
+    }
+
+    @Override
+    public DependencyManager getDependencyManager() {
+        // share driver classloaders with the other servers on the network
+        DependencyManager own = super.getDependencyManager();
+        return this.bootstrap.getNetwork().map(network -> network.getDependencyManager(own)).orElse(own);
+    }
+
+    @Override
+    protected void registerCommands() {
+        this.commandManager = new CommandManager(this);
+    }
+
+    @Override
+    protected void setupManagers() {
+        this.userManager = new StandardUserManager(this);
+        this.groupManager = new StandardGroupManager(this);
+        this.trackManager = new StandardTrackManager(this);
+    }
+
+    @Override
+    protected CalculatorFactory provideCalculatorFactory() {
+        return new HeadlessCalculatorFactory(this);
+    }
+
+    @Override
+    protected void setupContextManager() {
+        this.contextManager = new HeadlessContextManager(this);
+        this.contextManager.registerCalculator(new WorldCalculator(this));
+    }
+
+    @Override
+    protected void setupPlatformHooks() {
+
+    }
+
+    @Override
+    protected HeadlessEventBus provideEventBus(LuckPermsApiProvider apiProvider) {
+        return new HeadlessEventBus(this, apiProvider);
+    }
+
+    @Override
+    protected void registerApiOnPlatform(LuckPermsApi api) {
+        // there's no services manager
+    }
+
+    @Override
+    protected void registerHousekeepingTasks() {
+        this.bootstrap.getScheduler().asyncRepeating(new ExpireTemporaryTask(this), 3, TimeUnit.SECONDS);
+        this.bootstrap.getScheduler().asyncRepeating(new CacheHousekeepingTask(this), 2, TimeUnit.MINUTES);
+    }
+
+    @Override
+    protected void performFinalSetup() {
+
+    }
+
+    @Override
+    public Optional<Contexts> getContextForUser(User user) {
+        return this.bootstrap.getPlayer(user.getUuid()).map(player -> this.contextManager.getApplicableContexts(player));
+    }
+
+    /**
+     * Checks a permission for the given player, in the same way as a platform
+     * permission check.
+     *
+     * @param player the player
+     * @param permission the permission
+     * @return the result
+     */
+    public Tristate getPermissionValue(HeadlessPlayer player, String permission) {
+        User user = this.userManager.getIfLoaded(player.getUniqueId());
+        if (user == null) {
+            return Tristate.UNDEFINED;
+        }
+        return user.getCachedData().getPermissionData(this.contextManager.getApplicableContexts(player)).getPermissionValue(permission, CheckOrigin.PLATFORM_PERMISSION_CHECK);
+    }
+
+    @Override
+    public Stream<Sender> getOnlineSenders() {
+        return Stream.concat(
+                Stream.of(getConsoleSender()),
+                this.bootstrap.getPlayers().map(p -> this.senderFactory.wrap(p))
+        );
+    }
+
+    @Override
+    public Sender getConsoleSender() {
+        return this.senderFactory.wrap(this.bootstrap.getConsole());
+    }
+
+    public HeadlessSenderFactory getSenderFactory() {
+        return this.senderFactory;
+    }
+
+    @Override
+    public HeadlessConnectionListener getConnectionListener() {
+        return this.connectionListener;
+    }
+
+    @Override
+    public CommandManager getCommandManager() {
+        return this.commandManager;
+    }
+
+    @Override
+    public StandardUserManager getUserManager() {
+        return this.userManager;
+    }
+
+    @Override
+    public StandardGroupManager getGroupManager() {
+        return this.groupManager;
+    }
+
+    @Override
+    public StandardTrackManager getTrackManager() {
+        return this.trackManager;
+    }
+
+    @Override
+    public ContextManager<HeadlessPlayer> getContextManager() {
+        return this.contextManager;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import me.lucko.luckperms.api.Tristate;
+import me.lucko.luckperms.common.command.CommandManager;
+import me.lucko.luckperms.common.sender.SenderFactory;
+import me.lucko.luckperms.common.utils.TextUtils;
+
+import net.kyori.text.Component;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+public class HeadlessSenderFactory extends SenderFactory<HeadlessPlayer> {
+    private static final Pattern STRIP_COLOR_PATTERN = Pattern.compile("(?i)[" + CommandManager.SECTION_CHAR + "&][0-9A-FK-OR]");
+
+    private final HeadlessPlugin plugin;
+
+    public HeadlessSenderFactory(HeadlessPlugin plugin) {
+        super(plugin);
+        this.plugin = plugin;
+    }
+
+    private boolean isConsole(HeadlessPlayer player) {
+        return player == this.plugin.getBootstrap().getConsole();
+    }
+
+    @Override
+    protected UUID getUuid(HeadlessPlayer player) {
+        return player.getUniqueId();
+    }
+
+    @Override
+    protected String getName(HeadlessPlayer player) {
+        return player.getUsername();
+    }
+
+    @Override
+    protected void sendMessage(HeadlessPlayer player, String s) {
+        // messages sent to simulated players are discarded
+        if (isConsole(player)) {
+            for (String line : s.split("\n")) {
+                this.plugin.getLogger().info(STRIP_COLOR_PATTERN.matcher(line).replaceAll(""));
+            }
+        }
+    }
+
+    @Override
+    protected void sendMessage(HeadlessPlayer player, Component message) {
+        if (isConsole(player)) {
+            sendMessage(player, TextUtils.toLegacy(message));
+        }
+    }
+
+    @Override
+    protected Tristate getPermissionValue(HeadlessPlayer player, String node) {
+        if (isConsole(player)) {
+            return Tristate.TRUE;
+        }
+
+        return this.plugin.getPermissionValue(player, node);
+    }
+
+    @Override
+    protected boolean hasPermission(HeadlessPlayer player, String node) {
+        return getPermissionValue(player, node).asBoolean();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.headless;
+
+import me.lucko.luckperms.api.messenger.IncomingMessageConsumer;
+import me.lucko.luckperms.api.messenger.Messenger;
+import me.lucko.luckperms.api.messenger.message.OutgoingMessage;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An implementation of {@link Messenger} which delivers messages to the other
+ * servers in a {@link HeadlessNetwork}.
+ */
+public class LocalMessenger implements Messenger {
+    private final HeadlessPlugin plugin;
+    private final HeadlessNetwork network;
+    private final IncomingMessageConsumer consumer;
+
+    public LocalMessenger(HeadlessPlugin plugin, HeadlessNetwork network, IncomingMessageConsumer consumer) {
+        this.plugin = plugin;
+        this.network = network;
+        this.consumer = consumer;
+    }
+
+    public void init() {
+        this.network.register(this);
+    }
+
+    @Override
+    public void close() {
+        this.network.unregister(this);
+    }
+
+    @Override
+    public void sendOutgoingMessage(@Nonnull OutgoingMessage outgoingMessage) {
+        this.network.publish(this, outgoingMessage.asEncodedString());
+    }
+
+    void receive(String message) {
+        // deliver asynchronously, as a real messaging service would
+        this.plugin.getBootstrap().getScheduler().executeAsync(() -> this.consumer.consumeIncomingMessageAsString(message));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.load;
+
+import me.lucko.luckperms.common.metrics.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency of each operation performed by a {@link LoadTest}.
+ *
+ * <p>Results are recorded twice: for the current reporting interval, and for
+ * the whole measurement period, which starts after the warmup.</p>
+ */
+final class LoadRecorder {
+
+    /** The results for the current interval */
+    private volatile Results interval = new Results();
+
+    /** The results since measurement started, or null during the warmup */
+    private volatile Results total = null;
+
+    void record(Operation operation, long nanos) {
+        this.interval.get(operation).latency.record(nanos);
+        Results total = this.total;
+        if (total != null) {
+            total.get(operation).latency.record(nanos);
+        }
+    }
+
+    void error(Operation operation) {
+        this.interval.get(operation).errors.increment();
+        Results total = this.total;
+        if (total != null) {
+            total.get(operation).errors.increment();
+        }
+    }
+
+    void startMeasurement() {
+        this.total = new Results();
+    }
+
+    Results getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Starts a new interval, and returns the results from the previous one.
+     *
+     * @return the results of the interval which just ended
+     */
+    Results nextInterval() {
+        Results results = this.interval;
+        this.interval = new Results();
+        return results;
+    }
+
+    static final class Results {
+        private final long startTime = System.nanoTime();
+        private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+        private Results() {
+            for (Operation operation : Operation.values()) {
+                this.stats.put(operation, new Stats());
+            }
+        }
+
+        Stats get(Operation operation) {
+            return this.stats.get(operation);
+        }
+
+        long getStartTime() {
+            return this.startTime;
+        }
+    }
+
+    static final class Stats {
+        private final Histogram latency = Histogram.create();
+        private final LongAdder errors = new LongAdder();
+
+        Histogram getLatency() {
+            return this.latency;
+        }
+
+        long getErrors() {
+            return this.errors.sum();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.load;
+
+import me.lucko.luckperms.api.event.cause.CreationCause;
+import me.lucko.luckperms.benchmarks.data.BenchmarkEnvironment;
+import me.lucko.luckperms.benchmarks.data.SyntheticDataset;
+import me.lucko.luckperms.benchmarks.headless.HeadlessBootstrap;
+import me.lucko.luckperms.benchmarks.headless.HeadlessNetwork;
+import me.lucko.luckperms.common.metrics.Histogram;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.factory.NodeFactory;
+import me.lucko.luckperms.common.storage.Storage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a simulated network of servers under a synthetic load, and reports
+ * the throughput and latency of each operation, and the allocation rate.
+ *
+ * <p>See {@link LoadTestOptions} for the available options, and
+ * {@link Simulation} for the load generated.</p>
+ */
+public final class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            LoadTestOptions.printUsage(System.err);
+            System.exit(2);
+            return;
+        }
+
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private final LoadTestOptions options;
+    private final LoadRecorder recorder = new LoadRecorder();
+    private final List<Logger> loggers = new ArrayList<>();
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    private void run() throws InterruptedException {
+        HeadlessNetwork network = new HeadlessNetwork(BenchmarkEnvironment.prepareDirectory("load-test"));
+
+        Map<String, Object> serverOptions = new HashMap<>();
+        serverOptions.put("storage-method", this.options.storage);
+        serverOptions.put("data.compact_schema", this.options.compactSchema);
+        serverOptions.put("watch-files", false);
+        serverOptions.put("metrics.enabled", true);
+        serverOptions.put("metrics.jmx", false);
+
+        try {
+            // start one server and populate the storage, then start the rest,
+            // so they load the data in the same way as on startup
+            log("Starting server0 with " + this.options.storage + " storage...");
+            HeadlessBootstrap first = startServer(network, "server0", serverOptions);
+            List<String> groups = populate(first.getPlugin().getStorage());
+
+            for (int i = 1; i < this.options.servers; i++) {
+                log("Starting server" + i + "...");
+                startServer(network, "server" + i, serverOptions);
+            }
+
+            // only show warnings from the servers from now on
+            this.loggers.forEach(logger -> logger.setLevel(Level.WARNING));
+
+            SyntheticDataset dataset = new SyntheticDataset(this.options.inheritanceDepth, 0, this.options.contexts, this.options.wildcardRatio);
+            String[] permissions = dataset.randomPermissions(4096).toArray(new String[0]);
+
+            log("Joining " + (int) (this.options.players * this.options.onlineRatio) + " players...");
+            Simulation simulation = new Simulation(this.options, network.getServers(), groups, permissions, this.recorder);
+            simulation.start();
+
+            runPhase("warmup", this.options.warmup, simulation);
+
+            this.recorder.startMeasurement();
+            Snapshot before = new Snapshot(simulation);
+            runPhase("measure", this.options.duration, simulation);
+            Snapshot after = new Snapshot(simulation);
+
+            simulation.stop();
+            report(network, before, after);
+        } finally {
+            log("Stopping servers...");
+            this.loggers.forEach(logger -> logger.setLevel(Level.INFO));
+            network.stop();
+        }
+    }
+
+    private HeadlessBootstrap startServer(HeadlessNetwork network, String name, Map<String, Object> options) {
+        // keep a reference to the logger, so changes to its level stick
+        this.loggers.add(Logger.getLogger(name));
+        return network.startServer(name, options);
+    }
+
+    private List<String> populate(Storage storage) {
+        long start = System.nanoTime();
+        SyntheticDataset dataset = new SyntheticDataset(this.options.inheritanceDepth, this.options.groupNodes, this.options.contexts, this.options.wildcardRatio);
+
+        List<Group> groups = new ArrayList<>();
+        List<Group> leaves = dataset.createGroups(name -> {
+            Group group = storage.createAndLoadGroup(name, CreationCause.INTERNAL).join();
+            groups.add(group);
+            return group;
+        }, this.options.groupChains);
+        CompletableFuture.allOf(groups.stream().map(storage::saveGroup).toArray(CompletableFuture<?>[]::new)).join();
+
+        Random random = new Random(42L);
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        for (int i = 0; i < this.options.players; i++) {
+            User user = storage.loadUser(Simulation.playerUuid(i), Simulation.playerName(i)).join();
+            dataset.populate(user, this.options.userNodes);
+            user.setPermission(NodeFactory.buildGroupNode(leaves.get(random.nextInt(leaves.size())).getName()).build());
+            saves.add(storage.saveUser(user));
+        }
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).join();
+
+        log("Created " + groups.size() + " groups and " + this.options.players + " users in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+
+        List<String> names = new ArrayList<>(groups.size());
+        groups.forEach(g -> names.add(g.getName()));
+        return names;
+    }
+
+    private void runPhase(String name, int seconds, Simulation simulation) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        this.recorder.nextInterval();
+        while (true) {
+            long remaining = end - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.SECONDS.toNanos(this.options.reportInterval)));
+            LoadRecorder.Results results = this.recorder.nextInterval();
+            double elapsed = (System.nanoTime() - results.getStartTime()) / 1e9;
+
+            StringBuilder sb = new StringBuilder("[" + name + "] online " + simulation.getOnline());
+            for (Operation operation : Operation.values()) {
+                Histogram latency = results.get(operation).getLatency();
+                if (latency.getCount() == 0) {
+                    continue;
+                }
+                sb.append(" | ").append(operation.getDescription()).append(' ')
+                        .append(String.format("%.0f/s", latency.getCount() / elapsed))
+                        .append(" p99 ").append(formatNanos(latency.getValueAtQuantile(0.99)));
+            }
+            log(sb.toString());
+        }
+    }
+
+    private void report(HeadlessNetwork network, Snapshot before, Snapshot after) {
+        LoadRecorder.Results results = this.recorder.getTotal();
+        double elapsed = (after.time - before.time) / 1e9;
+
+        System.out.println();
+        System.out.println(String.format("Results: %d servers, %s storage, %d players, %.1fs measured", this.options.servers, this.options.storage, this.options.players, elapsed));
+        System.out.println();
+        System.out.println(String.format("%-18s %10s %10s %7s %10s %10s %10s %10s %10s", "operation", "count", "ops/s", "errors", "p50", "p90", "p99", "p99.9", "max"));
+        for (Operation operation : Operation.values()) {
+            LoadRecorder.Stats stats = results.get(operation);
+            Histogram latency = stats.getLatency();
+            System.out.println(String.format("%-18s %10d %10.1f %7d %10s %10s %10s %10s %10s",
+                    operation.getDescription(),
+                    latency.getCount(),
+                    latency.getCount() / elapsed,
+                    stats.getErrors(),
+                    formatNanos(latency.getValueAtQuantile(0.5)),
+                    formatNanos(latency.getValueAtQuantile(0.9)),
+                    formatNanos(latency.getValueAtQuantile(0.99)),
+                    formatNanos(latency.getValueAtQuantile(0.999)),
+                    formatNanos(latency.getValueAtQuantile(1.0))
+            ));
+        }
+        System.out.println();
+
+        long checks = results.get(Operation.CHECK).getLatency().getCount();
+        if (this.options.checkRate > 0 && checks / elapsed < this.options.checkRate * 0.95) {
+            System.out.println(String.format("note: permission checks fell behind the target rate of %d/s, so their latency includes time spent behind schedule", this.options.checkRate));
+            System.out.println();
+        }
+
+        if (before.checkWorkerAllocated >= 0) {
+            long checkBytes = after.checkWorkerAllocated - before.checkWorkerAllocated;
+            System.out.println(String.format("allocation: check threads %s/s (%d bytes/check), all threads %s/s",
+                    formatBytes(checkBytes / elapsed),
+                    checks == 0 ? 0 : checkBytes / checks,
+                    formatBytes((after.allocated - before.allocated) / elapsed)
+            ));
+        } else {
+            System.out.println("allocation: not supported by this JVM");
+        }
+        System.out.println(String.format("gc: %d collections, %dms", after.gcCount - before.gcCount, after.gcTime - before.gcTime));
+
+        long sent = 0;
+        long received = 0;
+        for (HeadlessBootstrap server : network.getServers()) {
+            for (MetricsRegistry.Metric metric : server.getPlugin().getMetrics().getMetrics()) {
+                if (metric.getName().equals("luckperms_messages_sent_total")) {
+                    sent += metric.getCounter().get();
+                } else if (metric.getName().equals("luckperms_messages_received_total")) {
+                    received += metric.getCounter().get();
+                }
+            }
+        }
+        System.out.println(String.format("messaging: %d sent, %d received", sent, received));
+        System.out.println();
+    }
+
+    private static void log(String message) {
+        System.out.println("[LoadTest] " + message);
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + "ns";
+        }
+        if (nanos < 1000_000) {
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        if (nanos < 1000_000_000) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+
+    private static String formatBytes(double bytes) {
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1fKB", bytes / 1024);
+        }
+        return String.format("%.1fMB", bytes / (1024 * 1024));
+    }
+
+    /**
+     * Counters sampled at the start and end of the measurement period.
+     */
+    private static final class Snapshot {
+        private final long time = System.nanoTime();
+
+        /** Bytes allocated by threads which are currently alive, or -1 if unsupported */
+        private final long allocated;
+
+        /** Bytes allocated by the check worker threads, or -1 if unsupported */
+        private final long checkWorkerAllocated;
+
+        private final long gcCount;
+        private final long gcTime;
+
+        Snapshot(Simulation simulation) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+                com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+                this.allocated = sum(sunThreads.getThreadAllocatedBytes(sunThreads.getAllThreadIds()));
+                this.checkWorkerAllocated = sum(sunThreads.getThreadAllocatedBytes(simulation.getCheckWorkerIds()));
+            } else {
+                this.allocated = -1;
+                this.checkWorkerAllocated = -1;
+            }
+
+            long gcCount = 0;
+            long gcTime = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcTime += Math.max(0, gc.getCollectionTime());
+            }
+            this.gcCount = gcCount;
+            this.gcTime = gcTime;
+        }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long value : values) {
+                if (value > 0) {
+                    sum += value;
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.load;
+
+import java.io.PrintStream;
+
+/**
+ * The options for a {@link LoadTest}, given as "--name=value" arguments.
+ */
+public final class LoadTestOptions {
+
+    // network
+    int servers = 3;
+    String storage = "h2";
+    boolean compactSchema = false;
+
+    // players
+    int players = 2000;
+    double onlineRatio = 0.5;
+    int connectionThreads = 8;
+
+    // data
+    int groupChains = 5;
+    int inheritanceDepth = 3;
+    int groupNodes = 100;
+    int userNodes = 10;
+    int contexts = 8;
+    double wildcardRatio = 0.1;
+
+    // load, in operations per second
+    int checkRate = 10000;
+    int checkThreads = 4;
+    double joinRate = 20;
+    double worldChangeRate = 50;
+    double editRate = 0.2;
+
+    // timings, in seconds
+    int warmup = 10;
+    int duration = 60;
+    int reportInterval = 10;
+
+    /**
+     * Parses the given arguments.
+     *
+     * @param args the arguments
+     * @return the options
+     * @throws IllegalArgumentException if an argument is invalid
+     */
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') == -1) {
+                throw new IllegalArgumentException("Invalid argument: " + arg);
+            }
+
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            try {
+                options.set(name, value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+            }
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "servers": this.servers = Integer.parseInt(value); break;
+            case "storage": this.storage = value.toLowerCase(); break;
+            case "compact-schema": this.compactSchema = Boolean.parseBoolean(value); break;
+            case "players": this.players = Integer.parseInt(value); break;
+            case "online-ratio": this.onlineRatio = Double.parseDouble(value); break;
+            case "connection-threads": this.connectionThreads = Integer.parseInt(value); break;
+            case "group-chains": this.groupChains = Integer.parseInt(value); break;
+            case "inheritance-depth": this.inheritanceDepth = Integer.parseInt(value); break;
+            case "group-nodes": this.groupNodes = Integer.parseInt(value); break;
+            case "user-nodes": this.userNodes = Integer.parseInt(value); break;
+            case "contexts": this.contexts = Integer.parseInt(value); break;
+            case "wildcard-ratio": this.wildcardRatio = Double.parseDouble(value); break;
+            case "check-rate": this.checkRate = Integer.parseInt(value); break;
+            case "check-threads": this.checkThreads = Integer.parseInt(value); break;
+            case "join-rate": this.joinRate = Double.parseDouble(value); break;
+            case "world-change-rate": this.worldChangeRate = Double.parseDouble(value); break;
+            case "edit-rate": this.editRate = Double.parseDouble(value); break;
+            case "warmup": this.warmup = Integer.parseInt(value); break;
+            case "duration": this.duration = Integer.parseInt(value); break;
+            case "report-interval": this.reportInterval = Integer.parseInt(value); break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    public static void printUsage(PrintStream out) {
+        LoadTestOptions d = new LoadTestOptions();
+        out.println("Usage: LoadTest [--option=value...]");
+        out.println();
+        out.println("  --servers=" + d.servers + "               number of servers in the network");
+        out.println("  --storage=" + d.storage + "              shared storage method (h2, sqlite, yaml, json, ...)");
+        out.println("  --compact-schema=" + d.compactSchema + "   use the compact SQL schema");
+        out.println("  --players=" + d.players + "            number of distinct players");
+        out.println("  --online-ratio=" + d.onlineRatio + "        proportion of players online at once");
+        out.println("  --connection-threads=" + d.connectionThreads + "    threads used for joins, quits and edits");
+        out.println("  --group-chains=" + d.groupChains + "          number of group inheritance chains");
+        out.println("  --inheritance-depth=" + d.inheritanceDepth + "     number of groups in each chain");
+        out.println("  --group-nodes=" + d.groupNodes + "         nodes per group");
+        out.println("  --user-nodes=" + d.userNodes + "           nodes per user");
+        out.println("  --contexts=" + d.contexts + "             number of worlds nodes are set in");
+        out.println("  --wildcard-ratio=" + d.wildcardRatio + "      proportion of nodes which are wildcards");
+        out.println("  --check-rate=" + d.checkRate + "        permission checks per second, or 0 for no limit");
+        out.println("  --check-threads=" + d.checkThreads + "         threads performing permission checks");
+        out.println("  --join-rate=" + d.joinRate + "          players leaving and joining per second");
+        out.println("  --world-change-rate=" + d.worldChangeRate + "  world changes per second");
+        out.println("  --edit-rate=" + d.editRate + "           admin edits per second");
+        out.println("  --warmup=" + d.warmup + "              seconds before measurement starts");
+        out.println("  --duration=" + d.duration + "            seconds to measure for");
+        out.println("  --report-interval=" + d.reportInterval + "     seconds between progress reports");
+    }
+
+    private LoadTestOptions() {
+
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.load;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import me.lucko.luckperms.api.LocalizedNode;
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.benchmarks.headless.HeadlessBootstrap;
+import me.lucko.luckperms.benchmarks.headless.HeadlessPlayer;
+import me.lucko.luckperms.benchmarks.headless.HeadlessPlugin;
+import me.lucko.luckperms.common.model.Group;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulates players and admins on a network of {@link HeadlessBootstrap}s.
+ *
+ * <ul>
+ *     <li>Permission checks are made for random online players by a number
+ *     of worker threads, at a fixed total rate.</li>
+ *     <li>Players leave, and others join a random server, at a fixed rate,
+ *     keeping the number of players online roughly constant.</li>
+ *     <li>Players change world at a fixed rate, followed by a permission
+ *     check in the new context.</li>
+ *     <li>Admins edit group permissions using commands on random servers,
+ *     which push updates to the other servers.</li>
+ * </ul>
+ */
+final class Simulation {
+    private static final int TICKS_PER_SECOND = 10;
+
+    /** Marks a player who is in the process of joining or leaving */
+    private static final Session PENDING = new Session(null, null);
+
+    private final LoadTestOptions options;
+    private final List<HeadlessBootstrap> servers;
+    private final List<String> groups;
+    private final String[] permissions;
+    private final LoadRecorder recorder;
+
+    /** The session of each player, by player index, or null if they are offline */
+    private final AtomicReferenceArray<Session> sessions;
+    private final AtomicInteger online = new AtomicInteger();
+
+    private final ExecutorService connectionExecutor;
+    private final ScheduledExecutorService ticker;
+    private final List<Thread> checkWorkers = new ArrayList<>();
+    private volatile boolean running = false;
+
+    // operations which are due, but haven't been started yet. only accessed by the ticker
+    private double joinsDue = 0;
+    private double worldChangesDue = 0;
+    private double editsDue = 0;
+
+    Simulation(LoadTestOptions options, List<HeadlessBootstrap> servers, List<String> groups, String[] permissions, LoadRecorder recorder) {
+        this.options = options;
+        this.servers = ImmutableList.copyOf(servers);
+        this.groups = ImmutableList.copyOf(groups);
+        this.permissions = permissions;
+        this.recorder = recorder;
+        this.sessions = new AtomicReferenceArray<>(options.players);
+        this.connectionExecutor = Executors.newFixedThreadPool(options.connectionThreads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("load-connection-%d").build());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("load-ticker").build());
+    }
+
+    static UUID playerUuid(int index) {
+        return new UUID(0, index);
+    }
+
+    static String playerName(int index) {
+        return "player" + index;
+    }
+
+    /**
+     * Joins the initial players, then starts generating load.
+     */
+    void start() {
+        int initial = (int) (this.options.players * this.options.onlineRatio);
+        List<CompletableFuture<?>> joins = new ArrayList<>(initial);
+        for (int i = 0; i < initial; i++) {
+            int index = i;
+            this.sessions.set(index, PENDING);
+            joins.add(CompletableFuture.runAsync(() -> join(index), this.connectionExecutor));
+        }
+        CompletableFuture.allOf(joins.toArray(new CompletableFuture<?>[0])).join();
+
+        this.running = true;
+        for (int i = 0; i < this.options.checkThreads; i++) {
+            Thread thread = new Thread(this::runChecks, "load-check-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            this.checkWorkers.add(thread);
+        }
+        this.ticker.scheduleAtFixedRate(this::tick, 0, 1000 / TICKS_PER_SECOND, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        this.running = false;
+        this.ticker.shutdownNow();
+        for (Thread thread : this.checkWorkers) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        this.connectionExecutor.shutdown();
+        try {
+            this.connectionExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int getOnline() {
+        return this.online.get();
+    }
+
+    long[] getCheckWorkerIds() {
+        return this.checkWorkers.stream().mapToLong(Thread::getId).toArray();
+    }
+
+    private Session randomSession(ThreadLocalRandom random) {
+        for (int attempt = 0; attempt < 16; attempt++) {
+            Session session = this.sessions.get(random.nextInt(this.options.players));
+            if (session != null && session != PENDING) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    private String randomWorld(ThreadLocalRandom random) {
+        // the worlds used by SyntheticDataset
+        return "world" + (1 + random.nextInt(this.options.contexts));
+    }
+
+    private void runChecks() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        // the time between checks for this thread, or 0 if there's no limit
+        long interval = this.options.checkRate <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) * this.options.checkThreads / this.options.checkRate;
+        long next = System.nanoTime();
+
+        while (this.running) {
+            long start;
+            if (interval != 0) {
+                next += interval;
+                long delay = next - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+
+                // measure from when the check should have started, so time spent
+                // behind schedule is counted (coordinated omission)
+                start = next;
+            } else {
+                start = System.nanoTime();
+            }
+
+            Session session = randomSession(random);
+            if (session == null) {
+                continue;
+            }
+
+            try {
+                session.server.getPlugin().getPermissionValue(session.player, this.permissions[random.nextInt(this.permissions.length)]);
+                this.recorder.record(Operation.CHECK, System.nanoTime() - start);
+            } catch (Exception e) {
+                this.recorder.error(Operation.CHECK);
+            }
+        }
+    }
+
+    private void tick() {
+        this.joinsDue += this.options.joinRate / TICKS_PER_SECOND;
+        this.worldChangesDue += this.options.worldChangeRate / TICKS_PER_SECOND;
+        this.editsDue += this.options.editRate / TICKS_PER_SECOND;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (; this.joinsDue >= 1; this.joinsDue--) {
+            churn(random);
+        }
+        for (; this.worldChangesDue >= 1; this.worldChangesDue--) {
+            this.connectionExecutor.execute(this::changeWorld);
+        }
+        for (; this.editsDue >= 1; this.editsDue--) {
+            this.connectionExecutor.execute(this::edit);
+        }
+    }
+
+    /**
+     * Makes a random online player leave, and a random offline player join.
+     *
+     * @param random the random instance
+     */
+    private void churn(ThreadLocalRandom random) {
+        for (int attempt = 0; attempt < 16; attempt++) {
+            int index = random.nextInt(this.options.players);
+            Session session = this.sessions.get(index);
+            if (session != null && session != PENDING && this.sessions.compareAndSet(index, session, PENDING)) {
+                this.connectionExecutor.execute(() -> quit(index, session));
+                break;
+            }
+        }
+
+        for (int attempt = 0; attempt < 16; attempt++) {
+            int index = random.nextInt(this.options.players);
+            if (this.sessions.compareAndSet(index, null, PENDING)) {
+                this.connectionExecutor.execute(() -> join(index));
+                break;
+            }
+        }
+    }
+
+    private void join(int index) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HeadlessBootstrap server = this.servers.get(random.nextInt(this.servers.size()));
+        HeadlessPlayer player = new HeadlessPlayer(playerUuid(index), playerName(index), randomWorld(random));
+
+        long start = System.nanoTime();
+        try {
+            server.getPlugin().getConnectionListener().join(player);
+            this.recorder.record(Operation.JOIN, System.nanoTime() - start);
+            this.sessions.set(index, new Session(server, player));
+            this.online.incrementAndGet();
+        } catch (Exception e) {
+            this.recorder.error(Operation.JOIN);
+            this.sessions.set(index, null);
+        }
+    }
+
+    private void quit(int index, Session session) {
+        this.online.decrementAndGet();
+
+        long start = System.nanoTime();
+        try {
+            session.server.getPlugin().getConnectionListener().quit(session.player);
+            this.recorder.record(Operation.QUIT, System.nanoTime() - start);
+        } catch (Exception e) {
+            this.recorder.error(Operation.QUIT);
+        } finally {
+            this.sessions.set(index, null);
+        }
+    }
+
+    private void changeWorld() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Session session = randomSession(random);
+        if (session == null) {
+            return;
+        }
+
+        HeadlessPlugin plugin = session.server.getPlugin();
+        long start = System.nanoTime();
+        try {
+            // what a platform listener does when a player changes world,
+            // followed by the first check in the new world
+            session.player.setWorld(randomWorld(random));
+            plugin.getContextManager().invalidateCache(session.player);
+            plugin.getPermissionValue(session.player, this.permissions[random.nextInt(this.permissions.length)]);
+            this.recorder.record(Operation.WORLD_CHANGE, System.nanoTime() - start);
+        } catch (Exception e) {
+            this.recorder.error(Operation.WORLD_CHANGE);
+        }
+    }
+
+    private void edit() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HeadlessPlugin plugin = this.servers.get(random.nextInt(this.servers.size())).getPlugin();
+        String group = this.groups.get(random.nextInt(this.groups.size()));
+
+        // either unset one of the groups existing permissions, or set a new one
+        List<String> args = new ArrayList<>();
+        Node existing = random.nextBoolean() ? randomPermissionNode(plugin, group, random) : null;
+        if (existing != null) {
+            args.addAll(ImmutableList.of("group", group, "permission", "unset", existing.getPermission()));
+            existing.getFullContexts().toSet().forEach(e -> args.add(e.getKey() + "=" + e.getValue()));
+        } else {
+            String permission = this.permissions[random.nextInt(this.permissions.length)];
+            args.addAll(ImmutableList.of("group", group, "permission", "set", permission, Boolean.toString(random.nextBoolean()), "world=" + randomWorld(random)));
+        }
+
+        long start = System.nanoTime();
+        try {
+            plugin.getCommandManager().onCommand(plugin.getConsoleSender(), "lp", args).join();
+            this.recorder.record(Operation.EDIT, System.nanoTime() - start);
+        } catch (Exception e) {
+            this.recorder.error(Operation.EDIT);
+        }
+    }
+
+    private static Node randomPermissionNode(HeadlessPlugin plugin, String groupName, ThreadLocalRandom random) {
+        Group group = plugin.getGroupManager().getIfLoaded(groupName);
+        if (group == null) {
+            return null;
+        }
+
+        List<LocalizedNode> nodes = group.getOwnNodes();
+        if (nodes.isEmpty()) {
+            return null;
+        }
+
+        Node node = nodes.get(random.nextInt(nodes.size()));
+        return node.isGroupNode() || node.isTemporary() ? null : node;
+    }
+
+    private static final class Session {
+        private final HeadlessBootstrap server;
+        private final HeadlessPlayer player;
+
+        private Session(HeadlessBootstrap server, HeadlessPlayer player) {
+            this.server = server;
+            this.player = player;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.model;
+
+import me.lucko.luckperms.api.Contexts;
+import me.lucko.luckperms.api.LocalizedNode;
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.api.context.ImmutableContextSet;
+import me.lucko.luckperms.benchmarks.data.BenchmarkEnvironment;
+import me.lucko.luckperms.benchmarks.data.SyntheticDataset;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks resolving a users inherited data, which is done each time their
+ * cached data is recalculated, and modifying their own nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionHolderBenchmark {
+
+    @Param({"1", "8"})
+    public int inheritanceDepth;
+
+    @Param({"50", "500"})
+    public int nodesPerHolder;
+
+    private BenchmarkEnvironment environment;
+    private User user;
+    private Contexts contexts;
+    private Node[] nodes;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.environment = BenchmarkEnvironment.start("holder");
+        LuckPermsPlugin plugin = this.environment.getPlugin();
+
+        SyntheticDataset dataset = new SyntheticDataset(this.inheritanceDepth, this.nodesPerHolder, 8, 0.1);
+        this.user = dataset.createUser(plugin, dataset.createGroups(plugin, 4));
+        this.contexts = plugin.getContextManager().formContexts(ImmutableContextSet.of("server", "server1", "world", "world1"));
+
+        this.nodes = new Node[256];
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.nodes[i] = dataset.randomNode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.environment.close();
+    }
+
+    @Benchmark
+    public List<LocalizedNode> resolveInheritances() {
+        return this.user.resolveInheritances(this.contexts);
+    }
+
+    @Benchmark
+    public Map<String, Boolean> exportPermissions() {
+        return this.user.exportPermissions(this.contexts, true, true);
+    }
+
+    @Benchmark
+    public Object setAndUnsetPermission() {
+        Node node = this.nodes[this.index++ & (this.nodes.length - 1)];
+        this.user.setPermission(node);
+        return this.user.unsetPermission(node);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.processors;
+
+import me.lucko.luckperms.api.Tristate;
+import me.lucko.luckperms.common.processors.WildcardProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks wildcard lookups, which run for every permission check that
+ * misses the permission map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WildcardProcessorBenchmark {
+
+    @Param({"10", "1000"})
+    public int wildcards;
+
+    @Param({"2", "6"})
+    public int permissionDepth;
+
+    private WildcardProcessor processor;
+    private String[] permissions;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+
+        Map<String, Boolean> source = new HashMap<>();
+        for (int i = 0; i < this.wildcards; i++) {
+            source.put("plugin" + i + "." + random.nextInt(10) + ".*", random.nextBoolean());
+        }
+        this.processor = new WildcardProcessor();
+        this.processor.setSource(source);
+        this.processor.refresh();
+
+        this.permissions = new String[1024];
+        for (int i = 0; i < this.permissions.length; i++) {
+            StringBuilder sb = new StringBuilder("plugin").append(random.nextInt(this.wildcards * 2));
+            for (int j = 1; j < this.permissionDepth; j++) {
+                sb.append('.').append(random.nextInt(10));
+            }
+            this.permissions[i] = sb.toString();
+        }
+    }
+
+    @Benchmark
+    public Tristate hasPermission() {
+        return this.processor.hasPermission(this.permissions[this.index++ & (this.permissions.length - 1)]);
+    }
+
+    @Benchmark
+    public WildcardProcessor refresh() {
+        this.processor.refresh();
+        return this.processor;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.benchmarks.storage;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.api.event.cause.CreationCause;
+import me.lucko.luckperms.benchmarks.data.BenchmarkEnvironment;
+import me.lucko.luckperms.benchmarks.data.SyntheticDataset;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.factory.NodeFactory;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.Storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading and saving holders using the local SQL storage types,
+ * with both the legacy and compact table layouts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlStorageBenchmark {
+    private static final int USERS = 200;
+    private static final int GROUPS = 20;
+
+    @Param({"h2", "sqlite"})
+    public String storageMethod;
+
+    @Param({"false", "true"})
+    public boolean compactSchema;
+
+    @Param({"50"})
+    public int nodesPerHolder;
+
+    private BenchmarkEnvironment environment;
+    private Storage storage;
+    private List<User> users;
+    private List<String> groups;
+    private Node toggledNode;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.environment = BenchmarkEnvironment.start("storage-" + this.storageMethod + (this.compactSchema ? "-compact" : ""), ImmutableMap.of(
+                "storage-method", this.storageMethod,
+                "data.compact_schema", this.compactSchema
+        ));
+        LuckPermsPlugin plugin = this.environment.getPlugin();
+        this.storage = plugin.getStorage();
+
+        SyntheticDataset dataset = new SyntheticDataset(1, this.nodesPerHolder, 8, 0.1);
+
+        this.groups = new ArrayList<>(GROUPS);
+        for (int i = 0; i < GROUPS; i++) {
+            Group group = this.storage.createAndLoadGroup("group" + i, CreationCause.INTERNAL).join();
+            dataset.populate(group);
+            this.storage.saveGroup(group).join();
+            this.groups.add(group.getName());
+        }
+
+        this.users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = this.storage.loadUser(new UUID(0, i), "user" + i).join();
+            dataset.populate(user);
+            user.setPermission(NodeFactory.buildGroupNode(this.groups.get(i % GROUPS)).build());
+            this.storage.saveUser(user).join();
+            this.users.add(user);
+        }
+
+        this.toggledNode = NodeFactory.make("benchmark.toggled");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.environment.close();
+    }
+
+    private int next() {
+        return this.index++;
+    }
+
+    @Benchmark
+    public User loadUser() {
+        User user = this.users.get(next() % USERS);
+        return this.storage.loadUser(user.getUuid(), user.getName().orElse(null)).join();
+    }
+
+    @Benchmark
+    public Optional<Group> loadGroup() {
+        return this.storage.loadGroup(this.groups.get(next() % GROUPS)).join();
+    }
+
+    @Benchmark
+    public User saveUser() {
+        // change one node each time, so there is always something to write
+        User user = this.users.get(next() % USERS);
+        if (!user.setPermission(this.toggledNode).wasSuccess()) {
+            user.unsetPermission(this.toggledNode);
+        }
+        this.storage.saveUser(user).join();
+        return user;
+    }
+}
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.bukkit.listeners;
 
+import me.lucko.luckperms.api.Contexts;
 import me.lucko.luckperms.bukkit.LPBukkitPlugin;
 import me.lucko.luckperms.bukkit.model.permissible.LPPermissible;
 import me.lucko.luckperms.bukkit.model.permissible.PermissibleInjector;
@@ -33,6 +34,7 @@ import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
 
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -43,6 +45,7 @@ import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -58,6 +61,16 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
         this.plugin = plugin;
     }
 
+    @Override
+    protected Contexts predictInitialContexts(UUID uuid) {
+        // most players join into the default world
+        List<World> worlds = this.plugin.getBootstrap().getServer().getWorlds();
+        if (worlds.isEmpty()) {
+            return super.predictInitialContexts(uuid);
+        }
+        return predictContextsInWorld(worlds.get(0).getName());
+    }
+
     @EventHandler(priority = EventPriority.LOW)
     public void onPlayerPreLogin(AsyncPlayerPreLoginEvent e) {
         /* Called when the player first attempts a connection with the server.
@@ -104,6 +117,11 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
         /* Listen to see if the event was cancelled after we initially handled the connection
            If the connection was cancelled here, we need to do something to clean up the data that was loaded. */
 
+        // Stop calculating data for connections which won't go ahead
+        if (e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            cancelPrefetch(e.getUniqueId());
+        }
+
         // Check to see if this connection was denied at LOW.
         if (this.deniedAsyncLogin.remove(e.getUniqueId())) {
             // their data was never loaded at LOW priority, now check to see if they have been magically allowed since then.
@@ -173,6 +191,7 @@ public class BukkitConnectionListener extends AbstractConnectionListener impleme
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent e) {
         final Player player = e.getPlayer();
+        cancelPrefetch(player.getUniqueId());
 
         // Remove the custom permissible
         try {
@@ -43,6 +43,8 @@ import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -84,6 +86,13 @@ public class LPPermissionAttachment extends PermissionAttachment {
      */
     private final Map<String, Boolean> perms = Collections.synchronizedMap(new HashMap<>());
 
+    /**
+     * Changes which haven't been applied to the user yet, guarded by itself.
+     *
+     * A null value indicates the permission was unset.
+     */
+    private final Map<String, Boolean> pendingChanges = new LinkedHashMap<>();
+
     /**
      * If the attachment has been applied to the user
      */
@@ -164,42 +173,68 @@ public class LPPermissionAttachment extends PermissionAttachment {
     public void hook() {
         this.hooked = true;
         this.permissible.lpAttachments.add(this);
-        for (Map.Entry<String, Boolean> entry : this.perms.entrySet()) {
-            if (entry.getKey() == null || entry.getKey().isEmpty()) {
-                continue;
+        synchronized (this.perms) {
+            for (Map.Entry<String, Boolean> entry : this.perms.entrySet()) {
+                if (entry.getKey() == null || entry.getKey().isEmpty()) {
+                    continue;
+                }
+                queueChange(entry.getKey(), entry.getValue());
             }
-            setPermissionInternal(entry.getKey(), entry.getValue());
         }
+        this.permissible.flushAttachments();
     }
 
-    private void setPermissionInternal(String name, boolean value) {
-        if (!this.permissible.getPlugin().getConfiguration().get(ConfigKeys.APPLY_BUKKIT_ATTACHMENT_PERMISSIONS)) {
-            return;
+    private void queueChange(String name, Boolean value) {
+        synchronized (this.pendingChanges) {
+            // re-insert so the change is ordered after any earlier ones
+            this.pendingChanges.remove(name);
+            this.pendingChanges.put(name, value);
         }
+    }
 
-        // construct a node for the permission being set
-        // we use the servers static context to *try* to ensure that the node will apply
-        Node node = NodeFactory.builder(name)
-                .setValue(value)
-                .withExtraContext(this.permissible.getPlugin().getContextManager().getStaticContext())
-                .build();
-
-        // convert the constructed node to a transient node instance to refer back to this attachment
-        ImmutableTransientNode<LPPermissionAttachment> transientNode = ImmutableTransientNode.of(node, this);
-
-        // set the transient node
-        User user = this.permissible.getUser();
-        user.setTransientPermission(transientNode);
+    private void clearPendingChanges() {
+        synchronized (this.pendingChanges) {
+            this.pendingChanges.clear();
+        }
     }
 
-    private void unsetPermissionInternal(String name) {
-        if (!this.permissible.getPlugin().getConfiguration().get(ConfigKeys.APPLY_BUKKIT_ATTACHMENT_PERMISSIONS)) {
+    /**
+     * Drains the changes which haven't been applied to the user yet.
+     *
+     * @param removals the set to add the permissions which should be removed to
+     * @param additions the list to add the transient nodes which should be added to
+     */
+    void drainChanges(Set<String> removals, List<Node> additions) {
+        Map<String, Boolean> changes;
+        synchronized (this.pendingChanges) {
+            if (this.pendingChanges.isEmpty()) {
+                return;
+            }
+            changes = new LinkedHashMap<>(this.pendingChanges);
+            this.pendingChanges.clear();
+        }
+
+        if (!this.hooked || !this.permissible.getPlugin().getConfiguration().get(ConfigKeys.APPLY_BUKKIT_ATTACHMENT_PERMISSIONS)) {
             return;
         }
 
-        // remove transient permissions from the holder which were added by this attachment & equal the permission
-        User user = this.permissible.getUser();
-        user.removeIfTransient(LocalizedNode.composedPredicate(n -> n instanceof ImmutableTransientNode && ((ImmutableTransientNode) n).getOwner() == this && n.getPermission().equals(name)));
+        for (Map.Entry<String, Boolean> change : changes.entrySet()) {
+            // always remove any existing node for the permission, then add the new one (if set)
+            removals.add(change.getKey());
+            if (change.getValue() == null) {
+                continue;
+            }
+
+            // construct a node for the permission being set
+            // we use the servers static context to *try* to ensure that the node will apply
+            Node node = NodeFactory.builder(change.getKey())
+                    .setValue(change.getValue())
+                    .withExtraContext(this.permissible.getPlugin().getContextManager().getStaticContext())
+                    .build();
+
+            // convert the constructed node to a transient node instance to refer back to this attachment
+            additions.add(ImmutableTransientNode.of(node, this));
+        }
     }
 
     private void clearInternal() {
@@ -215,6 +250,7 @@ public class LPPermissionAttachment extends PermissionAttachment {
         }
 
         // clear the internal permissions
+        clearPendingChanges();
         clearInternal();
 
         // run the callback
@@ -246,11 +282,10 @@ public class LPPermissionAttachment extends PermissionAttachment {
             return;
         }
 
-        if (previous != null) {
-            unsetPermissionInternal(permission);
-        }
-
-        setPermissionInternal(permission, value);
+        // queue the change - it will be applied to the user in a single batch,
+        // either on the next tick or before the next permission check
+        queueChange(permission, value);
+        this.permissible.markAttachmentsDirty();
     }
 
     @Override
@@ -271,7 +306,55 @@ public class LPPermissionAttachment extends PermissionAttachment {
             return;
         }
 
-        unsetPermissionInternal(permission);
+        queueChange(permission, null);
+        this.permissible.markAttachmentsDirty();
+    }
+
+    /**
+     * Sets a number of permissions, applying them to the user in a single batch.
+     *
+     * @param permissions the permissions to set
+     */
+    public void setPermissions(Map<String, Boolean> permissions) {
+        Objects.requireNonNull(permissions, "permissions");
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            String name = entry.getKey();
+            Objects.requireNonNull(name, "name is null");
+            Preconditions.checkArgument(!name.isEmpty(), "name is empty");
+            Objects.requireNonNull(entry.getValue(), "value is null");
+
+            String permission = name.toLowerCase();
+            Boolean previous = this.perms.put(permission, entry.getValue());
+            if (this.hooked && !entry.getValue().equals(previous)) {
+                queueChange(permission, entry.getValue());
+            }
+        }
+
+        if (this.hooked) {
+            this.permissible.flushAttachments();
+        }
+    }
+
+    /**
+     * Unsets a number of permissions, applying the change to the user in a single batch.
+     *
+     * @param permissions the permissions to unset
+     */
+    public void unsetPermissions(Collection<String> permissions) {
+        Objects.requireNonNull(permissions, "permissions");
+        for (String name : permissions) {
+            Objects.requireNonNull(name, "name is null");
+            Preconditions.checkArgument(!name.isEmpty(), "name is empty");
+
+            String permission = name.toLowerCase();
+            if (this.perms.remove(permission) != null && this.hooked) {
+                queueChange(permission, null);
+            }
+        }
+
+        if (this.hooked) {
+            this.permissible.flushAttachments();
+        }
     }
 
     @Override
@@ -348,6 +431,7 @@ public class LPPermissionAttachment extends PermissionAttachment {
         public void clear() {
             // remove the permissions which have already been applied
             if (LPPermissionAttachment.this.hooked) {
+                clearPendingChanges();
                 clearInternal();
             }
 
@@ -41,7 +41,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -70,6 +72,16 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
     private final LoadingCache<String, Map<String, Boolean>> falseChildPermissions = Caffeine.newBuilder()
             .build(new ChildPermissionResolver(false));
 
+    // reverse index from permission --> the cached entries which looked it up whilst being resolved
+    // used to only invalidate the entries affected when a permission is registered
+    private final Map<String, Set<String>> dependents = new ConcurrentHashMap<>();
+
+    // cache from source permission map --> combined children
+    // allows permission processors with identical sources to share the same instance
+    private final LoadingCache<Map<String, Boolean>, Map<String, Boolean>> combinedChildPermissions = Caffeine.newBuilder()
+            .expireAfterAccess(2, TimeUnit.MINUTES)
+            .build(this::resolveCombinedChildren);
+
     /**
      * The plugin instance
      */
@@ -84,9 +96,48 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
         return value ? this.trueChildPermissions.get(permission) : this.falseChildPermissions.get(permission);
     }
 
-    private void update() {
-        this.trueChildPermissions.invalidateAll();
-        this.falseChildPermissions.invalidateAll();
+    /**
+     * Gets the combined child permissions of every permission in the given map.
+     *
+     * <p>The returned map is immutable, and is shared between callers
+     * with equal source maps.</p>
+     *
+     * @param source the source permissions
+     * @return the combined child permissions
+     */
+    public Map<String, Boolean> getChildPermissions(Map<String, Boolean> source) {
+        if (source.isEmpty()) {
+            return ImmutableMap.of();
+        }
+
+        // maps are equal by content, so the source can be looked up as it is
+        Map<String, Boolean> combined = this.combinedChildPermissions.getIfPresent(source);
+        if (combined != null) {
+            return combined;
+        }
+
+        // the source may be mutable, so only a copy can be used as a key
+        return this.combinedChildPermissions.get(source instanceof ImmutableMap ? source : ImmutableMap.copyOf(source));
+    }
+
+    private Map<String, Boolean> resolveCombinedChildren(Map<String, Boolean> source) {
+        Map<String, Boolean> children = new HashMap<>();
+        for (Map.Entry<String, Boolean> e : source.entrySet()) {
+            children.putAll(getChildPermissions(e.getKey(), e.getValue()));
+        }
+        return ImmutableMap.copyOf(children);
+    }
+
+    private void update(String permission) {
+        // only invalidate the entries which depend on the permission
+        Set<String> affected = this.dependents.remove(permission);
+        if (affected == null || affected.isEmpty()) {
+            return;
+        }
+
+        this.trueChildPermissions.invalidateAll(affected);
+        this.falseChildPermissions.invalidateAll(affected);
+        this.combinedChildPermissions.asMap().keySet().removeIf(source -> !Collections.disjoint(source.keySet(), affected));
     }
 
     @Override
@@ -101,7 +152,7 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
 
         this.plugin.getPermissionRegistry().insert(key);
         Permission ret = super.put(key, value);
-        update();
+        update(key);
         return ret;
     }
 
@@ -119,7 +170,9 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
 
         this.plugin.getPermissionRegistry().insert(key);
         Permission ret = super.putIfAbsent(key, value);
-        update();
+        if (ret == null) {
+            update(key);
+        }
         return ret;
     }
 
@@ -130,12 +183,20 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
         if (object == null) {
             return null;
         }
-        return super.remove(object);
+        Permission ret = super.remove(object);
+        if (ret != null) {
+            update((String) object);
+        }
+        return ret;
     }
 
     @Override
     public boolean remove(Object key, Object value) {
-        return key != null && value != null && super.remove(key, value);
+        if (key == null || value == null || !super.remove(key, value)) {
+            return false;
+        }
+        update((String) key);
+        return true;
     }
 
     @Override
@@ -167,13 +228,13 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
         @Override
         public Map<String, Boolean> load(@Nonnull String key) {
             Map<String, Boolean> children = new HashMap<>();
-            resolveChildren(children, Collections.singletonMap(key, this.value), false);
+            resolveChildren(key, children, Collections.singletonMap(key, this.value), false);
             children.remove(key, this.value);
             return ImmutableMap.copyOf(children);
         }
     }
 
-    private void resolveChildren(Map<String, Boolean> accumulator, Map<String, Boolean> children, boolean invert) {
+    private void resolveChildren(String root, Map<String, Boolean> accumulator, Map<String, Boolean> children, boolean invert) {
         // iterate through the current known children.
         // the first time this method is called for a given permission, the children map will contain only the permission itself.
         for (Map.Entry<String, Boolean> e : children.entrySet()) {
@@ -185,10 +246,14 @@ public final class LPPermissionMap extends ForwardingMap<String, Permission> {
             boolean value = e.getValue() ^ invert;
             accumulator.put(e.getKey().toLowerCase(), value);
 
+            // record the dependency before the lookup, so a concurrent registration
+            // of the permission will always invalidate the entry being resolved
+            this.dependents.computeIfAbsent(e.getKey(), k -> ConcurrentHashMap.newKeySet()).add(root);
+
             // lookup any deeper children & resolve if present
             Permission perm = this.delegate.get(e.getKey());
             if (perm != null) {
-                resolveChildren(accumulator, perm.getChildren(), !value);
+                resolveChildren(root, accumulator, perm.getChildren(), !value);
             }
         }
     }
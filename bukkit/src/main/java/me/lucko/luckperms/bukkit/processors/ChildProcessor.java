@@ -32,7 +32,6 @@ import me.lucko.luckperms.common.processors.PermissionProcessor;
 
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Permission Processor for Bukkits "child" permission system.
@@ -52,13 +51,7 @@ public class ChildProcessor extends AbstractPermissionProcessor implements Permi
 
     @Override
     public void refresh() {
-        Map<String, Boolean> builder = new ConcurrentHashMap<>();
-        for (Map.Entry<String, Boolean> e : this.sourceMap.entrySet()) {
-            Map<String, Boolean> children = this.plugin.getPermissionMap().getChildPermissions(e.getKey(), e.getValue());
-            if (children != null) {
-                builder.putAll(children);
-            }
-        }
-        this.childPermissions = builder;
+        // the resolved map is immutable & shared between processors with the same source
+        this.childPermissions = this.plugin.getPermissionMap().getChildPermissions(this.sourceMap);
     }
 }
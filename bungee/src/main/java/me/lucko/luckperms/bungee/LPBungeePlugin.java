@@ -34,6 +34,7 @@ import me.lucko.luckperms.bungee.contexts.RedisBungeeCalculator;
 import me.lucko.luckperms.bungee.listeners.BungeeConnectionListener;
 import me.lucko.luckperms.bungee.listeners.BungeePermissionCheckListener;
 import me.lucko.luckperms.bungee.messaging.BungeeMessagingFactory;
+import me.lucko.luckperms.bungee.model.OnlineUserTable;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
 import me.lucko.luckperms.common.calculators.CalculatorFactory;
 import me.lucko.luckperms.common.command.CommandManager;
@@ -77,6 +78,7 @@ public class LPBungeePlugin extends AbstractLuckPermsPlugin {
     private StandardGroupManager groupManager;
     private StandardTrackManager trackManager;
     private ContextManager<ProxiedPlayer> contextManager;
+    private OnlineUserTable onlineUserTable;
 
     public LPBungeePlugin(LPBungeeBootstrap bootstrap) {
         this.bootstrap = bootstrap;
@@ -104,6 +106,7 @@ public class LPBungeePlugin extends AbstractLuckPermsPlugin {
 
     @Override
     protected void registerPlatformListeners() {
+        this.onlineUserTable = new OnlineUserTable(this);
         this.connectionListener = new BungeeConnectionListener(this);
         this.bootstrap.getProxy().getPluginManager().registerListener(this.bootstrap, this.connectionListener);
         this.bootstrap.getProxy().getPluginManager().registerListener(this.bootstrap, new BungeePermissionCheckListener(this));
@@ -208,6 +211,10 @@ public class LPBungeePlugin extends AbstractLuckPermsPlugin {
         return this.senderFactory;
     }
 
+    public OnlineUserTable getOnlineUserTable() {
+        return this.onlineUserTable;
+    }
+
     @Override
     public AbstractConnectionListener getConnectionListener() {
         return this.connectionListener;
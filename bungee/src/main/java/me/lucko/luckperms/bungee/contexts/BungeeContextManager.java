@@ -44,8 +44,11 @@ public class BungeeContextManager extends ContextManager<ProxiedPlayer> {
             .expireAfterWrite(50, TimeUnit.MILLISECONDS)
             .build(this::calculate);
 
+    private final LPBungeePlugin bungeePlugin;
+
     public BungeeContextManager(LPBungeePlugin plugin) {
         super(plugin, ProxiedPlayer.class);
+        this.bungeePlugin = plugin;
     }
 
     @Override
@@ -70,6 +73,7 @@ public class BungeeContextManager extends ContextManager<ProxiedPlayer> {
     @Override
     public void invalidateCache(ProxiedPlayer subject) {
         this.contextsCache.invalidate(subject);
+        this.bungeePlugin.getOnlineUserTable().invalidateContexts(subject.getUniqueId());
     }
 
     @Override
@@ -37,6 +37,7 @@ import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.event.LoginEvent;
 import net.md_5.bungee.api.event.PlayerDisconnectEvent;
 import net.md_5.bungee.api.event.PostLoginEvent;
+import net.md_5.bungee.api.event.ServerSwitchEvent;
 import net.md_5.bungee.api.plugin.Listener;
 import net.md_5.bungee.event.EventHandler;
 import net.md_5.bungee.event.EventPriority;
@@ -111,7 +112,10 @@ public class BungeeConnectionListener extends AbstractConnectionListener impleme
             this.plugin.getLogger().info("Processing post-login for " + player.getUniqueId() + " - " + player.getName());
         }
 
-        if (user == null) {
+        if (user != null) {
+            // pin the user for fast lookups by the permission check listener
+            this.plugin.getOnlineUserTable().register(player, user);
+        } else {
             if (this.plugin.getConfiguration().get(ConfigKeys.CANCEL_FAILED_LOGINS)) {
                 // disconnect the user
                 this.plugin.getLogger().warn("User " + player.getUniqueId() + " - " + player.getName() + " doesn't have data pre-loaded - cancelling login.");
@@ -129,11 +133,21 @@ public class BungeeConnectionListener extends AbstractConnectionListener impleme
         }
     }
 
+    @EventHandler
+    public void onPlayerServerSwitch(ServerSwitchEvent e) {
+        // the players backend server has changed, so their contexts have too
+        this.plugin.getContextManager().invalidateCache(e.getPlayer());
+    }
+
     // Wait until the last priority to unload, so plugins can still perform permission checks on this event
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerQuit(PlayerDisconnectEvent e) {
         ProxiedPlayer player = e.getPlayer();
 
+        // the player is leaving - stop pinning their user
+        this.plugin.getOnlineUserTable().unregister(player.getUniqueId());
+        cancelPrefetch(player.getUniqueId());
+
         // Register with the housekeeper, so the User's instance will stick
         // around for a bit after they disconnect
         this.plugin.getUserManager().getHouseKeeper().registerUsage(player.getUniqueId());
@@ -30,6 +30,8 @@ import me.lucko.luckperms.api.Tristate;
 import me.lucko.luckperms.api.context.ContextSet;
 import me.lucko.luckperms.bungee.LPBungeePlugin;
 import me.lucko.luckperms.bungee.event.TristateCheckEvent;
+import me.lucko.luckperms.bungee.model.OnlineUserTable;
+import me.lucko.luckperms.common.caching.type.PermissionCache;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.verbose.CheckOrigin;
@@ -49,6 +51,29 @@ public class BungeePermissionCheckListener implements Listener {
         this.plugin = plugin;
     }
 
+    /**
+     * Gets the permission data for the given player in their current contexts.
+     *
+     * @param player the player
+     * @return the permission data, or null if the players data isn't loaded
+     */
+    private PermissionCache getPermissionData(ProxiedPlayer player) {
+        // fast path - the player has a handle pinned in the online user table
+        OnlineUserTable.Handle handle = this.plugin.getOnlineUserTable().get(player.getUniqueId());
+        if (handle != null) {
+            return handle.getPermissionData();
+        }
+
+        // the player hasn't completed the login process yet
+        User user = this.plugin.getUserManager().getIfLoaded(player.getUniqueId());
+        if (user == null) {
+            return null;
+        }
+
+        Contexts contexts = this.plugin.getContextManager().getApplicableContexts(player);
+        return user.getCachedData().getPermissionData(contexts);
+    }
+
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerPermissionCheck(PermissionCheckEvent e) {
         if (!(e.getSender() instanceof ProxiedPlayer)) {
@@ -60,14 +85,13 @@ public class BungeePermissionCheckListener implements Listener {
 
         ProxiedPlayer player = ((ProxiedPlayer) e.getSender());
 
-        User user = this.plugin.getUserManager().getIfLoaded(player.getUniqueId());
-        if (user == null) {
+        PermissionCache permissionData = getPermissionData(player);
+        if (permissionData == null) {
             e.setHasPermission(false);
             return;
         }
 
-        Contexts contexts = this.plugin.getContextManager().getApplicableContexts(player);
-        Tristate result = user.getCachedData().getPermissionData(contexts).getPermissionValue(e.getPermission(), CheckOrigin.PLATFORM_PERMISSION_CHECK);
+        Tristate result = permissionData.getPermissionValue(e.getPermission(), CheckOrigin.PLATFORM_PERMISSION_CHECK);
         if (result == Tristate.UNDEFINED && this.plugin.getConfiguration().get(ConfigKeys.APPLY_BUNGEE_CONFIG_PERMISSIONS)) {
             return; // just use the result provided by the proxy when the event was created
         }
@@ -86,14 +110,13 @@ public class BungeePermissionCheckListener implements Listener {
 
         ProxiedPlayer player = ((ProxiedPlayer) e.getSender());
 
-        User user = this.plugin.getUserManager().getIfLoaded(player.getUniqueId());
-        if (user == null) {
+        PermissionCache permissionData = getPermissionData(player);
+        if (permissionData == null) {
             e.setResult(Tristate.UNDEFINED);
             return;
         }
 
-        Contexts contexts = this.plugin.getContextManager().getApplicableContexts(player);
-        Tristate result = user.getCachedData().getPermissionData(contexts).getPermissionValue(e.getPermission(), CheckOrigin.PLATFORM_LOOKUP_CHECK);
+        Tristate result = permissionData.getPermissionValue(e.getPermission(), CheckOrigin.PLATFORM_LOOKUP_CHECK);
         if (result == Tristate.UNDEFINED && this.plugin.getConfiguration().get(ConfigKeys.APPLY_BUNGEE_CONFIG_PERMISSIONS)) {
             return; // just use the result provided by the proxy when the event was created
         }
@@ -0,0 +1,174 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.bungee.model;
+
+import me.lucko.luckperms.api.Contexts;
+import me.lucko.luckperms.bungee.LPBungeePlugin;
+import me.lucko.luckperms.common.caching.type.PermissionCache;
+import me.lucko.luckperms.common.model.User;
+
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A table of the players currently connected to the proxy, mapping each to a
+ * {@link Handle} which pins their {@link User} and current {@link PermissionCache}.
+ *
+ * <p>This allows permission checks on the proxy to skip the user manager and
+ * cached data lookups, which would otherwise be performed for every check.</p>
+ */
+public class OnlineUserTable {
+
+    /**
+     * How long a resolved {@link Contexts} instance is trusted before it is
+     * recalculated. Matches the expiry used by the context manager.
+     */
+    private static final long CONTEXTS_EXPIRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final LPBungeePlugin plugin;
+    private final Map<UUID, Handle> handles = new ConcurrentHashMap<>();
+
+    public OnlineUserTable(LPBungeePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Registers a handle for the given player.
+     *
+     * @param player the player
+     * @param user the players user instance
+     * @return the new handle
+     */
+    public Handle register(ProxiedPlayer player, User user) {
+        Handle handle = new Handle(player, user);
+        this.handles.put(player.getUniqueId(), handle);
+        return handle;
+    }
+
+    /**
+     * Removes the handle for the given player.
+     *
+     * @param uuid the uuid of the player
+     */
+    public void unregister(UUID uuid) {
+        this.handles.remove(uuid);
+    }
+
+    /**
+     * Gets the handle for a player, or null if one has not been registered.
+     *
+     * @param uuid the uuid of the player
+     * @return the handle
+     */
+    public Handle get(UUID uuid) {
+        return this.handles.get(uuid);
+    }
+
+    /**
+     * Marks the context of the given player as stale, forcing it to be
+     * recalculated on the next check.
+     *
+     * @param uuid the uuid of the player
+     */
+    public void invalidateContexts(UUID uuid) {
+        Handle handle = this.handles.get(uuid);
+        if (handle != null) {
+            handle.snapshot = null;
+        }
+    }
+
+    /**
+     * A per-player handle holding the players resolved {@link User} and
+     * the {@link PermissionCache} for their current {@link Contexts}.
+     */
+    public final class Handle {
+        private final ProxiedPlayer player;
+        private final User user;
+
+        // the current snapshot - null if it has been invalidated
+        private volatile Snapshot snapshot = null;
+
+        private Handle(ProxiedPlayer player, User user) {
+            this.player = Objects.requireNonNull(player, "player");
+            this.user = Objects.requireNonNull(user, "user");
+        }
+
+        public User getUser() {
+            return this.user;
+        }
+
+        /**
+         * Gets the permission data for the players current contexts.
+         *
+         * @return the permission data
+         */
+        public PermissionCache getPermissionData() {
+            Snapshot snapshot = this.snapshot;
+            if (snapshot != null && snapshot.version == this.user.getCachedData().getVersion() && System.nanoTime() - snapshot.expiry < 0) {
+                return snapshot.permissionData;
+            }
+            return refresh(snapshot);
+        }
+
+        private PermissionCache refresh(Snapshot previous) {
+            int version = this.user.getCachedData().getVersion();
+            Contexts contexts = OnlineUserTable.this.plugin.getContextManager().getApplicableContexts(this.player);
+
+            PermissionCache permissionData;
+            if (previous != null && previous.version == version && previous.contexts.equals(contexts)) {
+                // only the expiry has passed - the existing data is still current
+                permissionData = previous.permissionData;
+            } else {
+                permissionData = this.user.getCachedData().getPermissionData(contexts);
+            }
+
+            this.snapshot = new Snapshot(contexts, permissionData, version, System.nanoTime() + CONTEXTS_EXPIRY_NANOS);
+            return permissionData;
+        }
+    }
+
+    /**
+     * An immutable snapshot of a players permission state, published by a {@link Handle}.
+     */
+    private static final class Snapshot {
+        private final Contexts contexts;
+        private final PermissionCache permissionData;
+        private final int version;
+        private final long expiry;
+
+        private Snapshot(Contexts contexts, PermissionCache permissionData, int version, long expiry) {
+            this.contexts = contexts;
+            this.permissionData = permissionData;
+            this.version = version;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import me.lucko.luckperms.common.storage.Storage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A page of entries from the action log.
+ *
+ * <p>Entries are numbered in chronological order, starting from 1 for the
+ * oldest entry matching the query, so the last page holds the most recent
+ * entries. Only the entries on the requested page are read from storage.</p>
+ */
+public final class LogPage {
+
+    /**
+     * Loads a page of entries matching the query from storage.
+     *
+     * <p>This method blocks until the page has been loaded.</p>
+     *
+     * @param storage the storage instance
+     * @param query the query
+     * @param pageNo the page number, or {@link Integer#MIN_VALUE} for the last page
+     * @param entriesPerPage the number of entries on each page
+     * @return the page, or null if it couldn't be loaded
+     */
+    public static LogPage load(Storage storage, LogQuery query, int pageNo, int entriesPerPage) {
+        try {
+            int total = storage.countLogEntries(query).join();
+            int maxPages = (int) Math.ceil((double) total / (double) entriesPerPage);
+            if (pageNo == Integer.MIN_VALUE) {
+                pageNo = maxPages;
+            }
+
+            if (pageNo < 1 || pageNo > maxPages) {
+                return new LogPage(pageNo, maxPages, Collections.emptySortedMap());
+            }
+
+            // storage returns entries newest first, so count back from the end
+            int start = (pageNo - 1) * entriesPerPage;
+            int end = Math.min(start + entriesPerPage, total);
+            List<ExtendedLogEntry> entries = storage.getLogEntries(query, total - end, end - start).join();
+
+            SortedMap<Integer, ExtendedLogEntry> content = new TreeMap<>();
+            for (int i = 0; i < entries.size(); i++) {
+                content.put(end - i, entries.get(i));
+            }
+            return new LogPage(pageNo, maxPages, content);
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private final int pageNo;
+    private final int maxPages;
+    private final SortedMap<Integer, ExtendedLogEntry> content;
+
+    private LogPage(int pageNo, int maxPages, SortedMap<Integer, ExtendedLogEntry> content) {
+        this.pageNo = pageNo;
+        this.maxPages = maxPages;
+        this.content = content;
+    }
+
+    public int getPageNo() {
+        return this.pageNo;
+    }
+
+    public int getMaxPages() {
+        return this.maxPages;
+    }
+
+    /**
+     * Gets the entries on this page, keyed by their number.
+     *
+     * @return the entries
+     */
+    public SortedMap<Integer, ExtendedLogEntry> getContent() {
+        return this.content;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.actionlog;
+
+import com.google.common.base.CharMatcher;
+
+import me.lucko.luckperms.api.LogEntry;
+import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A set of constraints used to select entries from the action log.
+ *
+ * <p>Queries can either be applied to in-memory entries, or converted to SQL
+ * syntax to be executed remotely.</p>
+ */
+public final class LogQuery {
+    private static final LogQuery ALL = builder().build();
+
+    public static LogQuery all() {
+        return ALL;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // the uuid of the actor
+    private final UUID actor;
+
+    // the type of the acted object
+    private final LogEntry.Type type;
+
+    // the uuid of the acted object
+    private final UUID acted;
+
+    // the name of the acted object
+    private final String actedName;
+
+    // the earliest timestamp to include, in seconds
+    private final long after;
+
+    // the latest timestamp to include, in seconds
+    private final long before;
+
+    // a string which the actor name, acted name or action must contain
+    private final String search;
+
+    private LogQuery(Builder builder) {
+        this.actor = builder.actor;
+        this.type = builder.type;
+        this.acted = builder.acted;
+        this.actedName = builder.actedName;
+        this.after = builder.after;
+        this.before = builder.before;
+        this.search = builder.search == null ? null : builder.search.toLowerCase();
+    }
+
+    /**
+     * Returns if the given entry satisfies this query
+     *
+     * @param entry the entry
+     * @return true if satisfied
+     */
+    public boolean matches(ExtendedLogEntry entry) {
+        if (this.actor != null && !entry.getActor().equals(this.actor)) {
+            return false;
+        }
+        if (this.type != null && entry.getType() != this.type) {
+            return false;
+        }
+        if (this.acted != null && !(entry.getActed().isPresent() && entry.getActed().get().equals(this.acted))) {
+            return false;
+        }
+        if (this.actedName != null && !entry.getActedName().equals(this.actedName)) {
+            return false;
+        }
+        if (entry.getTimestamp() < this.after || entry.getTimestamp() > this.before) {
+            return false;
+        }
+        return this.search == null || entry.matchesSearch(this.search);
+    }
+
+    /**
+     * Returns if this query can be converted to SQL syntax.
+     *
+     * <p>Escaping in LIKE expressions isn't consistent between dialects, so
+     * searches for strings containing wildcard or escape characters can't be.</p>
+     *
+     * @return true if {@link #appendSql(PreparedStatementBuilder)} can be used
+     */
+    public boolean isSqlCompatible() {
+        return this.search == null || CharMatcher.anyOf("%_\\").matchesNoneOf(this.search);
+    }
+
+    /**
+     * Appends the constraints of this query to the builder, as a SQL WHERE clause.
+     *
+     * <p>Nothing is appended if the query has no constraints.</p>
+     *
+     * @param builder the builder
+     */
+    public void appendSql(PreparedStatementBuilder builder) {
+        List<Runnable> constraints = new ArrayList<>();
+        if (this.actor != null) {
+            constraints.add(() -> builder.append("actor_uuid = ?").variable(this.actor.toString()));
+        }
+        if (this.type != null) {
+            constraints.add(() -> builder.append("type = ?").variable(Character.toString(this.type.getCode())));
+        }
+        if (this.acted != null) {
+            constraints.add(() -> builder.append("acted_uuid = ?").variable(this.acted.toString()));
+        }
+        if (this.actedName != null) {
+            constraints.add(() -> builder.append("acted_name = ?").variable(this.actedName));
+        }
+        if (this.after != Long.MIN_VALUE) {
+            constraints.add(() -> builder.append("time >= ?").variable(this.after));
+        }
+        if (this.before != Long.MAX_VALUE) {
+            constraints.add(() -> builder.append("time <= ?").variable(this.before));
+        }
+        if (this.search != null) {
+            String pattern = "%" + this.search + "%";
+            constraints.add(() -> builder.append("(LOWER(actor_name) LIKE ? OR LOWER(acted_name) LIKE ? OR LOWER(action) LIKE ?)")
+                    .variable(pattern).variable(pattern).variable(pattern));
+        }
+
+        for (int i = 0; i < constraints.size(); i++) {
+            builder.append(i == 0 ? " WHERE " : " AND ");
+            constraints.get(i).run();
+        }
+    }
+
+    public UUID getActor() {
+        return this.actor;
+    }
+
+    public LogEntry.Type getType() {
+        return this.type;
+    }
+
+    public UUID getActed() {
+        return this.acted;
+    }
+
+    public String getActedName() {
+        return this.actedName;
+    }
+
+    public long getAfter() {
+        return this.after;
+    }
+
+    public long getBefore() {
+        return this.before;
+    }
+
+    public String getSearch() {
+        return this.search;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof LogQuery)) return false;
+        final LogQuery that = (LogQuery) o;
+
+        return Objects.equals(this.actor, that.actor) &&
+                this.type == that.type &&
+                Objects.equals(this.acted, that.acted) &&
+                Objects.equals(this.actedName, that.actedName) &&
+                this.after == that.after &&
+                this.before == that.before &&
+                Objects.equals(this.search, that.search);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.actor, this.type, this.acted, this.actedName, this.after, this.before, this.search);
+    }
+
+    @Override
+    public String toString() {
+        return "LogQuery(" +
+                "actor=" + this.actor + ", " +
+                "type=" + this.type + ", " +
+                "acted=" + this.acted + ", " +
+                "actedName=" + this.actedName + ", " +
+                "after=" + this.after + ", " +
+                "before=" + this.before + ", " +
+                "search=" + this.search + ")";
+    }
+
+    public static final class Builder {
+        private UUID actor = null;
+        private LogEntry.Type type = null;
+        private UUID acted = null;
+        private String actedName = null;
+        private long after = Long.MIN_VALUE;
+        private long before = Long.MAX_VALUE;
+        private String search = null;
+
+        private Builder() {
+
+        }
+
+        public Builder actor(UUID actor) {
+            this.actor = actor;
+            return this;
+        }
+
+        public Builder type(LogEntry.Type type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder acted(UUID acted) {
+            this.acted = acted;
+            return this;
+        }
+
+        public Builder actedName(String actedName) {
+            this.actedName = actedName;
+            return this;
+        }
+
+        public Builder after(long timestamp) {
+            this.after = timestamp;
+            return this;
+        }
+
+        public Builder before(long timestamp) {
+            this.before = timestamp;
+            return this;
+        }
+
+        public Builder search(String search) {
+            this.search = search;
+            return this;
+        }
+
+        public LogQuery build() {
+            return new LogQuery(this);
+        }
+    }
+
+}
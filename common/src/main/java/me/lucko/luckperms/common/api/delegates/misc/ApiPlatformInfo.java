@@ -30,6 +30,7 @@ import me.lucko.luckperms.api.platform.PlatformType;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -69,4 +70,10 @@ public class ApiPlatformInfo implements PlatformInfo {
     public long getStartTime() {
         return this.plugin.getBootstrap().getStartupTime();
     }
+
+    @Nonnull
+    @Override
+    public Map<String, Long> getStartupTimings() {
+        return this.plugin.getStartupProfiler().getTimings();
+    }
 }
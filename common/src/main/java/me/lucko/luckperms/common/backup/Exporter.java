@@ -30,11 +30,11 @@ import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.Track;
-import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.factory.NodeFactory;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
-import me.lucko.luckperms.common.storage.Storage;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.utils.ProgressLogger;
 
 import java.io.BufferedWriter;
@@ -43,22 +43,11 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -76,6 +65,33 @@ public class Exporter implements Runnable {
         }
     }
 
+    private static String exportUser(BulkUserData data) {
+        String uuid = data.getUuid().toString();
+        StringJoiner output = new StringJoiner(System.lineSeparator());
+        output.add("# Export user: " + uuid + " - " + (data.getUsername() == null ? "unknown username" : data.getUsername()));
+
+        boolean inDefault = false;
+        for (NodeDataContainer container : data.getNodes()) {
+            Node node = container.toNode();
+            if (node.isGroupNode() && node.getGroupName().equalsIgnoreCase(NodeFactory.DEFAULT_GROUP_NAME)) {
+                inDefault = true;
+                continue;
+            }
+
+            output.add("/lp " + NodeFactory.nodeAsCommand(node, uuid, HolderType.USER, true, false));
+        }
+
+        if (!data.getPrimaryGroup().equalsIgnoreCase(NodeFactory.DEFAULT_GROUP_NAME)) {
+            output.add("/lp user " + uuid + " switchprimarygroup " + data.getPrimaryGroup());
+        }
+
+        if (!inDefault) {
+            output.add("/lp user " + uuid + " parent remove default");
+        }
+
+        return output.toString();
+    }
+
     private final LuckPermsPlugin plugin;
     private final Sender executor;
     private final Path filePath;
@@ -172,102 +188,21 @@ public class Exporter implements Runnable {
             this.log.log("Exported " + tracks.size() + " tracks.");
 
             if (this.includeUsers) {
-                // Users are migrated in separate threads.
-                // This is because there are likely to be a lot of them, and because we can.
-                // It's a big speed improvement, since the database/files are split up and can handle concurrent reads.
-
-                this.log.log("Starting user export. Finding a list of unique users to export.");
-
-                // Find all of the unique users we need to export
-                Storage ds = this.plugin.getStorage();
-                Set<UUID> users = ds.getUniqueUsers().join();
-                this.log.log("Found " + users.size() + " unique users to export.");
+                // Users are read directly from storage and encoded concurrently, without being loaded.
+                // There are likely to be a lot of them, so only a bounded number are held in memory at once.
+                this.log.log("Starting user export.");
 
                 write(writer, "# Export users");
 
-                // create a threadpool to process the users concurrently
-                ExecutorService executor = Executors.newFixedThreadPool(32);
-
-                // Setup a file writing lock. We don't want multiple threads writing at the same time.
-                // The write function accepts a list of strings, as we want a user's data to be grouped together.
-                // This means it can be processed and added in one go.
-                ReentrantLock lock = new ReentrantLock();
-                Consumer<List<String>> writeFunction = strings -> {
-                    lock.lock();
-                    try {
-                        for (String s : strings) {
-                            write(writer, s);
-                        }
-                    } finally {
-                        lock.unlock();
-                    }
-                };
-
-                // A set of futures, which are really just the processes we need to wait for.
-                Set<CompletableFuture<Void>> futures = new HashSet<>();
-
-                AtomicInteger userCount = new AtomicInteger(0);
+                UserExportPipeline pipeline = new UserExportPipeline(this.plugin, Exporter::exportUser,
+                        (uuid, output) -> write(writer, output),
+                        count -> this.log.logAllProgress("Exported {} users so far.", count)
+                );
+                int userCount = pipeline.run();
 
-                // iterate through each user.
-                for (UUID uuid : users) {
-                    // register a task for the user, and schedule it's execution with the pool
-                    futures.add(CompletableFuture.runAsync(() -> {
-                        // actually export the user. this output will be fed to the writing function when we have all of the user's data.
-                        List<String> output = new ArrayList<>();
-
-                        User user = this.plugin.getStorage().loadUser(uuid, null).join();
-                        output.add("# Export user: " + user.getUuid().toString() + " - " + user.getName().orElse("unknown username"));
-
-                        boolean inDefault = false;
-                        for (Node node : user.enduringData().immutable().values()) {
-                            if (node.isGroupNode() && node.getGroupName().equalsIgnoreCase(NodeFactory.DEFAULT_GROUP_NAME)) {
-                                inDefault = true;
-                                continue;
-                            }
-
-                            output.add("/lp " + NodeFactory.nodeAsCommand(node, user.getUuid().toString(), HolderType.USER, true, false));
-                        }
-
-                        if (!user.getPrimaryGroup().getStoredValue().orElse(NodeFactory.DEFAULT_GROUP_NAME).equalsIgnoreCase(NodeFactory.DEFAULT_GROUP_NAME)) {
-                            output.add("/lp user " + user.getUuid().toString() + " switchprimarygroup " + user.getPrimaryGroup().getStoredValue().get());
-                        }
-
-                        if (!inDefault) {
-                            output.add("/lp user " + user.getUuid().toString() + " parent remove default");
-                        }
-
-                        this.plugin.getUserManager().cleanup(user);
-                        writeFunction.accept(output);
-
-                        userCount.incrementAndGet();
-                    }, executor));
-                }
-
-                // all of the threads have been scheduled now and are running. we just need to wait for them all to complete
-                CompletableFuture<Void> overallFuture = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
-
-                while (true) {
-                    try {
-                        overallFuture.get(5, TimeUnit.SECONDS);
-                    } catch (InterruptedException | ExecutionException e) {
-                        // abnormal error - just break
-                        e.printStackTrace();
-                        break;
-                    } catch (TimeoutException e) {
-                        // still executing - send a progress report and continue waiting
-                        this.log.logAllProgress("Exported {} users so far.", userCount.get());
-                        continue;
-                    }
-
-                    // process is complete
-                    break;
-                }
-
-                executor.shutdown();
-                this.log.log("Exported " + userCount.get() + " users.");
+                this.log.log("Exported " + userCount + " users.");
             }
 
-
             writer.flush();
             this.log.getListeners().forEach(l -> Message.LOG_EXPORT_SUCCESS.send(l, this.filePath.toFile().getAbsolutePath()));
 
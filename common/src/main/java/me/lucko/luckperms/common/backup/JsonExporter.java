@@ -0,0 +1,170 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.backup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.common.locale.message.Message;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.BulkUserData;
+import me.lucko.luckperms.common.utils.ProgressLogger;
+import me.lucko.luckperms.common.web.WebEditor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handles export operations, writing data in a structured JSON format
+ * which can be imported directly into storage by the {@link JsonImporter}.
+ *
+ * <p>Data is grouped per holder, and streamed to the file as it is exported.</p>
+ */
+public class JsonExporter implements Runnable {
+    public static final String FORMAT = "luckperms-export";
+    public static final int VERSION = 1;
+
+    private static final Gson GSON = new Gson();
+
+    private final LuckPermsPlugin plugin;
+    private final Sender executor;
+    private final Path filePath;
+    private final boolean includeUsers;
+    private final ProgressLogger log;
+
+    public JsonExporter(LuckPermsPlugin plugin, Sender executor, Path filePath, boolean includeUsers) {
+        this.plugin = plugin;
+        this.executor = executor;
+        this.filePath = filePath;
+        this.includeUsers = includeUsers;
+
+        this.log = new ProgressLogger(null, Message.EXPORT_LOG, Message.EXPORT_LOG_PROGRESS);
+        this.log.addListener(plugin.getConsoleSender());
+        this.log.addListener(executor);
+    }
+
+    private static JsonArray serializeNodes(Collection<? extends Node> nodes) {
+        return WebEditor.serializePermissions(nodes.stream().map(NodeDataContainer::fromNode));
+    }
+
+    @Override
+    public void run() {
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(this.filePath, StandardCharsets.UTF_8))) {
+            this.log.log("Starting.");
+
+            writer.beginObject();
+            writer.name("format").value(FORMAT);
+            writer.name("version").value(VERSION);
+            writer.name("generatedBy").value(this.executor.getNameWithLocation());
+            writer.name("generatedAt").value(System.currentTimeMillis());
+
+            // Export Groups
+            this.log.log("Starting group export.");
+
+            AtomicInteger groupCount = new AtomicInteger(0);
+            writer.name("groups").beginObject();
+            for (Group group : this.plugin.getGroupManager().getAll().values()) {
+                JsonObject data = new JsonObject();
+                data.add("nodes", serializeNodes(group.enduringData().immutable().values()));
+
+                writer.name(group.getName());
+                GSON.toJson(data, writer);
+                this.log.logAllProgress("Exported {} groups so far.", groupCount.incrementAndGet());
+            }
+            writer.endObject();
+
+            this.log.log("Exported " + groupCount.get() + " groups.");
+
+            // Export tracks
+            this.log.log("Starting track export.");
+
+            AtomicInteger trackCount = new AtomicInteger(0);
+            writer.name("tracks").beginObject();
+            for (Track track : this.plugin.getTrackManager().getAll().values()) {
+                JsonObject data = new JsonObject();
+                JsonArray groups = new JsonArray();
+                for (String group : track.getGroups()) {
+                    groups.add(group);
+                }
+                data.add("groups", groups);
+
+                writer.name(track.getName());
+                GSON.toJson(data, writer);
+                this.log.logAllProgress("Exported {} tracks so far.", trackCount.incrementAndGet());
+            }
+            writer.endObject();
+
+            this.log.log("Exported " + trackCount.get() + " tracks.");
+
+            if (this.includeUsers) {
+                this.log.log("Starting user export.");
+
+                writer.name("users").beginObject();
+                int userCount = exportUsers(writer);
+                writer.endObject();
+
+                this.log.log("Exported " + userCount + " users.");
+            }
+
+            writer.endObject();
+            writer.flush();
+            this.log.getListeners().forEach(l -> Message.LOG_EXPORT_SUCCESS.send(l, this.filePath.toFile().getAbsolutePath()));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int exportUsers(JsonWriter writer) {
+        // users are read directly from storage and encoded concurrently, then written in the order they were read
+        UserExportPipeline pipeline = new UserExportPipeline(this.plugin, JsonExporter::exportUser,
+                (uuid, output) -> writer.name(uuid.toString()).jsonValue(output),
+                count -> this.log.logAllProgress("Exported {} users so far.", count)
+        );
+        return pipeline.run();
+    }
+
+    private static String exportUser(BulkUserData user) {
+        JsonObject data = new JsonObject();
+        if (user.getUsername() != null) {
+            data.addProperty("username", user.getUsername());
+        }
+        data.addProperty("primaryGroup", user.getPrimaryGroup());
+        data.add("nodes", WebEditor.serializePermissions(user.getNodes().stream()));
+        return GSON.toJson(data);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.backup;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import me.lucko.luckperms.api.event.cause.CreationCause;
+import me.lucko.luckperms.common.locale.message.Message;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.NodeMapType;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.node.factory.NodeFactory;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.BulkUserData;
+import me.lucko.luckperms.common.web.WebEditor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Handles import operations for files written by the {@link JsonExporter}.
+ *
+ * <p>Group and track data is applied directly to the holder, and user data
+ * is written straight to storage in batches. Commands, events and user
+ * caches are bypassed entirely.</p>
+ */
+public class JsonImporter implements Runnable {
+
+    /**
+     * Gets if the given file appears to be in the structured format.
+     *
+     * @param path the file
+     * @return true if the file is a structured export
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isStructuredExport(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (!Character.isWhitespace(c)) {
+                    return c == '{';
+                }
+            }
+        }
+        return false;
+    }
+
+    /** The number of users written to storage in each batch */
+    private static final int BATCH_SIZE = 1000;
+
+    /** The maximum number of batches being written at once */
+    private static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private final LuckPermsPlugin plugin;
+    private final Set<Sender> notify;
+    private final Path filePath;
+
+    private final JsonParser parser = new JsonParser();
+    private final Semaphore batchPermits = new Semaphore(MAX_CONCURRENT_BATCHES);
+    private final List<CompletableFuture<Void>> batches = new ArrayList<>();
+    private final AtomicInteger userCount = new AtomicInteger(0);
+    private final AtomicInteger errors = new AtomicInteger(0);
+
+    public JsonImporter(LuckPermsPlugin plugin, Sender executor, Path filePath) {
+        this.plugin = plugin;
+        this.filePath = filePath;
+
+        if (executor.isConsole()) {
+            this.notify = ImmutableSet.of(executor);
+        } else {
+            this.notify = ImmutableSet.of(executor, plugin.getConsoleSender());
+        }
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        this.notify.forEach(s -> Message.IMPORT_START.send(s));
+
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(this.filePath, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "version":
+                        int version = reader.nextInt();
+                        if (version > JsonExporter.VERSION) {
+                            throw new IOException("Unsupported export version: " + version);
+                        }
+                        break;
+                    case "groups":
+                        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Importing groups"));
+                        importGroups(reader);
+                        break;
+                    case "tracks":
+                        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Importing tracks"));
+                        importTracks(reader);
+                        break;
+                    case "users":
+                        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Importing users"));
+                        importUsers(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+        } catch (Exception e) {
+            this.errors.incrementAndGet();
+            e.printStackTrace();
+        }
+
+        // wait for any remaining user batches to be written
+        CompletableFuture.allOf(this.batches.toArray(new CompletableFuture<?>[0])).join();
+
+        // the data was written around the usual caches, so refresh everything
+        this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Running update task"));
+        this.plugin.getUpdateTaskBuffer().requestDirectly();
+
+        long endTime = System.currentTimeMillis();
+        double seconds = (endTime - startTime) / 1000d;
+
+        int errors = this.errors.get();
+        switch (errors) {
+            case 0:
+                this.notify.forEach(s -> Message.IMPORT_END_COMPLETE.send(s, seconds));
+                break;
+            case 1:
+                this.notify.forEach(s -> Message.IMPORT_END_COMPLETE_ERR_SIN.send(s, seconds, errors));
+                break;
+            default:
+                this.notify.forEach(s -> Message.IMPORT_END_COMPLETE_ERR.send(s, seconds, errors));
+                break;
+        }
+    }
+
+    private Set<NodeDataContainer> readNodes(JsonObject data) {
+        JsonElement nodes = data.get("nodes");
+        if (nodes == null || !nodes.isJsonArray()) {
+            return ImmutableSet.of();
+        }
+        return WebEditor.deserializePermissions(nodes.getAsJsonArray());
+    }
+
+    private void importGroups(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonObject data = this.parser.parse(reader).getAsJsonObject();
+
+            try {
+                Group group = this.plugin.getStorage().createAndLoadGroup(name, CreationCause.INTERNAL).join();
+                group.setNodes(NodeMapType.ENDURING, readNodes(data).stream().map(NodeDataContainer::toNode).collect(Collectors.toSet()));
+                this.plugin.getStorage().saveGroup(group).join();
+            } catch (Exception e) {
+                this.errors.incrementAndGet();
+                this.plugin.getLogger().warn("Unable to import group " + name);
+                e.printStackTrace();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void importTracks(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonObject data = this.parser.parse(reader).getAsJsonObject();
+
+            List<String> groups = new ArrayList<>();
+            JsonElement groupsElement = data.get("groups");
+            if (groupsElement != null && groupsElement.isJsonArray()) {
+                for (JsonElement group : groupsElement.getAsJsonArray()) {
+                    groups.add(group.getAsString());
+                }
+            }
+
+            try {
+                Track track = this.plugin.getStorage().createAndLoadTrack(name, CreationCause.INTERNAL).join();
+                track.setGroups(groups);
+                this.plugin.getStorage().saveTrack(track).join();
+            } catch (Exception e) {
+                this.errors.incrementAndGet();
+                this.plugin.getLogger().warn("Unable to import track " + name);
+                e.printStackTrace();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void importUsers(JsonReader reader) throws IOException {
+        List<BulkUserData> batch = new ArrayList<>(BATCH_SIZE);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            JsonObject data = this.parser.parse(reader).getAsJsonObject();
+
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(id);
+            } catch (IllegalArgumentException e) {
+                this.errors.incrementAndGet();
+                this.plugin.getLogger().warn("Skipping user with invalid uuid: " + id);
+                continue;
+            }
+
+            String username = data.has("username") ? data.get("username").getAsString() : null;
+            String primaryGroup = data.has("primaryGroup") ? data.get("primaryGroup").getAsString() : NodeFactory.DEFAULT_GROUP_NAME;
+            batch.add(new BulkUserData(uuid, username, primaryGroup, readNodes(data)));
+
+            if (batch.size() >= BATCH_SIZE) {
+                submitBatch(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        reader.endObject();
+
+        if (!batch.isEmpty()) {
+            submitBatch(batch);
+        }
+    }
+
+    private void submitBatch(List<BulkUserData> batch) {
+        // limit the number of batches held in memory & being written at once
+        this.batchPermits.acquireUninterruptibly();
+
+        CompletableFuture<Void> future = this.plugin.getStorage().bulkSaveUsers(batch).handle((v, ex) -> {
+            this.batchPermits.release();
+            if (ex != null) {
+                this.errors.incrementAndGet();
+                this.plugin.getLogger().warn("Unable to import a batch of " + batch.size() + " users");
+                ex.printStackTrace();
+                return null;
+            }
+
+            int count = this.userCount.addAndGet(batch.size());
+            this.notify.forEach(s -> Message.IMPORT_INFO.send(s, "Imported " + count + " users so far"));
+            return null;
+        });
+        this.batches.add(future);
+    }
+
+}
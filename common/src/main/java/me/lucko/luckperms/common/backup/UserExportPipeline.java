@@ -0,0 +1,159 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.backup;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Streams user data from storage, encodes it in parallel, and writes the
+ * encoded output in the order it was read.
+ *
+ * <p>Users are never loaded into the user manager, and the number of users
+ * held in memory at once is bounded.</p>
+ */
+final class UserExportPipeline {
+
+    /**
+     * Writes the encoded output for a user
+     */
+    interface Writer {
+        void write(UUID uuid, String encoded) throws IOException;
+    }
+
+    private static final int MAX_PENDING = 2000;
+    private static final int PROGRESS_FREQUENCY = 10000;
+
+    private final LuckPermsPlugin plugin;
+    private final Function<BulkUserData, String> encoder;
+    private final Writer writer;
+    private final IntConsumer progressListener;
+
+    /** Limits the number of users which have been read, but not yet written */
+    private final Semaphore pendingPermits = new Semaphore(MAX_PENDING);
+
+    /** Encoded output waiting for earlier users to be written, guarded by itself */
+    private final Map<Long, Encoded> completed = new HashMap<>();
+
+    /** The index of the next user to be written, guarded by {@link #completed} */
+    private long nextWrite = 0;
+
+    /** The number of users written, guarded by {@link #completed} */
+    private int written = 0;
+
+    UserExportPipeline(LuckPermsPlugin plugin, Function<BulkUserData, String> encoder, Writer writer, IntConsumer progressListener) {
+        this.plugin = plugin;
+        this.encoder = encoder;
+        this.writer = writer;
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Runs the export.
+     *
+     * @return the number of users written
+     */
+    int run() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("luckperms-exporter-%d").build());
+        try {
+            long[] index = {0};
+            this.plugin.getStorage().streamUsers(data -> {
+                // block reading from storage whilst the encoders/writer catch up
+                this.pendingPermits.acquireUninterruptibly();
+
+                long i = index[0]++;
+                executor.execute(() -> {
+                    String encoded = null;
+                    try {
+                        encoded = this.encoder.apply(data);
+                    } catch (Exception e) {
+                        this.plugin.getLogger().warn("Unable to export user " + data.getUuid());
+                        e.printStackTrace();
+                    }
+                    complete(i, new Encoded(data.getUuid(), encoded));
+                });
+            }).join();
+
+            // wait for every pending user to be written
+            this.pendingPermits.acquireUninterruptibly(MAX_PENDING);
+        } finally {
+            executor.shutdown();
+        }
+
+        synchronized (this.completed) {
+            return this.written;
+        }
+    }
+
+    private void complete(long index, Encoded encoded) {
+        synchronized (this.completed) {
+            this.completed.put(index, encoded);
+
+            // write everything which is now in order
+            Encoded next;
+            while ((next = this.completed.remove(this.nextWrite)) != null) {
+                this.nextWrite++;
+                try {
+                    if (next.output != null) {
+                        this.writer.write(next.uuid, next.output);
+                        this.written++;
+                        if (this.written % PROGRESS_FREQUENCY == 0) {
+                            this.progressListener.accept(this.written);
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    this.pendingPermits.release();
+                }
+            }
+        }
+    }
+
+    private static final class Encoded {
+        private final UUID uuid;
+        private final String output;
+
+        private Encoded(UUID uuid, String output) {
+            this.uuid = uuid;
+            this.output = output;
+        }
+    }
+
+}
@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.common.buffers;
 
+import me.lucko.luckperms.common.metrics.Counter;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 
@@ -53,6 +55,10 @@ public abstract class BufferedRequest<T> {
     /** Mutex to guard processor */
     private final Object[] mutex = new Object[0];
 
+    /** Counts requests made to the buffer, and the number of times the task was actually performed */
+    private Counter requestCounter = Counter.NOOP;
+    private Counter performCounter = Counter.NOOP;
+
     /**
      * Creates a new buffer with the given timeout millis
      *
@@ -65,12 +71,27 @@ public abstract class BufferedRequest<T> {
         this.schedulerAdapter = schedulerAdapter;
     }
 
+    /**
+     * Records the number of requests made to this buffer, and the number of
+     * times they were performed, in the given registry.
+     *
+     * <p>Should be called before the buffer is first used.</p>
+     *
+     * @param metrics the metrics registry
+     * @param name the name of the buffer
+     */
+    protected void instrument(MetricsRegistry metrics, String name) {
+        this.requestCounter = metrics.counter("luckperms_buffer_requests_total", "Requests made to buffered tasks", "buffer", name);
+        this.performCounter = metrics.counter("luckperms_buffer_executions_total", "Times buffered tasks were performed", "buffer", name);
+    }
+
     /**
      * Makes a request to the buffer
      *
      * @return the future
      */
     public CompletableFuture<T> request() {
+        this.requestCounter.increment();
         synchronized (this.mutex) {
             if (this.processor != null) {
                 try {
@@ -80,7 +101,7 @@ public abstract class BufferedRequest<T> {
                 }
             }
 
-            Processor<T> p = this.processor = new Processor<>(this::perform, this.bufferTime, this.unit, this.schedulerAdapter);
+            Processor<T> p = this.processor = new Processor<>(this::countAndPerform, this.bufferTime, this.unit, this.schedulerAdapter);
             return p.getFuture();
         }
     }
@@ -91,6 +112,12 @@ public abstract class BufferedRequest<T> {
      * @return the value
      */
     public T requestDirectly() {
+        this.requestCounter.increment();
+        return countAndPerform();
+    }
+
+    private T countAndPerform() {
+        this.performCounter.increment();
         return perform();
     }
 
@@ -36,6 +36,7 @@ public class UpdateTaskBuffer extends BufferedRequest<Void> {
     public UpdateTaskBuffer(LuckPermsPlugin plugin) {
         super(500L, TimeUnit.MILLISECONDS, plugin.getBootstrap().getScheduler());
         this.plugin = plugin;
+        instrument(plugin.getMetrics(), "update_task");
     }
 
     @Override
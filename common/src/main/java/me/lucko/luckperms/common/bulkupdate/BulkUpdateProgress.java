@@ -0,0 +1,89 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.bulkupdate;
+
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of a {@link BulkUpdate} being applied to a set of holders,
+ * periodically reporting it to the console.
+ *
+ * <p>Safe to use from multiple threads at once.</p>
+ */
+public final class BulkUpdateProgress {
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    private final PluginLogger logger;
+
+    // the name of the holders being processed, e.g. "users"
+    private final String type;
+
+    private final AtomicInteger processed = new AtomicInteger(0);
+    private final AtomicInteger modified = new AtomicInteger(0);
+    private final AtomicLong lastReport = new AtomicLong(System.currentTimeMillis());
+
+    public BulkUpdateProgress(PluginLogger logger, String type) {
+        this.logger = logger;
+        this.type = type;
+    }
+
+    /**
+     * Records that a holder has been processed.
+     *
+     * @param modified if the holders data was changed
+     */
+    public void processed(boolean modified) {
+        this.processed.incrementAndGet();
+        if (modified) {
+            this.modified.incrementAndGet();
+        }
+
+        long now = System.currentTimeMillis();
+        long last = this.lastReport.get();
+        if (now - last >= REPORT_INTERVAL && this.lastReport.compareAndSet(last, now)) {
+            this.logger.info("[Bulk Update] Processed " + this.processed.get() + " " + this.type + " so far (" + this.modified.get() + " modified).");
+        }
+    }
+
+    /**
+     * Reports the final totals.
+     */
+    public void complete() {
+        this.logger.info("[Bulk Update] Processed " + this.processed.get() + " " + this.type + " (" + this.modified.get() + " modified).");
+    }
+
+    public int getProcessed() {
+        return this.processed.get();
+    }
+
+    public int getModified() {
+        return this.modified.get();
+    }
+}
@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.bulkupdate.comparisons;
 
 import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
 
+import java.util.function.Predicate;
+
 /**
  * A method of comparing two strings
  */
@@ -49,6 +51,17 @@ public interface Comparison {
      */
     boolean matches(String str, String expr);
 
+    /**
+     * Compiles the given expression into a predicate which can be reused to
+     * test many strings, with the same behaviour as {@link #matches(String, String)}.
+     *
+     * @param expr the expression
+     * @return a predicate testing if a string matches the expression
+     */
+    default Predicate<String> compile(String expr) {
+        return str -> matches(str, expr);
+    }
+
     /**
      * Returns the comparison operator in SQL form
      */
@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.bulkupdate.comparisons;
 
 import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
 
+import java.util.function.Predicate;
+
 public class Constraint {
 
     public static Constraint of(Comparison comparison, String expression) {
@@ -39,9 +41,13 @@ public class Constraint {
     // the expression being compared against
     private final String expression;
 
+    // the expression compiled by the comparison
+    private final Predicate<String> matcher;
+
     private Constraint(Comparison comparison, String expression) {
         this.comparison = comparison;
         this.expression = expression;
+        this.matcher = comparison.compile(expression);
     }
 
     /**
@@ -51,7 +57,7 @@ public class Constraint {
      * @return true if satisfied
      */
     public boolean eval(String value) {
-        return this.comparison.matches(value, this.expression);
+        return this.matcher.test(value);
     }
 
     public void appendSql(PreparedStatementBuilder builder, String field) {
@@ -0,0 +1,152 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.bulkupdate.comparisons;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Matches strings against a SQL LIKE expression, ignoring case.
+ *
+ * <p>Expressions are compiled once. Those without wildcards, or with only a
+ * single trailing '%', are matched directly without scanning the pattern.</p>
+ */
+final class LikeMatcher implements Predicate<String> {
+
+    // characters which would be interpreted by the regex the expression used to be converted to
+    private static final String REGEX_SYNTAX = "\\^$*+?()[]{}|";
+
+    /**
+     * Converts a SQL LIKE expression to an equivalent regex.
+     *
+     * @param expression the expression
+     * @return the regex
+     */
+    static String toRegex(String expression) {
+        return expression.toLowerCase()
+                .replace(".", "\\.")
+                .replace("_", ".")
+                .replace("%", ".*");
+    }
+
+    /**
+     * Compiles a SQL LIKE expression into a predicate.
+     *
+     * @param expression the expression
+     * @return a predicate testing if strings match the expression
+     */
+    static Predicate<String> compile(String expression) {
+        String expr = expression.toLowerCase();
+
+        if (hasRegexSyntax(expr)) {
+            // not a plain LIKE expression - keep the behaviour of matching as a regex
+            Pattern pattern = Pattern.compile(toRegex(expr));
+            return str -> pattern.matcher(str.toLowerCase()).matches();
+        }
+
+        int percent = expr.indexOf('%');
+        if (expr.indexOf('_') == -1) {
+            if (percent == -1) {
+                return str -> str.equalsIgnoreCase(expr);
+            }
+            if (percent == expr.length() - 1) {
+                String prefix = expr.substring(0, percent);
+                return str -> str.regionMatches(true, 0, prefix, 0, prefix.length());
+            }
+        }
+
+        return new LikeMatcher(expr);
+    }
+
+    /**
+     * Gets the literal prefix of a SQL LIKE expression, the part before its first wildcard.
+     *
+     * @param expression the expression
+     * @return the lowercase prefix, or null if the expression is matched as a regex
+     */
+    static String literalPrefix(String expression) {
+        String expr = expression.toLowerCase();
+        if (hasRegexSyntax(expr)) {
+            return null;
+        }
+
+        int end = 0;
+        while (end < expr.length() && expr.charAt(end) != '%' && expr.charAt(end) != '_') {
+            end++;
+        }
+        return expr.substring(0, end);
+    }
+
+    private static boolean hasRegexSyntax(String expr) {
+        for (int i = 0; i < expr.length(); i++) {
+            if (REGEX_SYNTAX.indexOf(expr.charAt(i)) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final String pattern;
+
+    private LikeMatcher(String pattern) {
+        this.pattern = pattern;
+    }
+
+    @Override
+    public boolean test(String value) {
+        String str = value.toLowerCase();
+        String pat = this.pattern;
+
+        int s = 0;
+        int p = 0;
+
+        // the position of the last '%' in the pattern, and the position in the string it was matched from
+        int wildcard = -1;
+        int wildcardMatch = 0;
+
+        while (s < str.length()) {
+            // check for '%' first, so it's never matched as a literal character
+            if (p < pat.length() && pat.charAt(p) == '%') {
+                wildcard = p++;
+                wildcardMatch = s;
+            } else if (p < pat.length() && (pat.charAt(p) == '_' || pat.charAt(p) == str.charAt(s))) {
+                s++;
+                p++;
+            } else if (wildcard != -1) {
+                // backtrack, letting the last '%' consume one more character
+                p = wildcard + 1;
+                s = ++wildcardMatch;
+            } else {
+                return false;
+            }
+        }
+
+        while (p < pat.length() && pat.charAt(p) == '%') {
+            p++;
+        }
+        return p == pat.length();
+    }
+}
@@ -27,6 +27,8 @@ package me.lucko.luckperms.common.bulkupdate.comparisons;
 
 import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
 
+import java.util.function.Predicate;
+
 /**
  * An enumeration of standard {@link Comparison}s.
  */
@@ -34,45 +36,29 @@ public enum StandardComparison implements Comparison {
 
     EQUAL("==", "=") {
         @Override
-        public boolean matches(String str, String expr) {
-            return str.equalsIgnoreCase(expr);
+        public Predicate<String> compile(String expr) {
+            return str -> str.equalsIgnoreCase(expr);
         }
     },
 
     NOT_EQUAL("!=", "!=") {
         @Override
-        public boolean matches(String str, String expr) {
-            return !str.equalsIgnoreCase(expr);
+        public Predicate<String> compile(String expr) {
+            return str -> !str.equalsIgnoreCase(expr);
         }
     },
 
     SIMILAR("~~", "LIKE") {
         @Override
-        public boolean matches(String str, String expr) {
-            // form expression
-            expr = expr.toLowerCase();
-            expr = expr.replace(".", "\\.");
-
-            // convert from SQL LIKE syntax to regex
-            expr = expr.replace("_", ".");
-            expr = expr.replace("%", ".*");
-
-            return str.toLowerCase().matches(expr);
+        public Predicate<String> compile(String expr) {
+            return LikeMatcher.compile(expr);
         }
     },
 
     NOT_SIMILAR("!~", "NOT LIKE") {
         @Override
-        public boolean matches(String str, String expr) {
-            // form expression
-            expr = expr.toLowerCase();
-            expr = expr.replace(".", "\\.");
-
-            // convert from SQL LIKE syntax to regex
-            expr = expr.replace("_", ".");
-            expr = expr.replace("%", ".*");
-
-            return !str.toLowerCase().matches(expr);
+        public Predicate<String> compile(String expr) {
+            return LikeMatcher.compile(expr).negate();
         }
     };
 
@@ -89,6 +75,14 @@ public enum StandardComparison implements Comparison {
         return this.symbol;
     }
 
+    @Override
+    public boolean matches(String str, String expr) {
+        return compile(expr).test(str);
+    }
+
+    @Override
+    public abstract Predicate<String> compile(String expr);
+
     @Override
     public void appendSql(PreparedStatementBuilder builder) {
         builder.append(this.asSql);
@@ -99,6 +93,28 @@ public enum StandardComparison implements Comparison {
         return this.symbol;
     }
 
+    /**
+     * Converts a SQL LIKE expression, as used by {@link #SIMILAR}, to an equivalent regex.
+     *
+     * @param expression the expression
+     * @return the regex
+     */
+    public static String likeToRegex(String expression) {
+        return LikeMatcher.toRegex(expression);
+    }
+
+    /**
+     * Gets the literal prefix of a SQL LIKE expression, as used by {@link #SIMILAR}.
+     *
+     * <p>All values matching the expression start with the prefix.</p>
+     *
+     * @param expression the expression
+     * @return the lowercase prefix, or null if the expression is matched as a regex
+     */
+    public static String likePrefix(String expression) {
+        return LikeMatcher.literalPrefix(expression);
+    }
+
     public static StandardComparison parseComparison(String s) {
         for (StandardComparison t : values()) {
             if (t.getSymbol().equals(s)) {
@@ -28,6 +28,7 @@ package me.lucko.luckperms.common.caching;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 
 import me.lucko.luckperms.api.ChatMetaType;
 import me.lucko.luckperms.api.Contexts;
@@ -41,6 +42,7 @@ import me.lucko.luckperms.common.calculators.CalculatorFactory;
 import me.lucko.luckperms.common.calculators.PermissionCalculator;
 import me.lucko.luckperms.common.calculators.PermissionCalculatorMetadata;
 import me.lucko.luckperms.common.metastacking.SimpleMetaStack;
+import me.lucko.luckperms.common.metrics.Histogram;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
 import java.util.Map;
@@ -48,6 +50,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -67,6 +70,7 @@ public abstract class AbstractCachedData implements CachedData {
      */
     private final AsyncLoadingCache<Contexts, PermissionCache> permission = Caffeine.newBuilder()
             .expireAfterAccess(2, TimeUnit.MINUTES)
+            .removalListener((Contexts contexts, PermissionCache data, RemovalCause cause) -> onRemoval(data))
             .buildAsync(new PermissionCacheLoader());
 
     /**
@@ -74,10 +78,44 @@ public abstract class AbstractCachedData implements CachedData {
      */
     private final AsyncLoadingCache<MetaContexts, MetaCache> meta = Caffeine.newBuilder()
             .expireAfterAccess(2, TimeUnit.MINUTES)
+            .removalListener((MetaContexts contexts, MetaCache data, RemovalCause cause) -> onRemoval(data))
             .buildAsync(new MetaCacheLoader());
 
+    /**
+     * A counter incremented each time the cached data is invalidated or recalculated.
+     *
+     * <p>Allows callers which hold on to a cache instance to cheaply check
+     * whether it is still current.</p>
+     *
+     * <p>The counter is incremented before each change, and again once the old
+     * instance has been removed from the cache. A caller which reads the version
+     * while the old instance is still present will therefore always see it
+     * change again.</p>
+     */
+    private final AtomicInteger version = new AtomicInteger();
+
+    /**
+     * Timers for permission and meta calculations
+     */
+    private final Histogram permissionCalculationTimer;
+    private final Histogram metaCalculationTimer;
+
     public AbstractCachedData(LuckPermsPlugin plugin) {
         this.plugin = plugin;
+        this.permissionCalculationTimer = plugin.getMetrics().timer("luckperms_cached_data_calculation", "Time taken to calculate cached data", "type", "permission");
+        this.metaCalculationTimer = plugin.getMetrics().timer("luckperms_cached_data_calculation", "Time taken to calculate cached data", "type", "meta");
+    }
+
+    /**
+     * Gets the current version of this cached data.
+     *
+     * <p>The value changes whenever existing cache instances are invalidated
+     * or recalculated.</p>
+     *
+     * @return the current version
+     */
+    public int getVersion() {
+        return this.version.get();
     }
 
     /**
@@ -95,6 +133,31 @@ public abstract class AbstractCachedData implements CachedData {
      */
     protected abstract CalculatorFactory getCalculatorFactory();
 
+    /**
+     * Gets the registry used to share calculated data with other instances.
+     *
+     * <p>Returns null if data calculated by this instance shouldn't be shared.</p>
+     *
+     * @return the registry, or null
+     */
+    @Nullable
+    protected SharedCachedDataRegistry getSharedRegistry() {
+        return null;
+    }
+
+    /**
+     * Returns a fingerprint of the data this instance is calculated from.
+     *
+     * <p>Instances with equal fingerprints must calculate identical data in
+     * the same contexts. Only called if {@link #getSharedRegistry()} is non-null.</p>
+     *
+     * @return the fingerprint, or null if the data shouldn't be shared
+     */
+    @Nullable
+    protected Object getSharingFingerprint() {
+        return null;
+    }
+
     /**
      * Upgrades the given {@link Contexts} to a {@link MetaContexts} instance using the default settings.
      * 
@@ -144,6 +207,7 @@ public abstract class AbstractCachedData implements CachedData {
      */
     private PermissionCache calculatePermissions(Contexts contexts, PermissionCache data) {
         Objects.requireNonNull(contexts, "contexts");
+        long start = this.permissionCalculationTimer.isEnabled() ? System.nanoTime() : 0L;
 
         if (data == null) {
             PermissionCalculatorMetadata metadata = getMetadataForContexts(contexts);
@@ -156,6 +220,9 @@ public abstract class AbstractCachedData implements CachedData {
             data.setPermissions(resolvePermissions(contexts));
         }
 
+        if (this.permissionCalculationTimer.isEnabled()) {
+            this.permissionCalculationTimer.record(System.nanoTime() - start);
+        }
         return data;
     }
 
@@ -168,6 +235,7 @@ public abstract class AbstractCachedData implements CachedData {
      */
     private MetaCache calculateMeta(MetaContexts contexts, MetaCache data) {
         Objects.requireNonNull(contexts, "contexts");
+        long start = this.metaCalculationTimer.isEnabled() ? System.nanoTime() : 0L;
 
         if (data == null) {
             data = new MetaCache(contexts);
@@ -181,6 +249,9 @@ public abstract class AbstractCachedData implements CachedData {
         }
         data.loadMeta(accumulator);
 
+        if (this.metaCalculationTimer.isEnabled()) {
+            this.metaCalculationTimer.record(System.nanoTime() - start);
+        }
         return data;
     }
 
@@ -233,12 +304,14 @@ public abstract class AbstractCachedData implements CachedData {
     @Override
     public void recalculatePermissions(@Nonnull Contexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
         this.permission.synchronous().refresh(contexts);
     }
 
     @Override
     public void recalculateMeta(@Nonnull MetaContexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
         this.meta.synchronous().refresh(contexts);
     }
 
@@ -252,6 +325,7 @@ public abstract class AbstractCachedData implements CachedData {
     @Override
     public CompletableFuture<PermissionCache> reloadPermissions(@Nonnull Contexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
 
         // get the previous value - to use when recalculating
         CompletableFuture<PermissionCache> previous = this.permission.getIfPresent(contexts);
@@ -262,7 +336,7 @@ public abstract class AbstractCachedData implements CachedData {
         // if the previous value is already calculated, use it when recalculating.
         PermissionCache value = getIfReady(previous);
         if (value != null) {
-            return this.permission.get(contexts, c -> calculatePermissions(c, value));
+            return this.permission.get(contexts, c -> loadPermissions(c, value));
         }
 
         // otherwise, just calculate a new value
@@ -273,6 +347,7 @@ public abstract class AbstractCachedData implements CachedData {
     @Override
     public CompletableFuture<MetaCache> reloadMeta(@Nonnull MetaContexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
 
         // get the previous value - to use when recalculating
         CompletableFuture<MetaCache> previous = this.meta.getIfPresent(contexts);
@@ -283,7 +358,7 @@ public abstract class AbstractCachedData implements CachedData {
         // if the previous value is already calculated, use it when recalculating.
         MetaCache value = getIfReady(previous);
         if (value != null) {
-            return this.meta.get(contexts, c -> calculateMeta(c, value));
+            return this.meta.get(contexts, c -> loadMeta(c, value));
         }
 
         // otherwise, just calculate a new value
@@ -336,33 +411,39 @@ public abstract class AbstractCachedData implements CachedData {
     @Override
     public void invalidatePermissions(@Nonnull Contexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
         this.permission.synchronous().invalidate(contexts);
     }
 
     @Override
     public void invalidateMeta(@Nonnull MetaContexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
         this.meta.synchronous().invalidate(contexts);
     }
 
     @Override
     public void invalidateMeta(@Nonnull Contexts contexts) {
         Objects.requireNonNull(contexts, "contexts");
+        this.version.incrementAndGet();
         this.meta.synchronous().invalidate(getDefaultMetaContexts(contexts));
     }
 
     @Override
     public void invalidatePermissions() {
+        this.version.incrementAndGet();
         this.permission.synchronous().invalidateAll();
     }
 
     @Override
     public void invalidateMeta() {
+        this.version.incrementAndGet();
         this.meta.synchronous().invalidateAll();
     }
 
     @Override
     public void invalidatePermissionCalculators() {
+        this.version.incrementAndGet();
         this.permission.synchronous().asMap().values().forEach(PermissionCache::invalidateCache);
     }
 
@@ -387,27 +468,77 @@ public abstract class AbstractCachedData implements CachedData {
         return isReady(future) ? future.join() : null;
     }
 
+    private PermissionCache loadPermissions(Contexts contexts, PermissionCache oldData) {
+        SharedCachedDataRegistry registry = getSharedRegistry();
+        if (registry == null) {
+            return calculatePermissions(contexts, oldData);
+        }
+
+        // shared instances are never modified, so the old data is only ever released - never reused.
+        // the previous entry is released by the removal listener once it leaves the cache
+        Object fingerprint = getSharingFingerprint();
+        if (fingerprint == null) {
+            return calculatePermissions(contexts, null);
+        }
+
+        PermissionCache shared = registry.acquire(PermissionCache.class, fingerprint, contexts, () -> calculatePermissions(contexts, null));
+        return shared.view(getMetadataForContexts(contexts));
+    }
+
+    private MetaCache loadMeta(MetaContexts contexts, MetaCache oldData) {
+        SharedCachedDataRegistry registry = getSharedRegistry();
+        if (registry == null) {
+            return calculateMeta(contexts, oldData);
+        }
+
+        // see loadPermissions
+        Object fingerprint = getSharingFingerprint();
+        if (fingerprint == null) {
+            return calculateMeta(contexts, null);
+        }
+
+        return registry.acquire(MetaCache.class, fingerprint, contexts, () -> calculateMeta(contexts, null));
+    }
+
+    private void onRemoval(Object data) {
+        // the old instance is no longer in the cache
+        this.version.incrementAndGet();
+        releaseShared(data);
+    }
+
+    private void releaseShared(Object data) {
+        SharedCachedDataRegistry registry = getSharedRegistry();
+        if (registry == null || data == null) {
+            return;
+        }
+
+        if (data instanceof PermissionCache) {
+            data = ((PermissionCache) data).getSource();
+        }
+        registry.release(data);
+    }
+
     private final class PermissionCacheLoader implements CacheLoader<Contexts, PermissionCache> {
         @Override
         public PermissionCache load(@Nonnull Contexts contexts) {
-            return calculatePermissions(contexts);
+            return loadPermissions(contexts, null);
         }
 
         @Override
         public PermissionCache reload(@Nonnull Contexts contexts, @Nonnull PermissionCache oldData) {
-            return calculatePermissions(contexts, oldData);
+            return loadPermissions(contexts, oldData);
         }
     }
 
     private final class MetaCacheLoader implements CacheLoader<MetaContexts, MetaCache> {
         @Override
         public MetaCache load(@Nonnull MetaContexts contexts) {
-            return calculateMeta(contexts);
+            return loadMeta(contexts, null);
         }
 
         @Override
         public MetaCache reload(@Nonnull MetaContexts contexts, @Nonnull MetaCache oldData) {
-            return calculateMeta(contexts, oldData);
+            return loadMeta(contexts, oldData);
         }
     }
 
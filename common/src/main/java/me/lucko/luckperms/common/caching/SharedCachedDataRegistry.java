@@ -0,0 +1,183 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.caching;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A registry of calculated data instances which are shared between holders
+ * with identical data.
+ *
+ * <p>Instances are keyed by a fingerprint of the holders own data and the
+ * contexts they were calculated in, and are reference counted - an instance
+ * is removed from the registry once the last holder using it releases it.</p>
+ *
+ * <p>The registry has a generation, which should be advanced whenever data
+ * which isn't covered by the fingerprint (e.g. group data) changes. Instances
+ * from older generations are never handed out again.</p>
+ */
+public class SharedCachedDataRegistry {
+
+    /**
+     * The current generation
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * Shared instances, keyed by fingerprint. Guarded by this.
+     */
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    /**
+     * Shared instances, keyed by the instance itself. Guarded by this.
+     */
+    private final Map<Object, Entry> entriesByValue = new IdentityHashMap<>();
+
+    /**
+     * Advances the generation, so instances which are currently registered
+     * will not be handed out again.
+     */
+    public void invalidate() {
+        this.generation.incrementAndGet();
+    }
+
+    /**
+     * Gets a shared instance for the given fingerprint and contexts, calculating
+     * one using the loader if none exists.
+     *
+     * <p>Each call should be balanced with a call to {@link #release(Object)}.</p>
+     *
+     * @param type the type of the instance
+     * @param fingerprint the fingerprint of the holders data
+     * @param contexts the contexts the data is for
+     * @param loader the function used to calculate a new instance
+     * @param <T> the type of the instance
+     * @return a shared instance
+     */
+    public <T> T acquire(Class<T> type, Object fingerprint, Object contexts, Supplier<T> loader) {
+        Key key = new Key(type, fingerprint, contexts, this.generation.get());
+
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (entry != null) {
+                entry.references++;
+                return type.cast(entry.value);
+            }
+        }
+
+        // calculate outside of the lock, so loads for different keys can run concurrently
+        T value = loader.get();
+
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, value);
+                this.entries.put(key, entry);
+                this.entriesByValue.put(value, entry);
+            }
+            entry.references++;
+            return type.cast(entry.value);
+        }
+    }
+
+    /**
+     * Releases a reference to an instance previously returned by
+     * {@link #acquire(Class, Object, Object, Supplier)}.
+     *
+     * <p>Values which aren't known to the registry are ignored.</p>
+     *
+     * @param value the instance
+     */
+    public synchronized void release(Object value) {
+        Entry entry = this.entriesByValue.get(value);
+        if (entry == null) {
+            return;
+        }
+
+        if (--entry.references <= 0) {
+            this.entriesByValue.remove(value);
+            this.entries.remove(entry.key);
+        }
+    }
+
+    /**
+     * Gets the number of shared instances in the registry.
+     *
+     * @return the number of instances
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final Object value;
+        private int references = 0;
+
+        private Entry(Key key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final Object fingerprint;
+        private final Object contexts;
+        private final int generation;
+        private final int hashCode;
+
+        private Key(Class<?> type, Object fingerprint, Object contexts, int generation) {
+            this.type = type;
+            this.fingerprint = fingerprint;
+            this.contexts = contexts;
+            this.generation = generation;
+            this.hashCode = Objects.hash(type, fingerprint, contexts, generation);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof Key)) return false;
+            final Key other = (Key) o;
+            return this.generation == other.generation &&
+                    this.type == other.type &&
+                    this.fingerprint.equals(other.fingerprint) &&
+                    this.contexts.equals(other.contexts);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+}
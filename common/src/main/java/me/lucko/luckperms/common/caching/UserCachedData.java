@@ -25,12 +25,19 @@
 
 package me.lucko.luckperms.common.caching;
 
+import com.google.common.collect.ImmutableSet;
+
 import me.lucko.luckperms.api.Contexts;
+import me.lucko.luckperms.api.LocalizedNode;
+import me.lucko.luckperms.api.Node;
 import me.lucko.luckperms.api.caching.UserData;
 import me.lucko.luckperms.common.calculators.PermissionCalculatorMetadata;
 import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.NodeMap;
 import me.lucko.luckperms.common.model.User;
 
+import java.util.Objects;
+
 /**
  * Holds an easily accessible cache of a user's data in a number of contexts
  */
@@ -44,4 +51,60 @@ public class UserCachedData extends HolderCachedData<User> implements UserData {
     protected PermissionCalculatorMetadata getMetadataForContexts(Contexts contexts) {
         return PermissionCalculatorMetadata.of(HolderType.USER, this.holder.getFriendlyName(), contexts.getContexts());
     }
+
+    @Override
+    protected SharedCachedDataRegistry getSharedRegistry() {
+        return this.plugin.getUserManager().getSharedCachedData();
+    }
+
+    @Override
+    protected Object getSharingFingerprint() {
+        return new Fingerprint(
+                nodes(this.holder.enduringData()),
+                nodes(this.holder.transientData()),
+                this.holder.getPrimaryGroup().getStoredValue().orElse(null)
+        );
+    }
+
+    private static ImmutableSet<Node> nodes(NodeMap map) {
+        ImmutableSet.Builder<Node> builder = ImmutableSet.builder();
+        for (LocalizedNode node : map.immutable().values()) {
+            builder.add(node.getNode());
+        }
+        return builder.build();
+    }
+
+    /**
+     * The data a users cached data is calculated from, in addition to the
+     * data of the groups they inherit from.
+     */
+    private static final class Fingerprint {
+        private final ImmutableSet<Node> enduringNodes;
+        private final ImmutableSet<Node> transientNodes;
+        private final String primaryGroup;
+        private final int hashCode;
+
+        private Fingerprint(ImmutableSet<Node> enduringNodes, ImmutableSet<Node> transientNodes, String primaryGroup) {
+            this.enduringNodes = enduringNodes;
+            this.transientNodes = transientNodes;
+            this.primaryGroup = primaryGroup;
+            this.hashCode = Objects.hash(enduringNodes, transientNodes, primaryGroup);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            final Fingerprint other = (Fingerprint) o;
+            return this.hashCode == other.hashCode &&
+                    this.enduringNodes.equals(other.enduringNodes) &&
+                    this.transientNodes.equals(other.transientNodes) &&
+                    Objects.equals(this.primaryGroup, other.primaryGroup);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
 }
@@ -66,15 +66,58 @@ public class PermissionCache implements PermissionData {
      */
     private final PermissionCalculator calculator;
 
+    /**
+     * Info about the holder this cache is for
+     */
+    private final PermissionCalculatorMetadata metadata;
+
+    /**
+     * The cache this instance shares its permissions and calculator with, or null
+     */
+    private final PermissionCache source;
+
     public PermissionCache(Contexts contexts, PermissionCalculatorMetadata metadata, CalculatorFactory calculatorFactory) {
         this.contexts = contexts;
         this.permissions = new ConcurrentHashMap<>();
         this.permissionsUnmodifiable = Collections.unmodifiableMap(this.permissions);
+        this.metadata = metadata;
+        this.source = null;
 
         this.calculator = calculatorFactory.build(contexts, metadata);
         this.calculator.setSourcePermissions(this.permissions); // Initial setup.
     }
 
+    private PermissionCache(PermissionCache source, PermissionCalculatorMetadata metadata) {
+        this.contexts = source.contexts;
+        this.permissions = source.permissions;
+        this.permissionsUnmodifiable = source.permissionsUnmodifiable;
+        this.calculator = source.calculator;
+        this.metadata = metadata;
+        this.source = source;
+    }
+
+    /**
+     * Returns a view of this cache for another holder with identical data.
+     *
+     * <p>The view shares this caches permissions and calculator, but checks
+     * made against it are attributed to the given holder.</p>
+     *
+     * @param metadata info about the holder the view is for
+     * @return a view of this cache
+     */
+    public PermissionCache view(PermissionCalculatorMetadata metadata) {
+        return new PermissionCache(getSource(), metadata);
+    }
+
+    /**
+     * Gets the cache which actually holds this instances data.
+     *
+     * @return the source cache, or this instance if it isn't a view
+     */
+    public PermissionCache getSource() {
+        return this.source == null ? this : this.source;
+    }
+
     @Override
     public void invalidateCache() {
         this.calculator.invalidateCache();
@@ -88,6 +131,9 @@ public class PermissionCache implements PermissionData {
     }
 
     public void setPermissions(Map<String, Boolean> toApply) {
+        if (this.source != null) {
+            throw new UnsupportedOperationException("Cannot modify a shared cache");
+        }
         if (!this.permissions.equals(toApply)) {
             setPermissionsInternal(toApply);
         }
@@ -109,14 +155,14 @@ public class PermissionCache implements PermissionData {
         if (permission == null) {
             throw new NullPointerException("permission");
         }
-        return this.calculator.getPermissionValue(permission, CheckOrigin.API);
+        return this.calculator.getPermissionValue(permission, CheckOrigin.API, this.metadata);
     }
 
     public Tristate getPermissionValue(String permission, CheckOrigin origin) {
         if (permission == null) {
             throw new NullPointerException("permission");
         }
-        return this.calculator.getPermissionValue(permission, origin);
+        return this.calculator.getPermissionValue(permission, origin, this.metadata);
     }
 
     @Nonnull
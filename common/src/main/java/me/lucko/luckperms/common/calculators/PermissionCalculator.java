@@ -31,6 +31,8 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 
 import me.lucko.luckperms.api.Tristate;
+import me.lucko.luckperms.common.metrics.Counter;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.processors.PermissionProcessor;
 import me.lucko.luckperms.common.verbose.CheckOrigin;
@@ -65,10 +67,28 @@ public class PermissionCalculator implements CacheLoader<String, Tristate> {
      */
     private final LoadingCache<String, Tristate> lookupCache = Caffeine.newBuilder().build(this);
 
+    /**
+     * Counts checks made against this calculator, indexed by {@link CheckOrigin#ordinal()}
+     */
+    private final Counter[] checkCounters;
+
+    /**
+     * Counts checks which weren't already cached
+     */
+    private final Counter missCounter;
+
     public PermissionCalculator(LuckPermsPlugin plugin, PermissionCalculatorMetadata metadata, ImmutableList<PermissionProcessor> processors) {
         this.plugin = plugin;
         this.metadata = metadata;
         this.processors = processors;
+
+        MetricsRegistry metrics = plugin.getMetrics();
+        CheckOrigin[] origins = CheckOrigin.values();
+        this.checkCounters = new Counter[origins.length];
+        for (CheckOrigin origin : origins) {
+            this.checkCounters[origin.ordinal()] = metrics.counter("luckperms_permission_checks_total", "Permission checks made against calculated data", "origin", origin.name().toLowerCase());
+        }
+        this.missCounter = metrics.counter("luckperms_permission_check_misses_total", "Permission checks which had to be calculated");
     }
 
     /**
@@ -81,15 +101,31 @@ public class PermissionCalculator implements CacheLoader<String, Tristate> {
      * @return the result
      */
     public Tristate getPermissionValue(String permission, CheckOrigin origin) {
+        return getPermissionValue(permission, origin, this.metadata);
+    }
+
+    /**
+     * Performs a permission check against this calculator, attributing the
+     * check to the holder described by the given metadata.
+     *
+     * <p>Used when a calculator is shared between holders with identical data.</p>
+     *
+     * @param permission the permission to check
+     * @param origin marks where this check originated from
+     * @param metadata info about the holder the check is for
+     * @return the result
+     */
+    public Tristate getPermissionValue(String permission, CheckOrigin origin, PermissionCalculatorMetadata metadata) {
         // convert the permission to lowercase, as all values in the backing map are also lowercase.
         // this allows fast case insensitive lookups
         permission = permission.toLowerCase();
 
         // get the result
         Tristate result = this.lookupCache.get(permission);
+        this.checkCounters[origin.ordinal()].increment();
 
         // log this permission lookup to the verbose handler
-        this.plugin.getVerboseHandler().offerCheckData(origin, this.metadata.getObjectName(), this.metadata.getContext(), permission, result);
+        this.plugin.getVerboseHandler().offerCheckData(origin, metadata.getObjectName(), metadata.getContext(), permission, result);
 
         // return the result
         return result;
@@ -101,6 +137,7 @@ public class PermissionCalculator implements CacheLoader<String, Tristate> {
         // we only need to do this once per permission, so it doesn't matter
         // that this call is behind the cache.
         this.plugin.getPermissionRegistry().offer(permission);
+        this.missCounter.increment();
 
         for (PermissionProcessor processor : this.processors) {
             Tristate result = processor.hasPermission(permission);
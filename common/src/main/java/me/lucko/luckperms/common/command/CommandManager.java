@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.command;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import me.lucko.luckperms.common.command.abstraction.Command;
 import me.lucko.luckperms.common.command.abstraction.CommandException;
@@ -47,6 +48,7 @@ import me.lucko.luckperms.common.commands.misc.EditorCommand;
 import me.lucko.luckperms.common.commands.misc.ExportCommand;
 import me.lucko.luckperms.common.commands.misc.ImportCommand;
 import me.lucko.luckperms.common.commands.misc.InfoCommand;
+import me.lucko.luckperms.common.commands.misc.MetricsCommand;
 import me.lucko.luckperms.common.commands.misc.NetworkSyncCommand;
 import me.lucko.luckperms.common.commands.misc.ReloadConfigCommand;
 import me.lucko.luckperms.common.commands.misc.SearchCommand;
@@ -61,9 +63,11 @@ import me.lucko.luckperms.common.commands.user.UserMainCommand;
 import me.lucko.luckperms.common.locale.LocaleManager;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.utils.TextUtils;
+import me.lucko.luckperms.common.utils.Uuids;
 
 import net.kyori.text.TextComponent;
 import net.kyori.text.event.ClickEvent;
@@ -75,11 +79,11 @@ import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -95,10 +99,28 @@ public class CommandManager {
     public static final char SECTION_CHAR = '\u00A7'; // §
     public static final char AMPERSAND_CHAR = '&';
 
+    // main commands which never modify data
+    private static final Set<String> READ_ONLY_COMMANDS = ImmutableSet.of(
+            "info", "metrics", "editor", "debug", "verbose", "tree", "search", "check", "export", "listgroups", "listtracks"
+    );
+
+    // user/group/track sub commands which never modify data
+    private static final Set<String> READ_ONLY_SUB_COMMANDS = ImmutableSet.of(
+            "info", "editor", "showtracks", "listmembers"
+    );
+
+    // permission/parent/meta sub commands which never modify data
+    private static final Set<String> READ_ONLY_NESTED_SUB_COMMANDS = ImmutableSet.of(
+            "info", "check", "checkinherits"
+    );
+
     private final LuckPermsPlugin plugin;
 
-    // the default executor to run commands on
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // the default scheduler to run commands on
+    private final CommandScheduler scheduler = new CommandScheduler(Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())));
+
+    // timings for commands executed via the scheduler
+    private final CommandTimings timings = new CommandTimings();
 
     private final TabCompletions tabCompletions;
 
@@ -117,6 +139,7 @@ public class CommandManager {
                 .add(new LogMainCommand(locale))
                 .add(new SyncCommand(locale))
                 .add(new InfoCommand(locale))
+                .add(new MetricsCommand(locale))
                 .add(new EditorCommand(locale))
                 .add(new DebugCommand(locale))
                 .add(new VerboseCommand(locale))
@@ -147,20 +170,168 @@ public class CommandManager {
         return this.tabCompletions;
     }
 
+    public CommandTimings getTimings() {
+        return this.timings;
+    }
+
     public CompletableFuture<CommandResult> onCommand(Sender sender, String label, List<String> args) {
-        return onCommand(sender, label, args, this.executor);
+        List<String> arguments = new ArrayList<>(args);
+        handleRewrites(arguments, true);
+
+        String command = arguments.isEmpty() ? "" : arguments.get(0).toLowerCase();
+        long submitTime = System.nanoTime();
+        Supplier<CommandResult> task = () -> {
+            long startTime = System.nanoTime();
+            try {
+                return executeSafely(sender, label, args);
+            } finally {
+                this.timings.record(command, startTime - submitTime, System.nanoTime() - startTime);
+            }
+        };
+
+        // commands which modify the same target are executed in order, commands
+        // which don't modify anything run alongside them, and commands which can
+        // modify anything run on their own
+        if (isReadOnly(arguments)) {
+            return this.scheduler.submitReadOnly(task);
+        }
+
+        Set<String> targets = getTargets(arguments);
+        if (targets == null) {
+            return this.scheduler.submitExclusive(task);
+        }
+        return this.scheduler.submit(targets, task);
     }
 
     public CompletableFuture<CommandResult> onCommand(Sender sender, String label, List<String> args, Executor executor) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return execute(sender, label, args);
-            } catch (Throwable e) {
-                this.plugin.getLogger().severe("Exception whilst executing command: " + args.toString());
-                e.printStackTrace();
+        return CompletableFuture.supplyAsync(() -> executeSafely(sender, label, args), executor);
+    }
+
+    private CommandResult executeSafely(Sender sender, String label, List<String> args) {
+        try {
+            return execute(sender, label, args);
+        } catch (Throwable e) {
+            this.plugin.getLogger().severe("Exception whilst executing command: " + args.toString());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Gets if the command described by the given (rewritten) arguments never modifies any data.
+     *
+     * @param args the arguments
+     * @return if the command is read-only
+     */
+    private static boolean isReadOnly(List<String> args) {
+        // just prints usage
+        if (args.isEmpty()) {
+            return true;
+        }
+
+        String command = args.get(0).toLowerCase();
+        if (READ_ONLY_COMMANDS.contains(command)) {
+            return true;
+        }
+
+        switch (command) {
+            case "log":
+                // notify is the only log command which modifies data
+                return args.size() < 2 || !args.get(1).equalsIgnoreCase("notify");
+            case "user":
+            case "group":
+            case "track":
+                // no sub command given - just prints usage
+                if (args.size() <= 2) {
+                    return true;
+                }
+
+                String sub = args.get(2).toLowerCase();
+                if (READ_ONLY_SUB_COMMANDS.contains(sub)) {
+                    return true;
+                }
+
+                switch (sub) {
+                    case "permission":
+                    case "parent":
+                    case "meta":
+                        return args.size() <= 3 || READ_ONLY_NESTED_SUB_COMMANDS.contains(args.get(3).toLowerCase());
+                    default:
+                        return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets the keys of the targets modified by the command described by the
+     * given (rewritten) arguments.
+     *
+     * <p>Commands which can touch any holder in storage (bulk updates, imports
+     * and syncs) return null, and are run exclusively. Commands without a
+     * specific target are keyed by their name, so they only run one at a time
+     * with themselves.</p>
+     *
+     * @param args the arguments
+     * @return the target keys, or null if the command may modify any target
+     */
+    private Set<String> getTargets(List<String> args) {
+        String command = args.get(0).toLowerCase();
+        switch (command) {
+            case "bulkupdate":
+            case "import":
+            case "sync":
+            case "networksync":
                 return null;
+            case "user":
+            case "group":
+            case "track": {
+                String target = getKey(command, args.get(1));
+
+                // renaming and cloning also modify the new target
+                String sub = args.get(2).toLowerCase();
+                if (args.size() >= 4 && (sub.equals("rename") || sub.equals("clone"))) {
+                    return ImmutableSet.of(target, getKey(command, args.get(3)));
+                }
+                return ImmutableSet.of(target);
             }
-        }, executor);
+            case "creategroup":
+            case "deletegroup":
+                return args.size() >= 2 ? ImmutableSet.of(getKey("group", args.get(1))) : ImmutableSet.of();
+            case "createtrack":
+            case "deletetrack":
+                return args.size() >= 2 ? ImmutableSet.of(getKey("track", args.get(1))) : ImmutableSet.of();
+            default:
+                return ImmutableSet.of("command:" + command);
+        }
+    }
+
+    private String getKey(String type, String target) {
+        return type.equals("user") ? getUserKey(target) : type + ":" + target.toLowerCase();
+    }
+
+    /**
+     * Gets the key for a user target, so a user gets the same key whether it
+     * is given by uuid or by username.
+     *
+     * <p>Usernames are only resolved against loaded users, as this can't block
+     * on a storage lookup. Loaded users are the ones which are modified
+     * concurrently in practice, and modifications to the same user are still
+     * guarded by the user command lock.</p>
+     *
+     * @param target the target argument
+     * @return the key
+     */
+    private String getUserKey(String target) {
+        UUID uuid = Uuids.parseNullable(target);
+        if (uuid == null) {
+            User user = this.plugin.getUserManager().getByUsername(target);
+            if (user != null) {
+                uuid = user.getUuid();
+            }
+        }
+        return "user:" + (uuid != null ? uuid.toString() : target.toLowerCase());
     }
 
     @SuppressWarnings("unchecked")
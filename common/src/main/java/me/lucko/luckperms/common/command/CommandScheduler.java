@@ -0,0 +1,180 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.command;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Executes commands on a bounded pool of threads.
+ *
+ * <p>Commands which modify the same target are executed in the order they
+ * were submitted, one at a time. Read-only commands run as soon as a thread
+ * is available. Exclusive commands wait for every command submitted before
+ * them, and block every command submitted after them, so no other command
+ * is ever running at the same time as one.</p>
+ */
+public class CommandScheduler {
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService executor;
+
+    /**
+     * The last command submitted for each target, guarded by this
+     */
+    private final Map<String, CompletableFuture<Void>> tails = new HashMap<>();
+
+    /**
+     * The read-only commands which haven't completed yet, guarded by this
+     */
+    private final Set<CompletableFuture<Void>> readers = new HashSet<>();
+
+    /**
+     * The last exclusive command submitted, guarded by this
+     */
+    private CompletableFuture<Void> barrier = COMPLETED;
+
+    public CommandScheduler(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("luckperms-command-%d")
+                .build());
+    }
+
+    /**
+     * Submits a read-only task, which runs as soon as a thread is available
+     * and no exclusive task is pending.
+     *
+     * @param task the task
+     * @param <T> the result type
+     * @return a future encapsulating the result
+     */
+    public <T> CompletableFuture<T> submitReadOnly(Supplier<T> task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        List<CompletableFuture<Void>> dependencies;
+
+        synchronized (this) {
+            dependencies = Collections.singletonList(this.barrier);
+            this.readers.add(done);
+        }
+
+        return schedule(dependencies, done, task, () -> {
+            synchronized (this) {
+                this.readers.remove(done);
+            }
+        });
+    }
+
+    /**
+     * Submits a task which modifies the given targets.
+     *
+     * @param targets the keys of the targets being modified
+     * @param task the task
+     * @param <T> the result type
+     * @return a future encapsulating the result
+     */
+    public <T> CompletableFuture<T> submit(Collection<String> targets, Supplier<T> task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>(targets.size() + 1);
+
+        synchronized (this) {
+            dependencies.add(this.barrier);
+            for (String target : targets) {
+                CompletableFuture<Void> previous = this.tails.put(target, done);
+                if (previous != null) {
+                    dependencies.add(previous);
+                }
+            }
+        }
+
+        return schedule(dependencies, done, task, () -> {
+            synchronized (this) {
+                for (String target : targets) {
+                    this.tails.remove(target, done);
+                }
+            }
+        });
+    }
+
+    /**
+     * Submits a task which may modify any target.
+     *
+     * @param task the task
+     * @param <T> the result type
+     * @return a future encapsulating the result
+     */
+    public <T> CompletableFuture<T> submitExclusive(Supplier<T> task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        List<CompletableFuture<Void>> dependencies;
+
+        synchronized (this) {
+            dependencies = new ArrayList<>(this.tails.values());
+            dependencies.addAll(this.readers);
+            dependencies.add(this.barrier);
+
+            // later commands will wait for the barrier, which in turn
+            // waits for everything submitted before it
+            this.tails.clear();
+            this.barrier = done;
+        }
+
+        return schedule(dependencies, done, task, () -> {
+            synchronized (this) {
+                if (this.barrier == done) {
+                    this.barrier = COMPLETED;
+                }
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> schedule(List<CompletableFuture<Void>> dependencies, CompletableFuture<Void> done, Supplier<T> task, Runnable cleanup) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0])).whenComplete((v, ex) -> this.executor.execute(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                cleanup.run();
+                done.complete(null);
+            }
+        }));
+        return result;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.command;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long commands spend waiting to be executed, and executing.
+ */
+public class CommandTimings {
+
+    /**
+     * Timings keyed by the name of the main command
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Records the timings of a command execution
+     *
+     * @param command the name of the main command
+     * @param queueNanos the time spent waiting to execute
+     * @param executionNanos the time spent executing
+     */
+    public void record(String command, long queueNanos, long executionNanos) {
+        Entry entry = this.entries.computeIfAbsent(command, c -> new Entry());
+        entry.count.increment();
+        entry.queueTime.add(queueNanos);
+        entry.executionTime.add(executionNanos);
+        entry.maxQueueTime.accumulate(queueNanos);
+        entry.maxExecutionTime.accumulate(executionNanos);
+    }
+
+    /**
+     * Gets the recorded timings, keyed by the name of the main command
+     *
+     * @return the timings
+     */
+    public Map<String, Entry> getEntries() {
+        return ImmutableMap.copyOf(this.entries);
+    }
+
+    public static final class Entry {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder queueTime = new LongAdder();
+        private final LongAdder executionTime = new LongAdder();
+        private final LongAccumulator maxQueueTime = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxExecutionTime = new LongAccumulator(Math::max, 0);
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getAverageQueueTime(TimeUnit unit) {
+            long count = getCount();
+            return count == 0 ? 0 : unit.convert(this.queueTime.sum() / count, TimeUnit.NANOSECONDS);
+        }
+
+        public long getAverageExecutionTime(TimeUnit unit) {
+            long count = getCount();
+            return count == 0 ? 0 : unit.convert(this.executionTime.sum() / count, TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxQueueTime(TimeUnit unit) {
+            return unit.convert(this.maxQueueTime.get(), TimeUnit.NANOSECONDS);
+        }
+
+        public long getMaxExecutionTime(TimeUnit unit) {
+            return unit.convert(this.maxExecutionTime.get(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+}
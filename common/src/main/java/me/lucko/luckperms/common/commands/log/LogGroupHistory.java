@@ -25,8 +25,10 @@
 
 package me.lucko.luckperms.common.commands.log;
 
+import me.lucko.luckperms.api.LogEntry;
 import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.command.CommandResult;
 import me.lucko.luckperms.common.command.abstraction.SubCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -38,16 +40,16 @@ import me.lucko.luckperms.common.locale.command.CommandSpec;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.DataConstraints;
 import me.lucko.luckperms.common.utils.DurationFormatter;
-import me.lucko.luckperms.common.utils.Paginated;
 import me.lucko.luckperms.common.utils.Predicates;
 
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 
-public class LogGroupHistory extends SubCommand<Log> {
+public class LogGroupHistory extends SubCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
 
     public LogGroupHistory(LocaleManager locale) {
@@ -55,40 +57,37 @@ public class LogGroupHistory extends SubCommand<Log> {
     }
 
     @Override
-    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, Log log, List<String> args, String label) {
+    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, Storage storage, List<String> args, String label) {
         String group = args.get(0).toLowerCase();
         if (!DataConstraints.GROUP_NAME_TEST.test(group)) {
             Message.GROUP_INVALID_ENTRY.send(sender, group);
             return CommandResult.INVALID_ARGS;
         }
 
-        Paginated<ExtendedLogEntry> content = new Paginated<>(log.getGroupHistory(group));
-
+        LogQuery query = LogQuery.builder().type(LogEntry.Type.GROUP).actedName(group).build();
         int page = ArgumentParser.parseIntOrElse(1, args, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            return showLog(page, sender, content);
-        } else {
-            return showLog(content.getMaxPages(ENTRIES_PER_PAGE), sender, content);
-        }
+        return showLog(LogPage.load(storage, query, page, ENTRIES_PER_PAGE), sender);
     }
 
-    private static CommandResult showLog(int page, Sender sender, Paginated<ExtendedLogEntry> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static CommandResult showLog(LogPage log, Sender sender) {
+        if (log == null) {
+            Message.LOG_LOAD_ERROR.send(sender);
+            return CommandResult.LOADING_ERROR;
+        }
+
+        int maxPage = log.getMaxPages();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return CommandResult.STATE_ERROR;
         }
 
-        if (page == Integer.MIN_VALUE) {
-            page = maxPage;
-        }
-
+        int page = log.getPageNo();
         if (page < 1 || page > maxPage) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return CommandResult.INVALID_ARGS;
         }
 
-        SortedMap<Integer, ExtendedLogEntry> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        SortedMap<Integer, ExtendedLogEntry> entries = log.getContent();
         String name = entries.values().stream().findAny().get().getActedName();
         Message.LOG_HISTORY_GROUP_HEADER.send(sender, name, page, maxPage);
 
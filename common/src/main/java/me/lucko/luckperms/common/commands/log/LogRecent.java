@@ -26,7 +26,8 @@
 package me.lucko.luckperms.common.commands.log;
 
 import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.command.CommandResult;
 import me.lucko.luckperms.common.command.abstraction.SubCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -36,8 +37,8 @@ import me.lucko.luckperms.common.locale.command.CommandSpec;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.utils.DurationFormatter;
-import me.lucko.luckperms.common.utils.Paginated;
 import me.lucko.luckperms.common.utils.Predicates;
 
 import java.util.List;
@@ -45,7 +46,7 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.UUID;
 
-public class LogRecent extends SubCommand<Log> {
+public class LogRecent extends SubCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
     
     public LogRecent(LocaleManager locale) {
@@ -53,17 +54,15 @@ public class LogRecent extends SubCommand<Log> {
     }
 
     @Override
-    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, Log log, List<String> args, String label) {
+    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, Storage storage, List<String> args, String label) {
         if (args.isEmpty()) {
             // No page or user
-            Paginated<ExtendedLogEntry> content = new Paginated<>(log.getContent());
-            return showLog(content.getMaxPages(ENTRIES_PER_PAGE), false, sender, content);
+            return showLog(LogPage.load(storage, LogQuery.all(), Integer.MIN_VALUE, ENTRIES_PER_PAGE), false, sender);
         }
 
         int page = ArgumentParser.parseIntOrElse(0, args, Integer.MIN_VALUE);
         if (page != Integer.MIN_VALUE) {
-            Paginated<ExtendedLogEntry> content = new Paginated<>(log.getContent());
-            return showLog(page, false, sender, content);
+            return showLog(LogPage.load(storage, LogQuery.all(), page, ENTRIES_PER_PAGE), false, sender);
         }
 
         // User and possibly page
@@ -72,28 +71,30 @@ public class LogRecent extends SubCommand<Log> {
             return CommandResult.INVALID_ARGS;
         }
 
-        Paginated<ExtendedLogEntry> content = new Paginated<>(log.getContent(uuid));
+        LogQuery query = LogQuery.builder().actor(uuid).build();
         page = ArgumentParser.parseIntOrElse(1, args, Integer.MIN_VALUE);
-        if (page != Integer.MIN_VALUE) {
-            return showLog(page, true, sender, content);
-        } else {
-            return showLog(content.getMaxPages(ENTRIES_PER_PAGE), true, sender, content);
-        }
+        return showLog(LogPage.load(storage, query, page, ENTRIES_PER_PAGE), true, sender);
     }
 
-    private static CommandResult showLog(int page, boolean specificUser, Sender sender, Paginated<ExtendedLogEntry> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+    private static CommandResult showLog(LogPage log, boolean specificUser, Sender sender) {
+        if (log == null) {
+            Message.LOG_LOAD_ERROR.send(sender);
+            return CommandResult.LOADING_ERROR;
+        }
+
+        int maxPage = log.getMaxPages();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return CommandResult.STATE_ERROR;
         }
 
+        int page = log.getPageNo();
         if (page < 1 || page > maxPage) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return CommandResult.INVALID_ARGS;
         }
 
-        SortedMap<Integer, ExtendedLogEntry> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        SortedMap<Integer, ExtendedLogEntry> entries = log.getContent();
         if (specificUser) {
             String name = entries.values().stream().findAny().get().getActorName();
             if (name.contains("@")) {
@@ -26,7 +26,8 @@
 package me.lucko.luckperms.common.commands.log;
 
 import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
-import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogPage;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.command.CommandResult;
 import me.lucko.luckperms.common.command.abstraction.SubCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -35,8 +36,8 @@ import me.lucko.luckperms.common.locale.command.CommandSpec;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.utils.DurationFormatter;
-import me.lucko.luckperms.common.utils.Paginated;
 import me.lucko.luckperms.common.utils.Predicates;
 
 import java.util.List;
@@ -44,7 +45,7 @@ import java.util.Map;
 import java.util.SortedMap;
 import java.util.stream.Collectors;
 
-public class LogSearch extends SubCommand<Log> {
+public class LogSearch extends SubCommand<Storage> {
     private static final int ENTRIES_PER_PAGE = 10;
 
     public LogSearch(LocaleManager locale) {
@@ -52,7 +53,7 @@ public class LogSearch extends SubCommand<Log> {
     }
 
     @Override
-    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, Log log, List<String> args, String label) {
+    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, Storage storage, List<String> args, String label) {
         int page = Integer.MIN_VALUE;
         if (args.size() > 1) {
             try {
@@ -64,32 +65,29 @@ public class LogSearch extends SubCommand<Log> {
         }
 
         final String query = args.stream().collect(Collectors.joining(" "));
-        Paginated<ExtendedLogEntry> content = new Paginated<>(log.getSearch(query));
+        LogQuery logQuery = LogQuery.builder().search(query).build();
+        return showLog(LogPage.load(storage, logQuery, page, ENTRIES_PER_PAGE), query, sender);
+    }
 
-        if (page != Integer.MIN_VALUE) {
-            return showLog(page, query, sender, content);
-        } else {
-            return showLog(content.getMaxPages(ENTRIES_PER_PAGE), query, sender, content);
+    private static CommandResult showLog(LogPage log, String query, Sender sender) {
+        if (log == null) {
+            Message.LOG_LOAD_ERROR.send(sender);
+            return CommandResult.LOADING_ERROR;
         }
-    }
 
-    private static CommandResult showLog(int page, String query, Sender sender, Paginated<ExtendedLogEntry> log) {
-        int maxPage = log.getMaxPages(ENTRIES_PER_PAGE);
+        int maxPage = log.getMaxPages();
         if (maxPage == 0) {
             Message.LOG_NO_ENTRIES.send(sender);
             return CommandResult.STATE_ERROR;
         }
 
-        if (page == Integer.MIN_VALUE) {
-            page = maxPage;
-        }
-
+        int page = log.getPageNo();
         if (page < 1 || page > maxPage) {
             Message.LOG_INVALID_PAGE_RANGE.send(sender, maxPage);
             return CommandResult.INVALID_ARGS;
         }
 
-        SortedMap<Integer, ExtendedLogEntry> entries = log.getPage(page, ENTRIES_PER_PAGE);
+        SortedMap<Integer, ExtendedLogEntry> entries = log.getContent();
         Message.LOG_SEARCH_HEADER.send(sender, query, page, maxPage);
 
         long now = System.currentTimeMillis() / 1000L;
@@ -38,6 +38,7 @@ import me.lucko.luckperms.api.metastacking.MetaStackElement;
 import me.lucko.luckperms.common.caching.type.MetaCache;
 import me.lucko.luckperms.common.caching.type.PermissionCache;
 import me.lucko.luckperms.common.command.CommandResult;
+import me.lucko.luckperms.common.command.CommandTimings;
 import me.lucko.luckperms.common.command.abstraction.SingleCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
 import me.lucko.luckperms.common.contexts.ContextSetJsonSerializer;
@@ -66,6 +67,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -93,6 +95,7 @@ public class DebugCommand extends SingleCommand {
         builder.accept("storage.json", getStorageData(plugin));
         builder.accept("context.json", getContextData(plugin));
         builder.accept("players.json", getPlayersData(plugin));
+        builder.accept("commands.json", getCommandData(plugin));
 
         Pastebin.Paste paste = StandardPastebin.HASTEBIN.postPlain(sb.toString());
 
@@ -169,6 +172,21 @@ public class DebugCommand extends SingleCommand {
                 });
     }
 
+    private static JObject getCommandData(LuckPermsPlugin plugin) {
+        JObject ret = new JObject();
+        for (Map.Entry<String, CommandTimings.Entry> entry : plugin.getCommandManager().getTimings().getEntries().entrySet()) {
+            CommandTimings.Entry timings = entry.getValue();
+            ret.add(entry.getKey().isEmpty() ? "(none)" : entry.getKey(), new JObject()
+                    .add("count", timings.getCount())
+                    .add("averageQueueTimeMillis", timings.getAverageQueueTime(TimeUnit.MILLISECONDS))
+                    .add("maxQueueTimeMillis", timings.getMaxQueueTime(TimeUnit.MILLISECONDS))
+                    .add("averageExecutionTimeMillis", timings.getAverageExecutionTime(TimeUnit.MILLISECONDS))
+                    .add("maxExecutionTimeMillis", timings.getMaxExecutionTime(TimeUnit.MILLISECONDS))
+            );
+        }
+        return ret;
+    }
+
     private static JObject getPlayersData(LuckPermsPlugin plugin) {
         JObject ret = new JObject();
 
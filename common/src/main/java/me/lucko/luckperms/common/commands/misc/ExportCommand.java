@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.commands.misc;
 
 import me.lucko.luckperms.common.backup.Exporter;
+import me.lucko.luckperms.common.backup.JsonExporter;
 import me.lucko.luckperms.common.command.CommandResult;
 import me.lucko.luckperms.common.command.abstraction.SingleCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -82,7 +83,13 @@ public class ExportCommand extends SingleCommand {
             return CommandResult.STATE_ERROR;
         }
 
-        Exporter exporter = new Exporter(plugin, sender, path, includeUsers);
+        // use the structured format if a json file was requested
+        Runnable exporter;
+        if (path.getFileName().toString().endsWith(".json")) {
+            exporter = new JsonExporter(plugin, sender, path, includeUsers);
+        } else {
+            exporter = new Exporter(plugin, sender, path, includeUsers);
+        }
 
         // Run the exporter in its own thread.
         plugin.getBootstrap().getScheduler().executeAsync(() -> {
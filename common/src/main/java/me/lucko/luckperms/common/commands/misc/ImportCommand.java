@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.commands.misc;
 
 import me.lucko.luckperms.common.backup.Importer;
+import me.lucko.luckperms.common.backup.JsonImporter;
 import me.lucko.luckperms.common.command.CommandResult;
 import me.lucko.luckperms.common.command.abstraction.SingleCommand;
 import me.lucko.luckperms.common.command.access.CommandPermission;
@@ -68,10 +69,14 @@ public class ImportCommand extends SingleCommand {
             return CommandResult.FAILURE;
         }
 
-        List<String> commands;
-
+        Runnable importer;
         try {
-            commands = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (JsonImporter.isStructuredExport(path)) {
+                importer = new JsonImporter(plugin, sender, path);
+            } else {
+                List<String> commands = Files.readAllLines(path, StandardCharsets.UTF_8);
+                importer = new Importer(plugin.getCommandManager(), sender, commands);
+            }
         } catch (IOException e) {
             e.printStackTrace();
             Message.IMPORT_LOG_FAILURE.send(sender);
@@ -83,8 +88,6 @@ public class ImportCommand extends SingleCommand {
             return CommandResult.STATE_ERROR;
         }
 
-        Importer importer = new Importer(plugin.getCommandManager(), sender, commands);
-
         // Run the importer in its own thread.
         plugin.getBootstrap().getScheduler().executeAsync(() -> {
             try {
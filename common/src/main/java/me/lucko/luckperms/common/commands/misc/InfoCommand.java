@@ -60,6 +60,12 @@ public class InfoCommand extends SingleCommand {
             Message.INFO_STORAGE_META.send(sender, e.getKey(), formatValue(e.getValue()));
         }
 
+        Map<String, Long> startupTimings = plugin.getStartupProfiler().getTimings();
+        Message.INFO_STARTUP.send(sender, startupTimings.values().stream().mapToLong(Long::longValue).sum());
+        for (Map.Entry<String, Long> e : startupTimings.entrySet()) {
+            Message.INFO_STARTUP_PHASE.send(sender, e.getKey(), e.getValue());
+        }
+
         Message.INFO_MIDDLE.send(sender,
                 plugin.getMessagingService().map(InternalMessagingService::getName).orElse("None"),
                 plugin.getContextManager().getStaticContextString().orElse("None"),
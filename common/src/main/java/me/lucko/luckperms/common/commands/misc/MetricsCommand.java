@@ -0,0 +1,104 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.commands.misc;
+
+import me.lucko.luckperms.common.command.CommandResult;
+import me.lucko.luckperms.common.command.abstraction.SingleCommand;
+import me.lucko.luckperms.common.command.access.CommandPermission;
+import me.lucko.luckperms.common.locale.LocaleManager;
+import me.lucko.luckperms.common.locale.command.CommandSpec;
+import me.lucko.luckperms.common.locale.message.Message;
+import me.lucko.luckperms.common.metrics.Histogram;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.utils.Predicates;
+
+import java.util.List;
+
+public class MetricsCommand extends SingleCommand {
+    public MetricsCommand(LocaleManager locale) {
+        super(CommandSpec.METRICS.localize(locale), "Metrics", CommandPermission.METRICS, Predicates.alwaysFalse());
+    }
+
+    @Override
+    public CommandResult execute(LuckPermsPlugin plugin, Sender sender, List<String> args, String label) {
+        MetricsRegistry registry = plugin.getMetrics();
+        if (!registry.isEnabled()) {
+            Message.METRICS_DISABLED.send(sender);
+            return CommandResult.STATE_ERROR;
+        }
+
+        String filter = args.isEmpty() ? "" : args.get(0).toLowerCase();
+        List<MetricsRegistry.Metric> metrics = registry.getMetrics();
+
+        Message.METRICS_HEADER.send(sender);
+
+        long checks = 0;
+        long misses = 0;
+        for (MetricsRegistry.Metric metric : metrics) {
+            if (metric.getName().equals("luckperms_permission_checks_total")) {
+                checks += metric.getCounter().get();
+            } else if (metric.getName().equals("luckperms_permission_check_misses_total")) {
+                misses += metric.getCounter().get();
+            }
+        }
+        if (checks > 0 && filter.isEmpty()) {
+            double hitRate = Math.max(0, checks - misses) * 100d / checks;
+            Message.METRICS_HIT_RATE.send(sender, String.format("%.2f", hitRate));
+        }
+
+        for (MetricsRegistry.Metric metric : metrics) {
+            String name = metric.getFullName();
+            if (!name.contains(filter)) {
+                continue;
+            }
+
+            // the prefix is the same for every metric, so just leave it out
+            if (name.startsWith("luckperms_")) {
+                name = name.substring("luckperms_".length());
+            }
+
+            switch (metric.getType()) {
+                case COUNTER:
+                    Message.METRICS_COUNTER.send(sender, name, metric.getCounter().get());
+                    break;
+                case TIMER:
+                    Histogram histogram = metric.getHistogram();
+                    Message.METRICS_TIMER.send(sender, name, histogram.getCount(), formatMillis(histogram.getValueAtQuantile(0.5)), formatMillis(histogram.getValueAtQuantile(0.99)));
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+        }
+
+        return CommandResult.SUCCESS;
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000d);
+    }
+}
@@ -36,6 +36,7 @@ import me.lucko.luckperms.common.assignments.AssignmentRule;
 import me.lucko.luckperms.common.config.keys.BooleanKey;
 import me.lucko.luckperms.common.config.keys.CustomKey;
 import me.lucko.luckperms.common.config.keys.EnduringKey;
+import me.lucko.luckperms.common.config.keys.IntegerKey;
 import me.lucko.luckperms.common.config.keys.LowercaseStringKey;
 import me.lucko.luckperms.common.config.keys.MapKey;
 import me.lucko.luckperms.common.config.keys.StringKey;
@@ -240,6 +241,12 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLY_SPONGE_DEFAULT_SUBJECTS = EnduringKey.wrap(BooleanKey.of("apply-sponge-default-subjects", true));
 
+    /**
+     * If Sponge persisted subjects should be stored in a single binary file per collection.
+     * This setting is ignored on other platforms
+     */
+    public static final ConfigKey<Boolean> SPONGE_COMPACT_SUBJECT_STORAGE = EnduringKey.wrap(BooleanKey.of("compact-sponge-subject-storage", false));
+
     /**
      * The algorithm LuckPerms should use when traversing the "inheritance tree"
      */
@@ -408,6 +415,21 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<String> SQL_TABLE_PREFIX = EnduringKey.wrap(StringKey.of("data.table_prefix", "luckperms_"));
 
+    /**
+     * If the compact schema should be used to store permission data in SQL databases
+     */
+    public static final ConfigKey<Boolean> SQL_COMPACT_SCHEMA = EnduringKey.wrap(BooleanKey.of("data.compact_schema", false));
+
+    /**
+     * The address of a read replica for SQL databases, or an empty string if none should be used
+     */
+    public static final ConfigKey<String> SQL_READ_REPLICA_ADDRESS = EnduringKey.wrap(StringKey.of("data.read-replica.address", ""));
+
+    /**
+     * The maximum replication lag (in seconds) before reads are no longer routed to the read replica
+     */
+    public static final ConfigKey<Integer> SQL_READ_REPLICA_MAX_LAG = EnduringKey.wrap(IntegerKey.of("data.read-replica.maximum-lag", 5));
+
     /**
      * The prefix for any MongoDB collections
      */
@@ -428,6 +450,36 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> WATCH_FILES = BooleanKey.of("watch-files", true);
 
+    /**
+     * If a local snapshot of group and track data should be used to speed up startup
+     */
+    public static final ConfigKey<Boolean> STARTUP_SNAPSHOT = EnduringKey.wrap(BooleanKey.of("startup-snapshot", false));
+
+    /**
+     * If an index of permissions should be kept to speed up searches in file storage
+     */
+    public static final ConfigKey<Boolean> FILE_PERMISSION_INDEX = EnduringKey.wrap(BooleanKey.of("file-permission-index", false));
+
+    /**
+     * If performance metrics should be recorded
+     */
+    public static final ConfigKey<Boolean> METRICS_ENABLED = EnduringKey.wrap(BooleanKey.of("metrics.enabled", false));
+
+    /**
+     * If recorded metrics should be exposed over JMX
+     */
+    public static final ConfigKey<Boolean> METRICS_JMX = EnduringKey.wrap(BooleanKey.of("metrics.jmx", true));
+
+    /**
+     * The port to serve metrics in the Prometheus format on, or 0 if they shouldn't be served
+     */
+    public static final ConfigKey<Integer> METRICS_HTTP_PORT = EnduringKey.wrap(IntegerKey.of("metrics.http-port", 0));
+
+    /**
+     * The address to serve metrics on
+     */
+    public static final ConfigKey<String> METRICS_HTTP_ADDRESS = EnduringKey.wrap(StringKey.of("metrics.http-address", "127.0.0.1"));
+
     /**
      * If split storage is being used
      */
@@ -451,6 +503,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<String> MESSAGING_SERVICE = EnduringKey.wrap(LowercaseStringKey.of("messaging-service", "none"));
 
+    /**
+     * The format used to encode messages sent by the messaging service - "json", "binary" or "auto"
+     */
+    public static final ConfigKey<String> MESSAGING_FORMAT = EnduringKey.wrap(LowercaseStringKey.of("messaging-format", "json"));
+
     /**
      * If updates should be automatically pushed by the messaging service
      */
@@ -26,7 +26,7 @@
 package me.lucko.luckperms.common.dependencies;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import me.lucko.luckperms.common.dependencies.classloader.IsolatedClassLoader;
 import me.lucko.luckperms.common.dependencies.relocation.Relocation;
@@ -39,10 +39,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
@@ -51,13 +53,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Responsible for loading runtime dependencies.
  */
 public class DependencyManager {
     private final LuckPermsPlugin plugin;
-    private final MessageDigest digest;
     private final DependencyRegistry registry;
     private final EnumMap<Dependency, Path> loaded = new EnumMap<>(Dependency.class);
     private final Map<ImmutableSet<Dependency>, IsolatedClassLoader> loaders = new HashMap<>();
@@ -65,11 +70,6 @@ public class DependencyManager {
 
     public DependencyManager(LuckPermsPlugin plugin) {
         this.plugin = plugin;
-        try {
-            this.digest = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
         this.registry = new DependencyRegistry(plugin);
     }
 
@@ -129,100 +129,150 @@ public class DependencyManager {
     public void loadDependencies(Set<Dependency> dependencies) {
         Path saveDirectory = getSaveDirectory();
 
-        // create a list of file sources
-        List<Source> sources = new ArrayList<>();
-
-        // obtain a file for each of the dependencies
+        List<Dependency> toLoad = new ArrayList<>();
+        boolean remapRequired = false;
         for (Dependency dependency : dependencies) {
             if (this.loaded.containsKey(dependency)) {
                 continue;
             }
+            toLoad.add(dependency);
+            remapRequired |= !getRelocations(dependency).isEmpty() && !Files.exists(getRemappedFile(saveDirectory, dependency));
+        }
 
-            try {
-                Path file = downloadDependency(saveDirectory, dependency);
-                sources.add(new Source(dependency, file));
-            } catch (Throwable e) {
-                this.plugin.getLogger().severe("Exception whilst downloading dependency " + dependency.name());
-                e.printStackTrace();
-            }
+        if (toLoad.isEmpty()) {
+            return;
         }
 
-        // apply any remapping rules to the files
-        List<Source> remappedJars = new ArrayList<>(sources.size());
-        for (Source source : sources) {
-            try {
-                // apply remap rules
-                List<Relocation> relocations = new ArrayList<>(source.dependency.getRelocations());
-                relocations.addAll(this.registry.getLegacyRelocations(source.dependency));
+        // the relocation handler loads dependencies of its own, so initialise
+        // it before any of the tasks below need it
+        if (remapRequired) {
+            getRelocationHandler();
+        }
 
-                if (relocations.isEmpty()) {
-                    remappedJars.add(source);
+        // download and remap each of the dependencies in parallel
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(toLoad.size(), Runtime.getRuntime().availableProcessors()), new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("luckperms-dependency-%d")
+                .build());
+
+        List<Future<Source>> futures = new ArrayList<>(toLoad.size());
+        try {
+            for (Dependency dependency : toLoad) {
+                futures.add(executor.submit(() -> prepareDependency(saveDirectory, dependency)));
+            }
+
+            // load each of the jars, in order
+            for (Future<Source> future : futures) {
+                Source source;
+                try {
+                    source = future.get();
+                } catch (ExecutionException e) {
+                    // already reported
                     continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
 
-                Path input = source.file;
-                Path output = input.getParent().resolve("remapped-" + input.getFileName().toString());
-
-                // if the remapped file exists already, just use that.
-                if (Files.exists(output)) {
-                    remappedJars.add(new Source(source.dependency, output));
+                if (!DependencyRegistry.shouldAutoLoad(source.dependency)) {
+                    this.loaded.put(source.dependency, source.file);
                     continue;
                 }
 
-                // init the relocation handler
-                RelocationHandler relocationHandler = getRelocationHandler();
+                try {
+                    this.plugin.getBootstrap().getPluginClassLoader().loadJar(source.file);
+                    this.loaded.put(source.dependency, source.file);
+                } catch (Throwable e) {
+                    this.plugin.getLogger().severe("Failed to load dependency jar '" + source.file.getFileName().toString() + "'.");
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-                // attempt to remap the jar.
-                this.plugin.getLogger().info("Attempting to apply relocations to " + input.getFileName().toString() + "...");
-                relocationHandler.remap(input, output, relocations);
+    private List<Relocation> getRelocations(Dependency dependency) {
+        List<Relocation> relocations = new ArrayList<>(dependency.getRelocations());
+        relocations.addAll(this.registry.getLegacyRelocations(dependency));
+        return relocations;
+    }
 
-                remappedJars.add(new Source(source.dependency, output));
-            } catch (Throwable e) {
-                this.plugin.getLogger().severe("Unable to remap the source file '" + source.dependency.name() + "'.");
-                e.printStackTrace();
-            }
+    private static Path getDependencyFile(Path saveDirectory, Dependency dependency) {
+        return saveDirectory.resolve(dependency.name().toLowerCase() + "-" + dependency.getVersion() + ".jar");
+    }
+
+    private static Path getRemappedFile(Path saveDirectory, Dependency dependency) {
+        return saveDirectory.resolve("remapped-" + getDependencyFile(saveDirectory, dependency).getFileName().toString());
+    }
+
+    /**
+     * Downloads the dependency and applies any remapping rules to it.
+     *
+     * @param saveDirectory the directory to save files to
+     * @param dependency the dependency
+     * @return the file to load
+     * @throws Exception if the dependency couldn't be prepared
+     */
+    private Source prepareDependency(Path saveDirectory, Dependency dependency) throws Exception {
+        Path input;
+        try {
+            input = downloadDependency(saveDirectory, dependency);
+        } catch (Throwable e) {
+            this.plugin.getLogger().severe("Exception whilst downloading dependency " + dependency.name());
+            e.printStackTrace();
+            throw e;
         }
 
-        // load each of the jars
-        for (Source source : remappedJars) {
-            if (!DependencyRegistry.shouldAutoLoad(source.dependency)) {
-                this.loaded.put(source.dependency, source.file);
-                continue;
+        try {
+            // apply remap rules
+            List<Relocation> relocations = getRelocations(dependency);
+            if (relocations.isEmpty()) {
+                return new Source(dependency, input);
             }
 
-            try {
-                this.plugin.getBootstrap().getPluginClassLoader().loadJar(source.file);
-                this.loaded.put(source.dependency, source.file);
-            } catch (Throwable e) {
-                this.plugin.getLogger().severe("Failed to load dependency jar '" + source.file.getFileName().toString() + "'.");
-                e.printStackTrace();
+            Path output = getRemappedFile(saveDirectory, dependency);
+
+            // if the remapped file exists already, just use that.
+            if (Files.exists(output)) {
+                return new Source(dependency, output);
             }
+
+            // attempt to remap the jar.
+            this.plugin.getLogger().info("Attempting to apply relocations to " + input.getFileName().toString() + "...");
+            getRelocationHandler().remap(input, output, relocations);
+
+            return new Source(dependency, output);
+        } catch (Throwable e) {
+            this.plugin.getLogger().severe("Unable to remap the source file '" + dependency.name() + "'.");
+            e.printStackTrace();
+            throw e;
         }
     }
 
     private Path downloadDependency(Path saveDirectory, Dependency dependency) throws Exception {
-        String fileName = dependency.name().toLowerCase() + "-" + dependency.getVersion() + ".jar";
-        Path file = saveDirectory.resolve(fileName);
+        Path file = getDependencyFile(saveDirectory, dependency);
+        String fileName = file.getFileName().toString();
 
         // if the file already exists, don't attempt to re-download it.
         if (Files.exists(file)) {
             return file;
         }
 
-        URL url = new URL(dependency.getUrl());
-        try (InputStream in = url.openStream()) {
-
-            // download the jar content
-            byte[] bytes = ByteStreams.toByteArray(in);
-            if (bytes.length == 0) {
-                throw new RuntimeException("Empty stream");
+        // download to a temporary file, computing the hash as the content is streamed
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Path tmp = saveDirectory.resolve(fileName + ".tmp");
+        try {
+            URL url = new URL(dependency.getUrl());
+            try (InputStream in = new DigestInputStream(url.openStream(), digest)) {
+                long size = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                if (size == 0) {
+                    throw new RuntimeException("Empty stream");
+                }
             }
 
-
-            // compute a hash for the downloaded file
-            byte[] hash = this.digest.digest(bytes);
-
             // ensure the hash matches the expected checksum
+            byte[] hash = digest.digest();
             if (!Arrays.equals(hash, dependency.getChecksum())) {
                 throw new RuntimeException("Downloaded file had an invalid hash. " +
                         "Expected: " + Base64.getEncoder().encodeToString(dependency.getChecksum()) + " " +
@@ -231,8 +281,14 @@ public class DependencyManager {
 
             this.plugin.getLogger().info("Successfully downloaded '" + fileName + "' with matching checksum: " + Base64.getEncoder().encodeToString(hash));
 
-            // if the checksum matches, save the content to disk
-            Files.write(file, bytes);
+            // if the checksum matches, move the content into place
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
         }
 
         // ensure the file saved correctly
@@ -56,6 +56,11 @@ public enum CommandSpec {
 
     SYNC("Reloads all data from the plugins storage into memory, and applies any changes that are detected.", "/%s sync"),
     INFO("Prints general information about the active plugin instance.", "/%s info"),
+    METRICS("Shows the performance metrics recorded by the plugin.", "/%s metrics [filter]",
+            Argument.list(
+                    Argument.create("filter", false, "only show metrics with names containing this text")
+            )
+    ),
     EDITOR("Creates a new web editor session", "/%s editor [type]",
             Argument.list(
                     Argument.create("type", false, "the types to load into the editor. ('all', 'users' or 'groups')")
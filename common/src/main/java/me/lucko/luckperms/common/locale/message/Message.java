@@ -214,6 +214,9 @@ public enum Message {
 
     INFO_STORAGE_META("&f-     &3{}: {}", true),
 
+    INFO_STARTUP("{PREFIX}&f-  &bStartup: &7(&a{}ms&7 total)", false),
+    INFO_STARTUP_PHASE("&f-     &3{}: &a{}ms", true),
+
     INFO_MIDDLE(
             "{PREFIX}&f-  &bMessaging: &f{}" + "\n" +
             "{PREFIX}&f-  &bInstance:" + "\n" +
@@ -224,6 +227,12 @@ public enum Message {
             false
     ),
 
+    METRICS_DISABLED("&cMetrics are not being recorded. Set 'metrics.enabled' to true in the config to enable them.", true),
+    METRICS_HEADER("&aMetrics: &7(recorded since startup)", true),
+    METRICS_HIT_RATE("&f-  &3Permission check cache hit rate: &a{}%", true),
+    METRICS_COUNTER("&f-  &3{}&7: &a{}", true),
+    METRICS_TIMER("&f-  &3{}&7: &a{} &7samples, p50 &a{}ms&7, p99 &a{}ms", true),
+
     DEBUG_START("&bGenerating debugging output...", true),
     DEBUG_URL("&aDebug data URL:", true),
 
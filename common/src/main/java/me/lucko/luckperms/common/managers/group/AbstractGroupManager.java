@@ -59,6 +59,34 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         return null;
     }
 
+    @Override
+    public T getOrMake(String id) {
+        boolean loaded = isLoaded(id);
+        T group = super.getOrMake(id);
+        if (!loaded) {
+            // groups which already inherited from this one may have been resolved without it
+            group.invalidateResolvedPermissions();
+        }
+        return group;
+    }
+
+    @Override
+    public void unload(String id) {
+        T group = getIfLoaded(id);
+        super.unload(id);
+        if (group != null) {
+            group.invalidateResolvedPermissions();
+        }
+    }
+
+    @Override
+    public void unload(Group group) {
+        super.unload(group);
+        if (group != null) {
+            group.invalidateResolvedPermissions();
+        }
+    }
+
     @Override
     protected String sanitizeIdentifier(String s) {
         return s.toLowerCase();
@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.managers.user;
 
 import me.lucko.luckperms.api.Node;
 import me.lucko.luckperms.api.context.ImmutableContextSet;
+import me.lucko.luckperms.common.caching.SharedCachedDataRegistry;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.managers.AbstractManager;
 import me.lucko.luckperms.common.model.User;
@@ -34,15 +35,18 @@ import me.lucko.luckperms.common.model.UserIdentifier;
 import me.lucko.luckperms.common.node.factory.NodeFactory;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public abstract class AbstractUserManager<T extends User> extends AbstractManager<UserIdentifier, User, T> implements UserManager<T> {
 
     private final LuckPermsPlugin plugin;
     private final UserHousekeeper housekeeper;
+    private final SharedCachedDataRegistry sharedCachedData = new SharedCachedDataRegistry();
 
     public AbstractUserManager(LuckPermsPlugin plugin, UserHousekeeper.TimeoutSettings timeoutSettings) {
         this.plugin = plugin;
@@ -140,6 +144,11 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         return this.housekeeper;
     }
 
+    @Override
+    public SharedCachedDataRegistry getSharedCachedData() {
+        return this.sharedCachedData;
+    }
+
     @Override
     public void cleanup(User user) {
         this.housekeeper.cleanup(user.getId());
@@ -147,10 +156,18 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
 
     @Override
     public CompletableFuture<Void> updateAllUsers() {
-        return CompletableFuture.runAsync(
-                () -> this.plugin.getBootstrap().getOnlinePlayers().forEach(u -> this.plugin.getStorage().loadUser(u, null).join()),
-                this.plugin.getBootstrap().getScheduler().async()
-        );
+        // load the users one at a time, but don't block an async thread waiting for
+        // each load - the loads themselves need async threads, so a few concurrent
+        // updates could starve the pool
+        Iterator<UUID> players = this.plugin.getBootstrap().getOnlinePlayers().collect(Collectors.toList()).iterator();
+        return loadNext(players);
+    }
+
+    private CompletableFuture<Void> loadNext(Iterator<UUID> players) {
+        if (!players.hasNext()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.plugin.getStorage().loadUser(players.next(), null).thenCompose(u -> loadNext(players));
     }
 
     /**
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.managers.user;
 
+import me.lucko.luckperms.common.caching.SharedCachedDataRegistry;
 import me.lucko.luckperms.common.managers.Manager;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.UserIdentifier;
@@ -72,6 +73,13 @@ public interface UserManager<T extends User> extends Manager<UserIdentifier, Use
      */
     UserHousekeeper getHouseKeeper();
 
+    /**
+     * Gets the registry used to share cached data between users with identical data.
+     *
+     * @return the registry
+     */
+    SharedCachedDataRegistry getSharedCachedData();
+
     /**
      * Unloads the user if a corresponding player is not online
      *
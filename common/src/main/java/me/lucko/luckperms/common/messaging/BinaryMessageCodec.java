@@ -0,0 +1,180 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging;
+
+import me.lucko.luckperms.api.messenger.message.Message;
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
+import me.lucko.luckperms.common.messaging.message.LogMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
+import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.utils.BinaryIO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Encodes messages in a compact binary format, as an alternative to JSON.
+ *
+ * <p>Encoded strings start with {@link #PREFIX}, followed by the base64 form
+ * of an envelope containing one or more messages. Each message in the envelope
+ * is framed as its id, type and the length of its content, so messages which
+ * have already been received (or are of an unknown type) can be skipped
+ * without decoding the content.</p>
+ */
+public final class BinaryMessageCodec {
+
+    /**
+     * The prefix of encoded strings. JSON encoded messages always start with '{'.
+     */
+    public static final String PREFIX = "#";
+
+    /**
+     * The version of the format
+     */
+    public static final int VERSION = 1;
+
+    public static final byte TYPE_UPDATE = 1;
+    public static final byte TYPE_USER_UPDATE = 2;
+    public static final byte TYPE_LOG = 3;
+
+    /**
+     * Gets if the given string was encoded by this codec.
+     *
+     * @param encodedString the string
+     * @return true if the string is in the binary format
+     */
+    public static boolean isBinary(String encodedString) {
+        return encodedString.startsWith(PREFIX);
+    }
+
+    /**
+     * Encodes the given messages into a single envelope.
+     *
+     * @param messages the messages
+     * @return the encoded string
+     */
+    public static String encode(List<? extends AbstractMessage> messages) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            BinaryIO.writeVarInt(out, messages.size());
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            DataOutputStream contentOut = new DataOutputStream(content);
+            for (AbstractMessage message : messages) {
+                content.reset();
+                message.encodeContent(contentOut);
+                contentOut.flush();
+
+                writeUuid(out, message.getId());
+                out.writeByte(message.getBinaryType());
+                BinaryIO.writeVarInt(out, content.size());
+                content.writeTo(out);
+            }
+            out.flush();
+
+            return PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            // not thrown by in-memory streams
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the messages in an envelope.
+     *
+     * <p>The content of a message is only decoded if the filter accepts its id.</p>
+     *
+     * @param encodedString the encoded string
+     * @param filter the filter, usually used to drop messages which have already been received
+     * @return the decoded messages
+     */
+    public static List<Message> decode(String encodedString, Predicate<UUID> filter) {
+        if (!isBinary(encodedString)) {
+            throw new IllegalArgumentException("Not a binary encoded message: " + encodedString);
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(Base64.getDecoder().decode(encodedString.substring(PREFIX.length())));
+        int version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported binary message version: " + version);
+        }
+
+        // every message takes at least one byte, so the count can't exceed the remaining size
+        int count = BinaryIO.readLength(buf);
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID id = readUuid(buf);
+            byte type = buf.get();
+            int length = BinaryIO.readLength(buf);
+
+            ByteBuffer content = buf.slice();
+            content.limit(length);
+            buf.position(buf.position() + length);
+
+            if (!filter.test(id)) {
+                continue;
+            }
+
+            switch (type) {
+                case TYPE_UPDATE:
+                    messages.add(UpdateMessageImpl.decode(content, id));
+                    break;
+                case TYPE_USER_UPDATE:
+                    messages.add(UserUpdateMessageImpl.decode(content, id));
+                    break;
+                case TYPE_LOG:
+                    messages.add(LogMessageImpl.decode(content, id));
+                    break;
+                default:
+                    // skip types we don't recognise (sent from a newer version)
+                    break;
+            }
+        }
+        return messages;
+    }
+
+    public static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    public static UUID readUuid(ByteBuffer buf) {
+        return new UUID(buf.getLong(), buf.getLong());
+    }
+
+    private BinaryMessageCodec() {}
+}
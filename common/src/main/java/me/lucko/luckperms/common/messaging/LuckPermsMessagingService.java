@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.messaging;
 
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
@@ -41,18 +42,25 @@ import me.lucko.luckperms.api.messenger.message.type.UserUpdateMessage;
 import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.buffers.BufferedRequest;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.messaging.message.AbstractMessage;
 import me.lucko.luckperms.common.messaging.message.LogMessageImpl;
+import me.lucko.luckperms.common.messaging.message.MessageBatch;
 import me.lucko.luckperms.common.messaging.message.UpdateMessageImpl;
 import me.lucko.luckperms.common.messaging.message.UserUpdateMessageImpl;
+import me.lucko.luckperms.common.metrics.Counter;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.utils.gson.JObject;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
@@ -60,11 +68,42 @@ import javax.annotation.Nullable;
 
 public class LuckPermsMessagingService implements InternalMessagingService, IncomingMessageConsumer {
     private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * The maximum number of messages sent in a single binary envelope
+     */
+    private static final int MAX_BATCH_SIZE = 50;
     
     private final LuckPermsPlugin plugin;
     private final Set<UUID> receivedMessages;
     private final PushUpdateBuffer updateBuffer;
 
+    /**
+     * The configured message format
+     */
+    private final Format format;
+
+    /**
+     * Messages waiting to be sent
+     */
+    private final Queue<AbstractMessage> outgoing = new ConcurrentLinkedQueue<>();
+
+    /**
+     * If a message in the binary format has been received from another instance
+     */
+    private volatile boolean binaryPeerSeen = false;
+
+    /**
+     * If a message has been received from an instance which can't read the binary format
+     */
+    private volatile boolean legacyPeerSeen = false;
+
+    /**
+     * Counts messages sent and received
+     */
+    private final Counter sentCounter;
+    private final Counter receivedCounter;
+
     private final MessengerProvider messengerProvider;
     private final Messenger messenger;
 
@@ -77,6 +116,9 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
 
         this.receivedMessages = Collections.synchronizedSet(new HashSet<>());
         this.updateBuffer = new PushUpdateBuffer(plugin);
+        this.format = Format.parse(plugin.getConfiguration().get(ConfigKeys.MESSAGING_FORMAT));
+        this.sentCounter = plugin.getMetrics().counter("luckperms_messages_sent_total", "Messages sent by the messaging service");
+        this.receivedCounter = plugin.getMetrics().counter("luckperms_messages_received_total", "Messages received by the messaging service");
     }
 
     @Override
@@ -115,7 +157,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[" + getName() + " Messaging] Sending ping with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UpdateMessageImpl(requestId));
+            sendMessage(new UpdateMessageImpl(requestId));
         });
     }
 
@@ -124,7 +166,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
             UUID requestId = generatePingId();
             this.plugin.getLogger().info("[" + getName() + " Messaging] Sending user ping for '" + user.getFriendlyName() + "' with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new UserUpdateMessageImpl(requestId, user.getUuid()));
+            sendMessage(new UserUpdateMessageImpl(requestId, user.getUuid()));
         });
     }
 
@@ -138,10 +180,48 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             }
 
             this.plugin.getLogger().info("[" + getName() + " Messaging] Sending log with id: " + requestId);
-            this.messenger.sendOutgoingMessage(new LogMessageImpl(requestId, logEntry));
+            sendMessage(new LogMessageImpl(requestId, logEntry));
         });
     }
 
+    private boolean useBinaryFormat() {
+        switch (this.format) {
+            case JSON:
+                return false;
+            case BINARY:
+                return true;
+            default:
+                // only once we know other instances can read it
+                return this.binaryPeerSeen && !this.legacyPeerSeen;
+        }
+    }
+
+    private void sendMessage(AbstractMessage message) {
+        this.outgoing.add(message);
+
+        // messages queued by other threads in the meantime are sent along with this one
+        List<AbstractMessage> messages = new ArrayList<>();
+        AbstractMessage m;
+        while ((m = this.outgoing.poll()) != null) {
+            messages.add(m);
+        }
+
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        this.sentCounter.add(messages.size());
+        if (useBinaryFormat()) {
+            for (List<AbstractMessage> batch : Lists.partition(messages, MAX_BATCH_SIZE)) {
+                this.messenger.sendOutgoingMessage(new MessageBatch(batch));
+            }
+        } else {
+            for (AbstractMessage msg : messages) {
+                this.messenger.sendOutgoingMessage(msg);
+            }
+        }
+    }
+
     @Override
     public boolean consumeIncomingMessage(@Nonnull Message message) {
         Objects.requireNonNull(message, "message");
@@ -169,6 +249,22 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
     @Override
     public boolean consumeIncomingMessageAsString(@Nonnull String encodedString) {
         Objects.requireNonNull(encodedString, "encodedString");
+
+        if (BinaryMessageCodec.isBinary(encodedString)) {
+            // duplicates are dropped before their content is decoded
+            List<Message> messages = BinaryMessageCodec.decode(encodedString, this.receivedMessages::add);
+            if (messages.isEmpty()) {
+                return false;
+            }
+
+            onBinaryPeerSeen();
+
+            for (Message message : messages) {
+                processIncomingMessage(message);
+            }
+            return true;
+        }
+
         JsonObject decodedObject = GSON.fromJson(encodedString, JsonObject.class).getAsJsonObject();
 
         // extract id
@@ -183,6 +279,18 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
             return false;
         }
 
+        // instances which can read the binary format say so in their JSON messages
+        JsonElement binaryElement = decodedObject.get("binary");
+        if (binaryElement != null && binaryElement.isJsonPrimitive() && binaryElement.getAsJsonPrimitive().isNumber()
+                && binaryElement.getAsInt() >= BinaryMessageCodec.VERSION) {
+            onBinaryPeerSeen();
+        } else if (!this.legacyPeerSeen) {
+            this.legacyPeerSeen = true;
+            if (this.format == Format.AUTO) {
+                this.plugin.getLogger().info("[" + getName() + " Messaging] Received a message from an older version, using the JSON message format.");
+            }
+        }
+
         // extract type
         JsonElement typeElement = decodedObject.get("type");
         if (typeElement == null) {
@@ -215,10 +323,21 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         return true;
     }
 
+    private void onBinaryPeerSeen() {
+        if (this.binaryPeerSeen) {
+            return;
+        }
+        this.binaryPeerSeen = true;
+        if (this.format == Format.AUTO && !this.legacyPeerSeen) {
+            this.plugin.getLogger().info("[" + getName() + " Messaging] Switching to the binary message format.");
+        }
+    }
+
     public static String encodeMessageAsString(String type, UUID id, @Nullable JsonElement content) {
         JsonObject json = new JObject()
                 .add("id", id.toString())
                 .add("type", type)
+                .add("binary", BinaryMessageCodec.VERSION)
                 .consume(o -> {
                     if (content != null) {
                         o.add("content", content);
@@ -230,6 +349,7 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
     }
 
     private void processIncomingMessage(Message message) {
+        this.receivedCounter.increment();
         if (message instanceof UpdateMessage) {
             UpdateMessage msg = (UpdateMessage) message;
 
@@ -265,9 +385,27 @@ public class LuckPermsMessagingService implements InternalMessagingService, Inco
         }
     }
 
+    private enum Format {
+        JSON, BINARY, AUTO;
+
+        static Format parse(String format) {
+            switch (format) {
+                case "json":
+                    return JSON;
+                case "binary":
+                    return BINARY;
+                case "auto":
+                    return AUTO;
+                default:
+                    return JSON;
+            }
+        }
+    }
+
     private final class PushUpdateBuffer extends BufferedRequest<Void> {
         PushUpdateBuffer(LuckPermsPlugin plugin) {
             super(2, TimeUnit.SECONDS, plugin.getBootstrap().getScheduler());
+            instrument(plugin.getMetrics(), "push_update");
         }
 
         @Override
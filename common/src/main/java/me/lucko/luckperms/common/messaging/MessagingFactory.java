@@ -32,11 +32,13 @@ import me.lucko.luckperms.api.messenger.Messenger;
 import me.lucko.luckperms.api.messenger.MessengerProvider;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.messaging.redis.RedisMessenger;
+import me.lucko.luckperms.common.messaging.sql.PostgreSqlMessenger;
 import me.lucko.luckperms.common.messaging.sql.SqlMessenger;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.dao.sql.SqlDao;
 import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.MariaDbConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.MySqlConnectionFactory;
+import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.PostgreConnectionFactory;
 
 import javax.annotation.Nonnull;
 
@@ -59,7 +61,7 @@ public class MessagingFactory<P extends LuckPermsPlugin> {
 
         if (messagingType.equals("none") && this.plugin.getStorage().getDao() instanceof SqlDao) {
             SqlDao dao = (SqlDao) this.plugin.getStorage().getDao();
-            if (dao.getProvider() instanceof MySqlConnectionFactory || dao.getProvider() instanceof MariaDbConnectionFactory) {
+            if (dao.getProvider() instanceof MySqlConnectionFactory || dao.getProvider() instanceof MariaDbConnectionFactory || dao.getProvider() instanceof PostgreConnectionFactory) {
                 messagingType = "sql";
             }
         }
@@ -130,9 +132,11 @@ public class MessagingFactory<P extends LuckPermsPlugin> {
         @Override
         public Messenger obtain(@Nonnull IncomingMessageConsumer incomingMessageConsumer) {
             SqlDao dao = (SqlDao) getPlugin().getStorage().getDao();
-            Preconditions.checkState(dao.getProvider() instanceof MySqlConnectionFactory || dao.getProvider() instanceof MariaDbConnectionFactory, "not a supported sql type");
+            Preconditions.checkState(dao.getProvider() instanceof MySqlConnectionFactory || dao.getProvider() instanceof MariaDbConnectionFactory || dao.getProvider() instanceof PostgreConnectionFactory, "not a supported sql type");
 
-            SqlMessenger sql = new SqlMessenger(getPlugin(), dao, incomingMessageConsumer);
+            SqlMessenger sql = dao.getProvider() instanceof PostgreConnectionFactory
+                    ? new PostgreSqlMessenger(getPlugin(), dao, incomingMessageConsumer)
+                    : new SqlMessenger(getPlugin(), dao, incomingMessageConsumer);
             sql.init();
             return sql;
         }
@@ -28,6 +28,8 @@ package me.lucko.luckperms.common.messaging.message;
 import me.lucko.luckperms.api.messenger.message.Message;
 import me.lucko.luckperms.api.messenger.message.OutgoingMessage;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -45,4 +47,19 @@ public abstract class AbstractMessage implements Message, OutgoingMessage {
         return this.id;
     }
 
+    /**
+     * Gets the type id of this message in the binary format.
+     *
+     * @return the binary type id
+     */
+    public abstract byte getBinaryType();
+
+    /**
+     * Writes the content of this message in the binary format.
+     *
+     * @param out the output
+     * @throws IOException if an error occurs
+     */
+    public abstract void encodeContent(DataOutput out) throws IOException;
+
 }
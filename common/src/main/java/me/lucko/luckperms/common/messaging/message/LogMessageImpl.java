@@ -29,10 +29,21 @@ import com.google.gson.JsonElement;
 
 import me.lucko.luckperms.api.LogEntry;
 import me.lucko.luckperms.api.messenger.message.type.LogMessage;
+import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.LogEntryJsonSerializer;
+import me.lucko.luckperms.common.messaging.BinaryMessageCodec;
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
+import me.lucko.luckperms.common.utils.BinaryIO;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -40,6 +51,18 @@ import javax.annotation.Nullable;
 public class LogMessageImpl extends AbstractMessage implements LogMessage {
     public static final String TYPE = "log";
 
+    /**
+     * Entries larger than this (in bytes) are compressed in the binary format
+     */
+    private static final int COMPRESSION_THRESHOLD = 128;
+    private static final int FLAG_COMPRESSED = 1;
+
+    /**
+     * The maximum size of a decompressed log entry, well above the size of
+     * any real entry
+     */
+    private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+
     public static LogMessageImpl decode(@Nullable JsonElement content, UUID id) {
         if (content == null) {
             throw new IllegalStateException("Missing content");
@@ -48,6 +71,42 @@ public class LogMessageImpl extends AbstractMessage implements LogMessage {
         return new LogMessageImpl(id, LogEntryJsonSerializer.deserialize(content));
     }
 
+    public static LogMessageImpl decode(ByteBuffer content, UUID id) {
+        int flags = content.get();
+
+        ByteBuffer entry = content;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            byte[] raw = new byte[BinaryIO.readLength(content, MAX_ENTRY_SIZE)];
+            byte[] compressed = new byte[content.remaining()];
+            content.get(compressed);
+
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                if (inflater.inflate(raw) != raw.length) {
+                    throw new IllegalStateException("Truncated log entry");
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Malformed log entry", e);
+            } finally {
+                inflater.end();
+            }
+            entry = ByteBuffer.wrap(raw);
+        }
+
+        ExtendedLogEntry.Builder builder = ExtendedLogEntry.build();
+        builder.actor(BinaryMessageCodec.readUuid(entry));
+        builder.actorName(BinaryIO.readString(entry));
+        builder.type(LogEntry.Type.valueOf((char) entry.get()));
+        if (entry.get() != 0) {
+            builder.acted(BinaryMessageCodec.readUuid(entry));
+        }
+        builder.actedName(BinaryIO.readString(entry));
+        builder.action(BinaryIO.readString(entry));
+
+        return new LogMessageImpl(id, builder.build());
+    }
+
     private final LogEntry logEntry;
 
     public LogMessageImpl(UUID id, LogEntry logEntry) {
@@ -69,4 +128,58 @@ public class LogMessageImpl extends AbstractMessage implements LogMessage {
         );
     }
 
+    @Override
+    public byte getBinaryType() {
+        return BinaryMessageCodec.TYPE_LOG;
+    }
+
+    @Override
+    public void encodeContent(DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream entry = new DataOutputStream(bytes);
+        BinaryMessageCodec.writeUuid(entry, this.logEntry.getActor());
+        BinaryIO.writeString(entry, this.logEntry.getActorName());
+        entry.writeByte(this.logEntry.getType().getCode());
+        if (this.logEntry.getActed().isPresent()) {
+            entry.writeByte(1);
+            BinaryMessageCodec.writeUuid(entry, this.logEntry.getActed().get());
+        } else {
+            entry.writeByte(0);
+        }
+        BinaryIO.writeString(entry, this.logEntry.getActedName());
+        BinaryIO.writeString(entry, this.logEntry.getAction());
+        entry.flush();
+
+        byte[] raw = bytes.toByteArray();
+        if (raw.length > COMPRESSION_THRESHOLD) {
+            byte[] compressed = compress(raw);
+            if (compressed.length < raw.length) {
+                out.writeByte(FLAG_COMPRESSED);
+                BinaryIO.writeVarInt(out, raw.length);
+                out.write(compressed);
+                return;
+            }
+        }
+
+        out.writeByte(0);
+        out.write(raw);
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length);
+            byte[] buf = new byte[256];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
 }
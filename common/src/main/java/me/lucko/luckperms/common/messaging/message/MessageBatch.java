@@ -0,0 +1,65 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.message;
+
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.api.messenger.message.OutgoingMessage;
+import me.lucko.luckperms.common.messaging.BinaryMessageCodec;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An envelope containing one or more messages, encoded using the
+ * {@link BinaryMessageCodec}.
+ */
+public class MessageBatch implements OutgoingMessage {
+    private final UUID id = UUID.randomUUID();
+    private final List<AbstractMessage> messages;
+
+    public MessageBatch(List<? extends AbstractMessage> messages) {
+        this.messages = ImmutableList.copyOf(messages);
+    }
+
+    public List<AbstractMessage> getMessages() {
+        return this.messages;
+    }
+
+    @Nonnull
+    @Override
+    public UUID getId() {
+        return this.id;
+    }
+
+    @Nonnull
+    @Override
+    public String asEncodedString() {
+        return BinaryMessageCodec.encode(this.messages);
+    }
+}
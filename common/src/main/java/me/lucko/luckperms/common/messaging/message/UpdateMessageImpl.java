@@ -28,8 +28,11 @@ package me.lucko.luckperms.common.messaging.message;
 import com.google.gson.JsonElement;
 
 import me.lucko.luckperms.api.messenger.message.type.UpdateMessage;
+import me.lucko.luckperms.common.messaging.BinaryMessageCodec;
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
 
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -42,6 +45,10 @@ public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage
         return new UpdateMessageImpl(id);
     }
 
+    public static UpdateMessageImpl decode(ByteBuffer content, UUID id) {
+        return new UpdateMessageImpl(id);
+    }
+
     public UpdateMessageImpl(UUID id) {
         super(id);
     }
@@ -51,4 +58,14 @@ public class UpdateMessageImpl extends AbstractMessage implements UpdateMessage
     public String asEncodedString() {
         return LuckPermsMessagingService.encodeMessageAsString(TYPE, getId(), null);
     }
+
+    @Override
+    public byte getBinaryType() {
+        return BinaryMessageCodec.TYPE_UPDATE;
+    }
+
+    @Override
+    public void encodeContent(DataOutput out) {
+        // no content
+    }
 }
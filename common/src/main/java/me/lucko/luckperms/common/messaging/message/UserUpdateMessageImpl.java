@@ -28,9 +28,13 @@ package me.lucko.luckperms.common.messaging.message;
 import com.google.gson.JsonElement;
 
 import me.lucko.luckperms.api.messenger.message.type.UserUpdateMessage;
+import me.lucko.luckperms.common.messaging.BinaryMessageCodec;
 import me.lucko.luckperms.common.messaging.LuckPermsMessagingService;
 import me.lucko.luckperms.common.utils.gson.JObject;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -54,6 +58,10 @@ public class UserUpdateMessageImpl extends AbstractMessage implements UserUpdate
         return new UserUpdateMessageImpl(id, userUuid);
     }
 
+    public static UserUpdateMessageImpl decode(ByteBuffer content, UUID id) {
+        return new UserUpdateMessageImpl(id, BinaryMessageCodec.readUuid(content));
+    }
+
     private final UUID userUuid;
 
     public UserUpdateMessageImpl(UUID id, UUID userUuid) {
@@ -74,4 +82,14 @@ public class UserUpdateMessageImpl extends AbstractMessage implements UserUpdate
                 TYPE, getId(), new JObject().add("userUuid", userUuid.toString()).toJson()
         );
     }
+
+    @Override
+    public byte getBinaryType() {
+        return BinaryMessageCodec.TYPE_USER_UPDATE;
+    }
+
+    @Override
+    public void encodeContent(DataOutput out) throws IOException {
+        BinaryMessageCodec.writeUuid(out, this.userUuid);
+    }
 }
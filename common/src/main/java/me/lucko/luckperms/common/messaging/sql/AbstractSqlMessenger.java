@@ -30,20 +30,60 @@ import me.lucko.luckperms.api.messenger.Messenger;
 import me.lucko.luckperms.api.messenger.message.OutgoingMessage;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nonnull;
 
 /**
  * An implementation of {@link Messenger} using SQL.
+ *
+ * <p>Statements are written using ' to quote identifiers, and are passed
+ * through {@link #processStatement(String)} before being executed.</p>
  */
 public abstract class AbstractSqlMessenger implements Messenger {
 
+    /**
+     * How long messages are picked up by other servers for
+     */
+    private static final long MESSAGE_LIFETIME_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * How long messages are kept for before they're deleted
+     */
+    private static final long HOUSEKEEPING_AGE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
     private final IncomingMessageConsumer consumer;
     private long lastId = -1;
 
+    /**
+     * The difference between the database clock and the local clock.
+     *
+     * <p>Messages are timestamped by the database, so the cutoffs they are
+     * compared against are calculated using its clock too. Otherwise a server
+     * with a clock running behind the others would skip their messages.</p>
+     */
+    private volatile long clockOffset = 0;
+
+    /**
+     * Messages waiting to be written
+     */
+    private final Queue<String> outgoing = new ConcurrentLinkedQueue<>();
+
+    /**
+     * If a thread is currently writing queued messages
+     */
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+
     protected AbstractSqlMessenger(IncomingMessageConsumer consumer) {
         this.consumer = consumer;
     }
@@ -51,14 +91,51 @@ public abstract class AbstractSqlMessenger implements Messenger {
     protected abstract Connection getConnection() throws SQLException;
     protected abstract String getTableName();
 
+    /**
+     * Processes a statement before it is executed.
+     *
+     * @param statement the statement
+     * @return the processed statement
+     */
+    protected String processStatement(String statement) {
+        return statement.replace('\'', '`');
+    }
+
+    /**
+     * Gets the statement used to create the message table.
+     *
+     * @return the create statement
+     */
+    protected String getCreateTableStatement() {
+        return "CREATE TABLE IF NOT EXISTS '" + getTableName() + "' ('id' INT AUTO_INCREMENT NOT NULL, 'time' TIMESTAMP NOT NULL, 'msg' TEXT NOT NULL, PRIMARY KEY ('id'))";
+    }
+
+    /**
+     * Called after a batch of messages has been written, before the
+     * transaction is committed.
+     *
+     * @param c the connection used to write the messages
+     * @throws SQLException if an error occurs
+     */
+    protected void afterWrite(Connection c) throws SQLException {
+
+    }
+
     public void init() throws SQLException {
         try (Connection c = getConnection()) {
             // init table
-            try (PreparedStatement ps = c.prepareStatement("CREATE TABLE IF NOT EXISTS `" + getTableName() + "` (`id` INT AUTO_INCREMENT NOT NULL, `time` TIMESTAMP NOT NULL, `msg` TEXT NOT NULL, PRIMARY KEY (`id`))")) {
+            try (PreparedStatement ps = c.prepareStatement(processStatement(getCreateTableStatement()))) {
                 ps.execute();
             }
+            // tables created by older versions won't have an index on the time column
+            if (!hasTimeIndex(c)) {
+                try (PreparedStatement ps = c.prepareStatement(processStatement("CREATE INDEX '" + getTableName() + "_time' ON '" + getTableName() + "' ('time')"))) {
+                    ps.execute();
+                }
+            }
+            updateClockOffset(c);
             // pull last id
-            try (PreparedStatement ps = c.prepareStatement("SELECT MAX(`id`) as `latest` FROM `" + getTableName() + "`")) {
+            try (PreparedStatement ps = c.prepareStatement(processStatement("SELECT MAX('id') as 'latest' FROM '" + getTableName() + "'"))) {
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
                         this.lastId = rs.getLong("latest");
@@ -68,22 +145,100 @@ public abstract class AbstractSqlMessenger implements Messenger {
         }
     }
 
+    private boolean hasTimeIndex(Connection c) throws SQLException {
+        DatabaseMetaData meta = c.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(c.getCatalog(), null, getTableName(), false, true)) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (column != null && column.equalsIgnoreCase("time")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void updateClockOffset(Connection c) throws SQLException {
+        long before = System.currentTimeMillis();
+        try (PreparedStatement ps = c.prepareStatement("SELECT CURRENT_TIMESTAMP")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    long after = System.currentTimeMillis();
+                    this.clockOffset = rs.getTimestamp(1).getTime() - (before + after) / 2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the current time, according to the database clock.
+     *
+     * @return the current database time
+     */
+    private long databaseTimeMillis() {
+        return System.currentTimeMillis() + this.clockOffset;
+    }
+
     @Override
     public void sendOutgoingMessage(@Nonnull OutgoingMessage outgoingMessage) {
+        this.outgoing.add(outgoingMessage.asEncodedString());
+
+        // messages queued whilst another thread is writing are picked up by that thread,
+        // so a burst of messages is written as a single batch
+        while (!this.outgoing.isEmpty() && this.writing.compareAndSet(false, true)) {
+            try {
+                List<String> messages = new ArrayList<>();
+                String message;
+                while ((message = this.outgoing.poll()) != null) {
+                    messages.add(message);
+                }
+                writeMessages(messages);
+            } finally {
+                this.writing.set(false);
+            }
+        }
+    }
+
+    private void writeMessages(List<String> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
         try (Connection c = getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement("INSERT INTO " + getTableName() + "(`time`, `msg`) VALUES(NOW(), ?)")) {
-                ps.setString(1, outgoingMessage.asEncodedString());
-                ps.execute();
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = c.prepareStatement(processStatement("INSERT INTO '" + getTableName() + "' ('time', 'msg') VALUES(CURRENT_TIMESTAMP, ?)"))) {
+                    for (String message : messages) {
+                        ps.setString(1, message);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                afterWrite(c);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public void pollMessages() {
+    /**
+     * Reads any new messages from the table, and passes them to the consumer.
+     *
+     * @return true if any messages were read
+     */
+    public synchronized boolean pollMessages() {
+        boolean received = false;
         try (Connection c = getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement("SELECT `id`, `msg` FROM " + getTableName() + " WHERE `id` > ? AND (NOW() - `time` < 30)")) {
+            try (PreparedStatement ps = c.prepareStatement(processStatement("SELECT 'id', 'msg' FROM '" + getTableName() + "' WHERE 'id' > ? AND 'time' > ?"))) {
                 ps.setLong(1, this.lastId);
+                ps.setTimestamp(2, new Timestamp(databaseTimeMillis() - MESSAGE_LIFETIME_MILLIS));
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
                         long id = rs.getLong("id");
@@ -91,17 +246,22 @@ public abstract class AbstractSqlMessenger implements Messenger {
 
                         String message = rs.getString("msg");
                         this.consumer.consumeIncomingMessageAsString(message);
+                        received = true;
                     }
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return received;
     }
 
     public void runHousekeeping() {
         try (Connection c = getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement("DELETE FROM " + getTableName() + " WHERE (NOW() - `time` > 60)")) {
+            // re-measured here to follow any drift in either clock
+            updateClockOffset(c);
+            try (PreparedStatement ps = c.prepareStatement(processStatement("DELETE FROM '" + getTableName() + "' WHERE 'time' < ?"))) {
+                ps.setTimestamp(1, new Timestamp(databaseTimeMillis() - HOUSEKEEPING_AGE_MILLIS));
                 ps.execute();
             }
         } catch (SQLException e) {
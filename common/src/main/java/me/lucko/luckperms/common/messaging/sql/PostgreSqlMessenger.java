@@ -0,0 +1,182 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.messaging.sql;
+
+import me.lucko.luckperms.api.messenger.IncomingMessageConsumer;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.storage.dao.sql.SqlDao;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SqlMessenger} for PostgreSQL, which uses LISTEN/NOTIFY to find out
+ * about new messages as soon as they are written.
+ *
+ * <p>Notifications are checked for on a dedicated connection. As notifications
+ * are pushed by the server, this doesn't require a round trip to the database.
+ * The table is still polled (infrequently) in case a notification is missed,
+ * e.g. while the listening connection is being re-established.</p>
+ */
+public class PostgreSqlMessenger extends SqlMessenger {
+    private static final long NOTIFICATION_CHECK_INTERVAL_MILLIS = 100;
+    private static final long MAX_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * How often the listening connection is checked to still be valid
+     */
+    private static final long KEEPALIVE_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private SchedulerTask notificationTask;
+
+    /**
+     * The connection used to listen for notifications, and the driver
+     * connection it wraps. Only accessed from the notification task.
+     */
+    private Connection listenConnection = null;
+    private Object driverConnection = null;
+    private Method getNotificationsMethod = null;
+    private long lastKeepalive = 0;
+
+    public PostgreSqlMessenger(LuckPermsPlugin plugin, SqlDao sqlDao, IncomingMessageConsumer consumer) {
+        super(plugin, sqlDao, consumer);
+    }
+
+    private String getChannel() {
+        return getTableName();
+    }
+
+    @Override
+    protected String getCreateTableStatement() {
+        return "CREATE TABLE IF NOT EXISTS '" + getTableName() + "' ('id' SERIAL NOT NULL, 'time' TIMESTAMP NOT NULL, 'msg' TEXT NOT NULL, PRIMARY KEY ('id'))";
+    }
+
+    @Override
+    protected long getMaxPollInterval() {
+        return MAX_POLL_INTERVAL_MILLIS;
+    }
+
+    @Override
+    protected void afterWrite(Connection c) throws SQLException {
+        // delivered to listeners when the transaction commits
+        try (Statement s = c.createStatement()) {
+            s.execute("NOTIFY " + getChannel());
+        }
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        this.notificationTask = getPlugin().getBootstrap().getScheduler().asyncRepeating(this::checkNotifications, NOTIFICATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void checkNotifications() {
+        try {
+            if (this.listenConnection == null) {
+                listen();
+
+                // messages may have been sent while we weren't listening
+                pollMessages();
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - this.lastKeepalive > KEEPALIVE_INTERVAL_MILLIS) {
+                this.lastKeepalive = now;
+                try (Statement s = this.listenConnection.createStatement()) {
+                    s.execute("SELECT 1");
+                }
+            }
+
+            Object notifications = this.getNotificationsMethod.invoke(this.driverConnection);
+            if (notifications != null && Array.getLength(notifications) != 0) {
+                pollMessages();
+            }
+        } catch (Exception e) {
+            getPlugin().getLogger().warn("Unable to check for SQL messenger notifications: " + e.getMessage());
+            closeListenConnection();
+        }
+    }
+
+    private void listen() throws Exception {
+        Connection c = getConnection();
+        try {
+            // the driver is only available at runtime, so use reflection
+            Object driverConnection = c.unwrap(Connection.class);
+            this.getNotificationsMethod = driverConnection.getClass().getMethod("getNotifications");
+
+            try (Statement s = c.createStatement()) {
+                s.execute("LISTEN " + getChannel());
+            }
+
+            this.driverConnection = driverConnection;
+            this.listenConnection = c;
+            this.lastKeepalive = System.currentTimeMillis();
+        } catch (Exception e) {
+            c.close();
+            throw e;
+        }
+    }
+
+    private void closeListenConnection() {
+        Connection c = this.listenConnection;
+        this.listenConnection = null;
+        this.driverConnection = null;
+        if (c != null) {
+            try {
+                try (Statement s = c.createStatement()) {
+                    s.execute("UNLISTEN " + getChannel());
+                }
+            } catch (SQLException e) {
+                // ignore
+            }
+            try {
+                c.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        SchedulerTask task = this.notificationTask;
+        if (task != null) {
+            task.cancel();
+        }
+        this.notificationTask = null;
+
+        synchronized (this) {
+            closeListenConnection();
+        }
+
+        super.close();
+    }
+}
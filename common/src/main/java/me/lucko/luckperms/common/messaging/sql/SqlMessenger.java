@@ -35,12 +35,28 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * A {@link AbstractSqlMessenger} backed by the plugins {@link SqlDao}.
+ *
+ * <p>The table is polled at an adaptive rate - polls become less frequent
+ * while no messages are being received, and return to the minimum interval as
+ * soon as one is.</p>
+ */
 public class SqlMessenger extends AbstractSqlMessenger {
+    private static final long MIN_POLL_INTERVAL_MILLIS = 500;
+    private static final long MAX_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
     private final LuckPermsPlugin plugin;
     private final SqlDao sqlDao;
 
     private SchedulerTask pollTask;
     private SchedulerTask housekeepingTask;
+    private volatile boolean closed = false;
+
+    /**
+     * The delay before the next poll
+     */
+    private long pollInterval = MIN_POLL_INTERVAL_MILLIS;
 
     public SqlMessenger(LuckPermsPlugin plugin, SqlDao sqlDao, IncomingMessageConsumer consumer) {
         super(consumer);
@@ -48,6 +64,19 @@ public class SqlMessenger extends AbstractSqlMessenger {
         this.sqlDao = sqlDao;
     }
 
+    protected LuckPermsPlugin getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Gets the maximum delay between polls while no messages are being received.
+     *
+     * @return the maximum poll interval in milliseconds
+     */
+    protected long getMaxPollInterval() {
+        return MAX_POLL_INTERVAL_MILLIS;
+    }
+
     @Override
     public void init() {
         try {
@@ -58,12 +87,30 @@ public class SqlMessenger extends AbstractSqlMessenger {
 
         // schedule poll tasks
         SchedulerAdapter scheduler = this.plugin.getBootstrap().getScheduler();
-        this.pollTask = scheduler.asyncRepeating(this::pollMessages, 1, TimeUnit.SECONDS);
+        this.pollTask = scheduler.asyncLater(this::poll, this.pollInterval, TimeUnit.MILLISECONDS);
         this.housekeepingTask = scheduler.asyncRepeating(this::runHousekeeping, 30, TimeUnit.SECONDS);
     }
 
+    private void poll() {
+        if (this.closed) {
+            return;
+        }
+
+        if (pollMessages()) {
+            this.pollInterval = MIN_POLL_INTERVAL_MILLIS;
+        } else {
+            this.pollInterval = Math.min(this.pollInterval * 2, getMaxPollInterval());
+        }
+
+        if (!this.closed) {
+            this.pollTask = this.plugin.getBootstrap().getScheduler().asyncLater(this::poll, this.pollInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
     @Override
     public void close() {
+        this.closed = true;
+
         SchedulerTask task = this.pollTask;
         if (task != null) {
             task.cancel();
@@ -88,4 +135,9 @@ public class SqlMessenger extends AbstractSqlMessenger {
     protected String getTableName() {
         return this.sqlDao.getStatementProcessor().apply("{prefix}messenger");
     }
+
+    @Override
+    protected String processStatement(String statement) {
+        return this.sqlDao.getStatementProcessor().apply(statement);
+    }
 }
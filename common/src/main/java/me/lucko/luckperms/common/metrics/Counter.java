@@ -0,0 +1,101 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter which can only be incremented.
+ */
+public interface Counter {
+
+    /**
+     * A counter which does nothing, used when metrics are disabled
+     */
+    Counter NOOP = new Counter() {
+        @Override
+        public void increment() {
+
+        }
+
+        @Override
+        public void add(long amount) {
+
+        }
+
+        @Override
+        public long get() {
+            return 0;
+        }
+    };
+
+    /**
+     * Creates a new counter.
+     *
+     * <p>Updates are striped across cells, so concurrent increments don't contend.</p>
+     *
+     * @return a new counter
+     */
+    static Counter create() {
+        LongAdder adder = new LongAdder();
+        return new Counter() {
+            @Override
+            public void increment() {
+                adder.increment();
+            }
+
+            @Override
+            public void add(long amount) {
+                adder.add(amount);
+            }
+
+            @Override
+            public long get() {
+                return adder.sum();
+            }
+        };
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    void increment();
+
+    /**
+     * Increments the counter by the given amount.
+     *
+     * @param amount the amount
+     */
+    void add(long amount);
+
+    /**
+     * Gets the current value of the counter.
+     *
+     * @return the value
+     */
+    long get();
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the distribution of a set of values, usually durations in nanoseconds.
+ *
+ * <p>Values are counted in log-linear buckets: each power of two is split
+ * into {@link #SUB_BUCKETS} equally sized buckets, so quantiles are accurate
+ * to within ~12.5% across the whole range of values, using a fixed amount of
+ * memory.</p>
+ */
+public class Histogram {
+
+    /**
+     * A histogram which does nothing, used when metrics are disabled
+     */
+    public static final Histogram NOOP = new Histogram(false);
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final boolean enabled;
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+
+    private Histogram(boolean enabled) {
+        this.enabled = enabled;
+        this.buckets = enabled ? new AtomicLongArray(BUCKETS) : null;
+        this.count = enabled ? new LongAdder() : null;
+        this.sum = enabled ? new LongAdder() : null;
+    }
+
+    /**
+     * Creates a new histogram.
+     *
+     * @return a new histogram
+     */
+    public static Histogram create() {
+        return new Histogram(true);
+    }
+
+    /**
+     * Gets if values recorded by this histogram are kept.
+     *
+     * <p>Callers can use this to avoid measuring values which would just be
+     * discarded.</p>
+     *
+     * @return if the histogram is enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are treated as zero
+     */
+    public void record(long value) {
+        if (!this.enabled) {
+            return;
+        }
+
+        value = Math.max(0, value);
+        this.buckets.incrementAndGet(index(value));
+        this.count.increment();
+        this.sum.add(value);
+    }
+
+    public long getCount() {
+        return this.enabled ? this.count.sum() : 0;
+    }
+
+    public long getSum() {
+        return this.enabled ? this.sum.sum() : 0;
+    }
+
+    /**
+     * Gets an estimate of the value at the given quantile.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the value, or 0 if no values have been recorded
+     */
+    public long getValueAtQuantile(double quantile) {
+        if (!this.enabled) {
+            return 0;
+        }
+
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return midpoint(i);
+            }
+        }
+        return midpoint(BUCKETS - 1);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long midpoint(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the metrics in a {@link MetricsRegistry} as attributes of an MBean.
+ *
+ * <p>Counters are exposed as a single attribute. Timers are exposed as their
+ * sample count and 50th/99th percentile in milliseconds.</p>
+ */
+public class JmxMetricsExporter implements DynamicMBean, AutoCloseable {
+    private static final String OBJECT_NAME = "me.lucko.luckperms:type=Metrics";
+
+    private final MetricsRegistry registry;
+    private final ObjectName name;
+
+    private JmxMetricsExporter(MetricsRegistry registry) throws JMException {
+        this.registry = registry;
+        this.name = new ObjectName(OBJECT_NAME);
+    }
+
+    /**
+     * Registers an exporter for the given registry with the platform MBean server.
+     *
+     * @param registry the registry
+     * @return the exporter
+     * @throws JMException if the MBean could not be registered
+     */
+    public static JmxMetricsExporter register(MetricsRegistry registry) throws JMException {
+        JmxMetricsExporter exporter = new JmxMetricsExporter(registry);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(exporter.name)) {
+            // left over from a previous instance of the plugin
+            server.unregisterMBean(exporter.name);
+        }
+        server.registerMBean(exporter, exporter.name);
+        return exporter;
+    }
+
+    private Map<String, Object> snapshot() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (MetricsRegistry.Metric metric : this.registry.getMetrics()) {
+            String name = metric.getFullName();
+            switch (metric.getType()) {
+                case COUNTER:
+                    attributes.put(name, metric.getCounter().get());
+                    break;
+                case TIMER:
+                    Histogram histogram = metric.getHistogram();
+                    attributes.put(name + ".count", histogram.getCount());
+                    attributes.put(name + ".p50", histogram.getValueAtQuantile(0.5) / 1_000_000d);
+                    attributes.put(name + ".p99", histogram.getValueAtQuantile(0.99) / 1_000_000d);
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Object value = snapshot().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Object> snapshot = snapshot();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Object value = snapshot.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+        throw new UnsupportedOperationException("Metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("Metrics have no operations");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Object> e : snapshot().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(e.getKey(), e.getValue().getClass().getName(), e.getKey(), true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "LuckPerms metrics", attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+
+    @Override
+    public void close() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+        } catch (JMException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import com.google.common.collect.ImmutableList;
+
+import me.lucko.luckperms.common.utils.ImmutableCollectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A registry of the counters and histograms recorded by the plugin.
+ *
+ * <p>Metrics are identified by a name and an optional set of labels, in the
+ * style used by Prometheus. Requesting the same metric twice returns the same
+ * instance, so call sites should look up their metrics once and keep hold of
+ * them.</p>
+ *
+ * <p>When the registry is {@link #DISABLED disabled}, the no-op
+ * {@link Counter#NOOP} and {@link Histogram#NOOP} instances are returned, so
+ * instrumented code does no extra work.</p>
+ */
+public class MetricsRegistry {
+
+    /**
+     * A registry which doesn't record anything
+     */
+    public static final MetricsRegistry DISABLED = new MetricsRegistry(false);
+
+    private final boolean enabled;
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    private MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Creates a new registry which records metrics.
+     *
+     * @return a new registry
+     */
+    public static MetricsRegistry create() {
+        return new MetricsRegistry(true);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Gets a counter.
+     *
+     * @param name the name of the metric
+     * @param help a description of the metric
+     * @param labels label names and values, alternating
+     * @return the counter
+     */
+    public Counter counter(String name, String help, String... labels) {
+        if (!this.enabled) {
+            return Counter.NOOP;
+        }
+        return (Counter) register(Metric.Type.COUNTER, name, help, labels, Counter::create).getValue();
+    }
+
+    /**
+     * Gets a histogram which records durations in nanoseconds.
+     *
+     * @param name the name of the metric
+     * @param help a description of the metric
+     * @param labels label names and values, alternating
+     * @return the histogram
+     */
+    public Histogram timer(String name, String help, String... labels) {
+        if (!this.enabled) {
+            return Histogram.NOOP;
+        }
+        return (Histogram) register(Metric.Type.TIMER, name, help, labels, Histogram::create).getValue();
+    }
+
+    /**
+     * Gets a snapshot of the metrics in the registry, sorted by name.
+     *
+     * @return the metrics
+     */
+    public ImmutableList<Metric> getMetrics() {
+        return this.metrics.values().stream()
+                .sorted(Comparator.comparing(Metric::getName).thenComparing(Metric::getLabels))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private Metric register(Metric.Type type, String name, String help, String[] labels, Supplier<Object> supplier) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name/value pairs: " + Arrays.toString(labels));
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (sb.length() != 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        String renderedLabels = sb.toString();
+
+        Metric metric = this.metrics.computeIfAbsent(name + "{" + renderedLabels + "}", k -> new Metric(type, name, help, renderedLabels, supplier.get()));
+        if (metric.getType() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + metric.getType());
+        }
+        return metric;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * A metric in the registry
+     */
+    public static final class Metric {
+        public enum Type {
+            COUNTER, TIMER
+        }
+
+        private final Type type;
+        private final String name;
+        private final String help;
+        private final String labels;
+        private final Object value;
+
+        private Metric(Type type, String name, String help, String labels, Object value) {
+            this.type = type;
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+            this.value = value;
+        }
+
+        public Type getType() {
+            return this.type;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getHelp() {
+            return this.help;
+        }
+
+        /**
+         * Gets the labels of the metric, in the Prometheus text format,
+         * excluding the surrounding braces.
+         *
+         * @return the labels, or an empty string if the metric has none
+         */
+        public String getLabels() {
+            return this.labels;
+        }
+
+        public Object getValue() {
+            return this.value;
+        }
+
+        public Counter getCounter() {
+            return (Counter) this.value;
+        }
+
+        public Histogram getHistogram() {
+            return (Histogram) this.value;
+        }
+
+        /**
+         * Gets the name of the metric with its labels appended, if it has any.
+         *
+         * @return the full name
+         */
+        public String getFullName() {
+            return this.labels.isEmpty() ? this.name : this.name + "{" + this.labels + "}";
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics in a {@link MetricsRegistry} over HTTP, in the
+ * Prometheus text exposition format.
+ *
+ * <p>Timers are exposed as summaries, in seconds.</p>
+ */
+public class PrometheusMetricsExporter implements AutoCloseable {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private PrometheusMetricsExporter(MetricsRegistry registry, HttpServer server) {
+        this.registry = registry;
+        this.server = server;
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("luckperms-metrics-http-%d")
+                .build()
+        );
+
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/metrics", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Starts an exporter for the given registry.
+     *
+     * @param registry the registry
+     * @param address the address to listen on
+     * @param port the port to listen on
+     * @return the exporter
+     * @throws IOException if the server could not be started
+     */
+    public static PrometheusMetricsExporter start(MetricsRegistry registry, String address, int port) throws IOException {
+        return new PrometheusMetricsExporter(registry, HttpServer.create(new InetSocketAddress(address, port), 0));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] response = export().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String export() {
+        StringBuilder sb = new StringBuilder();
+        Set<String> described = new HashSet<>();
+
+        for (MetricsRegistry.Metric metric : this.registry.getMetrics()) {
+            String name = metric.getName();
+            if (metric.getType() == MetricsRegistry.Metric.Type.TIMER) {
+                name = name + "_seconds";
+            }
+
+            if (described.add(name)) {
+                sb.append("# HELP ").append(name).append(' ').append(metric.getHelp()).append('\n');
+                sb.append("# TYPE ").append(name).append(' ').append(metric.getType() == MetricsRegistry.Metric.Type.COUNTER ? "counter" : "summary").append('\n');
+            }
+
+            String labels = metric.getLabels();
+            switch (metric.getType()) {
+                case COUNTER:
+                    appendSample(sb, name, labels, metric.getCounter().get());
+                    break;
+                case TIMER:
+                    Histogram histogram = metric.getHistogram();
+                    for (double quantile : QUANTILES) {
+                        String quantileLabel = "quantile=\"" + quantile + "\"";
+                        appendSample(sb, name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel, histogram.getValueAtQuantile(quantile) / 1e9);
+                    }
+                    appendSample(sb, name + "_sum", labels, histogram.getSum() / 1e9);
+                    appendSample(sb, name + "_count", labels, histogram.getCount());
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendSample(StringBuilder sb, String name, String labels, Object value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdown();
+    }
+}
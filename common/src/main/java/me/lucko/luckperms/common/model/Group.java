@@ -25,16 +25,28 @@
 
 package me.lucko.luckperms.common.model;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import me.lucko.luckperms.api.Contexts;
 import me.lucko.luckperms.api.Node;
 import me.lucko.luckperms.api.context.ContextSet;
 import me.lucko.luckperms.api.nodetype.types.DisplayNameType;
 import me.lucko.luckperms.common.api.delegates.model.ApiGroup;
 import me.lucko.luckperms.common.buffers.Cache;
 import me.lucko.luckperms.common.caching.GroupCachedData;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Group extends PermissionHolder implements Identifiable<String> {
     private final ApiGroup apiDelegate = new ApiGroup(this);
@@ -54,6 +66,18 @@ public class Group extends PermissionHolder implements Identifiable<String> {
      */
     private final Cache<Optional<String>> displayNameCache = new DisplayNameCache(this);
 
+    /**
+     * Caches the permissions resolved from this group and everything it inherits from
+     */
+    private final LoadingCache<Contexts, ResolvedPermissions> resolvedPermissions = Caffeine.newBuilder()
+            .expireAfterAccess(2, TimeUnit.MINUTES)
+            .build(contexts -> resolvePermissions(contexts, getPlugin().getConfiguration().get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM)));
+
+    /**
+     * Incremented each time {@link #resolvedPermissions} is invalidated
+     */
+    private final AtomicInteger resolvedPermissionsVersion = new AtomicInteger();
+
     /**
      * The groups data cache instance
      */
@@ -69,11 +93,78 @@ public class Group extends PermissionHolder implements Identifiable<String> {
 
     @Override
     protected void invalidateCache() {
+        // invalidate before the data recalculate event is called by super
+        invalidateResolvedPermissions();
+
         super.invalidateCache();
 
         // invalidate our caches
         this.weightCache.invalidate();
         this.displayNameCache.invalidate();
+
+        // user data shared on the basis of their own nodes may inherit from this group
+        getPlugin().getUserManager().getSharedCachedData().invalidate();
+    }
+
+    /**
+     * Gets the permissions resolved from this group and everything it inherits
+     * from, calculating them if necessary.
+     *
+     * @param context the contexts to resolve in
+     * @param algorithm the traversal algorithm
+     * @return the resolved permissions
+     */
+    ResolvedPermissions getResolvedPermissions(Contexts context, TraversalAlgorithm algorithm) {
+        int version = this.resolvedPermissionsVersion.get();
+        ResolvedPermissions result = this.resolvedPermissions.get(context);
+        if (result == null || result.getAlgorithm() != algorithm) {
+            // the traversal algorithm has been changed since the result was cached
+            result = resolvePermissions(context, algorithm);
+            this.resolvedPermissions.put(context, result);
+        }
+
+        // don't keep the result if a parent changed whilst it was being calculated
+        if (this.resolvedPermissionsVersion.get() != version) {
+            this.resolvedPermissions.invalidate(context);
+        }
+        return result;
+    }
+
+    @Override
+    protected List<ResolvedPermissions> resolveComposedPermissions(Contexts context, TraversalAlgorithm algorithm) {
+        return Collections.singletonList(getResolvedPermissions(context, algorithm));
+    }
+
+    /**
+     * Invalidates the resolved permissions of this group, and of any loaded
+     * groups which inherit from it.
+     */
+    public void invalidateResolvedPermissions() {
+        invalidateResolvedPermissions(new HashSet<>());
+    }
+
+    private void invalidateResolvedPermissions(Set<Group> visited) {
+        if (!visited.add(this)) {
+            return;
+        }
+
+        this.resolvedPermissionsVersion.incrementAndGet();
+        this.resolvedPermissions.invalidateAll();
+
+        for (Group group : getPlugin().getGroupManager().getAll().values()) {
+            if (!visited.contains(group) && group.hasParent(this.name)) {
+                group.invalidateResolvedPermissions(visited);
+            }
+        }
+    }
+
+    private boolean hasParent(String name) {
+        for (Node node : getOwnGroupNodes()) {
+            if (node.getGroupName().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // name getters
@@ -43,6 +43,7 @@ import me.lucko.luckperms.api.context.ImmutableContextSet;
 import me.lucko.luckperms.common.caching.HolderCachedData;
 import me.lucko.luckperms.common.caching.type.MetaAccumulator;
 import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
 import me.lucko.luckperms.common.inheritance.InheritanceComparator;
 import me.lucko.luckperms.common.inheritance.InheritanceGraph;
 import me.lucko.luckperms.common.node.comparator.NodeWithContextComparator;
@@ -52,6 +53,7 @@ import me.lucko.luckperms.common.node.utils.NodeTools;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -345,21 +347,78 @@ public abstract class PermissionHolder {
             entries.addAll(getOwnNodes(context.getContexts()));
         }
 
+        filterEntries(entries, context);
+        return entries;
+    }
+
+    private static void filterEntries(List<? extends LocalizedNode> entries, Contexts context) {
         if (!context.hasSetting(LookupSetting.INCLUDE_NODES_SET_WITHOUT_SERVER)) {
             entries.removeIf(n -> !n.isGroupNode() && !n.isServerSpecific());
         }
         if (!context.hasSetting(LookupSetting.INCLUDE_NODES_SET_WITHOUT_WORLD)) {
             entries.removeIf(n -> !n.isGroupNode() && !n.isWorldSpecific());
         }
-
-        return entries;
     }
 
     public Map<String, Boolean> exportPermissions(Contexts context, boolean convertToLowercase, boolean resolveShorthand) {
+        if (convertToLowercase && context.hasSetting(LookupSetting.RESOLVE_INHERITANCE)) {
+            TraversalAlgorithm algorithm = this.plugin.getConfiguration().get(ConfigKeys.INHERITANCE_TRAVERSAL_ALGORITHM);
+            if (algorithm != TraversalAlgorithm.BREADTH_FIRST) {
+                return ResolvedPermissions.merge(resolveComposedPermissions(context, algorithm), resolveShorthand);
+            }
+        }
+
         List<LocalizedNode> entries = getAllEntries(context);
         return processExportedPermissions(entries, convertToLowercase, resolveShorthand);
     }
 
+    /**
+     * Resolves the permissions of this holder and everything it inherits from,
+     * by walking the inheritance graph.
+     *
+     * @param context the contexts to resolve in
+     * @param algorithm the traversal algorithm
+     * @return the resolved permissions
+     */
+    ResolvedPermissions resolvePermissions(Contexts context, TraversalAlgorithm algorithm) {
+        List<LocalizedNode> entries = new ArrayList<>();
+        accumulateInheritancesTo(entries, context);
+        filterEntries(entries, context);
+        return ResolvedPermissions.resolve(entries, algorithm);
+    }
+
+    /**
+     * Resolves the permissions of this holder as a list of results to be
+     * merged in order of priority - this holders own nodes, and the memoized
+     * results of each group it directly inherits from.
+     *
+     * <p>For depth-first traversals, this is equivalent to walking the whole
+     * graph, as any holder reachable from more than one parent will have
+     * already been seen by the time it is visited again.</p>
+     *
+     * @param context the contexts to resolve in
+     * @param algorithm the traversal algorithm
+     * @return the results to merge
+     */
+    protected List<ResolvedPermissions> resolveComposedPermissions(Contexts context, TraversalAlgorithm algorithm) {
+        List<LocalizedNode> ownNodes = getOwnNodes(context.getContexts());
+        filterEntries(ownNodes, context);
+        ResolvedPermissions own = ResolvedPermissions.resolve(ownNodes, algorithm);
+
+        InheritanceGraph graph = this.plugin.getInheritanceHandler().getGraph(context);
+        List<ResolvedPermissions> results = new ArrayList<>();
+        if (algorithm == TraversalAlgorithm.DEPTH_FIRST_PRE_ORDER) {
+            results.add(own);
+        }
+        for (PermissionHolder parent : graph.successors(this)) {
+            results.add(((Group) parent).getResolvedPermissions(context, algorithm));
+        }
+        if (algorithm == TraversalAlgorithm.DEPTH_FIRST_POST_ORDER) {
+            results.add(own);
+        }
+        return results;
+    }
+
     public Map<String, Boolean> exportPermissions(boolean convertToLowercase, boolean resolveShorthand) {
         List<LocalizedNode> entries = resolveInheritances();
         return processExportedPermissions(entries, convertToLowercase, resolveShorthand);
@@ -623,6 +682,32 @@ public abstract class PermissionHolder {
         return DataMutateResult.SUCCESS;
     }
 
+    /**
+     * Applies a batch of changes to the holders transient nodes, only
+     * invalidating the holders caches once.
+     *
+     * <p>Removals are applied first. As with {@link #setTransientPermission(Node)},
+     * nodes which are already present (ignoring value) are not added.</p>
+     *
+     * @param toRemove a predicate matching the transient nodes to remove
+     * @param toAdd the transient nodes to add
+     * @return true if the holders data changed
+     */
+    public boolean applyTransientChanges(Predicate<? super LocalizedNode> toRemove, Collection<? extends Node> toAdd) {
+        boolean changed = this.transientNodes.removeIf(toRemove);
+        for (Node node : toAdd) {
+            if (hasPermission(NodeMapType.TRANSIENT, node, StandardNodeEquality.IGNORE_EXPIRY_TIME_AND_VALUE) == Tristate.UNDEFINED) {
+                this.transientNodes.add(node);
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            invalidateCache();
+        }
+        return changed;
+    }
+
     /**
      * Unsets a permission node
      *
@@ -0,0 +1,104 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model;
+
+import com.google.common.collect.ImmutableMap;
+
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lowercased permissions resolved from a list of nodes, split into those
+ * set directly and those resolved from shorthand.
+ *
+ * <p>Directly set permissions always take priority over shorthand, so the two
+ * are kept separate to allow results to be merged in inheritance order.</p>
+ */
+final class ResolvedPermissions {
+
+    static ResolvedPermissions resolve(List<? extends Node> entries, TraversalAlgorithm algorithm) {
+        Map<String, Boolean> direct = new HashMap<>(entries.size());
+        Map<String, Boolean> shorthand = new HashMap<>();
+        for (Node node : entries) {
+            direct.putIfAbsent(node.getPermission().toLowerCase(), node.getValue());
+            for (String s : node.resolveShorthand()) {
+                shorthand.putIfAbsent(s.toLowerCase(), node.getValue());
+            }
+        }
+        return new ResolvedPermissions(ImmutableMap.copyOf(direct), ImmutableMap.copyOf(shorthand), algorithm);
+    }
+
+    /**
+     * Merges the given results, in order of priority.
+     *
+     * @param results the results to merge
+     * @param resolveShorthand if shorthand permissions should be included
+     * @return the merged permissions
+     */
+    static ImmutableMap<String, Boolean> merge(List<ResolvedPermissions> results, boolean resolveShorthand) {
+        // avoid copying when there's nothing to merge
+        if (results.size() == 1 && (!resolveShorthand || results.get(0).shorthand.isEmpty())) {
+            return results.get(0).direct;
+        }
+
+        Map<String, Boolean> perms = new HashMap<>();
+        for (ResolvedPermissions result : results) {
+            for (Map.Entry<String, Boolean> e : result.direct.entrySet()) {
+                perms.putIfAbsent(e.getKey(), e.getValue());
+            }
+        }
+        if (resolveShorthand) {
+            for (ResolvedPermissions result : results) {
+                for (Map.Entry<String, Boolean> e : result.shorthand.entrySet()) {
+                    perms.putIfAbsent(e.getKey(), e.getValue());
+                }
+            }
+        }
+        return ImmutableMap.copyOf(perms);
+    }
+
+    private final ImmutableMap<String, Boolean> direct;
+    private final ImmutableMap<String, Boolean> shorthand;
+
+    /**
+     * The traversal algorithm used to resolve the entries
+     */
+    private final TraversalAlgorithm algorithm;
+
+    private ResolvedPermissions(ImmutableMap<String, Boolean> direct, ImmutableMap<String, Boolean> shorthand, TraversalAlgorithm algorithm) {
+        this.direct = direct;
+        this.shorthand = shorthand;
+        this.algorithm = algorithm;
+    }
+
+    TraversalAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+}
@@ -46,8 +46,13 @@ import me.lucko.luckperms.common.locale.LocaleManager;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
 import me.lucko.luckperms.common.messaging.MessagingFactory;
+import me.lucko.luckperms.common.metrics.JmxMetricsExporter;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
+import me.lucko.luckperms.common.metrics.PrometheusMetricsExporter;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.plugin.util.StartupProfiler;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.StartupSnapshot;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.StorageFactory;
 import me.lucko.luckperms.common.storage.StorageType;
@@ -63,6 +68,8 @@ import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
 
+    private final StartupProfiler startupProfiler = new StartupProfiler();
+
     // init during load
     private DependencyManager dependencyManager;
 
@@ -72,8 +79,12 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private LogDispatcher logDispatcher;
     private LuckPermsConfiguration configuration;
     private LocaleManager localeManager;
+    private MetricsRegistry metrics = MetricsRegistry.DISABLED;
+    private JmxMetricsExporter jmxMetricsExporter = null;
+    private PrometheusMetricsExporter prometheusMetricsExporter = null;
     private FileWatcher fileWatcher = null;
     private Storage storage;
+    private StartupSnapshot startupSnapshot = null;
     private InternalMessagingService messagingService = null;
     private BufferedRequest<Void> updateTaskBuffer;
     private InheritanceHandler inheritanceHandler;
@@ -86,8 +97,10 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
      */
     public final void load() {
         // load dependencies
+        this.startupProfiler.start("Dependencies");
         this.dependencyManager = new DependencyManager(this);
         this.dependencyManager.loadDependencies(getGlobalDependencies());
+        this.startupProfiler.end();
 
         // load the sender factory instance
         setupSenderFactory();
@@ -103,19 +116,28 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         this.logDispatcher = new LogDispatcher(this);
 
         // load configuration
+        this.startupProfiler.start("Configuration");
         getLogger().info("Loading configuration...");
         this.configuration = new AbstractConfiguration(this, provideConfigurationAdapter());
 
+        // setup metrics, before anything which records them is created
+        if (getConfiguration().get(ConfigKeys.METRICS_ENABLED)) {
+            setupMetrics();
+        }
+
         // load locale
+        this.startupProfiler.start("Locale");
         this.localeManager = new LocaleManager();
         this.localeManager.tryLoad(this, getBootstrap().getConfigDirectory().resolve("lang.yml"));
 
         // now the configuration is loaded, we can create a storage factory and load initial dependencies
+        this.startupProfiler.start("Dependencies");
         StorageFactory storageFactory = new StorageFactory(this);
         Set<StorageType> storageTypes = storageFactory.getRequiredTypes(StorageType.H2);
         this.dependencyManager.loadStorageDependencies(storageTypes);
 
         // register listeners
+        this.startupProfiler.start("Storage");
         registerPlatformListeners();
 
         // initialise the storage
@@ -131,11 +153,15 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         // initialise storage
         this.storage = storageFactory.getInstance(StorageType.H2);
         this.messagingService = provideMessagingFactory().getInstance();
+        if (getConfiguration().get(ConfigKeys.STARTUP_SNAPSHOT)) {
+            this.startupSnapshot = new StartupSnapshot(this, getBootstrap().getDataDirectory().resolve("startup-snapshot.dat"));
+        }
 
         // setup the update task buffer
         this.updateTaskBuffer = new UpdateTaskBuffer(this);
 
         // register commands
+        this.startupProfiler.start("Managers");
         registerCommands();
 
         // load internal managers
@@ -153,6 +179,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         getContextManager().registerStaticCalculator(new LPStaticContextsCalculator(getConfiguration()));
 
         // setup platform hooks
+        this.startupProfiler.start("Platform hooks");
         setupPlatformHooks();
 
         // register with the LP API
@@ -162,25 +189,35 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         registerApiOnPlatform(this.apiProvider);
 
         // schedule update tasks
+        this.startupProfiler.start("Initial sync");
         int mins = getConfiguration().get(ConfigKeys.SYNC_TIME);
         if (mins > 0) {
             getBootstrap().getScheduler().asyncRepeating(() -> this.updateTaskBuffer.request(), mins, TimeUnit.MINUTES);
         }
-        getBootstrap().getScheduler().asyncLater(() -> this.updateTaskBuffer.request(), 2, TimeUnit.SECONDS);
-
-        // run an update instantly.
-        getLogger().info("Performing initial data load...");
-        try {
-            new UpdateTask(this, true).run();
-        } catch (Exception e) {
-            e.printStackTrace();
+
+        if (this.startupSnapshot != null && this.startupSnapshot.load()) {
+            // serve the snapshot data straight away, and sync with storage in the background
+            getLogger().info("Loaded initial data from the startup snapshot, syncing with storage in the background...");
+            this.updateTaskBuffer.request();
+        } else {
+            getBootstrap().getScheduler().asyncLater(() -> this.updateTaskBuffer.request(), 2, TimeUnit.SECONDS);
+
+            // run an update instantly.
+            getLogger().info("Performing initial data load...");
+            try {
+                new UpdateTask(this, true).run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
 
         // init housekeeping tasks
+        this.startupProfiler.start("Final setup");
         registerHousekeepingTasks();
 
         // perform any platform-specific final setup tasks
         performFinalSetup();
+        this.startupProfiler.end();
 
         getLogger().info("Successfully enabled. (took " + (System.currentTimeMillis() - getBootstrap().getStartupTime()) + "ms)");
     }
@@ -208,6 +245,14 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
             this.messagingService.close();
         }
 
+        // stop exporting metrics
+        if (this.jmxMetricsExporter != null) {
+            this.jmxMetricsExporter.close();
+        }
+        if (this.prometheusMetricsExporter != null) {
+            this.prometheusMetricsExporter.close();
+        }
+
         // unregister api
         ApiRegistrationUtil.unregisterProvider();
 
@@ -235,6 +280,31 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
 
     protected void removePlatformHooks() {}
 
+    private void setupMetrics() {
+        this.metrics = MetricsRegistry.create();
+
+        if (getConfiguration().get(ConfigKeys.METRICS_JMX)) {
+            try {
+                this.jmxMetricsExporter = JmxMetricsExporter.register(this.metrics);
+            } catch (Exception e) {
+                getLogger().warn("Unable to register metrics MBean");
+                e.printStackTrace();
+            }
+        }
+
+        int port = getConfiguration().get(ConfigKeys.METRICS_HTTP_PORT);
+        if (port > 0) {
+            String address = getConfiguration().get(ConfigKeys.METRICS_HTTP_ADDRESS);
+            try {
+                this.prometheusMetricsExporter = PrometheusMetricsExporter.start(this.metrics, address, port);
+                getLogger().info("Serving metrics at http://" + address + ":" + port + "/metrics");
+            } catch (Exception e) {
+                getLogger().warn("Unable to start metrics server on " + address + ":" + port);
+                e.printStackTrace();
+            }
+        }
+    }
+
     @Override
     public PluginLogger getLogger() {
         return getBootstrap().getPluginLogger();
@@ -282,11 +352,26 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return Optional.ofNullable(this.fileWatcher);
     }
 
+    @Override
+    public MetricsRegistry getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public StartupProfiler getStartupProfiler() {
+        return this.startupProfiler;
+    }
+
     @Override
     public Storage getStorage() {
         return this.storage;
     }
 
+    @Override
+    public Optional<StartupSnapshot> getStartupSnapshot() {
+        return Optional.ofNullable(this.startupSnapshot);
+    }
+
     @Override
     public Optional<InternalMessagingService> getMessagingService() {
         return Optional.ofNullable(this.messagingService);
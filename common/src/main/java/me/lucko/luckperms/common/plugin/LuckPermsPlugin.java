@@ -42,13 +42,16 @@ import me.lucko.luckperms.common.managers.group.GroupManager;
 import me.lucko.luckperms.common.managers.track.TrackManager;
 import me.lucko.luckperms.common.managers.user.UserManager;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import me.lucko.luckperms.common.plugin.util.AbstractConnectionListener;
+import me.lucko.luckperms.common.plugin.util.StartupProfiler;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.storage.StartupSnapshot;
 import me.lucko.luckperms.common.storage.Storage;
 import me.lucko.luckperms.common.storage.dao.file.FileWatcher;
 import me.lucko.luckperms.common.treeview.PermissionRegistry;
@@ -215,6 +218,20 @@ public interface LuckPermsPlugin {
      */
     LogDispatcher getLogDispatcher();
 
+    /**
+     * Gets the registry used to record performance metrics
+     *
+     * @return the metrics registry
+     */
+    MetricsRegistry getMetrics();
+
+    /**
+     * Gets the profiler used to time the plugins startup
+     *
+     * @return the startup profiler
+     */
+    StartupProfiler getStartupProfiler();
+
     /**
      * Gets the file watcher running on the platform
      *
@@ -222,6 +239,13 @@ public interface LuckPermsPlugin {
      */
     Optional<FileWatcher> getFileWatcher();
 
+    /**
+     * Gets the startup snapshot, if enabled
+     *
+     * @return the startup snapshot
+     */
+    Optional<StartupSnapshot> getStartupSnapshot();
+
     /**
      * Gets a calculated context instance for the user using the rules of the platform.
      *
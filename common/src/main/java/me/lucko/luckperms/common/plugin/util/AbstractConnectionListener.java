@@ -25,7 +25,9 @@
 
 package me.lucko.luckperms.common.plugin.util;
 
+import me.lucko.luckperms.api.Contexts;
 import me.lucko.luckperms.api.PlayerSaveResult;
+import me.lucko.luckperms.api.context.MutableContextSet;
 import me.lucko.luckperms.api.platform.PlatformType;
 import me.lucko.luckperms.common.assignments.AssignmentRule;
 import me.lucko.luckperms.common.config.ConfigKeys;
@@ -43,9 +45,11 @@ import java.util.concurrent.ConcurrentHashMap;
 public abstract class AbstractConnectionListener {
     private final LuckPermsPlugin plugin;
     private final Set<UUID> uniqueConnections = ConcurrentHashMap.newKeySet();
+    private final UserDataPrefetcher prefetcher;
 
     protected AbstractConnectionListener(LuckPermsPlugin plugin) {
         this.plugin = plugin;
+        this.prefetcher = new UserDataPrefetcher(plugin);
     }
 
     /**
@@ -61,6 +65,44 @@ public abstract class AbstractConnectionListener {
         this.uniqueConnections.add(uuid);
     }
 
+    /**
+     * Gets the contexts a connecting player is expected to have when they
+     * first join, used to calculate their data ahead of time.
+     *
+     * @param uuid the uuid of the player
+     * @return the predicted contexts
+     */
+    protected Contexts predictInitialContexts(UUID uuid) {
+        return this.plugin.getContextManager().getStaticContexts();
+    }
+
+    /**
+     * Forms the contexts a player is expected to have in the given world, for
+     * platforms where players join into a world.
+     *
+     * @param world the name of the world
+     * @return the predicted contexts
+     */
+    protected Contexts predictContextsInWorld(String world) {
+        MutableContextSet contexts = this.plugin.getContextManager().getStaticContext().mutableCopy();
+        world = world.toLowerCase();
+        while (!contexts.has(Contexts.WORLD_KEY, world)) {
+            contexts.add(Contexts.WORLD_KEY, world);
+            world = this.plugin.getConfiguration().get(ConfigKeys.WORLD_REWRITES).getOrDefault(world, world).toLowerCase();
+        }
+        return this.plugin.getContextManager().formContexts(contexts.makeImmutable());
+    }
+
+    /**
+     * Cancels any pending data calculation for the given player, for example
+     * because their connection was denied.
+     *
+     * @param uuid the uuid of the player
+     */
+    protected void cancelPrefetch(UUID uuid) {
+        this.prefetcher.cancel(uuid);
+    }
+
     public User loadUser(UUID uuid, String username) {
         final long startTime = System.currentTimeMillis();
 
@@ -116,6 +158,9 @@ public abstract class AbstractConnectionListener {
             this.plugin.getStorage().saveUser(user).join();
         }
 
+        // calculate their data in the background, so it's ready for the first checks after they join
+        this.prefetcher.prefetch(user, predictInitialContexts(uuid));
+
         final long time = System.currentTimeMillis() - startTime;
         if (time >= 1000) {
             this.plugin.getLogger().warn("Processing login for " + username + " took " + time + "ms.");
@@ -0,0 +1,82 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.plugin.util;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each phase of the plugins startup takes.
+ *
+ * <p>Only one phase is active at a time - starting a phase ends the previous
+ * one. Time spent in a phase which is entered more than once is added up.</p>
+ */
+public class StartupProfiler {
+
+    /**
+     * The total time spent in each phase, in milliseconds, in the order they were first entered
+     */
+    private final Map<String, Long> timings = new LinkedHashMap<>();
+
+    private String currentPhase = null;
+    private long currentPhaseStart = 0;
+
+    /**
+     * Marks the start of a phase, ending the current phase if there is one.
+     *
+     * @param phase the name of the phase
+     */
+    public synchronized void start(String phase) {
+        end();
+        this.currentPhase = phase;
+        this.currentPhaseStart = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the current phase.
+     */
+    public synchronized void end() {
+        if (this.currentPhase == null) {
+            return;
+        }
+
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.currentPhaseStart);
+        this.timings.merge(this.currentPhase, duration, Long::sum);
+        this.currentPhase = null;
+    }
+
+    /**
+     * Gets the time spent in each completed phase, in milliseconds.
+     *
+     * @return the timings
+     */
+    public synchronized Map<String, Long> getTimings() {
+        return ImmutableMap.copyOf(this.timings);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.plugin.util;
+
+import me.lucko.luckperms.api.Contexts;
+import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calculates the cached data of users who are in the process of connecting,
+ * so the first permission checks after they join don't have to.
+ *
+ * <p>Requests are queued and processed by a bounded number of workers on the
+ * async scheduler. If the queue is full, new requests are dropped and the data
+ * is calculated on demand as normal.</p>
+ */
+public class UserDataPrefetcher {
+    private final LuckPermsPlugin plugin;
+
+    /** The maximum number of requests being processed at once */
+    private final int maxConcurrency;
+
+    /** The maximum number of requests waiting to be processed */
+    private final int maxQueueSize;
+
+    /** Queued requests, guarded by itself */
+    private final Deque<Request> queue = new ArrayDeque<>();
+
+    /** The number of active workers, guarded by {@link #queue} */
+    private int workers = 0;
+
+    /** Requests which haven't completed yet */
+    private final Map<UUID, Request> requests = new ConcurrentHashMap<>();
+
+    public UserDataPrefetcher(LuckPermsPlugin plugin, int maxConcurrency, int maxQueueSize) {
+        this.plugin = plugin;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    public UserDataPrefetcher(LuckPermsPlugin plugin) {
+        this(plugin, Math.max(2, Runtime.getRuntime().availableProcessors() / 2), 1000);
+    }
+
+    /**
+     * Queues a request to calculate the users data in the given contexts.
+     *
+     * @param user the user
+     * @param contexts the contexts the user is expected to have when they join
+     * @return true if the request was queued
+     */
+    public boolean prefetch(User user, Contexts contexts) {
+        Request request = new Request(user, contexts);
+
+        boolean startWorker;
+        synchronized (this.queue) {
+            if (this.queue.size() >= this.maxQueueSize) {
+                return false;
+            }
+
+            Request previous = this.requests.put(user.getUuid(), request);
+            if (previous != null) {
+                previous.cancelled = true;
+            }
+
+            this.queue.add(request);
+            startWorker = this.workers < this.maxConcurrency;
+            if (startWorker) {
+                this.workers++;
+            }
+        }
+
+        if (startWorker) {
+            this.plugin.getBootstrap().getScheduler().executeAsync(this::work);
+        }
+        return true;
+    }
+
+    /**
+     * Cancels any pending request for the given user.
+     *
+     * @param uuid the users uuid
+     */
+    public void cancel(UUID uuid) {
+        Request request = this.requests.remove(uuid);
+        if (request != null) {
+            request.cancelled = true;
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Request request;
+            synchronized (this.queue) {
+                request = this.queue.poll();
+                if (request == null) {
+                    this.workers--;
+                    return;
+                }
+            }
+
+            if (request.cancelled) {
+                continue;
+            }
+
+            try {
+                request.user.getCachedData().preCalculate(request.contexts);
+            } catch (Exception e) {
+                this.plugin.getLogger().warn("Exception occurred whilst calculating data for " + request.user.getUuid());
+                e.printStackTrace();
+            } finally {
+                this.requests.remove(request.user.getUuid(), request);
+            }
+        }
+    }
+
+    private static final class Request {
+        private final User user;
+        private final Contexts contexts;
+        private volatile boolean cancelled = false;
+
+        private Request(User user, Contexts contexts) {
+            this.user = user;
+            this.contexts = contexts;
+        }
+    }
+
+}
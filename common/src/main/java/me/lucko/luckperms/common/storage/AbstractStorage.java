@@ -33,7 +33,9 @@ import me.lucko.luckperms.api.LogEntry;
 import me.lucko.luckperms.api.PlayerSaveResult;
 import me.lucko.luckperms.api.event.cause.CreationCause;
 import me.lucko.luckperms.api.event.cause.DeletionCause;
+import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.api.delegates.model.ApiStorage;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
@@ -52,6 +54,7 @@ import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Implements {@link Storage} using an {@link AbstractDao}.
@@ -61,7 +64,7 @@ public class AbstractStorage implements Storage {
         // make a base implementation
         Storage base = new AbstractStorage(plugin, backing);
         // wrap with a phaser
-        return PhasedStorage.wrap(base);
+        return PhasedStorage.wrap(base, plugin.getMetrics());
     }
 
     private final LuckPermsPlugin plugin;
@@ -151,6 +154,16 @@ public class AbstractStorage implements Storage {
         return makeFuture(this.dao::getLog);
     }
 
+    @Override
+    public CompletableFuture<Integer> countLogEntries(LogQuery query) {
+        return makeFuture(() -> this.dao.countLogEntries(query));
+    }
+
+    @Override
+    public CompletableFuture<List<ExtendedLogEntry>> getLogEntries(LogQuery query, int offset, int limit) {
+        return makeFuture(() -> this.dao.getLogEntries(query, offset, limit));
+    }
+
     @Override
     public CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate) {
         return makeFuture(() -> this.dao.applyBulkUpdate(bulkUpdate));
@@ -172,11 +185,21 @@ public class AbstractStorage implements Storage {
         return makeFuture(() -> this.dao.saveUser(user));
     }
 
+    @Override
+    public CompletableFuture<Void> bulkSaveUsers(List<BulkUserData> users) {
+        return makeFuture(() -> this.dao.bulkSaveUsers(users));
+    }
+
     @Override
     public CompletableFuture<Set<UUID>> getUniqueUsers() {
         return makeFuture(this.dao::getUniqueUsers);
     }
 
+    @Override
+    public CompletableFuture<Void> streamUsers(Consumer<BulkUserData> consumer) {
+        return makeFuture(() -> this.dao.streamUsers(consumer));
+    }
+
     @Override
     public CompletableFuture<List<HeldPermission<UUID>>> getUsersWithPermission(Constraint constraint) {
         return makeFuture(() -> {
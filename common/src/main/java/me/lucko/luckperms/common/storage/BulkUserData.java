@@ -0,0 +1,71 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import com.google.common.collect.ImmutableSet;
+
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * The stored data of a user, written directly to storage without
+ * loading the user.
+ */
+public final class BulkUserData {
+    private final UUID uuid;
+    private final String username;
+    private final String primaryGroup;
+    private final Set<NodeDataContainer> nodes;
+
+    public BulkUserData(UUID uuid, @Nullable String username, String primaryGroup, Set<NodeDataContainer> nodes) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+        this.username = username;
+        this.primaryGroup = Objects.requireNonNull(primaryGroup, "primaryGroup");
+        this.nodes = ImmutableSet.copyOf(nodes);
+    }
+
+    public UUID getUuid() {
+        return this.uuid;
+    }
+
+    @Nullable
+    public String getUsername() {
+        return this.username;
+    }
+
+    public String getPrimaryGroup() {
+        return this.primaryGroup;
+    }
+
+    public Set<NodeDataContainer> getNodes() {
+        return this.nodes;
+    }
+}
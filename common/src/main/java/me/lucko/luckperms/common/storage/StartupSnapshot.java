@@ -0,0 +1,250 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.api.Node;
+import me.lucko.luckperms.api.context.ImmutableContextSet;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.NodeMapType;
+import me.lucko.luckperms.common.model.Track;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static me.lucko.luckperms.common.utils.BinaryIO.readString;
+import static me.lucko.luckperms.common.utils.BinaryIO.readVarInt;
+import static me.lucko.luckperms.common.utils.BinaryIO.writeString;
+import static me.lucko.luckperms.common.utils.BinaryIO.writeVarInt;
+
+/**
+ * A local copy of all group and track data, used to serve permissions
+ * immediately on startup while the data is loaded from storage in the background.
+ *
+ * <p>The snapshot is written after each successful sync. It records a marker
+ * identifying the storage it was taken from, and is only used if the marker
+ * still matches and the snapshot isn't too old.</p>
+ */
+public class StartupSnapshot {
+    private static final int MAGIC = 0x4C50534E;
+    private static final byte VERSION = 1;
+
+    /**
+     * Snapshots older than this are not used
+     */
+    private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final LuckPermsPlugin plugin;
+    private final Path file;
+
+    public StartupSnapshot(LuckPermsPlugin plugin, Path file) {
+        this.plugin = plugin;
+        this.file = file;
+    }
+
+    /**
+     * Gets a marker identifying the storage the current data is loaded from.
+     *
+     * @return the storage marker
+     */
+    private String getStorageMarker() {
+        return this.plugin.getBootstrap().getVersion() + ";" +
+                this.plugin.getStorage().getName() + ";" +
+                this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX) + ";" +
+                this.plugin.getConfiguration().get(ConfigKeys.MONGODB_COLLECTION_PREFIX);
+    }
+
+    /**
+     * Loads the groups and tracks in the snapshot, if it exists and is fresh.
+     *
+     * @return true if the snapshot was loaded
+     */
+    public boolean load() {
+        if (!Files.exists(this.file)) {
+            return false;
+        }
+
+        // the snapshot is decoded in full straight away, so a heap copy costs no more than a
+        // mapping would, and doesn't hold the file open (and locked on windows) until the
+        // mapping is collected - which would stop the next save from replacing it
+        ByteBuffer buf;
+        try {
+            buf = ByteBuffer.wrap(Files.readAllBytes(this.file));
+        } catch (IOException e) {
+            this.plugin.getLogger().warn("Unable to read the startup snapshot: " + e.getMessage());
+            return false;
+        }
+
+        Map<String, Set<Node>> groups = new LinkedHashMap<>();
+        Map<String, List<String>> tracks = new LinkedHashMap<>();
+        try {
+            if (buf.remaining() < 5 || buf.getInt() != MAGIC || buf.get() != VERSION) {
+                return false;
+            }
+
+            long timestamp = buf.getLong();
+            String marker = readString(buf);
+            if (!marker.equals(getStorageMarker()) || System.currentTimeMillis() - timestamp > MAX_AGE_MILLIS) {
+                return false;
+            }
+
+            int groupCount = readVarInt(buf);
+            for (int i = 0; i < groupCount; i++) {
+                String name = readString(buf);
+                int nodeCount = readVarInt(buf);
+                Set<Node> nodes = new HashSet<>(nodeCount);
+                for (int j = 0; j < nodeCount; j++) {
+                    nodes.add(readNode(buf).toNode());
+                }
+                groups.put(name, nodes);
+            }
+
+            int trackCount = readVarInt(buf);
+            for (int i = 0; i < trackCount; i++) {
+                String name = readString(buf);
+                int size = readVarInt(buf);
+                List<String> trackGroups = new ArrayList<>(size);
+                for (int j = 0; j < size; j++) {
+                    trackGroups.add(readString(buf));
+                }
+                tracks.put(name, trackGroups);
+            }
+        } catch (RuntimeException e) {
+            this.plugin.getLogger().warn("Unable to read the startup snapshot: " + e);
+            return false;
+        }
+
+        for (Map.Entry<String, Set<Node>> e : groups.entrySet()) {
+            Group group = this.plugin.getGroupManager().getOrMake(e.getKey());
+            group.getIoLock().lock();
+            try {
+                group.setNodes(NodeMapType.ENDURING, e.getValue());
+            } finally {
+                group.invalidateCachedData();
+                group.getIoLock().unlock();
+            }
+        }
+        for (Map.Entry<String, List<String>> e : tracks.entrySet()) {
+            Track track = this.plugin.getTrackManager().getOrMake(e.getKey());
+            track.getIoLock().lock();
+            try {
+                track.setGroups(e.getValue());
+            } finally {
+                track.getIoLock().unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the currently loaded groups and tracks to the snapshot.
+     */
+    public void save() {
+        Path tmp = this.file.resolveSibling(this.file.getFileName().toString() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                writeString(out, getStorageMarker());
+
+                Collection<? extends Group> groups = new ArrayList<>(this.plugin.getGroupManager().getAll().values());
+                writeVarInt(out, groups.size());
+                for (Group group : groups) {
+                    writeString(out, group.getName());
+                    Collection<? extends Node> nodes = group.enduringData().immutable().values();
+                    writeVarInt(out, nodes.size());
+                    for (Node node : nodes) {
+                        writeNode(out, NodeDataContainer.fromNode(node));
+                    }
+                }
+
+                Collection<? extends Track> tracks = new ArrayList<>(this.plugin.getTrackManager().getAll().values());
+                writeVarInt(out, tracks.size());
+                for (Track track : tracks) {
+                    writeString(out, track.getName());
+                    List<String> trackGroups = track.getGroups();
+                    writeVarInt(out, trackGroups.size());
+                    for (String group : trackGroups) {
+                        writeString(out, group);
+                    }
+                }
+            }
+
+            try {
+                Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            this.plugin.getLogger().warn("Unable to write the startup snapshot: " + e.getMessage());
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, NodeDataContainer node) throws IOException {
+        writeString(out, node.getPermission());
+        out.writeBoolean(node.getValue());
+        writeString(out, node.getServer());
+        writeString(out, node.getWorld());
+        out.writeLong(node.getExpiry());
+        Set<Map.Entry<String, String>> contexts = node.getContexts().toSet();
+        writeVarInt(out, contexts.size());
+        for (Map.Entry<String, String> e : contexts) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private static NodeDataContainer readNode(ByteBuffer buf) {
+        String permission = readString(buf);
+        boolean value = buf.get() != 0;
+        String server = readString(buf);
+        String world = readString(buf);
+        long expiry = buf.getLong();
+        int contextCount = readVarInt(buf);
+        ImmutableContextSet.Builder contexts = ImmutableContextSet.builder();
+        for (int i = 0; i < contextCount; i++) {
+            contexts.add(readString(buf), readString(buf));
+        }
+        return NodeDataContainer.of(permission, value, server, world, expiry, contexts.build());
+    }
+}
@@ -30,7 +30,9 @@ import me.lucko.luckperms.api.LogEntry;
 import me.lucko.luckperms.api.PlayerSaveResult;
 import me.lucko.luckperms.api.event.cause.CreationCause;
 import me.lucko.luckperms.api.event.cause.DeletionCause;
+import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.api.delegates.model.ApiStorage;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
@@ -45,6 +47,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Main interface for all Storage providers.
@@ -67,14 +70,22 @@ public interface Storage {
 
     CompletableFuture<Log> getLog();
 
+    CompletableFuture<Integer> countLogEntries(LogQuery query);
+
+    CompletableFuture<List<ExtendedLogEntry>> getLogEntries(LogQuery query, int offset, int limit);
+
     CompletableFuture<Void> applyBulkUpdate(BulkUpdate bulkUpdate);
 
     CompletableFuture<User> loadUser(UUID uuid, String username);
 
     CompletableFuture<Void> saveUser(User user);
 
+    CompletableFuture<Void> bulkSaveUsers(List<BulkUserData> users);
+
     CompletableFuture<Set<UUID>> getUniqueUsers();
 
+    CompletableFuture<Void> streamUsers(Consumer<BulkUserData> consumer);
+
     CompletableFuture<List<HeldPermission<UUID>>> getUsersWithPermission(Constraint constraint);
 
     CompletableFuture<Group> createAndLoadGroup(String name, CreationCause cause);
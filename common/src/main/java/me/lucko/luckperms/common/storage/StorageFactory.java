@@ -40,8 +40,10 @@ import me.lucko.luckperms.common.storage.dao.file.loader.TomlLoader;
 import me.lucko.luckperms.common.storage.dao.file.loader.YamlLoader;
 import me.lucko.luckperms.common.storage.dao.mongodb.MongoDao;
 import me.lucko.luckperms.common.storage.dao.sql.SqlDao;
+import me.lucko.luckperms.common.storage.dao.sql.connection.AbstractConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.file.H2ConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.file.SQLiteConnectionFactory;
+import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.HikariConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.MariaDbConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.MySqlConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.PostgreConnectionFactory;
@@ -50,6 +52,8 @@ import me.lucko.luckperms.common.utils.ImmutableCollectors;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class StorageFactory {
     private final LuckPermsPlugin plugin;
@@ -127,34 +131,29 @@ public class StorageFactory {
             case CUSTOM:
                 return StorageProviders.getProvider().provide(this.plugin);
             case MARIADB:
-                return new SqlDao(
-                        this.plugin,
+                return makeSqlDao(
                         new MariaDbConnectionFactory(this.plugin.getConfiguration().get(ConfigKeys.DATABASE_VALUES)),
-                        this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX)
+                        address -> new MariaDbConnectionFactory(replicaCredentials(address))
                 );
             case MYSQL:
-                return new SqlDao(
-                        this.plugin,
+                return makeSqlDao(
                         new MySqlConnectionFactory(this.plugin.getConfiguration().get(ConfigKeys.DATABASE_VALUES)),
-                        this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX)
+                        address -> new MySqlConnectionFactory(replicaCredentials(address))
                 );
             case SQLITE:
-                return new SqlDao(
-                        this.plugin,
+                return makeSqlDao(
                         new SQLiteConnectionFactory(this.plugin, this.plugin.getBootstrap().getDataDirectory().resolve("luckperms-sqlite.db")),
-                        this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX)
+                        null
                 );
             case H2:
-                return new SqlDao(
-                        this.plugin,
+                return makeSqlDao(
                         new H2ConnectionFactory(this.plugin, this.plugin.getBootstrap().getDataDirectory().resolve("luckperms-h2")),
-                        this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX)
+                        null
                 );
             case POSTGRESQL:
-                return new SqlDao(
-                        this.plugin,
+                return makeSqlDao(
                         new PostgreConnectionFactory(this.plugin.getConfiguration().get(ConfigKeys.DATABASE_VALUES)),
-                        this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX)
+                        address -> new PostgreConnectionFactory(replicaCredentials(address))
                 );
             case MONGODB:
                 return new MongoDao(
@@ -183,4 +182,45 @@ public class StorageFactory {
                 throw new RuntimeException("Unknown method: " + method);
         }
     }
+
+    private SqlDao makeSqlDao(AbstractConnectionFactory provider, Function<String, AbstractConnectionFactory> replicaFunction) {
+        String replicaAddress = this.plugin.getConfiguration().get(ConfigKeys.SQL_READ_REPLICA_ADDRESS);
+
+        AbstractConnectionFactory replicaProvider = null;
+        if (!replicaAddress.isEmpty() && replicaFunction == null) {
+            // file based databases can't be replicated into, so a replica would never see any changes
+            this.plugin.getLogger().warn("[SQL] Read replicas are not supported by " + provider.getName() + ", " +
+                    "the 'read-replica' setting will be ignored.");
+        } else if (!replicaAddress.isEmpty()) {
+            replicaProvider = replicaFunction.apply(replicaAddress);
+            if (replicaProvider instanceof HikariConnectionFactory) {
+                ((HikariConnectionFactory) replicaProvider).setPoolName("luckperms-hikari-replica");
+            }
+        }
+
+        return new SqlDao(
+                this.plugin,
+                provider,
+                this.plugin.getConfiguration().get(ConfigKeys.SQL_TABLE_PREFIX),
+                this.plugin.getConfiguration().get(ConfigKeys.SQL_COMPACT_SCHEMA),
+                replicaProvider,
+                TimeUnit.SECONDS.toMillis(this.plugin.getConfiguration().get(ConfigKeys.SQL_READ_REPLICA_MAX_LAG))
+        );
+    }
+
+    private StorageCredentials replicaCredentials(String address) {
+        // everything apart from the address is shared with the main database
+        StorageCredentials credentials = this.plugin.getConfiguration().get(ConfigKeys.DATABASE_VALUES);
+        return new StorageCredentials(
+                address,
+                credentials.getDatabase(),
+                credentials.getUsername(),
+                credentials.getPassword(),
+                credentials.getMaxPoolSize(),
+                credentials.getMinIdleConnections(),
+                credentials.getMaxLifetime(),
+                credentials.getConnectionTimeout(),
+                credentials.getProperties()
+        );
+    }
 }
@@ -28,20 +28,28 @@ package me.lucko.luckperms.common.storage.dao;
 import me.lucko.luckperms.api.HeldPermission;
 import me.lucko.luckperms.api.LogEntry;
 import me.lucko.luckperms.api.PlayerSaveResult;
+import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
 import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.NodeMapType;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
@@ -75,14 +83,80 @@ public abstract class AbstractDao {
 
     public abstract Log getLog() throws Exception;
 
+    /**
+     * Counts the entries in the action log which match the given query.
+     *
+     * <p>Implementations should override this to count the entries remotely.
+     * The default implementation loads and filters the whole log.</p>
+     *
+     * @param query the query
+     * @return the number of matching entries
+     * @throws Exception if an error occurs
+     */
+    public int countLogEntries(LogQuery query) throws Exception {
+        return (int) getLog().getContent().stream().filter(query::matches).count();
+    }
+
+    /**
+     * Gets the entries in the action log which match the given query,
+     * ordered from newest to oldest.
+     *
+     * <p>Implementations should override this to select the entries remotely.
+     * The default implementation loads and filters the whole log.</p>
+     *
+     * @param query the query
+     * @param offset the number of matching entries to skip, starting from the newest
+     * @param limit the maximum number of entries to return
+     * @return the matching entries
+     * @throws Exception if an error occurs
+     */
+    public List<ExtendedLogEntry> getLogEntries(LogQuery query, int offset, int limit) throws Exception {
+        List<ExtendedLogEntry> entries = getLog().getContent().stream().filter(query::matches).collect(Collectors.toList());
+        Collections.reverse(entries);
+
+        int from = Math.min(offset, entries.size());
+        int to = Math.min(from + limit, entries.size());
+        return new ArrayList<>(entries.subList(from, to));
+    }
+
     public abstract void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception;
 
     public abstract User loadUser(UUID uuid, String username) throws Exception;
 
     public abstract void saveUser(User user) throws Exception;
 
+    /**
+     * Writes the given user data directly to storage, replacing any existing data.
+     *
+     * <p>Implementations should override this to write the data in batches.
+     * The default implementation loads and saves each user in turn.</p>
+     *
+     * @param users the user data
+     * @throws Exception if an error occurs
+     */
+    public void bulkSaveUsers(List<BulkUserData> users) throws Exception {
+        for (BulkUserData data : users) {
+            User user = loadUser(data.getUuid(), data.getUsername());
+            user.setNodes(NodeMapType.ENDURING, data.getNodes().stream().map(NodeDataContainer::toNode).collect(Collectors.toSet()));
+            user.getPrimaryGroup().setStoredValue(data.getPrimaryGroup());
+            saveUser(user);
+            this.plugin.getUserManager().cleanup(user);
+        }
+    }
+
     public abstract Set<UUID> getUniqueUsers() throws Exception;
 
+    /**
+     * Reads the stored data of every user, passing each to the consumer as it is read.
+     *
+     * <p>Users are read directly from storage, and are not loaded into the
+     * user manager.</p>
+     *
+     * @param consumer the consumer
+     * @throws Exception if an error occurs
+     */
+    public abstract void streamUsers(Consumer<BulkUserData> consumer) throws Exception;
+
     public abstract List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws Exception;
 
     public abstract Group createAndLoadGroup(String name) throws Exception;
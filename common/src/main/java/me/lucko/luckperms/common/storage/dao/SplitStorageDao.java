@@ -30,13 +30,16 @@ import com.google.common.collect.ImmutableMap;
 import me.lucko.luckperms.api.HeldPermission;
 import me.lucko.luckperms.api.LogEntry;
 import me.lucko.luckperms.api.PlayerSaveResult;
+import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.storage.SplitStorageType;
 import me.lucko.luckperms.common.storage.StorageType;
 
@@ -46,6 +49,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class SplitStorageDao extends AbstractDao {
     private final Map<StorageType, AbstractDao> backing;
@@ -104,6 +108,16 @@ public class SplitStorageDao extends AbstractDao {
         return this.backing.get(this.types.get(SplitStorageType.LOG)).getLog();
     }
 
+    @Override
+    public int countLogEntries(LogQuery query) throws Exception {
+        return this.backing.get(this.types.get(SplitStorageType.LOG)).countLogEntries(query);
+    }
+
+    @Override
+    public List<ExtendedLogEntry> getLogEntries(LogQuery query, int offset, int limit) throws Exception {
+        return this.backing.get(this.types.get(SplitStorageType.LOG)).getLogEntries(query, offset, limit);
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         StorageType userType = this.types.get(SplitStorageType.USER);
@@ -127,11 +141,21 @@ public class SplitStorageDao extends AbstractDao {
         this.backing.get(this.types.get(SplitStorageType.USER)).saveUser(user);
     }
 
+    @Override
+    public void bulkSaveUsers(List<BulkUserData> users) throws Exception {
+        this.backing.get(this.types.get(SplitStorageType.USER)).bulkSaveUsers(users);
+    }
+
     @Override
     public Set<UUID> getUniqueUsers() throws Exception {
         return this.backing.get(this.types.get(SplitStorageType.USER)).getUniqueUsers();
     }
 
+    @Override
+    public void streamUsers(Consumer<BulkUserData> consumer) throws Exception {
+        this.backing.get(this.types.get(SplitStorageType.USER)).streamUsers(consumer);
+    }
+
     @Override
     public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws Exception {
         return this.backing.get(this.types.get(SplitStorageType.USER)).getUsersWithPermission(constraint);
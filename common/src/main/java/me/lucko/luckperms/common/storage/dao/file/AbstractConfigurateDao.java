@@ -46,6 +46,7 @@ import me.lucko.luckperms.common.node.factory.NodeFactory;
 import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.node.utils.MetaType;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.storage.dao.AbstractDao;
 import me.lucko.luckperms.common.storage.dao.file.loader.ConfigurateLoader;
 import me.lucko.luckperms.common.storage.dao.file.loader.JsonLoader;
@@ -209,6 +210,19 @@ public abstract class AbstractConfigurateDao extends AbstractDao {
         return user;
     }
 
+    /**
+     * Reads the stored data of a user from the given node.
+     *
+     * @param uuid the users uuid
+     * @param object the node
+     * @return the users data
+     */
+    protected BulkUserData readUserData(UUID uuid, ConfigurationNode object) {
+        String name = object.getNode("name").getString();
+        String primaryGroup = object.getNode(this.loader instanceof JsonLoader ? "primaryGroup" : "primary-group").getString(NodeFactory.DEFAULT_GROUP_NAME);
+        return new BulkUserData(uuid, name, primaryGroup, readNodes(object));
+    }
+
     @Override
     public void saveUser(User user) {
         user.getIoLock().lock();
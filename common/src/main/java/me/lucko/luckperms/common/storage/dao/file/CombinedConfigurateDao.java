@@ -27,12 +27,14 @@ package me.lucko.luckperms.common.storage.dao.file;
 
 import me.lucko.luckperms.api.HeldPermission;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdateProgress;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
 import me.lucko.luckperms.common.managers.group.GroupManager;
 import me.lucko.luckperms.common.managers.track.TrackManager;
 import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.node.model.NodeHeldPermission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.storage.dao.file.loader.ConfigurateLoader;
 
 import ninja.leaping.configurate.ConfigurationNode;
@@ -238,19 +240,23 @@ public class CombinedConfigurateDao extends AbstractConfigurateDao {
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         if (bulkUpdate.getDataType().isIncludingUsers()) {
+            BulkUpdateProgress progress = new BulkUpdateProgress(this.plugin.getLogger(), "users");
             this.usersLoader.apply(true, true, root -> {
                 for (Map.Entry<Object, ? extends ConfigurationNode> entry : root.getChildrenMap().entrySet()) {
-                    processBulkUpdate(bulkUpdate, entry.getValue());
+                    progress.processed(processBulkUpdate(bulkUpdate, entry.getValue()) != null);
                 }
             });
+            progress.complete();
         }
 
         if (bulkUpdate.getDataType().isIncludingGroups()) {
+            BulkUpdateProgress progress = new BulkUpdateProgress(this.plugin.getLogger(), "groups");
             this.groupsLoader.apply(true, true, root -> {
                 for (Map.Entry<Object, ? extends ConfigurationNode> entry : root.getChildrenMap().entrySet()) {
-                    processBulkUpdate(bulkUpdate, entry.getValue());
+                    progress.processed(processBulkUpdate(bulkUpdate, entry.getValue()) != null);
                 }
             });
+            progress.complete();
         }
     }
 
@@ -262,6 +268,20 @@ public class CombinedConfigurateDao extends AbstractConfigurateDao {
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    public void streamUsers(Consumer<BulkUserData> consumer) throws Exception {
+        this.usersLoader.apply(false, true, root -> {
+            for (Map.Entry<Object, ? extends ConfigurationNode> entry : root.getChildrenMap().entrySet()) {
+                try {
+                    UUID holder = UUID.fromString(entry.getKey().toString());
+                    consumer.accept(readUserData(holder, entry.getValue()));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
     @Override
     public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws Exception {
         List<HeldPermission<UUID>> held = new ArrayList<>();
@@ -0,0 +1,450 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.file;
+
+import me.lucko.luckperms.common.buffers.BufferedRequest;
+import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparisons.StandardComparison;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.utils.MoreFiles;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An on-disk inverted index from permission to the holders which have it,
+ * used to answer permission searches without reading every data file.
+ *
+ * <p>Each entry records the modification time and size of the file it was
+ * read from. Entries are verified against the data directory before each
+ * search, and any which are missing or out of date are re-read, so changes
+ * made outside of the plugin are still picked up.</p>
+ *
+ * <p>Only searches for an exact permission, or a permission prefix
+ * (e.g. {@code essentials.%}) can be answered by the index. The holders it
+ * returns are candidates, and should still be checked against the constraint.</p>
+ */
+public class FilePermissionIndex {
+    private static final int MAGIC = 0x4C504958;
+    private static final byte VERSION = 1;
+
+    /**
+     * Reads the permissions held in a data file
+     */
+    public interface Reader {
+        Collection<String> read(Path file) throws IOException;
+    }
+
+    private final Path indexFile;
+    private final Path directory;
+    private final String fileExtension;
+    private final Reader reader;
+
+    /** Guards the entries, holders and dirty flag. Never held whilst reading files */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Index entries, keyed by holder */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /** Holders keyed by the (lowercase) permissions they have */
+    private final NavigableMap<String, Set<String>> holders = new TreeMap<>();
+
+    /** If the index has changed since it was last written */
+    private boolean dirty = false;
+
+    /** Ensures the index file isn't written to by multiple threads */
+    private final Lock saveLock = new ReentrantLock();
+
+    private final SaveBuffer saveBuffer;
+
+    public FilePermissionIndex(Path indexFile, Path directory, String fileExtension, Reader reader, SchedulerAdapter scheduler) {
+        this.indexFile = indexFile;
+        this.directory = directory;
+        this.fileExtension = fileExtension;
+        this.reader = reader;
+        this.saveBuffer = new SaveBuffer(scheduler);
+    }
+
+    /**
+     * Gets the holders which may have permissions matching the constraint.
+     *
+     * @param constraint the constraint
+     * @return the candidate holders, or null if the constraint can't be answered by the index
+     * @throws IOException if an io error occurs whilst verifying the index
+     */
+    public Set<String> search(Constraint constraint) throws IOException {
+        String expression = constraint.getExpression().toLowerCase();
+        String prefix;
+        if (constraint.getComparison() == StandardComparison.EQUAL) {
+            prefix = null;
+        } else if (constraint.getComparison() == StandardComparison.SIMILAR) {
+            prefix = StandardComparison.likePrefix(expression);
+            if (prefix == null || prefix.isEmpty()) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        verify();
+
+        Set<String> results = new HashSet<>();
+        this.lock.readLock().lock();
+        try {
+            if (prefix == null) {
+                Set<String> exact = this.holders.get(expression);
+                if (exact != null) {
+                    results.addAll(exact);
+                }
+            } else {
+                for (Map.Entry<String, Set<String>> e : this.holders.tailMap(prefix, true).entrySet()) {
+                    if (!e.getKey().startsWith(prefix)) {
+                        break;
+                    }
+                    results.addAll(e.getValue());
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Records the permissions a holder has, after its file has been written.
+     *
+     * @param holder the holder
+     * @param file the holders file
+     * @param permissions the permissions
+     */
+    public void update(String holder, Path file, Collection<String> permissions) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // the entry will be re-read when the index is next verified
+            remove(holder);
+            return;
+        }
+
+        Entry entry = new Entry(attributes.lastModifiedTime().toMillis(), attributes.size(), permissions);
+        this.lock.writeLock().lock();
+        try {
+            put(holder, entry);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.saveBuffer.request();
+    }
+
+    /**
+     * Removes a holder from the index, after its file has been deleted.
+     *
+     * @param holder the holder
+     */
+    public void remove(String holder) {
+        this.lock.writeLock().lock();
+        try {
+            Entry previous = this.entries.remove(holder);
+            if (previous == null) {
+                return;
+            }
+            unlink(holder, previous);
+            this.dirty = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.saveBuffer.request();
+    }
+
+    /**
+     * Reads the index from disk, discarding it if it can't be read.
+     */
+    public void load() {
+        this.lock.writeLock().lock();
+        try {
+            clear();
+            if (!Files.exists(this.indexFile)) {
+                return;
+            }
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.indexFile)))) {
+                if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                    throw new IOException("Unsupported index format");
+                }
+
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    String holder = in.readUTF();
+                    long lastModified = in.readLong();
+                    long length = in.readLong();
+                    int count = in.readInt();
+                    Set<String> permissions = new HashSet<>(count);
+                    for (int j = 0; j < count; j++) {
+                        permissions.add(in.readUTF());
+                    }
+                    put(holder, new Entry(lastModified, length, permissions));
+                }
+                this.dirty = false;
+            } catch (IOException e) {
+                // the index will be rebuilt on the next search
+                clear();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index to disk, if it has changed.
+     *
+     * <p>Saves are normally buffered after each change, this should only need
+     * to be called directly on shutdown.</p>
+     *
+     * @throws IOException if an io error occurs
+     */
+    public void save() throws IOException {
+        this.saveLock.lock();
+        try {
+            // entries are never modified once created, so a shallow copy is enough to write from
+            Map<String, Entry> snapshot;
+            this.lock.writeLock().lock();
+            try {
+                if (!this.dirty) {
+                    return;
+                }
+                snapshot = new HashMap<>(this.entries);
+                this.dirty = false;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            try {
+                write(snapshot);
+            } catch (IOException e) {
+                markDirty();
+                throw e;
+            }
+        } finally {
+            this.saveLock.unlock();
+        }
+    }
+
+    private void write(Map<String, Entry> entries) throws IOException {
+        MoreFiles.createDirectoriesIfNotExists(this.indexFile.getParent());
+        Path tmp = this.indexFile.resolveSibling(this.indexFile.getFileName().toString() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.size);
+                out.writeInt(entry.permissions.size());
+                for (String permission : entry.permissions) {
+                    out.writeUTF(permission);
+                }
+            }
+        }
+
+        try {
+            Files.move(tmp, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, this.indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Brings the index up to date with the files in the data directory,
+     * re-reading any which have changed since they were indexed.
+     *
+     * <p>The directory is scanned against a snapshot of the index, without
+     * holding the lock, so saves aren't blocked whilst files are checked.
+     * Changes are only applied to entries which haven't been updated since
+     * the snapshot was taken.</p>
+     */
+    private void verify() throws IOException {
+        Map<String, Entry> snapshot;
+        this.lock.readLock().lock();
+        try {
+            snapshot = new HashMap<>(this.entries);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        Map<String, Entry> changed = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + this.fileExtension)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                String holder = fileName.substring(0, fileName.length() - this.fileExtension.length());
+
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                seen.add(holder);
+
+                long lastModified = attributes.lastModifiedTime().toMillis();
+                Entry entry = snapshot.get(holder);
+                if (entry != null && entry.lastModified == lastModified && entry.size == attributes.size()) {
+                    continue;
+                }
+
+                Collection<String> permissions = this.reader.read(file);
+                if (permissions == null) {
+                    removed.add(holder);
+                } else {
+                    changed.put(holder, new Entry(lastModified, attributes.size(), permissions));
+                }
+            }
+        }
+
+        for (String holder : snapshot.keySet()) {
+            if (!seen.contains(holder)) {
+                removed.add(holder);
+            }
+        }
+
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Entry> e : changed.entrySet()) {
+                if (this.entries.get(e.getKey()) == snapshot.get(e.getKey())) {
+                    put(e.getKey(), e.getValue());
+                }
+            }
+            for (String holder : removed) {
+                Entry current = this.entries.get(holder);
+                if (current != null && current == snapshot.get(holder)) {
+                    this.entries.remove(holder);
+                    unlink(holder, current);
+                    this.dirty = true;
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        this.saveBuffer.request();
+    }
+
+    private void markDirty() {
+        this.lock.writeLock().lock();
+        try {
+            this.dirty = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void put(String holder, Entry entry) {
+        Entry previous = this.entries.put(holder, entry);
+        if (previous != null) {
+            unlink(holder, previous);
+        }
+        for (String permission : entry.permissions) {
+            this.holders.computeIfAbsent(permission, p -> new HashSet<>()).add(holder);
+        }
+        this.dirty = true;
+    }
+
+    private void unlink(String holder, Entry entry) {
+        for (String permission : entry.permissions) {
+            Set<String> set = this.holders.get(permission);
+            if (set != null) {
+                set.remove(holder);
+                if (set.isEmpty()) {
+                    this.holders.remove(permission);
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        this.entries.clear();
+        this.holders.clear();
+        this.dirty = true;
+    }
+
+    private static final class Entry {
+        private final long lastModified;
+        private final long size;
+        private final Set<String> permissions;
+
+        private Entry(long lastModified, long size, Collection<String> permissions) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.permissions = new HashSet<>(permissions);
+        }
+    }
+
+    private final class SaveBuffer extends BufferedRequest<Void> {
+        SaveBuffer(SchedulerAdapter scheduler) {
+            super(5, TimeUnit.SECONDS, scheduler);
+        }
+
+        @Override
+        protected Void perform() {
+            try {
+                FilePermissionIndex.this.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }
+    }
+
+}
@@ -25,15 +25,21 @@
 
 package me.lucko.luckperms.common.storage.dao.file;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import me.lucko.luckperms.api.HeldPermission;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdateProgress;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.managers.group.GroupManager;
 import me.lucko.luckperms.common.managers.track.TrackManager;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.node.model.NodeHeldPermission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.storage.dao.file.loader.ConfigurateLoader;
 import me.lucko.luckperms.common.utils.MoreFiles;
 import me.lucko.luckperms.common.utils.Uuids;
@@ -44,14 +50,23 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class SeparatedConfigurateDao extends AbstractConfigurateDao {
+    private static final int BULK_UPDATE_CHUNK_SIZE = 250;
+
     private final String fileExtension;
 
     private Path usersDirectory;
@@ -62,6 +77,9 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
     private FileWatcher.WatchedLocation groupWatcher = null;
     private FileWatcher.WatchedLocation trackWatcher = null;
 
+    private FilePermissionIndex userIndex = null;
+    private FilePermissionIndex groupIndex = null;
+
     /**
      * Creates a new configurate dao
      *
@@ -95,6 +113,7 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
         Path file = getDirectory(location).resolve(name + this.fileExtension);
         registerFileAction(location, file);
         saveFile(file, node);
+        updateIndex(location, file, node);
     }
 
     private void saveFile(Path file, ConfigurationNode node) throws IOException {
@@ -106,6 +125,65 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
         this.loader.loader(file).save(node);
     }
 
+    private FilePermissionIndex getIndex(StorageLocation location) {
+        switch (location) {
+            case USER:
+                return this.userIndex;
+            case GROUP:
+                return this.groupIndex;
+            default:
+                return null;
+        }
+    }
+
+    private void updateIndex(StorageLocation location, Path file, ConfigurationNode node) {
+        FilePermissionIndex index = getIndex(location);
+        if (index == null) {
+            return;
+        }
+
+        String fileName = file.getFileName().toString();
+        String holder = fileName.substring(0, fileName.length() - this.fileExtension.length());
+        if (node == null) {
+            index.remove(holder);
+        } else {
+            index.update(holder, file, readIndexedPermissions(node));
+        }
+    }
+
+    private List<String> readIndexedPermissions(ConfigurationNode node) {
+        return readNodes(node).stream()
+                .map(n -> n.getPermission().toLowerCase())
+                .collect(Collectors.toList());
+    }
+
+    private FilePermissionIndex createIndex(String name, Path directory) {
+        FilePermissionIndex index = new FilePermissionIndex(super.dataDirectory.resolve(name + "-index.dat"), directory, this.fileExtension, file -> {
+            ConfigurationNode object = readFile(file);
+            return object == null ? null : readIndexedPermissions(object);
+        }, this.plugin.getBootstrap().getScheduler());
+        index.load();
+        return index;
+    }
+
+    /**
+     * Lists the files which may contain permissions matching the constraint,
+     * using the permission index where possible.
+     */
+    private Stream<Path> searchFiles(StorageLocation location, Constraint constraint) throws IOException {
+        Path directory = getDirectory(location);
+        FilePermissionIndex index = getIndex(location);
+        if (index != null) {
+            Set<String> candidates = index.search(constraint);
+            if (candidates != null) {
+                return candidates.stream()
+                        .map(holder -> directory.resolve(holder + this.fileExtension))
+                        .filter(Files::exists);
+            }
+        }
+        return Files.list(directory).filter(getFileTypeFilter());
+    }
+
     private Path getDirectory(StorageLocation location) {
         switch (location) {
             case USER:
@@ -153,6 +231,11 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
         this.groupsDirectory = MoreFiles.createDirectoryIfNotExists(super.dataDirectory.resolve("groups"));
         this.tracksDirectory = MoreFiles.createDirectoryIfNotExists(super.dataDirectory.resolve("tracks"));
 
+        if (this.plugin.getConfiguration().get(ConfigKeys.FILE_PERMISSION_INDEX)) {
+            this.userIndex = createIndex("users", this.usersDirectory);
+            this.groupIndex = createIndex("groups", this.groupsDirectory);
+        }
+
         // Listen for file changes.
         FileWatcher watcher = this.plugin.getFileWatcher().orElse(null);
         if (watcher != null) {
@@ -205,39 +288,90 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
         }
     }
 
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        for (FilePermissionIndex index : new FilePermissionIndex[]{this.userIndex, this.groupIndex}) {
+            if (index != null) {
+                try {
+                    index.save();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws Exception {
         if (bulkUpdate.getDataType().isIncludingUsers()) {
-            try (Stream<Path> s = Files.list(getDirectory(StorageLocation.USER))) {
-                s.filter(getFileTypeFilter()).forEach(file -> {
-                    try {
-                        registerFileAction(StorageLocation.USER, file);
-                        ConfigurationNode object = readFile(file);
-                        ConfigurationNode results = processBulkUpdate(bulkUpdate, object);
-                        if (results != null) {
-                            saveFile(file, object);
-                        }
-                    } catch (Exception e) {
-                        throw reportException(file.getFileName().toString(), e);
-                    }
-                });
-            }
+            applyBulkUpdate(bulkUpdate, StorageLocation.USER, "users");
         }
 
         if (bulkUpdate.getDataType().isIncludingGroups()) {
-            try (Stream<Path> s = Files.list(getDirectory(StorageLocation.GROUP))) {
-                s.filter(getFileTypeFilter()).forEach(file -> {
-                    try {
-                        registerFileAction(StorageLocation.GROUP, file);
-                        ConfigurationNode object = readFile(file);
-                        ConfigurationNode results = processBulkUpdate(bulkUpdate, object);
-                        if (results != null) {
-                            saveFile(file, object);
-                        }
-                    } catch (Exception e) {
-                        throw reportException(file.getFileName().toString(), e);
-                    }
-                });
+            applyBulkUpdate(bulkUpdate, StorageLocation.GROUP, "groups");
+        }
+    }
+
+    private void applyBulkUpdate(BulkUpdate bulkUpdate, StorageLocation location, String type) throws Exception {
+        List<Path> files;
+        try (Stream<Path> s = Files.list(getDirectory(location))) {
+            files = s.filter(getFileTypeFilter()).collect(Collectors.toList());
+        }
+
+        BulkUpdateProgress progress = new BulkUpdateProgress(this.plugin.getLogger(), type);
+
+        // files are split into chunks, which are each read, processed and then written together
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("luckperms-bulkupdate-%d").build());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Path> chunk : Lists.partition(files, BULK_UPDATE_CHUNK_SIZE)) {
+                futures.add(executor.submit(() -> applyBulkUpdate(bulkUpdate, location, chunk, progress)));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : e;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        progress.complete();
+    }
+
+    private void applyBulkUpdate(BulkUpdate bulkUpdate, StorageLocation location, List<Path> chunk, BulkUpdateProgress progress) {
+        Map<Path, ConfigurationNode> modified = new LinkedHashMap<>();
+        for (Path file : chunk) {
+            try {
+                ConfigurationNode object = readFile(file);
+                if (object == null) {
+                    continue;
+                }
+
+                ConfigurationNode results = processBulkUpdate(bulkUpdate, object);
+                if (results != null) {
+                    modified.put(file, results);
+                }
+                progress.processed(results != null);
+            } catch (Exception e) {
+                throw reportException(file.getFileName().toString(), e);
+            }
+        }
+
+        for (Map.Entry<Path, ConfigurationNode> e : modified.entrySet()) {
+            Path file = e.getKey();
+            try {
+                registerFileAction(location, file);
+                saveFile(file, e.getValue());
+                updateIndex(location, file, e.getValue());
+            } catch (Exception ex) {
+                throw reportException(file.getFileName().toString(), ex);
             }
         }
     }
@@ -254,28 +388,53 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
     }
 
     @Override
-    public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws Exception {
-        List<HeldPermission<UUID>> held = new ArrayList<>();
+    public void streamUsers(Consumer<BulkUserData> consumer) throws IOException {
         try (Stream<Path> stream = Files.list(getDirectory(StorageLocation.USER))) {
             stream.filter(getFileTypeFilter())
                     .forEach(file -> {
                         String fileName = file.getFileName().toString();
+                        UUID holder = Uuids.parseNullable(fileName.substring(0, fileName.length() - this.fileExtension.length()));
+                        if (holder == null) {
+                            this.plugin.getLogger().warn("Skipping user file with an invalid name: " + file);
+                            return;
+                        }
+
                         try {
                             registerFileAction(StorageLocation.USER, file);
                             ConfigurationNode object = readFile(file);
-                            UUID holder = UUID.fromString(fileName.substring(0, fileName.length() - this.fileExtension.length()));
-                            Set<NodeDataContainer> nodes = readNodes(object);
-                            for (NodeDataContainer e : nodes) {
-                                if (!constraint.eval(e.getPermission())) {
-                                    continue;
-                                }
-                                held.add(NodeHeldPermission.of(holder, e));
+                            if (object == null) {
+                                return;
                             }
+                            consumer.accept(readUserData(holder, object));
                         } catch (Exception e) {
-                            throw reportException(file.getFileName().toString(), e);
+                            throw reportException(fileName, e);
                         }
                     });
         }
+    }
+
+    @Override
+    public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws Exception {
+        List<HeldPermission<UUID>> held = new ArrayList<>();
+        try (Stream<Path> stream = searchFiles(StorageLocation.USER, constraint)) {
+            stream.forEach(file -> {
+                String fileName = file.getFileName().toString();
+                try {
+                    registerFileAction(StorageLocation.USER, file);
+                    ConfigurationNode object = readFile(file);
+                    UUID holder = UUID.fromString(fileName.substring(0, fileName.length() - this.fileExtension.length()));
+                    Set<NodeDataContainer> nodes = readNodes(object);
+                    for (NodeDataContainer e : nodes) {
+                        if (!constraint.eval(e.getPermission())) {
+                            continue;
+                        }
+                        held.add(NodeHeldPermission.of(holder, e));
+                    }
+                } catch (Exception e) {
+                    throw reportException(file.getFileName().toString(), e);
+                }
+            });
+        }
         return held;
     }
 
@@ -312,25 +471,24 @@ public class SeparatedConfigurateDao extends AbstractConfigurateDao {
     @Override
     public List<HeldPermission<String>> getGroupsWithPermission(Constraint constraint) throws Exception {
         List<HeldPermission<String>> held = new ArrayList<>();
-        try (Stream<Path> stream = Files.list(getDirectory(StorageLocation.GROUP))) {
-            stream.filter(getFileTypeFilter())
-                    .forEach(file -> {
-                        String fileName = file.getFileName().toString();
-                        try {
-                            registerFileAction(StorageLocation.GROUP, file);
-                            ConfigurationNode object = readFile(file);
-                            String holder = fileName.substring(0, fileName.length() - this.fileExtension.length());
-                            Set<NodeDataContainer> nodes = readNodes(object);
-                            for (NodeDataContainer e : nodes) {
-                                if (!constraint.eval(e.getPermission())) {
-                                    continue;
-                                }
-                                held.add(NodeHeldPermission.of(holder, e));
-                            }
-                        } catch (Exception e) {
-                            throw reportException(file.getFileName().toString(), e);
+        try (Stream<Path> stream = searchFiles(StorageLocation.GROUP, constraint)) {
+            stream.forEach(file -> {
+                String fileName = file.getFileName().toString();
+                try {
+                    registerFileAction(StorageLocation.GROUP, file);
+                    ConfigurationNode object = readFile(file);
+                    String holder = fileName.substring(0, fileName.length() - this.fileExtension.length());
+                    Set<NodeDataContainer> nodes = readNodes(object);
+                    for (NodeDataContainer e : nodes) {
+                        if (!constraint.eval(e.getPermission())) {
+                            continue;
                         }
-                    });
+                        held.add(NodeHeldPermission.of(holder, e));
+                    }
+                } catch (Exception e) {
+                    throw reportException(file.getFileName().toString(), e);
+                }
+            });
         }
         return held;
     }
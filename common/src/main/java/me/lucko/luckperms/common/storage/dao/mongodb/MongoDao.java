@@ -34,8 +34,15 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
 
 import me.lucko.luckperms.api.HeldPermission;
 import me.lucko.luckperms.api.LogEntry;
@@ -46,8 +53,13 @@ import me.lucko.luckperms.api.context.ImmutableContextSet;
 import me.lucko.luckperms.api.context.MutableContextSet;
 import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.BulkUpdateProgress;
+import me.lucko.luckperms.common.bulkupdate.action.DeleteAction;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.bulkupdate.comparisons.StandardComparison;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
 import me.lucko.luckperms.common.managers.group.GroupManager;
 import me.lucko.luckperms.common.managers.track.TrackManager;
 import me.lucko.luckperms.common.model.Group;
@@ -60,13 +72,16 @@ import me.lucko.luckperms.common.node.factory.NodeFactory;
 import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.node.model.NodeHeldPermission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.storage.PlayerSaveResultImpl;
 import me.lucko.luckperms.common.storage.StorageCredentials;
 import me.lucko.luckperms.common.storage.dao.AbstractDao;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -75,9 +90,12 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class MongoDao extends AbstractDao {
+    private static final int BULK_UPDATE_BATCH_SIZE = 1000;
 
     private final StorageCredentials configuration;
     private MongoClient mongoClient;
@@ -119,6 +137,12 @@ public class MongoDao extends AbstractDao {
         }
         
         this.database = this.mongoClient.getDatabase(this.configuration.getDatabase());
+
+        // indexes used by action log queries
+        MongoCollection<Document> actions = this.database.getCollection(this.prefix + "action");
+        actions.createIndex(Indexes.descending("timestamp"));
+        actions.createIndex(Indexes.ascending("actor"));
+        actions.createIndex(Indexes.ascending("acted"));
     }
 
     @Override
@@ -175,80 +199,227 @@ public class MongoDao extends AbstractDao {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
         try (MongoCursor<Document> cursor = c.find().iterator()) {
             while (cursor.hasNext()) {
-                Document d = cursor.next();
+                log.add(logEntryFromDoc(cursor.next()));
+            }
+        }
+        return log.build();
+    }
 
-                UUID actedUuid = null;
-                if (d.containsKey("acted")) {
-                    actedUuid = d.get("acted", UUID.class);
-                }
+    @Override
+    public int countLogEntries(LogQuery query) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        return (int) c.count(logQueryToFilter(query));
+    }
 
-                ExtendedLogEntry e = ExtendedLogEntry.build()
-                        .timestamp(d.getLong("timestamp"))
-                        .actor(d.get("actor", UUID.class))
-                        .actorName(d.getString("actorName"))
-                        .type(LogEntry.Type.valueOf(d.getString("type").charAt(0)))
-                        .acted(actedUuid)
-                        .actedName(d.getString("actedName"))
-                        .action(d.getString("action"))
-                        .build();
-
-                log.add(e);
+    @Override
+    public List<ExtendedLogEntry> getLogEntries(LogQuery query, int offset, int limit) {
+        List<ExtendedLogEntry> entries = new ArrayList<>();
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "action");
+        try (MongoCursor<Document> cursor = c.find(logQueryToFilter(query))
+                .sort(Sorts.descending("timestamp", "_id"))
+                .skip(offset)
+                .limit(limit)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                entries.add(logEntryFromDoc(cursor.next()));
             }
         }
-        return log.build();
+        return entries;
+    }
+
+    private static ExtendedLogEntry logEntryFromDoc(Document d) {
+        UUID actedUuid = null;
+        if (d.containsKey("acted")) {
+            actedUuid = d.get("acted", UUID.class);
+        }
+
+        return ExtendedLogEntry.build()
+                .timestamp(d.getLong("timestamp"))
+                .actor(d.get("actor", UUID.class))
+                .actorName(d.getString("actorName"))
+                .type(LogEntry.Type.valueOf(d.getString("type").charAt(0)))
+                .acted(actedUuid)
+                .actedName(d.getString("actedName"))
+                .action(d.getString("action"))
+                .build();
+    }
+
+    private static Bson logQueryToFilter(LogQuery query) {
+        List<Bson> filters = new ArrayList<>();
+        if (query.getActor() != null) {
+            filters.add(Filters.eq("actor", query.getActor()));
+        }
+        if (query.getType() != null) {
+            filters.add(Filters.eq("type", Character.toString(query.getType().getCode())));
+        }
+        if (query.getActed() != null) {
+            filters.add(Filters.eq("acted", query.getActed()));
+        }
+        if (query.getActedName() != null) {
+            filters.add(Filters.eq("actedName", query.getActedName()));
+        }
+        if (query.getAfter() != Long.MIN_VALUE) {
+            filters.add(Filters.gte("timestamp", query.getAfter()));
+        }
+        if (query.getBefore() != Long.MAX_VALUE) {
+            filters.add(Filters.lte("timestamp", query.getBefore()));
+        }
+        if (query.getSearch() != null) {
+            Pattern pattern = Pattern.compile(Pattern.quote(query.getSearch()), Pattern.CASE_INSENSITIVE);
+            filters.add(Filters.or(
+                    Filters.regex("actorName", pattern),
+                    Filters.regex("actedName", pattern),
+                    Filters.regex("action", pattern)
+            ));
+        }
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
     }
 
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) {
         if (bulkUpdate.getDataType().isIncludingUsers()) {
-            MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
-            try (MongoCursor<Document> cursor = c.find().iterator()) {
-                while (cursor.hasNext()) {
-                    Document d = cursor.next();
+            applyBulkUpdate(bulkUpdate, this.database.getCollection(this.prefix + "users"), "users");
+        }
 
-                    UUID uuid = d.get("_id", UUID.class);
-                    Set<NodeDataContainer> nodes = new HashSet<>(nodesFromDoc(d));
-                    Set<NodeDataContainer> results = nodes.stream()
-                            .map(bulkUpdate::apply)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toSet());
+        if (bulkUpdate.getDataType().isIncludingGroups()) {
+            applyBulkUpdate(bulkUpdate, this.database.getCollection(this.prefix + "groups"), "groups");
+        }
+    }
 
-                    if (!nodes.equals(results)) {
-                        List<Document> newNodes = results.stream()
-                                .map(MongoDao::nodeToDoc)
-                                .collect(Collectors.toList());
+    private void applyBulkUpdate(BulkUpdate bulkUpdate, MongoCollection<Document> c, String type) {
+        // a filter matching the same nodes as the bulk update, or null if it can't be expressed as one
+        Bson nodeFilter = bulkUpdateNodeFilter(bulkUpdate);
 
-                        d.append("permissions", newNodes).remove("perms");
-                        c.replaceOne(new Document("_id", uuid), d);
-                    }
-                }
-            }
+        // documents in the legacy format always have to be processed locally
+        Bson legacy = Filters.exists("perms");
+        Bson filter;
+        if (nodeFilter == null || bulkUpdate.getQueries().isEmpty()) {
+            filter = new Document();
+        } else {
+            filter = Filters.or(legacy, Filters.elemMatch("permissions", nodeFilter));
         }
 
-        if (bulkUpdate.getDataType().isIncludingGroups()) {
-            MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
-            try (MongoCursor<Document> cursor = c.find().iterator()) {
-                while (cursor.hasNext()) {
-                    Document d = cursor.next();
+        // deletions can be applied entirely server-side
+        if (nodeFilter != null && bulkUpdate.getAction() instanceof DeleteAction) {
+            Bson update;
+            Bson matching;
+            if (bulkUpdate.getQueries().isEmpty()) {
+                update = Updates.set("permissions", Collections.emptyList());
+                matching = Filters.exists("perms", false);
+            } else {
+                update = Updates.pullByFilter(new Document("permissions", nodeFilter));
+                matching = Filters.and(Filters.exists("perms", false), Filters.elemMatch("permissions", nodeFilter));
+            }
 
-                    String holder = d.getString("_id");
-                    Set<NodeDataContainer> nodes = new HashSet<>(nodesFromDoc(d));
-                    Set<NodeDataContainer> results = nodes.stream()
-                            .map(bulkUpdate::apply)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toSet());
+            UpdateResult result = c.updateMany(matching, update);
+            this.plugin.getLogger().info("[Bulk Update] Modified " + result.getModifiedCount() + " " + type + " in the database.");
+            filter = legacy;
+        }
 
-                    if (!nodes.equals(results)) {
-                        List<Document> newNodes = results.stream()
-                                .map(MongoDao::nodeToDoc)
-                                .collect(Collectors.toList());
+        BulkUpdateProgress progress = new BulkUpdateProgress(this.plugin.getLogger(), type);
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        try (MongoCursor<Document> cursor = c.find(filter).batchSize(BULK_UPDATE_BATCH_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
 
-                        d.append("permissions", newNodes).remove("perms");
-                        c.replaceOne(new Document("_id", holder), d);
+                Set<NodeDataContainer> nodes = new HashSet<>(nodesFromDoc(d));
+                Set<NodeDataContainer> results = nodes.stream()
+                        .map(bulkUpdate::apply)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+
+                boolean modified = !nodes.equals(results);
+                if (modified) {
+                    List<Document> newNodes = results.stream()
+                            .map(MongoDao::nodeToDoc)
+                            .collect(Collectors.toList());
+
+                    writes.add(new UpdateOneModel<>(
+                            new Document("_id", d.get("_id")),
+                            Updates.combine(Updates.set("permissions", newNodes), Updates.unset("perms"))
+                    ));
+
+                    if (writes.size() >= BULK_UPDATE_BATCH_SIZE) {
+                        c.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                        writes.clear();
                     }
                 }
+                progress.processed(modified);
             }
         }
+
+        if (!writes.isEmpty()) {
+            c.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        }
+        progress.complete();
+    }
+
+    /**
+     * Compiles the constraints of a bulk update into a filter which matches the
+     * same node documents.
+     *
+     * @param bulkUpdate the bulk update
+     * @return the filter, or null if the constraints can't be expressed as one
+     */
+    private static Bson bulkUpdateNodeFilter(BulkUpdate bulkUpdate) {
+        List<Bson> filters = new ArrayList<>();
+        for (Query query : bulkUpdate.getQueries()) {
+            Bson filter = queryToFilter(query);
+            if (filter == null) {
+                return null;
+            }
+            filters.add(filter);
+        }
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
+    }
+
+    private static Bson queryToFilter(Query query) {
+        Constraint constraint = query.getConstraint();
+        if (!(constraint.getComparison() instanceof StandardComparison)) {
+            return null;
+        }
+
+        String field;
+        switch (query.getField()) {
+            case PERMISSION:
+                field = "permission";
+                break;
+            case SERVER:
+                field = "server";
+                break;
+            case WORLD:
+                field = "world";
+                break;
+            default:
+                return null;
+        }
+
+        // mirror the matching done by StandardComparison
+        String expression = constraint.getExpression().toLowerCase();
+        Pattern pattern;
+        boolean negated;
+        switch ((StandardComparison) constraint.getComparison()) {
+            case EQUAL:
+            case NOT_EQUAL:
+                pattern = Pattern.compile("^" + Pattern.quote(expression) + "$", Pattern.CASE_INSENSITIVE);
+                negated = constraint.getComparison() == StandardComparison.NOT_EQUAL;
+                break;
+            case SIMILAR:
+            case NOT_SIMILAR:
+                pattern = Pattern.compile("^(?:" + StandardComparison.likeToRegex(expression) + ")$", Pattern.CASE_INSENSITIVE);
+                negated = constraint.getComparison() == StandardComparison.NOT_SIMILAR;
+                break;
+            default:
+                return null;
+        }
+
+        Bson filter = negated ? Filters.and(Filters.exists(field), Filters.not(Filters.regex(field, pattern))) : Filters.regex(field, pattern);
+
+        // server and world are omitted from the document when they're global
+        if (!field.equals("permission") && constraint.eval("global")) {
+            filter = Filters.or(Filters.exists(field, false), filter);
+        }
+        return filter;
     }
 
     @Override
@@ -320,6 +491,19 @@ public class MongoDao extends AbstractDao {
         return uuids;
     }
 
+    @Override
+    public void streamUsers(Consumer<BulkUserData> consumer) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        try (MongoCursor<Document> cursor = c.find().batchSize(1000).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
+                UUID uuid = d.get("_id", UUID.class);
+                String primaryGroup = Strings.isNullOrEmpty(d.getString("primaryGroup")) ? NodeFactory.DEFAULT_GROUP_NAME : d.getString("primaryGroup");
+                consumer.accept(new BulkUserData(uuid, d.getString("name"), primaryGroup, new HashSet<>(nodesFromDoc(d))));
+            }
+        }
+    }
+
     @Override
     public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) {
         List<HeldPermission<UUID>> held = new ArrayList<>();
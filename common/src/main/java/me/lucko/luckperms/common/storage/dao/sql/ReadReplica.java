@@ -0,0 +1,191 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.sql;
+
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.storage.dao.sql.connection.AbstractConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A read-only replica of the main database, used for reads which can tolerate
+ * a short delay.
+ *
+ * <p>Replication lag is measured by periodically writing a heartbeat row to the
+ * main database, and checking how old the copy of it on the replica is. The
+ * replica is only considered available whilst the lag is within the configured
+ * limit, and while the measurements are up to date.</p>
+ */
+public class ReadReplica {
+    private static final String HEARTBEAT_CREATE = "CREATE TABLE IF NOT EXISTS '{prefix}replica_heartbeat' ('id' BIGINT NOT NULL, 'time' BIGINT NOT NULL, PRIMARY KEY ('id'))";
+    private static final String HEARTBEAT_INSERT = "INSERT INTO '{prefix}replica_heartbeat' ('id', 'time') VALUES(?, ?)";
+    private static final String HEARTBEAT_UPDATE = "UPDATE '{prefix}replica_heartbeat' SET 'time'=? WHERE 'id'=?";
+    private static final String HEARTBEAT_SELECT = "SELECT 'time' FROM '{prefix}replica_heartbeat' WHERE 'id'=?";
+    private static final String HEARTBEAT_DELETE = "DELETE FROM '{prefix}replica_heartbeat' WHERE 'id'=?";
+    private static final String HEARTBEAT_EXPIRE = "DELETE FROM '{prefix}replica_heartbeat' WHERE 'time'<?";
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 1000;
+
+    /** Heartbeat rows which haven't been updated for this long were left by instances which didn't shut down cleanly */
+    private static final long HEARTBEAT_EXPIRY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final LuckPermsPlugin plugin;
+    private final AbstractConnectionFactory primary;
+    private final AbstractConnectionFactory replica;
+    private final Function<String, String> statementProcessor;
+    private final long maxLagMillis;
+
+    /**
+     * The id of the heartbeat row written by this instance
+     */
+    private final long heartbeatId = ThreadLocalRandom.current().nextLong();
+
+    private SchedulerTask heartbeatTask = null;
+
+    /**
+     * The last measured lag, and when it was measured
+     */
+    private volatile long lag = Long.MAX_VALUE;
+    private volatile long lastMeasured = 0;
+
+    public ReadReplica(LuckPermsPlugin plugin, AbstractConnectionFactory primary, AbstractConnectionFactory replica, Function<String, String> statementProcessor, long maxLagMillis) {
+        this.plugin = plugin;
+        this.primary = primary;
+        this.replica = replica;
+        this.statementProcessor = statementProcessor;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public void init() throws SQLException {
+        this.replica.init();
+
+        try (Connection c = this.primary.getConnection()) {
+            try (Statement s = c.createStatement()) {
+                s.execute(this.statementProcessor.apply(HEARTBEAT_CREATE));
+            }
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(HEARTBEAT_EXPIRE))) {
+                ps.setLong(1, System.currentTimeMillis() - HEARTBEAT_EXPIRY_MILLIS);
+                ps.execute();
+            }
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(HEARTBEAT_INSERT))) {
+                ps.setLong(1, this.heartbeatId);
+                ps.setLong(2, System.currentTimeMillis());
+                ps.execute();
+            }
+        }
+
+        this.heartbeatTask = this.plugin.getBootstrap().getScheduler().asyncRepeating(this::heartbeat, HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        if (this.heartbeatTask != null) {
+            this.heartbeatTask.cancel();
+        }
+
+        try (Connection c = this.primary.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(HEARTBEAT_DELETE))) {
+                ps.setLong(1, this.heartbeatId);
+                ps.execute();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            this.replica.shutdown();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void heartbeat() {
+        long written = System.currentTimeMillis();
+        try (Connection c = this.primary.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(HEARTBEAT_UPDATE))) {
+                ps.setLong(1, written);
+                ps.setLong(2, this.heartbeatId);
+                ps.execute();
+            }
+        } catch (SQLException e) {
+            // the main database being unavailable will be reported elsewhere, but
+            // without a new heartbeat the lag can't be measured
+            this.lag = Long.MAX_VALUE;
+            return;
+        }
+
+        // if the replica has already applied the value written above, the lag is at most
+        // the time since it was written. otherwise, it is at least as old as the value it has.
+        try (Connection c = this.replica.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(HEARTBEAT_SELECT))) {
+                ps.setLong(1, this.heartbeatId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    long now = System.currentTimeMillis();
+                    if (!rs.next()) {
+                        this.lag = Long.MAX_VALUE;
+                    } else {
+                        long replicated = rs.getLong(1);
+                        this.lag = Math.max(0, now - Math.min(replicated, written));
+                    }
+                    this.lastMeasured = now;
+                }
+            }
+        } catch (SQLException e) {
+            this.lag = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Gets if the replica is currently within the lag limit.
+     *
+     * @return true if the replica can be used
+     */
+    public boolean isAvailable() {
+        // if the heartbeat has stalled, we can't trust the last measurement
+        boolean current = System.currentTimeMillis() - this.lastMeasured <= HEARTBEAT_INTERVAL_MILLIS * 5;
+        return current && this.lag <= this.maxLagMillis;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return this.replica.getConnection();
+    }
+
+    public Map<String, String> getMeta() {
+        Map<String, String> ret = new LinkedHashMap<>();
+        long lag = this.lag;
+        ret.put("Replica Lag", lag == Long.MAX_VALUE ? "&cunknown" : (isAvailable() ? "&a" : "&c") + lag + "ms");
+        return ret;
+    }
+}
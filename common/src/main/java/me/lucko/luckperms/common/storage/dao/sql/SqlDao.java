@@ -35,10 +35,10 @@ import me.lucko.luckperms.api.Node;
 import me.lucko.luckperms.api.PlayerSaveResult;
 import me.lucko.luckperms.common.actionlog.ExtendedLogEntry;
 import me.lucko.luckperms.common.actionlog.Log;
+import me.lucko.luckperms.common.actionlog.LogQuery;
 import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
 import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
 import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
-import me.lucko.luckperms.common.contexts.ContextSetJsonSerializer;
 import me.lucko.luckperms.common.managers.group.GroupManager;
 import me.lucko.luckperms.common.managers.track.TrackManager;
 import me.lucko.luckperms.common.model.Group;
@@ -50,11 +50,18 @@ import me.lucko.luckperms.common.node.factory.NodeFactory;
 import me.lucko.luckperms.common.node.model.NodeDataContainer;
 import me.lucko.luckperms.common.node.model.NodeHeldPermission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.BulkUserData;
 import me.lucko.luckperms.common.storage.PlayerSaveResultImpl;
 import me.lucko.luckperms.common.storage.dao.AbstractDao;
 import me.lucko.luckperms.common.storage.dao.sql.connection.AbstractConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.file.SQLiteConnectionFactory;
 import me.lucko.luckperms.common.storage.dao.sql.connection.hikari.PostgreConnectionFactory;
+import me.lucko.luckperms.common.storage.dao.sql.table.CompactNodeTable;
+import me.lucko.luckperms.common.storage.dao.sql.table.ContextTable;
+import me.lucko.luckperms.common.storage.dao.sql.table.LegacyNodeTable;
+import me.lucko.luckperms.common.storage.dao.sql.table.NodeTable;
+import me.lucko.luckperms.common.storage.dao.sql.table.NodeTableMigrator;
+import me.lucko.luckperms.common.utils.Uuids;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
@@ -62,30 +69,29 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class SqlDao extends AbstractDao {
     private static final Type LIST_STRING_TYPE = new TypeToken<List<String>>(){}.getType();
 
-    private static final String USER_PERMISSIONS_SELECT = "SELECT permission, value, server, world, expiry, contexts FROM {prefix}user_permissions WHERE uuid=?";
-    private static final String USER_PERMISSIONS_DELETE_SPECIFIC = "DELETE FROM {prefix}user_permissions WHERE uuid=? AND permission=? AND value=? AND server=? AND world=? AND expiry=? AND contexts=?";
-    private static final String USER_PERMISSIONS_DELETE = "DELETE FROM {prefix}user_permissions WHERE uuid=?";
-    private static final String USER_PERMISSIONS_INSERT = "INSERT INTO {prefix}user_permissions(uuid, permission, value, server, world, expiry, contexts) VALUES(?, ?, ?, ?, ?, ?, ?)";
-    private static final String USER_PERMISSIONS_SELECT_DISTINCT = "SELECT DISTINCT uuid FROM {prefix}user_permissions";
-    private static final String USER_PERMISSIONS_SELECT_PERMISSION = "SELECT uuid, permission, value, server, world, expiry, contexts FROM {prefix}user_permissions WHERE ";
-
     private static final String PLAYER_SELECT_UUID_BY_USERNAME = "SELECT uuid FROM {prefix}players WHERE username=? LIMIT 1";
     private static final String PLAYER_SELECT_USERNAME_BY_UUID = "SELECT username FROM {prefix}players WHERE uuid=? LIMIT 1";
     private static final String PLAYER_UPDATE_USERNAME_FOR_UUID = "UPDATE {prefix}players SET username=? WHERE uuid=?";
@@ -93,15 +99,10 @@ public class SqlDao extends AbstractDao {
     private static final String PLAYER_SELECT_ALL_UUIDS_BY_USERNAME = "SELECT uuid FROM {prefix}players WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_DELETE_ALL_UUIDS_BY_USERNAME = "DELETE FROM {prefix}players WHERE username=? AND NOT uuid=?";
     private static final String PLAYER_SELECT_BY_UUID = "SELECT username, primary_group FROM {prefix}players WHERE uuid=?";
+    private static final String PLAYER_SELECT_BY_UUIDS = "SELECT uuid, username, primary_group FROM {prefix}players WHERE uuid IN ";
     private static final String PLAYER_SELECT_PRIMARY_GROUP_BY_UUID = "SELECT primary_group FROM {prefix}players WHERE uuid=? LIMIT 1";
     private static final String PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID = "UPDATE {prefix}players SET primary_group=? WHERE uuid=?";
 
-    private static final String GROUP_PERMISSIONS_SELECT = "SELECT permission, value, server, world, expiry, contexts FROM {prefix}group_permissions WHERE name=?";
-    private static final String GROUP_PERMISSIONS_DELETE = "DELETE FROM {prefix}group_permissions WHERE name=?";
-    private static final String GROUP_PERMISSIONS_DELETE_SPECIFIC = "DELETE FROM {prefix}group_permissions WHERE name=? AND permission=? AND value=? AND server=? AND world=? AND expiry=? AND contexts=?";
-    private static final String GROUP_PERMISSIONS_INSERT = "INSERT INTO {prefix}group_permissions(name, permission, value, server, world, expiry, contexts) VALUES(?, ?, ?, ?, ?, ?, ?)";
-    private static final String GROUP_PERMISSIONS_SELECT_PERMISSION = "SELECT name, permission, value, server, world, expiry, contexts FROM {prefix}group_permissions WHERE ";
-
     private static final String GROUP_SELECT_ALL = "SELECT name FROM {prefix}groups";
     private static final String MYSQL_GROUP_INSERT = "INSERT INTO {prefix}groups (name) VALUES(?) ON DUPLICATE KEY UPDATE name=name";
     private static final String H2_GROUP_INSERT = "MERGE INTO {prefix}groups (name) VALUES(?)";
@@ -117,16 +118,45 @@ public class SqlDao extends AbstractDao {
 
     private static final String ACTION_INSERT = "INSERT INTO {prefix}actions(time, actor_uuid, actor_name, type, acted_uuid, acted_name, action) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String ACTION_SELECT_ALL = "SELECT * FROM {prefix}actions";
+    private static final String ACTION_COUNT = "SELECT COUNT(*) FROM {prefix}actions";
+    private static final String[] ACTION_INDEXED_COLUMNS = {"time", "actor_uuid", "acted_uuid"};
+
+    private static final int STREAM_USERS_BATCH_SIZE = 500;
 
     private final Gson gson;
     private final AbstractConnectionFactory provider;
     private final Function<String, String> statementProcessor;
+    private final boolean compactSchema;
+
+    private final LegacyNodeTable legacyUserNodes;
+    private final LegacyNodeTable legacyGroupNodes;
+    private final CompactNodeTable compactUserNodes;
+    private final CompactNodeTable compactGroupNodes;
 
-    public SqlDao(LuckPermsPlugin plugin, AbstractConnectionFactory provider, String tablePrefix) {
+    // the tables currently in use, and the migrations moving data into them
+    private final NodeTable userNodes;
+    private final NodeTable groupNodes;
+    private NodeTableMigrator userMigrator = NodeTableMigrator.none();
+    private NodeTableMigrator groupMigrator = NodeTableMigrator.none();
+
+    // an optional replica, used for reads which can tolerate some lag
+    private final ReadReplica readReplica;
+
+    public SqlDao(LuckPermsPlugin plugin, AbstractConnectionFactory provider, String tablePrefix, boolean compactSchema, AbstractConnectionFactory replicaProvider, long maxReplicaLagMillis) {
         super(plugin, provider.getName());
         this.provider = provider;
         this.statementProcessor = provider.getStatementProcessor().compose(s -> s.replace("{prefix}", tablePrefix));
         this.gson = new Gson();
+        this.compactSchema = compactSchema;
+
+        ContextTable contexts = new ContextTable(provider.getName(), this.statementProcessor, this.gson);
+        this.legacyUserNodes = LegacyNodeTable.users(this.statementProcessor, this.gson);
+        this.legacyGroupNodes = LegacyNodeTable.groups(this.statementProcessor, this.gson);
+        this.compactUserNodes = CompactNodeTable.users(contexts, this.statementProcessor, this.gson);
+        this.compactGroupNodes = CompactNodeTable.groups(contexts, this.statementProcessor, this.gson);
+        this.userNodes = compactSchema ? this.compactUserNodes : this.legacyUserNodes;
+        this.groupNodes = compactSchema ? this.compactGroupNodes : this.legacyGroupNodes;
+        this.readReplica = replicaProvider == null ? null : new ReadReplica(plugin, provider, replicaProvider, this.statementProcessor, maxReplicaLagMillis);
     }
 
     public Gson getGson() {
@@ -141,6 +171,27 @@ public class SqlDao extends AbstractDao {
         return this.statementProcessor;
     }
 
+    /**
+     * Gets a connection to use for a read which can tolerate replication lag.
+     *
+     * <p>Returns a connection to the read replica if one is configured and is
+     * up to date, otherwise a connection to the main database.</p>
+     *
+     * @return a connection
+     * @throws SQLException if a connection couldn't be obtained
+     */
+    private Connection getReadConnection() throws SQLException {
+        // data may still be moving between tables, which the replica won't reflect straight away
+        if (this.readReplica != null && this.readReplica.isAvailable() && this.userMigrator.isComplete() && this.groupMigrator.isComplete()) {
+            try {
+                return this.readReplica.getConnection();
+            } catch (SQLException e) {
+                // fall back to the main database
+            }
+        }
+        return this.provider.getConnection();
+    }
+
     private boolean tableExists(String table) throws SQLException {
         try (Connection connection = this.provider.getConnection()) {
             try (ResultSet rs = connection.getMetaData().getTables(null, null, "%", null)) {
@@ -154,45 +205,72 @@ public class SqlDao extends AbstractDao {
         }
     }
 
-    @Override
-    public void init() throws Exception {
-        this.provider.init();
+    private Set<String> getIndexedColumns(String table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (Connection connection = this.provider.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet tables = metaData.getTables(null, null, "%", null)) {
+                while (tables.next()) {
+                    if (!tables.getString(3).equalsIgnoreCase(table)) {
+                        continue;
+                    }
 
-        // Init tables
-        if (!tableExists(this.statementProcessor.apply("{prefix}user_permissions"))) {
-            String schemaFileName = "me/lucko/luckperms/schema/" + this.provider.getName().toLowerCase() + ".sql";
-            try (InputStream is = this.plugin.getBootstrap().getResourceStream(schemaFileName)) {
-                if (is == null) {
-                    throw new Exception("Couldn't locate schema file for " + this.provider.getName());
+                    try (ResultSet rs = metaData.getIndexInfo(tables.getString(1), tables.getString(2), tables.getString(3), false, true)) {
+                        while (rs.next()) {
+                            String column = rs.getString("COLUMN_NAME");
+                            if (column != null) {
+                                columns.add(column.toLowerCase());
+                            }
+                        }
+                    }
                 }
+            }
+        }
+        return columns;
+    }
 
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                    try (Connection connection = this.provider.getConnection()) {
-                        try (Statement s = connection.createStatement()) {
-                            StringBuilder sb = new StringBuilder();
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                if (line.startsWith("--") || line.startsWith("#")) continue;
+    private void executeSchema(String schemaFileName) throws Exception {
+        try (InputStream is = this.plugin.getBootstrap().getResourceStream(schemaFileName)) {
+            if (is == null) {
+                throw new Exception("Couldn't locate schema file for " + this.provider.getName());
+            }
 
-                                sb.append(line);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                try (Connection connection = this.provider.getConnection()) {
+                    try (Statement s = connection.createStatement()) {
+                        StringBuilder sb = new StringBuilder();
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (line.startsWith("--") || line.startsWith("#")) continue;
 
-                                // check for end of declaration
-                                if (line.endsWith(";")) {
-                                    sb.deleteCharAt(sb.length() - 1);
+                            sb.append(line);
 
-                                    String result = this.statementProcessor.apply(sb.toString().trim());
-                                    if (!result.isEmpty()) s.addBatch(result);
+                            // check for end of declaration
+                            if (line.endsWith(";")) {
+                                sb.deleteCharAt(sb.length() - 1);
 
-                                    // reset
-                                    sb = new StringBuilder();
-                                }
+                                String result = this.statementProcessor.apply(sb.toString().trim());
+                                if (!result.isEmpty()) s.addBatch(result);
+
+                                // reset
+                                sb = new StringBuilder();
                             }
-                            s.executeBatch();
                         }
+                        s.executeBatch();
                     }
                 }
             }
         }
+    }
+
+    @Override
+    public void init() throws Exception {
+        this.provider.init();
+
+        // Init tables
+        if (!tableExists(this.statementProcessor.apply("{prefix}user_permissions"))) {
+            executeSchema("me/lucko/luckperms/schema/" + this.provider.getName().toLowerCase() + ".sql");
+        }
 
         // migrations
         try {
@@ -207,10 +285,69 @@ public class SqlDao extends AbstractDao {
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        // indexes used by action log queries, which older schemas didn't create
+        try {
+            Set<String> indexed = getIndexedColumns(this.statementProcessor.apply("{prefix}actions"));
+            try (Connection connection = this.provider.getConnection()) {
+                try (Statement s = connection.createStatement()) {
+                    for (String column : ACTION_INDEXED_COLUMNS) {
+                        if (!indexed.contains(column)) {
+                            s.execute(this.statementProcessor.apply("CREATE INDEX '{prefix}actions_" + column + "' ON '{prefix}actions' ('" + column + "')"));
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        // move permission data into the schema in use, if it's held in the other one
+        boolean compactTablesExist = tableExists(this.statementProcessor.apply("{prefix}user_permissions_v2"));
+        if (this.compactSchema) {
+            if (!compactTablesExist) {
+                executeSchema("me/lucko/luckperms/schema/compact/" + this.provider.getName().toLowerCase() + ".sql");
+            }
+            this.userMigrator = new NodeTableMigrator(this.plugin.getLogger(), this.provider, "user", this.legacyUserNodes, this.compactUserNodes);
+            this.groupMigrator = new NodeTableMigrator(this.plugin.getLogger(), this.provider, "group", this.legacyGroupNodes, this.compactGroupNodes);
+        } else if (compactTablesExist) {
+            this.userMigrator = new NodeTableMigrator(this.plugin.getLogger(), this.provider, "user", this.compactUserNodes, this.legacyUserNodes);
+            this.groupMigrator = new NodeTableMigrator(this.plugin.getLogger(), this.provider, "group", this.compactGroupNodes, this.legacyGroupNodes);
+        }
+
+        // groups are few and are all loaded on startup, so move them straight away
+        if (this.groupMigrator.init()) {
+            this.groupMigrator.migrateAll();
+        }
+        if (this.userMigrator.init()) {
+            this.plugin.getLogger().info("[SQL] Migrating user data to the " + (this.compactSchema ? "compact" : "standard") + " schema in the background...");
+            this.plugin.getBootstrap().getScheduler().executeAsync(() -> {
+                try {
+                    this.userMigrator.migrateAll();
+                } catch (SQLException e) {
+                    this.plugin.getLogger().severe("[SQL] Unable to migrate user data, the migration will be resumed on the next restart.");
+                    e.printStackTrace();
+                }
+            });
+        }
+
+        if (this.readReplica != null) {
+            try {
+                this.readReplica.init();
+            } catch (Exception e) {
+                // the replica will be treated as unavailable
+                this.plugin.getLogger().severe("[SQL] Unable to connect to the read replica, all reads will use the main database.");
+                e.printStackTrace();
+            }
+        }
     }
 
     @Override
     public void shutdown() {
+        if (this.readReplica != null) {
+            this.readReplica.shutdown();
+        }
+
         try {
             this.provider.shutdown();
         } catch (Exception e) {
@@ -220,7 +357,13 @@ public class SqlDao extends AbstractDao {
 
     @Override
     public Map<String, String> getMeta() {
-        return this.provider.getMeta();
+        if (this.readReplica == null) {
+            return this.provider.getMeta();
+        }
+
+        Map<String, String> meta = new LinkedHashMap<>(this.provider.getMeta());
+        meta.putAll(this.readReplica.getMeta());
+        return meta;
     }
 
     @Override
@@ -242,22 +385,11 @@ public class SqlDao extends AbstractDao {
     @Override
     public Log getLog() throws SQLException {
         final Log.Builder log = Log.builder();
-        try (Connection c = this.provider.getConnection()) {
+        try (Connection c = getReadConnection()) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(ACTION_SELECT_ALL))) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        final String actedUuid = rs.getString("acted_uuid");
-                        ExtendedLogEntry e = ExtendedLogEntry.build()
-                                .timestamp(rs.getLong("time"))
-                                .actor(UUID.fromString(rs.getString("actor_uuid")))
-                                .actorName(rs.getString("actor_name"))
-                                .type(LogEntry.Type.valueOf(rs.getString("type").toCharArray()[0]))
-                                .acted(actedUuid.equals("null") ? null : UUID.fromString(actedUuid))
-                                .actedName(rs.getString("acted_name"))
-                                .action(rs.getString("action"))
-                                .build();
-                        
-                        log.add(e);
+                        log.add(readLogEntry(rs));
                     }
                 }
             }
@@ -265,27 +397,83 @@ public class SqlDao extends AbstractDao {
         return log.build();
     }
 
+    @Override
+    public int countLogEntries(LogQuery query) throws Exception {
+        if (!query.isSqlCompatible()) {
+            return super.countLogEntries(query);
+        }
+
+        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(ACTION_COUNT);
+        query.appendSql(builder);
+
+        try (Connection c = getReadConnection()) {
+            try (PreparedStatement ps = builder.build(c, this.statementProcessor)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<ExtendedLogEntry> getLogEntries(LogQuery query, int offset, int limit) throws Exception {
+        if (!query.isSqlCompatible()) {
+            return super.getLogEntries(query, offset, limit);
+        }
+
+        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(ACTION_SELECT_ALL);
+        query.appendSql(builder);
+        builder.append(" ORDER BY time DESC, id DESC LIMIT " + limit + " OFFSET " + offset);
+
+        List<ExtendedLogEntry> entries = new ArrayList<>();
+        try (Connection c = getReadConnection()) {
+            try (PreparedStatement ps = builder.build(c, this.statementProcessor)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        entries.add(readLogEntry(rs));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static ExtendedLogEntry readLogEntry(ResultSet rs) throws SQLException {
+        final String actedUuid = rs.getString("acted_uuid");
+        return ExtendedLogEntry.build()
+                .timestamp(rs.getLong("time"))
+                .actor(UUID.fromString(rs.getString("actor_uuid")))
+                .actorName(rs.getString("actor_name"))
+                .type(LogEntry.Type.valueOf(rs.getString("type").toCharArray()[0]))
+                .acted(actedUuid.equals("null") ? null : UUID.fromString(actedUuid))
+                .actedName(rs.getString("acted_name"))
+                .action(rs.getString("action"))
+                .build();
+    }
+
     @Override
     public void applyBulkUpdate(BulkUpdate bulkUpdate) throws SQLException {
         try (Connection c = this.provider.getConnection()) {
             if (bulkUpdate.getDataType().isIncludingUsers()) {
-                String table = this.statementProcessor.apply("{prefix}user_permissions");
-                try (PreparedStatement ps = bulkUpdate.buildAsSql().build(c, q -> q.replace("{table}", table))) {
-                    ps.execute();
-                }
+                this.userMigrator.migrateAll();
+                this.userNodes.applyBulkUpdate(c, bulkUpdate);
             }
 
             if (bulkUpdate.getDataType().isIncludingGroups()) {
-                String table = this.statementProcessor.apply("{prefix}group_permissions");
-                try (PreparedStatement ps = bulkUpdate.buildAsSql().build(c, q -> q.replace("{table}", table))) {
-                    ps.execute();
-                }
+                this.groupMigrator.migrateAll();
+                this.groupNodes.applyBulkUpdate(c, bulkUpdate);
             }
         }
     }
 
     @Override
     public User loadUser(UUID uuid, String username) throws SQLException {
+        // initial loads can tolerate some lag, reloads are usually in response to a change
+        boolean initialLoad = this.plugin.getUserManager().getIfLoaded(uuid) == null;
+        return loadUser(uuid, username, initialLoad);
+    }
+
+    private User loadUser(UUID uuid, String username, boolean allowReplica) throws SQLException {
         User user = this.plugin.getUserManager().getOrMake(UserIdentifier.of(uuid, username));
         user.getIoLock().lock();
         try {
@@ -294,26 +482,13 @@ public class SqlDao extends AbstractDao {
             String userName = null;
 
             // Collect user permissions
-            try (Connection c = this.provider.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_SELECT))) {
-                    ps.setString(1, user.getUuid().toString());
-
-                    try (ResultSet rs = ps.executeQuery()) {
-                        while (rs.next()) {
-                            String permission = rs.getString("permission");
-                            boolean value = rs.getBoolean("value");
-                            String server = rs.getString("server");
-                            String world = rs.getString("world");
-                            long expiry = rs.getLong("expiry");
-                            String contexts = rs.getString("contexts");
-                            data.add(deserializeNode(permission, value, server, world, expiry, contexts));
-                        }
-                    }
-                }
+            this.userMigrator.migrate(user.getUuid().toString());
+            try (Connection c = allowReplica ? getReadConnection() : this.provider.getConnection()) {
+                data.addAll(this.userNodes.select(c, user.getUuid().toString()));
             }
 
             // Collect user meta (username & primary group)
-            try (Connection c = this.provider.getConnection()) {
+            try (Connection c = allowReplica ? getReadConnection() : this.provider.getConnection()) {
                 try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_BY_UUID))) {
                     ps.setString(1, user.getUuid().toString());
 
@@ -342,6 +517,11 @@ public class SqlDao extends AbstractDao {
 
                 // Save back to the store if data they were given any defaults or had permissions expire
                 if (this.plugin.getUserManager().giveDefaultIfNeeded(user, false) | user.auditTemporaryPermissions()) {
+                    if (allowReplica) {
+                        // don't save data read from the replica - it could be behind
+                        return loadUser(uuid, username, false);
+                    }
+
                     // This should be fine, as the lock will be acquired by the same thread.
                     saveUser(user);
                 }
@@ -368,10 +548,8 @@ public class SqlDao extends AbstractDao {
             // Empty data - just delete from the DB.
             if (!this.plugin.getUserManager().shouldSave(user)) {
                 try (Connection c = this.provider.getConnection()) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_DELETE))) {
-                        ps.setString(1, user.getUuid().toString());
-                        ps.execute();
-                    }
+                    this.userMigrator.discard(c, Collections.singleton(user.getUuid().toString()));
+                    this.userNodes.delete(c, user.getUuid().toString());
                     try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID))) {
                         ps.setString(1, NodeFactory.DEFAULT_GROUP_NAME);
                         ps.setString(2, user.getUuid().toString());
@@ -382,23 +560,10 @@ public class SqlDao extends AbstractDao {
             }
 
             // Get a snapshot of current data.
-            Set<NodeDataContainer> remote = new HashSet<>();
+            this.userMigrator.migrate(user.getUuid().toString());
+            Set<NodeDataContainer> remote;
             try (Connection c = this.provider.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_SELECT))) {
-                    ps.setString(1, user.getUuid().toString());
-
-                    try (ResultSet rs = ps.executeQuery()) {
-                        while (rs.next()) {
-                            String permission = rs.getString("permission");
-                            boolean value = rs.getBoolean("value");
-                            String server = rs.getString("server");
-                            String world = rs.getString("world");
-                            long expiry = rs.getLong("expiry");
-                            String contexts = rs.getString("contexts");
-                            remote.add(deserializeNode(permission, value, server, world, expiry, contexts));
-                        }
-                    }
-                }
+                remote = new HashSet<>(this.userNodes.select(c, user.getUuid().toString()));
             }
 
             Set<NodeDataContainer> local = user.enduringData().immutable().values().stream().map(NodeDataContainer::fromNode).collect(Collectors.toSet());
@@ -410,37 +575,13 @@ public class SqlDao extends AbstractDao {
 
             if (!toRemove.isEmpty()) {
                 try (Connection c = this.provider.getConnection()) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_DELETE_SPECIFIC))) {
-                        for (NodeDataContainer nd : toRemove) {
-                            ps.setString(1, user.getUuid().toString());
-                            ps.setString(2, nd.getPermission());
-                            ps.setBoolean(3, nd.getValue());
-                            ps.setString(4, nd.getServer());
-                            ps.setString(5, nd.getWorld());
-                            ps.setLong(6, nd.getExpiry());
-                            ps.setString(7, this.gson.toJson(ContextSetJsonSerializer.serializeContextSet(nd.getContexts())));
-                            ps.addBatch();
-                        }
-                        ps.executeBatch();
-                    }
+                    this.userNodes.delete(c, user.getUuid().toString(), toRemove);
                 }
             }
 
             if (!toAdd.isEmpty()) {
                 try (Connection c = this.provider.getConnection()) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_INSERT))) {
-                        for (NodeDataContainer nd : toAdd) {
-                            ps.setString(1, user.getUuid().toString());
-                            ps.setString(2, nd.getPermission());
-                            ps.setBoolean(3, nd.getValue());
-                            ps.setString(4, nd.getServer());
-                            ps.setString(5, nd.getWorld());
-                            ps.setLong(6, nd.getExpiry());
-                            ps.setString(7, this.gson.toJson(ContextSetJsonSerializer.serializeContextSet(nd.getContexts())));
-                            ps.addBatch();
-                        }
-                        ps.executeBatch();
-                    }
+                    this.userNodes.insert(c, user.getUuid().toString(), toAdd);
                 }
             }
 
@@ -478,45 +619,164 @@ public class SqlDao extends AbstractDao {
     }
 
     @Override
-    public Set<UUID> getUniqueUsers() throws SQLException {
-        Set<UUID> uuids = new HashSet<>();
+    public void bulkSaveUsers(List<BulkUserData> users) throws SQLException {
+        if (users.isEmpty()) {
+            return;
+        }
+
         try (Connection c = this.provider.getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(USER_PERMISSIONS_SELECT_DISTINCT))) {
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        String uuid = rs.getString("uuid");
-                        uuids.add(UUID.fromString(uuid));
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                // replace any existing permission data
+                Map<String, Set<NodeDataContainer>> nodes = new LinkedHashMap<>();
+                for (BulkUserData user : users) {
+                    nodes.put(user.getUuid().toString(), user.getNodes());
+                }
+                this.userMigrator.discard(c, nodes.keySet());
+                this.userNodes.delete(c, nodes.keySet());
+                this.userNodes.insert(c, nodes);
+
+                // update the primary groups of users which already exist, and insert the rest
+                int[] updated;
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_UPDATE_PRIMARY_GROUP_BY_UUID))) {
+                    for (BulkUserData user : users) {
+                        ps.setString(1, user.getPrimaryGroup());
+                        ps.setString(2, user.getUuid().toString());
+                        ps.addBatch();
                     }
+                    updated = ps.executeBatch();
                 }
+
+                List<BulkUserData> toInsert = new ArrayList<>();
+                for (int i = 0; i < users.size(); i++) {
+                    BulkUserData user = users.get(i);
+                    if (i < updated.length && updated[i] == Statement.SUCCESS_NO_INFO) {
+                        // the driver didn't tell us - check manually
+                        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_PRIMARY_GROUP_BY_UUID))) {
+                            ps.setString(1, user.getUuid().toString());
+                            try (ResultSet rs = ps.executeQuery()) {
+                                if (!rs.next()) {
+                                    toInsert.add(user);
+                                }
+                            }
+                        }
+                    } else if (i >= updated.length || updated[i] == 0) {
+                        toInsert.add(user);
+                    }
+                }
+
+                if (!toInsert.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_INSERT))) {
+                        for (BulkUserData user : toInsert) {
+                            ps.setString(1, user.getUuid().toString());
+                            ps.setString(2, user.getUsername() == null ? "null" : user.getUsername().toLowerCase());
+                            ps.setString(3, user.getPrimaryGroup());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
             }
         }
-        return uuids;
     }
 
     @Override
-    public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws SQLException {
-        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(USER_PERMISSIONS_SELECT_PERMISSION);
-        constraint.appendSql(builder, "permission");
+    public Set<UUID> getUniqueUsers() throws SQLException {
+        this.userMigrator.migrateAll();
 
-        List<HeldPermission<UUID>> held = new ArrayList<>();
-        try (Connection c = this.provider.getConnection()) {
-            try (PreparedStatement ps = builder.build(c, this.statementProcessor)) {
+        Set<String> holders;
+        try (Connection c = getReadConnection()) {
+            holders = this.userNodes.selectHolders(c, -1);
+        }
+        return holders.stream().map(UUID::fromString).collect(Collectors.toSet());
+    }
+
+    @Override
+    public void streamUsers(Consumer<BulkUserData> consumer) throws SQLException {
+        this.userMigrator.migrateAll();
+
+        try (Connection c = getReadConnection()) {
+            // some drivers (postgres) only use a cursor when in a transaction
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                // player data is looked up for a batch of users at a time
+                Map<String, Set<NodeDataContainer>> batch = new LinkedHashMap<>();
+                this.userNodes.selectAll(c, (uuid, nodes) -> {
+                    batch.put(uuid, nodes);
+                    if (batch.size() >= STREAM_USERS_BATCH_SIZE) {
+                        acceptUserData(consumer, batch);
+                        batch.clear();
+                    }
+                });
+                acceptUserData(consumer, batch);
+            } finally {
+                c.commit();
+                c.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void acceptUserData(Consumer<BulkUserData> consumer, Map<String, Set<NodeDataContainer>> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+        for (int i = 0; i < batch.size(); i++) {
+            placeholders.add("?");
+        }
+
+        Map<String, String[]> players = new HashMap<>();
+        try (Connection c = getReadConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(PLAYER_SELECT_BY_UUIDS + placeholders))) {
+                int i = 1;
+                for (String uuid : batch.keySet()) {
+                    ps.setString(i++, uuid);
+                }
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        UUID holder = UUID.fromString(rs.getString("uuid"));
-                        String perm = rs.getString("permission");
-                        boolean value = rs.getBoolean("value");
-                        String server = rs.getString("server");
-                        String world = rs.getString("world");
-                        long expiry = rs.getLong("expiry");
-                        String contexts = rs.getString("contexts");
-
-                        NodeDataContainer data = deserializeNode(perm, value, server, world, expiry, contexts);
-                        held.add(NodeHeldPermission.of(holder, data));
+                        players.put(rs.getString("uuid"), new String[]{rs.getString("username"), rs.getString("primary_group")});
                     }
                 }
             }
         }
+
+        for (Map.Entry<String, Set<NodeDataContainer>> e : batch.entrySet()) {
+            UUID uuid = Uuids.parseNullable(e.getKey());
+            if (uuid == null) {
+                continue;
+            }
+
+            String[] player = players.get(e.getKey());
+            String username = player == null ? null : player[0];
+            String primaryGroup = player == null ? null : player[1];
+            if (username != null && username.equals("null")) {
+                username = null;
+            }
+            if (primaryGroup == null) {
+                primaryGroup = NodeFactory.DEFAULT_GROUP_NAME;
+            }
+            consumer.accept(new BulkUserData(uuid, username, primaryGroup, e.getValue()));
+        }
+    }
+
+    @Override
+    public List<HeldPermission<UUID>> getUsersWithPermission(Constraint constraint) throws SQLException {
+        this.userMigrator.migrateAll();
+
+        List<HeldPermission<UUID>> held = new ArrayList<>();
+        try (Connection c = getReadConnection()) {
+            this.userNodes.selectMatching(c, constraint, (holder, node) -> held.add(NodeHeldPermission.of(UUID.fromString(holder), node)));
+        }
         return held;
     }
 
@@ -550,9 +810,13 @@ public class SqlDao extends AbstractDao {
 
     @Override
     public Optional<Group> loadGroup(String name) throws SQLException {
+        return loadGroup(name, false);
+    }
+
+    private Optional<Group> loadGroup(String name, boolean allowReplica) throws SQLException {
         // Check the group actually exists
         List<String> groups = new ArrayList<>();
-        try (Connection c = this.provider.getConnection()) {
+        try (Connection c = allowReplica ? getReadConnection() : this.provider.getConnection()) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_SELECT_ALL))) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
@@ -570,24 +834,11 @@ public class SqlDao extends AbstractDao {
         Group group = this.plugin.getGroupManager().getOrMake(name);
         group.getIoLock().lock();
         try {
-            List<NodeDataContainer> data = new ArrayList<>();
-
-            try (Connection c = this.provider.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_SELECT))) {
-                    ps.setString(1, group.getName());
+            List<NodeDataContainer> data;
 
-                    try (ResultSet rs = ps.executeQuery()) {
-                        while (rs.next()) {
-                            String permission = rs.getString("permission");
-                            boolean value = rs.getBoolean("value");
-                            String server = rs.getString("server");
-                            String world = rs.getString("world");
-                            long expiry = rs.getLong("expiry");
-                            String contexts = rs.getString("contexts");
-                            data.add(deserializeNode(permission, value, server, world, expiry, contexts));
-                        }
-                    }
-                }
+            this.groupMigrator.migrate(group.getName());
+            try (Connection c = allowReplica ? getReadConnection() : this.provider.getConnection()) {
+                data = this.groupNodes.select(c, group.getName());
             }
 
             if (!data.isEmpty()) {
@@ -605,8 +856,11 @@ public class SqlDao extends AbstractDao {
 
     @Override
     public void loadAllGroups() throws SQLException {
+        // the initial load can tolerate some lag, later loads are usually in response to a change
+        boolean initialLoad = this.plugin.getGroupManager().getAll().isEmpty();
+
         List<String> groups = new ArrayList<>();
-        try (Connection c = this.provider.getConnection()) {
+        try (Connection c = initialLoad ? getReadConnection() : this.provider.getConnection()) {
             try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_SELECT_ALL))) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
@@ -619,7 +873,7 @@ public class SqlDao extends AbstractDao {
         boolean success = true;
         for (String g : groups) {
             try {
-                loadGroup(g);
+                loadGroup(g, initialLoad);
             } catch (Exception e) {
                 e.printStackTrace();
                 success = false;
@@ -643,32 +897,17 @@ public class SqlDao extends AbstractDao {
             // Empty data, just delete.
             if (group.enduringData().immutable().isEmpty()) {
                 try (Connection c = this.provider.getConnection()) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_DELETE))) {
-                        ps.setString(1, group.getName());
-                        ps.execute();
-                    }
+                    this.groupMigrator.discard(c, Collections.singleton(group.getName()));
+                    this.groupNodes.delete(c, group.getName());
                 }
                 return;
             }
 
             // Get a snapshot of current data
-            Set<NodeDataContainer> remote = new HashSet<>();
+            this.groupMigrator.migrate(group.getName());
+            Set<NodeDataContainer> remote;
             try (Connection c = this.provider.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_SELECT))) {
-                    ps.setString(1, group.getName());
-
-                    try (ResultSet rs = ps.executeQuery()) {
-                        while (rs.next()) {
-                            String permission = rs.getString("permission");
-                            boolean value = rs.getBoolean("value");
-                            String server = rs.getString("server");
-                            String world = rs.getString("world");
-                            long expiry = rs.getLong("expiry");
-                            String contexts = rs.getString("contexts");
-                            remote.add(deserializeNode(permission, value, server, world, expiry, contexts));
-                        }
-                    }
-                }
+                remote = new HashSet<>(this.groupNodes.select(c, group.getName()));
             }
 
             Set<NodeDataContainer> local = group.enduringData().immutable().values().stream().map(NodeDataContainer::fromNode).collect(Collectors.toSet());
@@ -680,37 +919,13 @@ public class SqlDao extends AbstractDao {
 
             if (!toRemove.isEmpty()) {
                 try (Connection c = this.provider.getConnection()) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_DELETE_SPECIFIC))) {
-                        for (NodeDataContainer nd : toRemove) {
-                            ps.setString(1, group.getName());
-                            ps.setString(2, nd.getPermission());
-                            ps.setBoolean(3, nd.getValue());
-                            ps.setString(4, nd.getServer());
-                            ps.setString(5, nd.getWorld());
-                            ps.setLong(6, nd.getExpiry());
-                            ps.setString(7, this.gson.toJson(ContextSetJsonSerializer.serializeContextSet(nd.getContexts())));
-                            ps.addBatch();
-                        }
-                        ps.executeBatch();
-                    }
+                    this.groupNodes.delete(c, group.getName(), toRemove);
                 }
             }
 
             if (!toAdd.isEmpty()) {
                 try (Connection c = this.provider.getConnection()) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_INSERT))) {
-                        for (NodeDataContainer nd : toAdd) {
-                            ps.setString(1, group.getName());
-                            ps.setString(2, nd.getPermission());
-                            ps.setBoolean(3, nd.getValue());
-                            ps.setString(4, nd.getServer());
-                            ps.setString(5, nd.getWorld());
-                            ps.setLong(6, nd.getExpiry());
-                            ps.setString(7, this.gson.toJson(ContextSetJsonSerializer.serializeContextSet(nd.getContexts())));
-                            ps.addBatch();
-                        }
-                        ps.executeBatch();
-                    }
+                    this.groupNodes.insert(c, group.getName(), toAdd);
                 }
             }
         } finally {
@@ -723,10 +938,8 @@ public class SqlDao extends AbstractDao {
         group.getIoLock().lock();
         try {
             try (Connection c = this.provider.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_PERMISSIONS_DELETE))) {
-                    ps.setString(1, group.getName());
-                    ps.execute();
-                }
+                this.groupMigrator.discard(c, Collections.singleton(group.getName()));
+                this.groupNodes.delete(c, group.getName());
 
                 try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(GROUP_DELETE))) {
                     ps.setString(1, group.getName());
@@ -742,27 +955,11 @@ public class SqlDao extends AbstractDao {
 
     @Override
     public List<HeldPermission<String>> getGroupsWithPermission(Constraint constraint) throws SQLException {
-        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(GROUP_PERMISSIONS_SELECT_PERMISSION);
-        constraint.appendSql(builder, "permission");
+        this.groupMigrator.migrateAll();
 
         List<HeldPermission<String>> held = new ArrayList<>();
-        try (Connection c = this.provider.getConnection()) {
-            try (PreparedStatement ps = builder.build(c, this.statementProcessor)) {
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        String holder = rs.getString("name");
-                        String perm = rs.getString("permission");
-                        boolean value = rs.getBoolean("value");
-                        String server = rs.getString("server");
-                        String world = rs.getString("world");
-                        long expiry = rs.getLong("expiry");
-                        String contexts = rs.getString("contexts");
-
-                        NodeDataContainer data = deserializeNode(perm, value, server, world, expiry, contexts);
-                        held.add(NodeHeldPermission.of(holder, data));
-                    }
-                }
-            }
+        try (Connection c = getReadConnection()) {
+            this.groupNodes.selectMatching(c, constraint, (holder, node) -> held.add(NodeHeldPermission.of(holder, node)));
         }
         return held;
     }
@@ -1014,8 +1211,4 @@ public class SqlDao extends AbstractDao {
 
         return Maps.immutableEntry(toAdd, toRemove);
     }
-
-    private NodeDataContainer deserializeNode(String permission, boolean value, String server, String world, long expiry, String contexts) {
-        return NodeDataContainer.of(permission, value, server, world, expiry, ContextSetJsonSerializer.deserializeContextSet(this.gson, contexts).makeImmutable());
-    }
 }
@@ -40,6 +40,7 @@ import java.util.Map;
 public abstract class HikariConnectionFactory extends AbstractConnectionFactory {
 
     protected final StorageCredentials configuration;
+    private String poolName = "luckperms-hikari";
     private HikariDataSource hikari;
 
     public HikariConnectionFactory(String name, StorageCredentials configuration) {
@@ -47,6 +48,15 @@ public abstract class HikariConnectionFactory extends AbstractConnectionFactory
         this.configuration = configuration;
     }
 
+    /**
+     * Sets the name of the pool, used to tell pools apart when more than one is in use.
+     *
+     * @param poolName the pool name
+     */
+    public void setPoolName(String poolName) {
+        this.poolName = poolName;
+    }
+
     protected String getDriverClass() {
         return null;
     }
@@ -74,7 +84,7 @@ public abstract class HikariConnectionFactory extends AbstractConnectionFactory
     @Override
     public void init() {
         HikariConfig config = new HikariConfig();
-        config.setPoolName("luckperms-hikari");
+        config.setPoolName(this.poolName);
 
         appendConfigurationInfo(config);
         appendProperties(config, this.configuration);
@@ -54,6 +54,11 @@ public class MySqlConnectionFactory extends HikariConnectionFactory {
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
         config.addDataSourceProperty("cacheCallableStmts", "true");
 
+        // connector/j ignores the fetch size unless a server-side cursor is used, and would
+        // otherwise read the whole of a large result set (e.g. an export) into memory.
+        // only applies to statements which set a fetch size
+        config.addDataSourceProperty("useCursorFetch", "true");
+
         // append configurable properties
         super.appendProperties(config, credentials);
     }
@@ -0,0 +1,340 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.sql.table;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
+import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.bulkupdate.query.Query;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+import me.lucko.luckperms.common.utils.Uuids;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A {@link NodeTable} using the compact schema.
+ *
+ * <p>User uuids are stored in binary form, and the server, world and contexts
+ * of each node are replaced by a reference to an entry in the
+ * {@link ContextTable}. Rows are keyed by the holder and a hash of the node, so
+ * removing a specific node only needs to match on the key.</p>
+ */
+public class CompactNodeTable extends NodeTable {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final String SELECT_COLUMNS = "SELECT p.{holder}, p.permission, p.value, p.expiry, c.server, c.world, c.contexts FROM {table} p INNER JOIN {prefix}contexts c ON p.context_hash = c.hash";
+    private static final String SELECT = SELECT_COLUMNS + " WHERE p.{holder}=?";
+    private static final String SELECT_ALL = SELECT_COLUMNS + " ORDER BY p.{holder}";
+    private static final String SELECT_MATCHING = SELECT_COLUMNS + " WHERE ";
+    private static final String SELECT_DISTINCT = "SELECT DISTINCT {holder} FROM {table}";
+    private static final String SELECT_ANY = "SELECT {holder} FROM {table} LIMIT 1";
+    private static final String DELETE = "DELETE FROM {table} WHERE {holder}=?";
+    private static final String DELETE_SPECIFIC = "DELETE FROM {table} WHERE {holder}=? AND node_hash=?";
+    private static final String INSERT = "INSERT INTO {table}({holder}, node_hash, permission, value, expiry, context_hash) VALUES(?, ?, ?, ?, ?, ?)";
+
+    private static final int BULK_UPDATE_BATCH_SIZE = 1000;
+
+    /**
+     * Calculates the hash used to identify a node within a holders data.
+     *
+     * @param node the node
+     * @param contextHash the hash of the nodes contexts
+     * @return the hash
+     */
+    public static long hash(NodeDataContainer node, long contextHash) {
+        return HASH_FUNCTION.newHasher()
+                .putString(node.getPermission(), StandardCharsets.UTF_8).putByte((byte) 0)
+                .putBoolean(node.getValue())
+                .putLong(node.getExpiry())
+                .putLong(contextHash)
+                .hash().asLong();
+    }
+
+    public static CompactNodeTable users(ContextTable contexts, Function<String, String> statementProcessor, Gson gson) {
+        return new CompactNodeTable("{prefix}user_permissions_v2", "uuid", true, contexts, statementProcessor, gson);
+    }
+
+    public static CompactNodeTable groups(ContextTable contexts, Function<String, String> statementProcessor, Gson gson) {
+        return new CompactNodeTable("{prefix}group_permissions_v2", "name", false, contexts, statementProcessor, gson);
+    }
+
+    /**
+     * If holders are identified by uuid, and stored in binary form
+     */
+    private final boolean binaryHolder;
+
+    private final ContextTable contexts;
+
+    private CompactNodeTable(String table, String holderColumn, boolean binaryHolder, ContextTable contexts, Function<String, String> statementProcessor, Gson gson) {
+        super(table, holderColumn, statementProcessor, gson);
+        this.binaryHolder = binaryHolder;
+        this.contexts = contexts;
+    }
+
+    private void setHolder(PreparedStatement ps, int index, String holder) throws SQLException {
+        if (this.binaryHolder) {
+            ps.setBytes(index, Uuids.toByteArray(UUID.fromString(holder)));
+        } else {
+            ps.setString(index, holder);
+        }
+    }
+
+    private String getHolder(ResultSet rs) throws SQLException {
+        if (this.binaryHolder) {
+            return Uuids.fromByteArray(rs.getBytes(1)).toString();
+        } else {
+            return rs.getString(1);
+        }
+    }
+
+    @Override
+    public boolean isEmpty(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(SELECT_ANY))) {
+            try (ResultSet rs = ps.executeQuery()) {
+                return !rs.next();
+            }
+        }
+    }
+
+    @Override
+    public List<NodeDataContainer> select(Connection c, String holder) throws SQLException {
+        List<NodeDataContainer> nodes = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(process(SELECT))) {
+            setHolder(ps, 1, holder);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    nodes.add(readNode(rs));
+                }
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public Set<String> selectHolders(Connection c, int limit) throws SQLException {
+        Set<String> holders = new LinkedHashSet<>();
+        try (PreparedStatement ps = c.prepareStatement(process(limit < 0 ? SELECT_DISTINCT : SELECT_DISTINCT + " LIMIT " + limit))) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    holders.add(getHolder(rs));
+                }
+            }
+        }
+        return holders;
+    }
+
+    @Override
+    public void selectAll(Connection c, HolderConsumer consumer) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(SELECT_ALL))) {
+            // read in batches - mysql needs useCursorFetch for this, mariadb streams by itself
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                // rows are ordered by holder, so each holder's rows are adjacent
+                String current = null;
+                Set<NodeDataContainer> nodes = new HashSet<>();
+                while (rs.next()) {
+                    String holder = getHolder(rs);
+                    if (current != null && !current.equals(holder)) {
+                        consumer.accept(current, nodes);
+                        nodes = new HashSet<>();
+                    }
+                    current = holder;
+                    nodes.add(readNode(rs));
+                }
+
+                if (current != null) {
+                    consumer.accept(current, nodes);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void selectMatching(Connection c, Constraint constraint, BiConsumer<String, NodeDataContainer> consumer) throws SQLException {
+        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(SELECT_MATCHING);
+        constraint.appendSql(builder, "p.permission");
+
+        try (PreparedStatement ps = builder.build(c, this::process)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(getHolder(rs), readNode(rs));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void delete(Connection c, Collection<String> holders) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(DELETE))) {
+            for (String holder : holders) {
+                setHolder(ps, 1, holder);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void delete(Connection c, String holder, Collection<NodeDataContainer> nodes) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(DELETE_SPECIFIC))) {
+            for (NodeDataContainer nd : nodes) {
+                setHolder(ps, 1, holder);
+                ps.setLong(2, hash(nd, ContextTable.hash(nd)));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void insert(Connection c, Map<String, ? extends Collection<NodeDataContainer>> nodes) throws SQLException {
+        List<NodeDataContainer> all = new ArrayList<>();
+        for (Collection<NodeDataContainer> values : nodes.values()) {
+            all.addAll(values);
+        }
+        if (all.isEmpty()) {
+            return;
+        }
+
+        this.contexts.ensure(c, all);
+
+        try (PreparedStatement ps = c.prepareStatement(process(INSERT))) {
+            for (Map.Entry<String, ? extends Collection<NodeDataContainer>> e : nodes.entrySet()) {
+                for (NodeDataContainer nd : e.getValue()) {
+                    long contextHash = ContextTable.hash(nd);
+                    setHolder(ps, 1, e.getKey());
+                    ps.setLong(2, hash(nd, contextHash));
+                    ps.setString(3, nd.getPermission());
+                    ps.setBoolean(4, nd.getValue());
+                    ps.setLong(5, nd.getExpiry());
+                    ps.setLong(6, contextHash);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void applyBulkUpdate(Connection c, BulkUpdate bulkUpdate) throws SQLException {
+        // changing a node changes its hash, so matching rows are read back, updated locally,
+        // and then replaced. the constraints only refer to columns which are unique to one
+        // side of the join, so they can be appended as they are.
+        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(SELECT_COLUMNS);
+        List<Query> queries = bulkUpdate.getQueries();
+        for (int i = 0; i < queries.size(); i++) {
+            builder.append(i == 0 ? " WHERE " : " AND ");
+            queries.get(i).appendSql(builder);
+        }
+
+        Map<String, Set<NodeDataContainer>> toRemove = new HashMap<>();
+        Map<String, Set<NodeDataContainer>> toAdd = new HashMap<>();
+        try (PreparedStatement ps = builder.build(c, this::process)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String holder = getHolder(rs);
+                    NodeDataContainer from = readNode(rs);
+                    NodeDataContainer to = bulkUpdate.apply(from);
+                    if (from.equals(to)) {
+                        continue;
+                    }
+
+                    toRemove.computeIfAbsent(holder, h -> new HashSet<>()).add(from);
+                    if (to != null) {
+                        // make sure an existing copy of the new node doesn't conflict
+                        toRemove.get(holder).add(to);
+                        toAdd.computeIfAbsent(holder, h -> new HashSet<>()).add(to);
+                    }
+                }
+            }
+        }
+
+        if (toRemove.isEmpty()) {
+            return;
+        }
+
+        // replace the data of a few holders at a time, so each holder's changes are atomic
+        boolean autoCommit = c.getAutoCommit();
+        c.setAutoCommit(false);
+        try {
+            Map<String, Set<NodeDataContainer>> chunk = new HashMap<>();
+            int size = 0;
+            for (Map.Entry<String, Set<NodeDataContainer>> e : toRemove.entrySet()) {
+                delete(c, e.getKey(), e.getValue());
+                size += e.getValue().size();
+
+                Set<NodeDataContainer> added = toAdd.get(e.getKey());
+                if (added != null) {
+                    chunk.put(e.getKey(), added);
+                }
+
+                if (size >= BULK_UPDATE_BATCH_SIZE) {
+                    insert(c, chunk);
+                    c.commit();
+                    chunk.clear();
+                    size = 0;
+                }
+            }
+            insert(c, chunk);
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(autoCommit);
+        }
+    }
+
+    private NodeDataContainer readNode(ResultSet rs) throws SQLException {
+        return deserializeNode(
+                rs.getString("permission"),
+                rs.getBoolean("value"),
+                rs.getString("server"),
+                rs.getString("world"),
+                rs.getLong("expiry"),
+                rs.getString("contexts")
+        );
+    }
+}
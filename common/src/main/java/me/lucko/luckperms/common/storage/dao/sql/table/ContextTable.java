@@ -0,0 +1,155 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.sql.table;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+
+import me.lucko.luckperms.common.contexts.ContextSetJsonSerializer;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A dictionary of the distinct server, world and context combinations used by
+ * nodes in the compact schema, keyed by a 64-bit hash of their content.
+ *
+ * <p>Entries are only ever added, so once an entry is known to have been
+ * committed it never needs to be written again.</p>
+ */
+public class ContextTable {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final Comparator<Map.Entry<String, String>> CONTEXT_ORDER = Map.Entry.<String, String>comparingByKey().thenComparing(Map.Entry.comparingByValue());
+
+    private static final String MYSQL_INSERT = "INSERT INTO {prefix}contexts (hash, server, world, contexts) VALUES(?, ?, ?, ?) ON DUPLICATE KEY UPDATE hash=hash";
+    private static final String H2_INSERT = "MERGE INTO {prefix}contexts (hash, server, world, contexts) VALUES(?, ?, ?, ?)";
+    private static final String SQLITE_INSERT = "INSERT OR IGNORE INTO {prefix}contexts (hash, server, world, contexts) VALUES(?, ?, ?, ?)";
+    private static final String POSTGRESQL_INSERT = "INSERT INTO {prefix}contexts (hash, server, world, contexts) VALUES(?, ?, ?, ?) ON CONFLICT (hash) DO NOTHING";
+
+    /**
+     * Calculates the hash of the server, world and contexts of a node.
+     *
+     * <p>The result only depends on the content of the node, and is stable
+     * between restarts and between instances.</p>
+     *
+     * @param node the node
+     * @return the hash
+     */
+    public static long hash(NodeDataContainer node) {
+        Hasher hasher = HASH_FUNCTION.newHasher()
+                .putString(node.getServer(), StandardCharsets.UTF_8).putByte((byte) 0)
+                .putString(node.getWorld(), StandardCharsets.UTF_8).putByte((byte) 0);
+
+        List<Map.Entry<String, String>> contexts = new ArrayList<>(node.getContexts().toSet());
+        contexts.sort(CONTEXT_ORDER);
+        for (Map.Entry<String, String> context : contexts) {
+            hasher.putString(context.getKey(), StandardCharsets.UTF_8).putByte((byte) 0)
+                    .putString(context.getValue(), StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return hasher.hash().asLong();
+    }
+
+    private final String insert;
+    private final Function<String, String> statementProcessor;
+    private final Gson gson;
+
+    /**
+     * Hashes of entries which are known to have been committed
+     */
+    private final Set<Long> known = ConcurrentHashMap.newKeySet();
+
+    public ContextTable(String implementationName, Function<String, String> statementProcessor, Gson gson) {
+        switch (implementationName) {
+            case "H2":
+                this.insert = H2_INSERT;
+                break;
+            case "SQLite":
+                this.insert = SQLITE_INSERT;
+                break;
+            case "PostgreSQL":
+                this.insert = POSTGRESQL_INSERT;
+                break;
+            default:
+                this.insert = MYSQL_INSERT;
+                break;
+        }
+        this.statementProcessor = statementProcessor;
+        this.gson = gson;
+    }
+
+    /**
+     * Ensures the dictionary contains entries for the given nodes.
+     *
+     * @param c the connection
+     * @param nodes the nodes
+     * @throws SQLException if an error occurs
+     */
+    public void ensure(Connection c, Collection<NodeDataContainer> nodes) throws SQLException {
+        Map<Long, NodeDataContainer> missing = new HashMap<>();
+        for (NodeDataContainer node : nodes) {
+            long hash = hash(node);
+            if (!this.known.contains(hash)) {
+                missing.putIfAbsent(hash, node);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.apply(this.insert))) {
+            for (Map.Entry<Long, NodeDataContainer> e : missing.entrySet()) {
+                NodeDataContainer node = e.getValue();
+                ps.setLong(1, e.getKey());
+                ps.setString(2, node.getServer());
+                ps.setString(3, node.getWorld());
+                ps.setString(4, this.gson.toJson(ContextSetJsonSerializer.serializeContextSet(node.getContexts())));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // if we're part of a larger transaction, the entries could still be rolled back
+        if (c.getAutoCommit()) {
+            this.known.addAll(missing.keySet());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.sql.table;
+
+import com.google.gson.Gson;
+
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.PreparedStatementBuilder;
+import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A {@link NodeTable} using the original schema, where each row holds the
+ * full string form of the node.
+ */
+public class LegacyNodeTable extends NodeTable {
+    private static final String SELECT = "SELECT permission, value, server, world, expiry, contexts FROM {table} WHERE {holder}=?";
+    private static final String SELECT_ALL = "SELECT {holder}, permission, value, server, world, expiry, contexts FROM {table} ORDER BY {holder}";
+    private static final String SELECT_MATCHING = "SELECT {holder}, permission, value, server, world, expiry, contexts FROM {table} WHERE ";
+    private static final String SELECT_DISTINCT = "SELECT DISTINCT {holder} FROM {table}";
+    private static final String SELECT_ANY = "SELECT {holder} FROM {table} LIMIT 1";
+    private static final String DELETE = "DELETE FROM {table} WHERE {holder}=?";
+    private static final String DELETE_SPECIFIC = "DELETE FROM {table} WHERE {holder}=? AND permission=? AND value=? AND server=? AND world=? AND expiry=? AND contexts=?";
+    private static final String INSERT = "INSERT INTO {table}({holder}, permission, value, server, world, expiry, contexts) VALUES(?, ?, ?, ?, ?, ?, ?)";
+
+    public static LegacyNodeTable users(Function<String, String> statementProcessor, Gson gson) {
+        return new LegacyNodeTable("{prefix}user_permissions", "uuid", statementProcessor, gson);
+    }
+
+    public static LegacyNodeTable groups(Function<String, String> statementProcessor, Gson gson) {
+        return new LegacyNodeTable("{prefix}group_permissions", "name", statementProcessor, gson);
+    }
+
+    private LegacyNodeTable(String table, String holderColumn, Function<String, String> statementProcessor, Gson gson) {
+        super(table, holderColumn, statementProcessor, gson);
+    }
+
+    @Override
+    public boolean isEmpty(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(SELECT_ANY))) {
+            try (ResultSet rs = ps.executeQuery()) {
+                return !rs.next();
+            }
+        }
+    }
+
+    @Override
+    public List<NodeDataContainer> select(Connection c, String holder) throws SQLException {
+        List<NodeDataContainer> nodes = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(process(SELECT))) {
+            ps.setString(1, holder);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    nodes.add(readNode(rs));
+                }
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public Set<String> selectHolders(Connection c, int limit) throws SQLException {
+        Set<String> holders = new LinkedHashSet<>();
+        try (PreparedStatement ps = c.prepareStatement(process(limit < 0 ? SELECT_DISTINCT : SELECT_DISTINCT + " LIMIT " + limit))) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    holders.add(rs.getString(1));
+                }
+            }
+        }
+        return holders;
+    }
+
+    @Override
+    public void selectAll(Connection c, HolderConsumer consumer) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(SELECT_ALL))) {
+            // read in batches - mysql needs useCursorFetch for this, mariadb streams by itself
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                // rows are ordered by holder, so each holder's rows are adjacent
+                String current = null;
+                Set<NodeDataContainer> nodes = new HashSet<>();
+                while (rs.next()) {
+                    String holder = rs.getString(this.holderColumn);
+                    if (current != null && !current.equals(holder)) {
+                        consumer.accept(current, nodes);
+                        nodes = new HashSet<>();
+                    }
+                    current = holder;
+                    nodes.add(readNode(rs));
+                }
+
+                if (current != null) {
+                    consumer.accept(current, nodes);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void selectMatching(Connection c, Constraint constraint, BiConsumer<String, NodeDataContainer> consumer) throws SQLException {
+        PreparedStatementBuilder builder = new PreparedStatementBuilder().append(SELECT_MATCHING);
+        constraint.appendSql(builder, "permission");
+
+        try (PreparedStatement ps = builder.build(c, this::process)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(this.holderColumn), readNode(rs));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void delete(Connection c, Collection<String> holders) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(DELETE))) {
+            for (String holder : holders) {
+                ps.setString(1, holder);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void delete(Connection c, String holder, Collection<NodeDataContainer> nodes) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(DELETE_SPECIFIC))) {
+            for (NodeDataContainer nd : nodes) {
+                ps.setString(1, holder);
+                ps.setString(2, nd.getPermission());
+                ps.setBoolean(3, nd.getValue());
+                ps.setString(4, nd.getServer());
+                ps.setString(5, nd.getWorld());
+                ps.setLong(6, nd.getExpiry());
+                ps.setString(7, serializeContexts(nd));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void insert(Connection c, Map<String, ? extends Collection<NodeDataContainer>> nodes) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(process(INSERT))) {
+            for (Map.Entry<String, ? extends Collection<NodeDataContainer>> e : nodes.entrySet()) {
+                for (NodeDataContainer nd : e.getValue()) {
+                    ps.setString(1, e.getKey());
+                    ps.setString(2, nd.getPermission());
+                    ps.setBoolean(3, nd.getValue());
+                    ps.setString(4, nd.getServer());
+                    ps.setString(5, nd.getWorld());
+                    ps.setLong(6, nd.getExpiry());
+                    ps.setString(7, serializeContexts(nd));
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void applyBulkUpdate(Connection c, BulkUpdate bulkUpdate) throws SQLException {
+        String table = this.statementProcessor.apply(this.table);
+        try (PreparedStatement ps = bulkUpdate.buildAsSql().build(c, q -> q.replace("{table}", table))) {
+            ps.execute();
+        }
+    }
+
+    private NodeDataContainer readNode(ResultSet rs) throws SQLException {
+        return deserializeNode(
+                rs.getString("permission"),
+                rs.getBoolean("value"),
+                rs.getString("server"),
+                rs.getString("world"),
+                rs.getLong("expiry"),
+                rs.getString("contexts")
+        );
+    }
+}
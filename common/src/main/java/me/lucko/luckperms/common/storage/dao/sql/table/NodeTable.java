@@ -0,0 +1,189 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.sql.table;
+
+import com.google.gson.Gson;
+
+import me.lucko.luckperms.common.bulkupdate.BulkUpdate;
+import me.lucko.luckperms.common.bulkupdate.comparisons.Constraint;
+import me.lucko.luckperms.common.contexts.ContextSetJsonSerializer;
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A table holding the permission data of either users or groups.
+ *
+ * <p>Holders are identified by their string form - the uuid for users and
+ * the name for groups. Implementations are responsible for mapping this to
+ * the form used in the table.</p>
+ */
+public abstract class NodeTable {
+
+    /**
+     * The name of the table, before it has been processed
+     */
+    protected final String table;
+
+    /**
+     * The name of the column used to identify holders
+     */
+    protected final String holderColumn;
+
+    protected final Function<String, String> statementProcessor;
+    protected final Gson gson;
+
+    protected NodeTable(String table, String holderColumn, Function<String, String> statementProcessor, Gson gson) {
+        this.table = table;
+        this.holderColumn = holderColumn;
+        this.statementProcessor = statementProcessor;
+        this.gson = gson;
+    }
+
+    /**
+     * Prepares a statement, replacing the table and holder column placeholders.
+     *
+     * @param statement the statement
+     * @return the processed statement
+     */
+    protected String process(String statement) {
+        return this.statementProcessor.apply(statement.replace("{table}", this.table).replace("{holder}", this.holderColumn));
+    }
+
+    /**
+     * Gets if the table has no entries.
+     *
+     * @param c the connection
+     * @return true if the table is empty
+     * @throws SQLException if an error occurs
+     */
+    public abstract boolean isEmpty(Connection c) throws SQLException;
+
+    /**
+     * Selects the nodes held by a holder.
+     *
+     * @param c the connection
+     * @param holder the holder
+     * @return the nodes
+     * @throws SQLException if an error occurs
+     */
+    public abstract List<NodeDataContainer> select(Connection c, String holder) throws SQLException;
+
+    /**
+     * Selects the holders which have entries in the table.
+     *
+     * @param c the connection
+     * @param limit the maximum number of holders to return, or -1 for no limit
+     * @return the holders
+     * @throws SQLException if an error occurs
+     */
+    public abstract Set<String> selectHolders(Connection c, int limit) throws SQLException;
+
+    /**
+     * Selects all nodes in the table, passing them to the consumer grouped by holder.
+     *
+     * @param c the connection
+     * @param consumer the consumer
+     * @throws SQLException if an error occurs
+     */
+    public abstract void selectAll(Connection c, HolderConsumer consumer) throws SQLException;
+
+    /**
+     * Selects the nodes with a permission matching the constraint.
+     *
+     * @param c the connection
+     * @param constraint the constraint
+     * @param consumer the consumer to pass holders and their matching nodes to
+     * @throws SQLException if an error occurs
+     */
+    public abstract void selectMatching(Connection c, Constraint constraint, BiConsumer<String, NodeDataContainer> consumer) throws SQLException;
+
+    /**
+     * Deletes all nodes held by the given holders.
+     *
+     * @param c the connection
+     * @param holders the holders
+     * @throws SQLException if an error occurs
+     */
+    public abstract void delete(Connection c, Collection<String> holders) throws SQLException;
+
+    /**
+     * Deletes specific nodes held by a holder.
+     *
+     * @param c the connection
+     * @param holder the holder
+     * @param nodes the nodes to delete
+     * @throws SQLException if an error occurs
+     */
+    public abstract void delete(Connection c, String holder, Collection<NodeDataContainer> nodes) throws SQLException;
+
+    /**
+     * Inserts nodes for each of the given holders.
+     *
+     * @param c the connection
+     * @param nodes the nodes to insert, keyed by holder
+     * @throws SQLException if an error occurs
+     */
+    public abstract void insert(Connection c, Map<String, ? extends Collection<NodeDataContainer>> nodes) throws SQLException;
+
+    /**
+     * Applies a bulk update to the table.
+     *
+     * @param c the connection
+     * @param bulkUpdate the update
+     * @throws SQLException if an error occurs
+     */
+    public abstract void applyBulkUpdate(Connection c, BulkUpdate bulkUpdate) throws SQLException;
+
+    public void delete(Connection c, String holder) throws SQLException {
+        delete(c, Collections.singleton(holder));
+    }
+
+    public void insert(Connection c, String holder, Collection<NodeDataContainer> nodes) throws SQLException {
+        insert(c, Collections.singletonMap(holder, nodes));
+    }
+
+    protected String serializeContexts(NodeDataContainer node) {
+        return this.gson.toJson(ContextSetJsonSerializer.serializeContextSet(node.getContexts()));
+    }
+
+    protected NodeDataContainer deserializeNode(String permission, boolean value, String server, String world, long expiry, String contexts) {
+        return NodeDataContainer.of(permission, value, server, world, expiry, ContextSetJsonSerializer.deserializeContextSet(this.gson, contexts).makeImmutable());
+    }
+
+    @FunctionalInterface
+    public interface HolderConsumer {
+        void accept(String holder, Set<NodeDataContainer> nodes) throws SQLException;
+    }
+}
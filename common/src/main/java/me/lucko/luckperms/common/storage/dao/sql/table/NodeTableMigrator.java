@@ -0,0 +1,205 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.dao.sql.table;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import me.lucko.luckperms.common.node.model.NodeDataContainer;
+import me.lucko.luckperms.common.plugin.logging.PluginLogger;
+import me.lucko.luckperms.common.storage.dao.sql.connection.AbstractConnectionFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves permission data from one {@link NodeTable} to another, whilst both
+ * tables remain in use.
+ *
+ * <p>Holders are moved individually, in a transaction. Until the migration is
+ * complete, callers should {@link #migrate(String) migrate} a holder before
+ * reading or writing its data, and {@link #migrateAll() migrate everything}
+ * before querying across holders.</p>
+ */
+public class NodeTableMigrator {
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Creates a migrator which has nothing to migrate.
+     *
+     * @return a completed migrator
+     */
+    public static NodeTableMigrator none() {
+        NodeTableMigrator migrator = new NodeTableMigrator(null, null, null, null, null);
+        migrator.complete = true;
+        return migrator;
+    }
+
+    private final PluginLogger logger;
+    private final AbstractConnectionFactory provider;
+    private final String description;
+    private final NodeTable source;
+    private final NodeTable target;
+
+    // holders are migrated one at a time, so a load or save doesn't race with
+    // migrateAll and insert the same rows twice
+    private final LoadingCache<String, ReentrantLock> locks = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build(key -> new ReentrantLock());
+
+    private volatile boolean complete = false;
+
+    public NodeTableMigrator(PluginLogger logger, AbstractConnectionFactory provider, String description, NodeTable source, NodeTable target) {
+        this.logger = logger;
+        this.provider = provider;
+        this.description = description;
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Checks if there is any data to migrate.
+     *
+     * @return true if a migration is required
+     * @throws SQLException if an error occurs
+     */
+    public boolean init() throws SQLException {
+        if (!this.complete) {
+            try (Connection c = this.provider.getConnection()) {
+                this.complete = this.source.isEmpty(c);
+            }
+        }
+        return !this.complete;
+    }
+
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Migrates the data of a single holder, if it hasn't been migrated already.
+     *
+     * @param holder the holder
+     * @throws SQLException if an error occurs
+     */
+    public void migrate(String holder) throws SQLException {
+        if (this.complete) {
+            return;
+        }
+
+        ReentrantLock lock = this.locks.get(holder);
+        lock.lock();
+        try (Connection c = this.provider.getConnection()) {
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try {
+                migrate(c, holder);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void migrate(Connection c, String holder) throws SQLException {
+        Set<NodeDataContainer> nodes = new LinkedHashSet<>(this.source.select(c, holder));
+        if (nodes.isEmpty()) {
+            return;
+        }
+
+        // the holder may have been partly migrated by another server
+        this.target.delete(c, holder, nodes);
+        this.target.insert(c, holder, nodes);
+        this.source.delete(c, holder);
+    }
+
+    /**
+     * Removes any data for the given holders which hasn't been migrated yet.
+     *
+     * <p>Should be called when the data of the holders is being replaced.</p>
+     *
+     * @param c the connection
+     * @param holders the holders
+     * @throws SQLException if an error occurs
+     */
+    public void discard(Connection c, Collection<String> holders) throws SQLException {
+        if (!this.complete) {
+            this.source.delete(c, holders);
+        }
+    }
+
+    /**
+     * Migrates all remaining data.
+     *
+     * @throws SQLException if an error occurs
+     */
+    public synchronized void migrateAll() throws SQLException {
+        if (this.complete) {
+            return;
+        }
+
+        int migrated = 0;
+        while (true) {
+            Set<String> holders;
+            try (Connection c = this.provider.getConnection()) {
+                holders = this.source.selectHolders(c, BATCH_SIZE);
+            }
+            if (holders.isEmpty()) {
+                break;
+            }
+
+            Collection<String> failed = new ArrayList<>();
+            for (String holder : holders) {
+                try {
+                    migrate(holder);
+                    migrated++;
+                } catch (SQLException e) {
+                    failed.add(holder);
+                }
+            }
+
+            if (failed.size() == holders.size()) {
+                throw new SQLException("Unable to migrate " + this.description + " data for " + failed);
+            }
+
+            this.logger.info("[SQL] Migrated " + migrated + " " + this.description + "s so far...");
+        }
+
+        this.complete = true;
+        this.logger.info("[SQL] Finished migrating " + this.description + " data (" + migrated + " " + this.description + "s).");
+    }
+}
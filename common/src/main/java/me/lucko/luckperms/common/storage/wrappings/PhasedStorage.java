@@ -25,9 +25,15 @@
 
 package me.lucko.luckperms.common.storage.wrappings;
 
+import me.lucko.luckperms.common.metrics.Histogram;
+import me.lucko.luckperms.common.metrics.MetricsRegistry;
 import me.lucko.luckperms.common.storage.Storage;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -41,13 +47,20 @@ public interface PhasedStorage extends Storage {
      * Creates a new instance of {@link PhasedStorage} which delegates called to the given
      * {@link Storage} instance.
      *
+     * <p>If the metrics registry is enabled, the time taken for each
+     * operation to complete is recorded.</p>
+     *
      * @param delegate the delegate storage impl
+     * @param metrics the metrics registry
      * @return the new phased storage instance
      */
-    static PhasedStorage wrap(Storage delegate) {
+    static PhasedStorage wrap(Storage delegate, MetricsRegistry metrics) {
         // create a new phaser to be used by the instance
         Phaser phaser = new Phaser();
 
+        // operation timers, only populated if metrics are enabled
+        Map<Method, Histogram> timers = new ConcurrentHashMap<>();
+
         // create and return a proxy instance which directs save calls through the phaser
         return (PhasedStorage) Proxy.newProxyInstance(
                 PhasedStorage.class.getClassLoader(),
@@ -78,11 +91,19 @@ public interface PhasedStorage extends Storage {
 
                     // for all other methods, run the call via the phaser
                     phaser.register();
+                    Object result;
+                    long start = metrics.isEnabled() ? System.nanoTime() : 0L;
                     try {
-                        return method.invoke(delegate, args);
+                        result = method.invoke(delegate, args);
                     } finally {
                         phaser.arriveAndDeregister();
                     }
+
+                    if (metrics.isEnabled() && result instanceof CompletableFuture) {
+                        Histogram timer = timers.computeIfAbsent(method, m -> metrics.timer("luckperms_storage_operation", "Time taken for storage operations to complete", "operation", m.getName()));
+                        ((CompletableFuture<?>) result).whenComplete((r, ex) -> timer.record(System.nanoTime() - start));
+                    }
+                    return result;
                 }
         );
     }
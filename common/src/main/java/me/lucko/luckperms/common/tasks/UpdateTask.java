@@ -28,6 +28,7 @@ package me.lucko.luckperms.common.tasks;
 import me.lucko.luckperms.api.event.cause.CreationCause;
 import me.lucko.luckperms.common.node.factory.NodeFactory;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.StartupSnapshot;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -69,6 +70,9 @@ public class UpdateTask implements Runnable {
         // Reload all tracks
         this.plugin.getStorage().loadAllTracks().join();
 
+        // Groups may have been deleted, so don't reuse any shared user data
+        this.plugin.getUserManager().getSharedCachedData().invalidate();
+
         // Refresh all online users.
         CompletableFuture<Void> userUpdateFut = this.plugin.getUserManager().updateAllUsers();
         if (!this.initialUpdate) {
@@ -77,6 +81,8 @@ public class UpdateTask implements Runnable {
 
         this.plugin.onPostUpdate();
 
+        this.plugin.getStartupSnapshot().ifPresent(StartupSnapshot::save);
+
         this.plugin.getEventFactory().handlePostSync();
     }
 }
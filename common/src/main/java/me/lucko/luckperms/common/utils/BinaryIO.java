@@ -0,0 +1,111 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.utils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for reading and writing compact binary data.
+ *
+ * <p>Integers are written as varints, and strings as their UTF-8 length
+ * followed by their bytes. Lengths are checked against the data available
+ * before anything is allocated, so malformed input can't cause huge
+ * allocations.</p>
+ */
+public final class BinaryIO {
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuffer buf) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 32) {
+                throw new IllegalStateException("VarInt too long");
+            }
+            b = buf.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Reads a length, checking that it doesn't exceed the number of bytes
+     * remaining in the buffer.
+     *
+     * <p>Also suitable for counts of items which take at least one byte each.</p>
+     *
+     * @param buf the buffer
+     * @return the length
+     */
+    public static int readLength(ByteBuffer buf) {
+        int length = readVarInt(buf);
+        return checkLength(length, buf.remaining());
+    }
+
+    /**
+     * Reads a length, checking that it doesn't exceed the given maximum.
+     *
+     * @param buf the buffer
+     * @param max the maximum length
+     * @return the length
+     */
+    public static int readLength(ByteBuffer buf, int max) {
+        return checkLength(readVarInt(buf), max);
+    }
+
+    private static int checkLength(int length, int max) {
+        if (length < 0 || length > max) {
+            throw new IllegalStateException("Invalid length " + length + " (max " + max + ")");
+        }
+        return length;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[readLength(buf)];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private BinaryIO() {}
+}
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.utils;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
@@ -62,6 +63,18 @@ public final class Uuids {
         return Optional.ofNullable(parseNullable(s));
     }
 
+    public static byte[] toByteArray(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromByteArray(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        return new UUID(buf.getLong(), buf.getLong());
+    }
+
     private Uuids() {}
 
 }
@@ -0,0 +1,33 @@
+-- LuckPerms H2 Schema (compact)
+
+CREATE TABLE `{prefix}user_permissions_v2` (
+  `uuid`         BINARY(16)   NOT NULL,
+  `node_hash`    BIGINT       NOT NULL,
+  `permission`   VARCHAR(200) NOT NULL,
+  `value`        BOOL         NOT NULL,
+  `expiry`       BIGINT       NOT NULL,
+  `context_hash` BIGINT       NOT NULL,
+  PRIMARY KEY (`uuid`, `node_hash`)
+);
+CREATE INDEX ON `{prefix}user_permissions_v2` (`uuid`, `permission`);
+CREATE INDEX ON `{prefix}user_permissions_v2` (`permission`);
+
+CREATE TABLE `{prefix}group_permissions_v2` (
+  `name`         VARCHAR(36)  NOT NULL,
+  `node_hash`    BIGINT       NOT NULL,
+  `permission`   VARCHAR(200) NOT NULL,
+  `value`        BOOL         NOT NULL,
+  `expiry`       BIGINT       NOT NULL,
+  `context_hash` BIGINT       NOT NULL,
+  PRIMARY KEY (`name`, `node_hash`)
+);
+CREATE INDEX ON `{prefix}group_permissions_v2` (`name`, `permission`);
+CREATE INDEX ON `{prefix}group_permissions_v2` (`permission`);
+
+CREATE TABLE `{prefix}contexts` (
+  `hash`     BIGINT       NOT NULL,
+  `server`   VARCHAR(36)  NOT NULL,
+  `world`    VARCHAR(36)  NOT NULL,
+  `contexts` VARCHAR(200) NOT NULL,
+  PRIMARY KEY (`hash`)
+);
\ No newline at end of file
@@ -52,6 +52,9 @@ CREATE TABLE `{prefix}actions` (
   `action`     VARCHAR(300)       NOT NULL,
   PRIMARY KEY (`id`)
 );
+CREATE INDEX ON `{prefix}actions` (`time`);
+CREATE INDEX ON `{prefix}actions` (`actor_uuid`);
+CREATE INDEX ON `{prefix}actions` (`acted_uuid`);
 
 CREATE TABLE `{prefix}tracks` (
   `name`   VARCHAR(36) NOT NULL,
@@ -0,0 +1,63 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.bulkupdate.comparisons;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LikeMatcherTest {
+
+    private static final String[] EXPRESSIONS = {
+            "", "%", "%%", "_", "__", "a", "a%", "%a", "%a%", "a_c", "a%b", "a%b%c", "%b_",
+            "group.%", "group._", "%.admin", "essentials.%.give", "a%%b", "_%_", "%_%"
+    };
+
+    private static final String[] VALUES = {
+            "", "a", "b", "ab", "abc", "a%b", "a%xb", "a_c", "axc", "aab", "abab", "abcbc", "xbx",
+            "group.admin", "group.a", "group.", "essentials.kit.give", "essentials.give", "A%XB", "x.admin"
+    };
+
+    @Test
+    public void testPercentMatchesAnySequence() {
+        assertTrue(LikeMatcher.compile("a%b").test("a%xb"));
+        assertTrue(LikeMatcher.compile("a%b").test("a%b"));
+    }
+
+    @Test
+    public void testMatchesRegexTranslation() {
+        for (String expression : EXPRESSIONS) {
+            Pattern regex = Pattern.compile(LikeMatcher.toRegex(expression));
+            for (String value : VALUES) {
+                boolean expected = regex.matcher(value.toLowerCase()).matches();
+                assertEquals("'" + value + "' LIKE '" + expression + "'", expected, LikeMatcher.compile(expression).test(value));
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.nukkit.listeners;
 
+import me.lucko.luckperms.api.Contexts;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.model.User;
@@ -40,6 +41,7 @@ import cn.nukkit.event.Listener;
 import cn.nukkit.event.player.PlayerAsyncPreLoginEvent;
 import cn.nukkit.event.player.PlayerLoginEvent;
 import cn.nukkit.event.player.PlayerQuitEvent;
+import cn.nukkit.level.Level;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -57,6 +59,16 @@ public class NukkitConnectionListener extends AbstractConnectionListener impleme
         this.plugin = plugin;
     }
 
+    @Override
+    protected Contexts predictInitialContexts(UUID uuid) {
+        // most players join into the default level
+        Level level = this.plugin.getBootstrap().getServer().getDefaultLevel();
+        if (level == null) {
+            return super.predictInitialContexts(uuid);
+        }
+        return predictContextsInWorld(level.getName());
+    }
+
     @EventHandler(priority = EventPriority.LOW)
     public void onPlayerPreLogin(PlayerAsyncPreLoginEvent e) {
         /* Called when the player first attempts a connection with the server.
@@ -95,6 +107,11 @@ public class NukkitConnectionListener extends AbstractConnectionListener impleme
         /* Listen to see if the event was cancelled after we initially handled the connection
            If the connection was cancelled here, we need to do something to clean up the data that was loaded. */
 
+        // Stop calculating data for connections which won't go ahead
+        if (e.getLoginResult() != PlayerAsyncPreLoginEvent.LoginResult.SUCCESS) {
+            cancelPrefetch(e.getUuid());
+        }
+
         // Check to see if this connection was denied at LOW.
         if (this.deniedAsyncLogin.remove(e.getUuid())) {
             // their data was never loaded at LOW priority, now check to see if they have been magically allowed since then.
@@ -165,6 +182,7 @@ public class NukkitConnectionListener extends AbstractConnectionListener impleme
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent e) {
         final Player player = e.getPlayer();
+        cancelPrefetch(player.getUniqueId());
 
         // Remove the custom permissible
         try {
@@ -27,10 +27,13 @@ package me.lucko.luckperms.nukkit.model.permissible;
 
 import com.google.common.collect.ImmutableList;
 
+import me.lucko.luckperms.api.LocalizedNode;
+import me.lucko.luckperms.api.Node;
 import me.lucko.luckperms.api.Tristate;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.contexts.ContextsSupplier;
 import me.lucko.luckperms.common.model.User;
+import me.lucko.luckperms.common.node.model.ImmutableTransientNode;
 import me.lucko.luckperms.common.utils.ImmutableCollectors;
 import me.lucko.luckperms.common.verbose.CheckOrigin;
 import me.lucko.luckperms.nukkit.LPNukkitPlugin;
@@ -44,8 +47,12 @@ import cn.nukkit.permission.PermissionAttachmentInfo;
 import cn.nukkit.plugin.Plugin;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -103,6 +110,12 @@ public class LPPermissible extends PermissibleBase {
     // this collection is only modified by the attachments themselves
     final Set<LPPermissionAttachment> lpAttachments = ConcurrentHashMap.newKeySet();
 
+    // if any attachments have changes which haven't been applied to the user yet
+    private volatile boolean attachmentsDirty = false;
+
+    // if a flush of attachment changes has been scheduled
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
     public LPPermissible(Player player, User user, LPNukkitPlugin plugin) {
         super(player);
         this.user = Objects.requireNonNull(user, "user");
@@ -137,6 +150,8 @@ public class LPPermissible extends PermissibleBase {
             throw new NullPointerException("permission");
         }
 
+        flushAttachments();
+
         Tristate ts = this.user.getCachedData().getPermissionData(this.contextsSupplier.getContexts()).getPermissionValue(permission, CheckOrigin.PLATFORM_LOOKUP_CHECK);
         return ts != Tristate.UNDEFINED || PermissionDefault.OP.getValue(isOp());
     }
@@ -147,6 +162,8 @@ public class LPPermissible extends PermissibleBase {
             throw new NullPointerException("permission");
         }
 
+        flushAttachments();
+
         Tristate ts = this.user.getCachedData().getPermissionData(this.contextsSupplier.getContexts()).getPermissionValue(permission.getName(), CheckOrigin.PLATFORM_LOOKUP_CHECK);
         if (ts != Tristate.UNDEFINED) {
             return true;
@@ -166,6 +183,8 @@ public class LPPermissible extends PermissibleBase {
             throw new NullPointerException("permission");
         }
 
+        flushAttachments();
+
         Tristate ts = this.user.getCachedData().getPermissionData(this.contextsSupplier.getContexts()).getPermissionValue(permission, CheckOrigin.PLATFORM_PERMISSION_CHECK);
         return ts != Tristate.UNDEFINED ? ts.asBoolean() : PermissionDefault.OP.getValue(isOp());
     }
@@ -176,6 +195,8 @@ public class LPPermissible extends PermissibleBase {
             throw new NullPointerException("permission");
         }
 
+        flushAttachments();
+
         Tristate ts = this.user.getCachedData().getPermissionData(this.contextsSupplier.getContexts()).getPermissionValue(permission.getName(), CheckOrigin.PLATFORM_PERMISSION_CHECK);
         if (ts != Tristate.UNDEFINED) {
             return ts.asBoolean();
@@ -200,6 +221,58 @@ public class LPPermissible extends PermissibleBase {
         }
     }
 
+    /**
+     * Marks that an attachment has changes which haven't been applied to the
+     * user yet, and schedules them to be applied on the next tick.
+     */
+    void markAttachmentsDirty() {
+        this.attachmentsDirty = true;
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.plugin.getBootstrap().getScheduler().executeSync(() -> {
+                this.flushScheduled.set(false);
+                flushAttachments();
+            });
+        }
+    }
+
+    /**
+     * Applies any pending attachment changes to the user, in a single batch.
+     */
+    void flushAttachments() {
+        if (!this.attachmentsDirty) {
+            return;
+        }
+
+        synchronized (this.lpAttachments) {
+            if (!this.attachmentsDirty) {
+                return;
+            }
+            this.attachmentsDirty = false;
+
+            Map<LPPermissionAttachment, Set<String>> removals = new IdentityHashMap<>();
+            List<Node> additions = new ArrayList<>();
+            for (LPPermissionAttachment attachment : this.lpAttachments) {
+                Set<String> attachmentRemovals = new HashSet<>();
+                attachment.drainChanges(attachmentRemovals, additions);
+                if (!attachmentRemovals.isEmpty()) {
+                    removals.put(attachment, attachmentRemovals);
+                }
+            }
+
+            if (removals.isEmpty() && additions.isEmpty()) {
+                return;
+            }
+
+            this.user.applyTransientChanges(LocalizedNode.composedPredicate(n -> {
+                if (!(n instanceof ImmutableTransientNode)) {
+                    return false;
+                }
+                Set<String> perms = removals.get(((ImmutableTransientNode) n).getOwner());
+                return perms != null && perms.contains(n.getPermission());
+            }), additions);
+        }
+    }
+
     @Override
     public void setOp(boolean value) {
         this.player.setOp(value);
@@ -207,6 +280,7 @@ public class LPPermissible extends PermissibleBase {
 
     @Override
     public Map<String, PermissionAttachmentInfo> getEffectivePermissions() {
+        flushAttachments();
         return this.user.getCachedData().getPermissionData(this.contextsSupplier.getContexts()).getImmutableBacking().entrySet().stream()
                 .collect(ImmutableCollectors.toMap(Map.Entry::getKey, entry -> new PermissionAttachmentInfo(this.player, entry.getKey(), null, entry.getValue())));
     }
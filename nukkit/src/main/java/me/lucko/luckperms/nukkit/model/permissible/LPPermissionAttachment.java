@@ -44,6 +44,7 @@ import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -86,6 +87,13 @@ public class LPPermissionAttachment extends PermissionAttachment {
      */
     private final Map<String, Boolean> perms = Collections.synchronizedMap(new HashMap<>());
 
+    /**
+     * Changes which haven't been applied to the user yet, guarded by itself.
+     *
+     * A null value indicates the permission was unset.
+     */
+    private final Map<String, Boolean> pendingChanges = new LinkedHashMap<>();
+
     /**
      * If the attachment has been applied to the user
      */
@@ -165,42 +173,68 @@ public class LPPermissionAttachment extends PermissionAttachment {
     public void hook() {
         this.hooked = true;
         this.permissible.lpAttachments.add(this);
-        for (Map.Entry<String, Boolean> entry : this.perms.entrySet()) {
-            if (entry.getKey() == null || entry.getKey().isEmpty()) {
-                continue;
+        synchronized (this.perms) {
+            for (Map.Entry<String, Boolean> entry : this.perms.entrySet()) {
+                if (entry.getKey() == null || entry.getKey().isEmpty()) {
+                    continue;
+                }
+                queueChange(entry.getKey(), entry.getValue());
             }
-            setPermissionInternal(entry.getKey(), entry.getValue());
         }
+        this.permissible.flushAttachments();
     }
 
-    private void setPermissionInternal(String name, boolean value) {
-        if (!this.permissible.getPlugin().getConfiguration().get(ConfigKeys.APPLY_NUKKIT_ATTACHMENT_PERMISSIONS)) {
-            return;
+    private void queueChange(String name, Boolean value) {
+        synchronized (this.pendingChanges) {
+            // re-insert so the change is ordered after any earlier ones
+            this.pendingChanges.remove(name);
+            this.pendingChanges.put(name, value);
         }
+    }
 
-        // construct a node for the permission being set
-        // we use the servers static context to *try* to ensure that the node will apply
-        Node node = NodeFactory.builder(name)
-                .setValue(value)
-                .withExtraContext(this.permissible.getPlugin().getContextManager().getStaticContext())
-                .build();
-
-        // convert the constructed node to a transient node instance to refer back to this attachment
-        ImmutableTransientNode<LPPermissionAttachment> transientNode = ImmutableTransientNode.of(node, this);
-
-        // set the transient node
-        User user = this.permissible.getUser();
-        user.setTransientPermission(transientNode).asBoolean();
+    private void clearPendingChanges() {
+        synchronized (this.pendingChanges) {
+            this.pendingChanges.clear();
+        }
     }
 
-    private void unsetPermissionInternal(String name) {
-        if (!this.permissible.getPlugin().getConfiguration().get(ConfigKeys.APPLY_NUKKIT_ATTACHMENT_PERMISSIONS)) {
+    /**
+     * Drains the changes which haven't been applied to the user yet.
+     *
+     * @param removals the set to add the permissions which should be removed to
+     * @param additions the list to add the transient nodes which should be added to
+     */
+    void drainChanges(Set<String> removals, List<Node> additions) {
+        Map<String, Boolean> changes;
+        synchronized (this.pendingChanges) {
+            if (this.pendingChanges.isEmpty()) {
+                return;
+            }
+            changes = new LinkedHashMap<>(this.pendingChanges);
+            this.pendingChanges.clear();
+        }
+
+        if (!this.hooked || !this.permissible.getPlugin().getConfiguration().get(ConfigKeys.APPLY_NUKKIT_ATTACHMENT_PERMISSIONS)) {
             return;
         }
 
-        // remove transient permissions from the holder which were added by this attachment & equal the permission
-        User user = this.permissible.getUser();
-        user.removeIfTransient(LocalizedNode.composedPredicate(n -> n instanceof ImmutableTransientNode && ((ImmutableTransientNode) n).getOwner() == this && n.getPermission().equals(name)));
+        for (Map.Entry<String, Boolean> change : changes.entrySet()) {
+            // always remove any existing node for the permission, then add the new one (if set)
+            removals.add(change.getKey());
+            if (change.getValue() == null) {
+                continue;
+            }
+
+            // construct a node for the permission being set
+            // we use the servers static context to *try* to ensure that the node will apply
+            Node node = NodeFactory.builder(change.getKey())
+                    .setValue(change.getValue())
+                    .withExtraContext(this.permissible.getPlugin().getContextManager().getStaticContext())
+                    .build();
+
+            // convert the constructed node to a transient node instance to refer back to this attachment
+            additions.add(ImmutableTransientNode.of(node, this));
+        }
     }
 
     private void clearInternal() {
@@ -216,6 +250,7 @@ public class LPPermissionAttachment extends PermissionAttachment {
         }
 
         // clear the internal permissions
+        clearPendingChanges();
         clearInternal();
 
         // run the callback
@@ -230,6 +265,14 @@ public class LPPermissionAttachment extends PermissionAttachment {
 
     @Override
     public void setPermission(String name, boolean value) {
+        if (queueSetPermission(name, value)) {
+            // the change will be applied to the user in a single batch,
+            // either on the next tick or before the next permission check
+            this.permissible.markAttachmentsDirty();
+        }
+    }
+
+    private boolean queueSetPermission(String name, boolean value) {
         Objects.requireNonNull(name, "name is null");
         Preconditions.checkArgument(!name.isEmpty(), "name is empty");
 
@@ -237,20 +280,17 @@ public class LPPermissionAttachment extends PermissionAttachment {
 
         Boolean previous = this.perms.put(permission, value);
         if (previous != null && previous == value) {
-            return;
+            return false;
         }
 
         // if we're not hooked, then don't actually apply the change
         // it will get applied on hook - if that ever happens
         if (!this.hooked) {
-            return;
-        }
-
-        if (previous != null) {
-            unsetPermissionInternal(permission);
+            return false;
         }
 
-        setPermissionInternal(permission, value);
+        queueChange(permission, value);
+        return true;
     }
 
     @Override
@@ -260,13 +300,25 @@ public class LPPermissionAttachment extends PermissionAttachment {
 
     @Override
     public void setPermissions(Map<String, Boolean> permissions) {
+        boolean changed = false;
         for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
-            setPermission(entry.getKey(), entry.getValue());
+            changed |= queueSetPermission(entry.getKey(), entry.getValue());
+        }
+
+        // apply all of the changes at once
+        if (changed) {
+            this.permissible.flushAttachments();
         }
     }
 
     @Override
     public void unsetPermission(String name, boolean value) {
+        if (queueUnsetPermission(name)) {
+            this.permissible.markAttachmentsDirty();
+        }
+    }
+
+    private boolean queueUnsetPermission(String name) {
         Objects.requireNonNull(name, "name is null");
         Preconditions.checkArgument(!name.isEmpty(), "name is empty");
 
@@ -274,16 +326,17 @@ public class LPPermissionAttachment extends PermissionAttachment {
 
         Boolean previous = this.perms.remove(permission);
         if (previous == null) {
-            return;
+            return false;
         }
 
         // if we're not hooked, then don't actually apply the change
         // it will get applied on hook - if that ever happens
         if (!this.hooked) {
-            return;
+            return false;
         }
 
-        unsetPermissionInternal(permission);
+        queueChange(permission, null);
+        return true;
     }
 
     @Override
@@ -293,14 +346,21 @@ public class LPPermissionAttachment extends PermissionAttachment {
 
     @Override
     public void unsetPermissions(List<String> permissions) {
+        boolean changed = false;
         for (String perm : permissions) {
-            unsetPermission(perm, true);
+            changed |= queueUnsetPermission(perm);
+        }
+
+        // apply all of the changes at once
+        if (changed) {
+            this.permissible.flushAttachments();
         }
     }
 
     @Override
     public void clearPermissions() {
         this.perms.clear();
+        clearPendingChanges();
         clearInternal();
     }
 
@@ -378,6 +438,7 @@ public class LPPermissionAttachment extends PermissionAttachment {
         public void clear() {
             // remove the permissions which have already been applied
             if (LPPermissionAttachment.this.hooked) {
+                clearPendingChanges();
                 clearInternal();
             }
 
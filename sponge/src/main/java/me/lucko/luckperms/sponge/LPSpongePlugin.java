@@ -211,6 +211,13 @@ public class LPSpongePlugin extends AbstractLuckPermsPlugin {
         }
     }
 
+    @Override
+    protected void removePlatformHooks() {
+        if (this.service != null) {
+            this.service.getStorage().shutdown();
+        }
+    }
+
     @Override
     public void onPostUpdate() {
         for (LPSubjectCollection collection : this.service.getLoadedCollections().values()) {
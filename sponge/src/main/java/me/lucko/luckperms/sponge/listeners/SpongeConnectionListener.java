@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.sponge.listeners;
 
+import me.lucko.luckperms.api.Contexts;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.locale.message.Message;
 import me.lucko.luckperms.common.model.User;
@@ -56,6 +57,15 @@ public class SpongeConnectionListener extends AbstractConnectionListener {
         this.plugin = plugin;
     }
 
+    @Override
+    protected Contexts predictInitialContexts(UUID uuid) {
+        // most players join into the default world
+        if (!this.plugin.getBootstrap().getGame().isServerAvailable()) {
+            return super.predictInitialContexts(uuid);
+        }
+        return predictContextsInWorld(this.plugin.getBootstrap().getGame().getServer().getDefaultWorldName());
+    }
+
     @Listener(order = Order.EARLY)
     @IsCancelled(Tristate.UNDEFINED)
     public void onClientAuth(ClientConnectionEvent.Auth e) {
@@ -102,6 +112,11 @@ public class SpongeConnectionListener extends AbstractConnectionListener {
         /* Listen to see if the event was cancelled after we initially handled the connection
            If the connection was cancelled here, we need to do something to clean up the data that was loaded. */
 
+        // Stop calculating data for connections which won't go ahead
+        if (e.isCancelled()) {
+            cancelPrefetch(e.getProfile().getUniqueId());
+        }
+
         // Check to see if this connection was denied at LOW.
         if (this.deniedAsyncLogin.remove(e.getProfile().getUniqueId())) {
 
@@ -159,6 +174,7 @@ public class SpongeConnectionListener extends AbstractConnectionListener {
     @Listener(order = Order.POST)
     public void onClientLeave(ClientConnectionEvent.Disconnect e) {
         Player player = e.getTargetEntity();
+        cancelPrefetch(player.getUniqueId());
 
         // Register with the housekeeper, so the User's instance will stick
         // around for a bit after they disconnect
@@ -30,6 +30,7 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.contexts.ContextManager;
 import me.lucko.luckperms.common.utils.Predicates;
 import me.lucko.luckperms.sponge.LPSpongePlugin;
@@ -44,6 +45,7 @@ import me.lucko.luckperms.sponge.service.model.LPSubjectCollection;
 import me.lucko.luckperms.sponge.service.model.LPSubjectReference;
 import me.lucko.luckperms.sponge.service.persisted.DefaultsCollection;
 import me.lucko.luckperms.sponge.service.persisted.PersistedCollection;
+import me.lucko.luckperms.sponge.service.persisted.CompactSubjectStorage;
 import me.lucko.luckperms.sponge.service.persisted.SubjectStorage;
 import me.lucko.luckperms.sponge.service.proxy.ProxyFactory;
 import me.lucko.luckperms.sponge.service.reference.SubjectReferenceFactory;
@@ -54,6 +56,7 @@ import org.spongepowered.api.service.permission.PermissionService;
 import org.spongepowered.api.service.permission.Subject;
 import org.spongepowered.api.text.Text;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -109,7 +112,12 @@ public class LuckPermsService implements LPPermissionService {
         this.permissionDescriptions = new ConcurrentHashMap<>();
 
         // init subject storage
-        this.storage = new SubjectStorage(this, plugin.getBootstrap().getDataDirectory().resolve("sponge-data"));
+        Path legacyStorage = plugin.getBootstrap().getDataDirectory().resolve("sponge-data");
+        if (plugin.getConfiguration().get(ConfigKeys.SPONGE_COMPACT_SUBJECT_STORAGE)) {
+            this.storage = new CompactSubjectStorage(this, plugin.getBootstrap().getDataDirectory().resolve("sponge-data-compact"), legacyStorage);
+        } else {
+            this.storage = new SubjectStorage(this, legacyStorage);
+        }
 
         // load defaults collection
         this.defaultSubjects = new DefaultsCollection(this);
@@ -79,10 +79,7 @@ public abstract class CalculatedSubject implements LPSubject {
                 throw new AssertionError();
         }
 
-        for (Map.Entry<String, Boolean> entry : merging.entrySet()) {
-            permissions.putIfAbsent(entry.getKey(), entry.getValue());
-        }
-        return permissions;
+        return merge(permissions, merging);
     }
 
     public Map<String, Boolean> getCombinedPermissions() {
@@ -101,10 +98,54 @@ public abstract class CalculatedSubject implements LPSubject {
                 throw new AssertionError();
         }
 
-        for (Map.Entry<String, Boolean> entry : merging.entrySet()) {
-            permissions.putIfAbsent(entry.getKey(), entry.getValue());
+        return merge(permissions, merging);
+    }
+
+    /**
+     * Merges two resolved maps, giving priority to entries in the first.
+     *
+     * <p>The inputs are not modified, and may be returned directly.</p>
+     *
+     * @param map the map with priority
+     * @param merging the map to merge in
+     * @param <V> the value type
+     * @return the merged result
+     */
+    private static <V> Map<String, V> merge(Map<String, V> map, Map<String, V> merging) {
+        if (merging.isEmpty()) {
+            return map;
+        }
+        if (map.isEmpty()) {
+            return merging;
+        }
+
+        Map<String, V> result = new HashMap<>(map);
+        for (Map.Entry<String, V> entry : merging.entrySet()) {
+            result.putIfAbsent(entry.getKey(), entry.getValue());
         }
-        return permissions;
+        return result;
+    }
+
+    /**
+     * Merges two resolved sets of parents, giving priority to entries in the first.
+     *
+     * <p>The inputs are not modified, and may be returned directly.</p>
+     *
+     * @param parents the parents with priority
+     * @param merging the parents to merge in
+     * @return the merged result
+     */
+    private static Set<LPSubjectReference> merge(Set<LPSubjectReference> parents, Set<LPSubjectReference> merging) {
+        if (merging.isEmpty()) {
+            return parents;
+        }
+        if (parents.isEmpty()) {
+            return merging;
+        }
+
+        Set<LPSubjectReference> result = new LinkedHashSet<>(parents);
+        result.addAll(merging);
+        return result;
     }
 
     public Map<String, Boolean> resolveAllPermissions(ImmutableContextSet filter) {
@@ -151,8 +192,7 @@ public abstract class CalculatedSubject implements LPSubject {
                 throw new AssertionError();
         }
 
-        parents.addAll(merging);
-        return parents;
+        return merge(parents, merging);
     }
 
     public Set<LPSubjectReference> getCombinedParents() {
@@ -171,8 +211,7 @@ public abstract class CalculatedSubject implements LPSubject {
                 throw new AssertionError();
         }
 
-        parents.addAll(merging);
-        return parents;
+        return merge(parents, merging);
     }
 
     public Set<LPSubjectReference> resolveAllParents(ImmutableContextSet filter) {
@@ -215,10 +254,7 @@ public abstract class CalculatedSubject implements LPSubject {
                 throw new AssertionError();
         }
 
-        for (Map.Entry<String, String> entry : merging.entrySet()) {
-            options.putIfAbsent(entry.getKey(), entry.getValue());
-        }
-        return options;
+        return merge(options, merging);
     }
 
     public Map<String, String> getCombinedOptions() {
@@ -237,10 +273,7 @@ public abstract class CalculatedSubject implements LPSubject {
                 throw new AssertionError();
         }
 
-        for (Map.Entry<String, String> entry : merging.entrySet()) {
-            options.putIfAbsent(entry.getKey(), entry.getValue());
-        }
-        return options;
+        return merge(options, merging);
     }
 
     public Map<String, String> resolveAllOptions(ImmutableContextSet filter) {
@@ -299,12 +332,12 @@ public abstract class CalculatedSubject implements LPSubject {
 
     @Override
     public boolean isChildOf(ImmutableContextSet contexts, LPSubjectReference parent) {
-        return resolveAllParents(contexts).contains(parent);
+        return this.cachedData.getParents(contexts).contains(parent);
     }
 
     @Override
     public ImmutableList<LPSubjectReference> getParents(ImmutableContextSet contexts) {
-        return ImmutableList.copyOf(resolveAllParents(contexts));
+        return this.cachedData.getParents(contexts).asList();
     }
 
     @Override
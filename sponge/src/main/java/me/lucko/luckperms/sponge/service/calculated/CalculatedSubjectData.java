@@ -25,8 +25,11 @@
 
 package me.lucko.luckperms.sponge.service.calculated;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import me.lucko.luckperms.api.Tristate;
 import me.lucko.luckperms.api.context.ContextSet;
@@ -47,22 +50,32 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * In-memory implementation of {@link LPSubjectData}.
+ *
+ * <p>The backing maps are keyed by context and kept sorted according to
+ * {@link ContextSetComparator#reverse()}, so the most specific entries are
+ * always iterated first. The flattened results of resolving each map are
+ * cached per filter, and discarded when the map is modified.</p>
  */
 public class CalculatedSubjectData implements LPSubjectData {
     private final LPSubject parentSubject;
     private final NodeMapType type;
     private final LPPermissionService service;
 
-    private final Map<ImmutableContextSet, Map<String, Boolean>> permissions = new ConcurrentHashMap<>();
-    private final Map<ImmutableContextSet, Set<LPSubjectReference>> parents = new ConcurrentHashMap<>();
-    private final Map<ImmutableContextSet, Map<String, String>> options = new ConcurrentHashMap<>();
+    private final Map<ImmutableContextSet, Map<String, Boolean>> permissions = new ConcurrentSkipListMap<>(ContextSetComparator.reverse());
+    private final Map<ImmutableContextSet, Set<LPSubjectReference>> parents = new ConcurrentSkipListMap<>(ContextSetComparator.reverse());
+    private final Map<ImmutableContextSet, Map<String, String>> options = new ConcurrentSkipListMap<>(ContextSetComparator.reverse());
+
+    private final ResolutionCache<ImmutableMap<String, Boolean>> resolvedPermissions = new ResolutionCache<>(this::calculatePermissions);
+    private final ResolutionCache<ImmutableSet<LPSubjectReference>> resolvedParents = new ResolutionCache<>(this::calculateParents);
+    private final ResolutionCache<ImmutableMap<String, String>> resolvedOptions = new ResolutionCache<>(this::calculateOptions);
 
     public CalculatedSubjectData(LPSubject parentSubject, NodeMapType type, LPPermissionService service) {
         this.parentSubject = parentSubject;
@@ -85,12 +98,27 @@ public class CalculatedSubjectData implements LPSubjectData {
         return this.type;
     }
 
+    private void onPermissionsChange() {
+        this.resolvedPermissions.invalidate();
+        this.service.invalidateAllCaches();
+    }
+
+    private void onParentsChange() {
+        this.resolvedParents.invalidate();
+        this.service.invalidateAllCaches();
+    }
+
+    private void onOptionsChange() {
+        this.resolvedOptions.invalidate();
+        this.service.invalidateAllCaches();
+    }
+
     public void replacePermissions(Map<ImmutableContextSet, Map<String, Boolean>> map) {
         this.permissions.clear();
         for (Map.Entry<ImmutableContextSet, Map<String, Boolean>> e : map.entrySet()) {
             this.permissions.put(e.getKey(), new ConcurrentHashMap<>(e.getValue()));
         }
-        this.service.invalidateAllCaches();
+        onPermissionsChange();
     }
 
     public void replaceParents(Map<ImmutableContextSet, List<LPSubjectReference>> map) {
@@ -100,7 +128,7 @@ public class CalculatedSubjectData implements LPSubjectData {
             set.addAll(e.getValue());
             this.parents.put(e.getKey(), set);
         }
-        this.service.invalidateAllCaches();
+        onParentsChange();
     }
 
     public void replaceOptions(Map<ImmutableContextSet, Map<String, String>> map) {
@@ -108,7 +136,7 @@ public class CalculatedSubjectData implements LPSubjectData {
         for (Map.Entry<ImmutableContextSet, Map<String, String>> e : map.entrySet()) {
             this.options.put(e.getKey(), new ConcurrentHashMap<>(e.getValue()));
         }
-        this.service.invalidateAllCaches();
+        onOptionsChange();
     }
 
     @Override
@@ -120,44 +148,39 @@ public class CalculatedSubjectData implements LPSubjectData {
         return map.build();
     }
 
-    public Map<String, Boolean> resolvePermissions(ContextSet filter) {
-        // get relevant entries
-        SortedMap<ImmutableContextSet, Map<String, Boolean>> sorted = new TreeMap<>(ContextSetComparator.reverse());
-        for (Map.Entry<ImmutableContextSet, Map<String, Boolean>> entry : this.permissions.entrySet()) {
-            if (!entry.getKey().isSatisfiedBy(filter)) {
-                continue;
-            }
-
-            sorted.put(entry.getKey(), entry.getValue());
-        }
-
-        // flatten
-        Map<String, Boolean> result = new HashMap<>();
-        for (Map<String, Boolean> map : sorted.values()) {
-            for (Map.Entry<String, Boolean> e : map.entrySet()) {
-                result.putIfAbsent(e.getKey(), e.getValue());
-            }
-        }
+    /**
+     * Resolves the permissions which apply in the given filter, with entries
+     * in more specific contexts taking priority.
+     *
+     * @param filter the filter
+     * @return the resolved permissions
+     */
+    public ImmutableMap<String, Boolean> resolvePermissions(ContextSet filter) {
+        return this.resolvedPermissions.get(filter.makeImmutable());
+    }
 
-        return result;
+    /**
+     * Resolves all permissions, regardless of context.
+     *
+     * @return the resolved permissions
+     */
+    public ImmutableMap<String, Boolean> resolvePermissions() {
+        return this.resolvedPermissions.get();
     }
 
-    public Map<String, Boolean> resolvePermissions() {
-        // get relevant entries
-        SortedMap<ImmutableContextSet, Map<String, Boolean>> sorted = new TreeMap<>(ContextSetComparator.reverse());
+    private ImmutableMap<String, Boolean> calculatePermissions(ContextSet filter) {
+        // the backing map is already sorted, so entries can be flattened in iteration order
+        Map<String, Boolean> result = new HashMap<>();
         for (Map.Entry<ImmutableContextSet, Map<String, Boolean>> entry : this.permissions.entrySet()) {
-            sorted.put(entry.getKey(), entry.getValue());
-        }
+            if (filter != null && !entry.getKey().isSatisfiedBy(filter)) {
+                continue;
+            }
 
-        // flatten
-        Map<String, Boolean> result = new HashMap<>();
-        for (Map<String, Boolean> map : sorted.values()) {
-            for (Map.Entry<String, Boolean> e : map.entrySet()) {
+            for (Map.Entry<String, Boolean> e : entry.getValue().entrySet()) {
                 result.putIfAbsent(e.getKey(), e.getValue());
             }
         }
-
-        return result;
+        return ImmutableMap.copyOf(result);
     }
 
     @Override
@@ -171,7 +194,7 @@ public class CalculatedSubjectData implements LPSubjectData {
             b = !Objects.equals(perms.put(permission.toLowerCase(), value.asBoolean()), value.asBoolean());
         }
         if (b) {
-            this.service.invalidateAllCaches();
+            onPermissionsChange();
         }
         return CompletableFuture.completedFuture(b);
     }
@@ -182,7 +205,7 @@ public class CalculatedSubjectData implements LPSubjectData {
             return CompletableFuture.completedFuture(false);
         } else {
             this.permissions.clear();
-            this.service.invalidateAllCaches();
+            onPermissionsChange();
             return CompletableFuture.completedFuture(true);
         }
     }
@@ -196,7 +219,7 @@ public class CalculatedSubjectData implements LPSubjectData {
 
         this.permissions.remove(contexts);
         if (!perms.isEmpty()) {
-            this.service.invalidateAllCaches();
+            onPermissionsChange();
             return CompletableFuture.completedFuture(true);
         }
         return CompletableFuture.completedFuture(false);
@@ -211,42 +234,37 @@ public class CalculatedSubjectData implements LPSubjectData {
         return map.build();
     }
 
-    public Set<LPSubjectReference> resolveParents(ContextSet filter) {
-        // get relevant entries
-        SortedMap<ImmutableContextSet, Set<LPSubjectReference>> sorted = new TreeMap<>(ContextSetComparator.reverse());
-        for (Map.Entry<ImmutableContextSet, Set<LPSubjectReference>> entry : this.parents.entrySet()) {
-            if (!entry.getKey().isSatisfiedBy(filter)) {
-                continue;
-            }
-
-            sorted.put(entry.getKey(), entry.getValue());
-        }
-
-        // flatten
-        Set<LPSubjectReference> result = new LinkedHashSet<>();
-        for (Set<LPSubjectReference> set : sorted.values()) {
-            result.addAll(set);
-        }
-        return result;
+    /**
+     * Resolves the parents which apply in the given filter, with entries
+     * in more specific contexts taking priority.
+     *
+     * @param filter the filter
+     * @return the resolved parents
+     */
+    public ImmutableSet<LPSubjectReference> resolveParents(ContextSet filter) {
+        return this.resolvedParents.get(filter.makeImmutable());
     }
 
-    public Set<LPSubjectReference> resolveParents() {
-        // get relevant entries
-        SortedMap<ImmutableContextSet, Set<LPSubjectReference>> sorted = new TreeMap<>(ContextSetComparator.reverse());
-        for (Map.Entry<ImmutableContextSet, Set<LPSubjectReference>> entry : this.parents.entrySet()) {
-            sorted.put(entry.getKey(), entry.getValue());
-        }
+    /**
+     * Resolves all parents, regardless of context.
+     *
+     * @return the resolved parents
+     */
+    public ImmutableSet<LPSubjectReference> resolveParents() {
+        return this.resolvedParents.get();
+    }
 
-        // flatten
+    private ImmutableSet<LPSubjectReference> calculateParents(ContextSet filter) {
+        // the backing map is already sorted, so entries can be flattened in iteration order
         Set<LPSubjectReference> result = new LinkedHashSet<>();
-        for (Set<LPSubjectReference> set : sorted.values()) {
-            for (LPSubjectReference e : set) {
-                if (!result.contains(e)) {
-                    result.add(e);
-                }
+        for (Map.Entry<ImmutableContextSet, Set<LPSubjectReference>> entry : this.parents.entrySet()) {
+            if (filter != null && !entry.getKey().isSatisfiedBy(filter)) {
+                continue;
             }
+
+            result.addAll(entry.getValue());
         }
-        return result;
+        return ImmutableSet.copyOf(result);
     }
 
     @Override
@@ -254,7 +272,7 @@ public class CalculatedSubjectData implements LPSubjectData {
         Set<LPSubjectReference> set = this.parents.computeIfAbsent(contexts, c -> ConcurrentHashMap.newKeySet());
         boolean b = set.add(parent);
         if (b) {
-            this.service.invalidateAllCaches();
+            onParentsChange();
         }
         return CompletableFuture.completedFuture(b);
     }
@@ -264,7 +282,7 @@ public class CalculatedSubjectData implements LPSubjectData {
         Set<LPSubjectReference> set = this.parents.get(contexts);
         boolean b = set != null && set.remove(parent);
         if (b) {
-            this.service.invalidateAllCaches();
+            onParentsChange();
         }
         return CompletableFuture.completedFuture(b);
     }
@@ -275,7 +293,7 @@ public class CalculatedSubjectData implements LPSubjectData {
             return CompletableFuture.completedFuture(false);
         } else {
             this.parents.clear();
-            this.service.invalidateAllCaches();
+            onParentsChange();
             return CompletableFuture.completedFuture(true);
         }
     }
@@ -288,7 +306,7 @@ public class CalculatedSubjectData implements LPSubjectData {
         }
 
         this.parents.remove(contexts);
-        this.service.invalidateAllCaches();
+        onParentsChange();
         return CompletableFuture.completedFuture(!set.isEmpty());
     }
 
@@ -301,44 +319,39 @@ public class CalculatedSubjectData implements LPSubjectData {
         return map.build();
     }
 
-    public Map<String, String> resolveOptions(ContextSet filter) {
-        // get relevant entries
-        SortedMap<ImmutableContextSet, Map<String, String>> sorted = new TreeMap<>(ContextSetComparator.reverse());
-        for (Map.Entry<ImmutableContextSet, Map<String, String>> entry : this.options.entrySet()) {
-            if (!entry.getKey().isSatisfiedBy(filter)) {
-                continue;
-            }
-
-            sorted.put(entry.getKey(), entry.getValue());
-        }
-
-        // flatten
-        Map<String, String> result = new HashMap<>();
-        for (Map<String, String> map : sorted.values()) {
-            for (Map.Entry<String, String> e : map.entrySet()) {
-                result.putIfAbsent(e.getKey(), e.getValue());
-            }
-        }
+    /**
+     * Resolves the options which apply in the given filter, with entries
+     * in more specific contexts taking priority.
+     *
+     * @param filter the filter
+     * @return the resolved options
+     */
+    public ImmutableMap<String, String> resolveOptions(ContextSet filter) {
+        return this.resolvedOptions.get(filter.makeImmutable());
+    }
 
-        return result;
+    /**
+     * Resolves all options, regardless of context.
+     *
+     * @return the resolved options
+     */
+    public ImmutableMap<String, String> resolveOptions() {
+        return this.resolvedOptions.get();
     }
 
-    public Map<String, String> resolveOptions() {
-        // get relevant entries
-        SortedMap<ImmutableContextSet, Map<String, String>> sorted = new TreeMap<>(ContextSetComparator.reverse());
+    private ImmutableMap<String, String> calculateOptions(ContextSet filter) {
+        // the backing map is already sorted, so entries can be flattened in iteration order
+        Map<String, String> result = new HashMap<>();
         for (Map.Entry<ImmutableContextSet, Map<String, String>> entry : this.options.entrySet()) {
-            sorted.put(entry.getKey(), entry.getValue());
-        }
+            if (filter != null && !entry.getKey().isSatisfiedBy(filter)) {
+                continue;
+            }
 
-        // flatten
-        Map<String, String> result = new HashMap<>();
-        for (Map<String, String> map : sorted.values()) {
-            for (Map.Entry<String, String> e : map.entrySet()) {
+            for (Map.Entry<String, String> e : entry.getValue().entrySet()) {
                 result.putIfAbsent(e.getKey(), e.getValue());
             }
         }
-
-        return result;
+        return ImmutableMap.copyOf(result);
     }
 
     @Override
@@ -346,7 +359,7 @@ public class CalculatedSubjectData implements LPSubjectData {
         Map<String, String> options = this.options.computeIfAbsent(contexts, c -> new ConcurrentHashMap<>());
         boolean b = !stringEquals(options.put(key.toLowerCase(), value), value);
         if (b) {
-            this.service.invalidateAllCaches();
+            onOptionsChange();
         }
         return CompletableFuture.completedFuture(b);
     }
@@ -356,7 +369,7 @@ public class CalculatedSubjectData implements LPSubjectData {
         Map<String, String> options = this.options.get(contexts);
         boolean b = options != null && options.remove(key.toLowerCase()) != null;
         if (b) {
-            this.service.invalidateAllCaches();
+            onOptionsChange();
         }
         return CompletableFuture.completedFuture(b);
     }
@@ -367,7 +380,7 @@ public class CalculatedSubjectData implements LPSubjectData {
             return CompletableFuture.completedFuture(false);
         } else {
             this.options.clear();
-            this.service.invalidateAllCaches();
+            onOptionsChange();
             return CompletableFuture.completedFuture(true);
         }
     }
@@ -380,11 +393,83 @@ public class CalculatedSubjectData implements LPSubjectData {
         }
 
         this.options.remove(contexts);
-        this.service.invalidateAllCaches();
+        onOptionsChange();
         return CompletableFuture.completedFuture(!map.isEmpty());
     }
 
     private static boolean stringEquals(String a, String b) {
         return a == null && b == null || a != null && b != null && a.equalsIgnoreCase(b);
     }
+
+    /**
+     * Caches the flattened result of resolving one of the backing maps, both
+     * per filter and unfiltered.
+     *
+     * @param <T> the result type
+     */
+    private static final class ResolutionCache<T> {
+        // resolves a result - null is passed for the unfiltered case
+        private final Function<ContextSet, T> resolver;
+
+        // results for filters which are no longer being queried are expired, so
+        // one-off context combinations don't accumulate for the life of the subject
+        private final Cache<ImmutableContextSet, T> filtered = Caffeine.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        private T unfiltered = null;
+
+        // incremented on each invalidation, so results calculated from
+        // stale data are not cached
+        private int generation = 0;
+
+        ResolutionCache(Function<ContextSet, T> resolver) {
+            this.resolver = resolver;
+        }
+
+        T get(ImmutableContextSet filter) {
+            T result = this.filtered.getIfPresent(filter);
+            if (result != null) {
+                return result;
+            }
+
+            int generation;
+            synchronized (this) {
+                generation = this.generation;
+            }
+
+            result = this.resolver.apply(filter);
+
+            synchronized (this) {
+                if (generation == this.generation) {
+                    this.filtered.put(filter, result);
+                }
+            }
+            return result;
+        }
+
+        T get() {
+            int generation;
+            synchronized (this) {
+                if (this.unfiltered != null) {
+                    return this.unfiltered;
+                }
+                generation = this.generation;
+            }
+
+            T result = this.resolver.apply(null);
+
+            synchronized (this) {
+                if (generation == this.generation) {
+                    this.unfiltered = result;
+                }
+            }
+            return result;
+        }
+
+        synchronized void invalidate() {
+            this.generation++;
+            this.filtered.invalidateAll();
+            this.unfiltered = null;
+        }
+    }
 }
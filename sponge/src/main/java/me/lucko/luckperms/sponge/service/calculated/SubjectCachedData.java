@@ -25,10 +25,14 @@
 
 package me.lucko.luckperms.sponge.service.calculated;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import me.lucko.luckperms.api.Contexts;
 import me.lucko.luckperms.api.caching.MetaContexts;
+import me.lucko.luckperms.api.context.ImmutableContextSet;
 import me.lucko.luckperms.api.metastacking.MetaStackDefinition;
 import me.lucko.luckperms.common.caching.AbstractCachedData;
 import me.lucko.luckperms.common.caching.type.MetaAccumulator;
@@ -43,8 +47,10 @@ import me.lucko.luckperms.common.processors.PermissionProcessor;
 import me.lucko.luckperms.common.processors.WildcardProcessor;
 import me.lucko.luckperms.sponge.processors.FixedDefaultsProcessor;
 import me.lucko.luckperms.sponge.processors.SpongeWildcardProcessor;
+import me.lucko.luckperms.sponge.service.model.LPSubjectReference;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class SubjectCachedData extends AbstractCachedData implements CalculatorFactory {
     private static final MetaStackDefinition DEFAULT_META_STACK = new SimpleMetaStackDefinition(
@@ -54,11 +60,48 @@ public class SubjectCachedData extends AbstractCachedData implements CalculatorF
 
     private final CalculatedSubject subject;
 
+    /**
+     * The cache used for resolved parents.
+     *
+     * <p>Entries are cleared along with the rest of the cached data, which happens
+     * whenever subject data in the service is modified.</p>
+     */
+    private final LoadingCache<ImmutableContextSet, ImmutableSet<LPSubjectReference>> parents = Caffeine.newBuilder()
+            .expireAfterAccess(2, TimeUnit.MINUTES)
+            .build(this::resolveParents);
+
     SubjectCachedData(CalculatedSubject subject, LuckPermsPlugin plugin) {
         super(plugin);
         this.subject = subject;
     }
 
+    private ImmutableSet<LPSubjectReference> resolveParents(ImmutableContextSet contexts) {
+        return ImmutableSet.copyOf(this.subject.resolveAllParents(contexts));
+    }
+
+    /**
+     * Gets the resolved parents of the subject in the given contexts.
+     *
+     * @param contexts the contexts
+     * @return the parents, in resolution order
+     */
+    public ImmutableSet<LPSubjectReference> getParents(ImmutableContextSet contexts) {
+        //noinspection ConstantConditions
+        return this.parents.get(contexts);
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        this.parents.invalidateAll();
+    }
+
+    @Override
+    public void doCacheCleanup() {
+        super.doCacheCleanup();
+        this.parents.cleanUp();
+    }
+
     @Override
     protected PermissionCalculatorMetadata getMetadataForContexts(Contexts contexts) {
         return PermissionCalculatorMetadata.of(null, this.subject.getParentCollection().getIdentifier() + "/" + this.subject.getIdentifier(), contexts.getContexts());
@@ -0,0 +1,311 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.sponge.service.persisted;
+
+import com.google.common.collect.ImmutableSet;
+
+import me.lucko.luckperms.common.buffers.BufferedRequest;
+import me.lucko.luckperms.common.utils.BinaryIO;
+import me.lucko.luckperms.common.utils.MoreFiles;
+import me.lucko.luckperms.sponge.service.model.LPPermissionService;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A {@link SubjectStorage} which keeps every subject in a collection within
+ * a single binary file.
+ *
+ * <p>Each file starts with an index of subject identifiers, offsets and
+ * lengths, followed by the encoded subject data. Files are read into memory
+ * in one go, and writes are buffered and applied per collection in a single
+ * pass. Only the subjects which have changed are encoded again, the bytes of
+ * every other subject are copied across as they are.</p>
+ *
+ * <p>Collections which only exist in the legacy directory layout are migrated
+ * the first time they are loaded. The legacy files are left in place.</p>
+ */
+public class CompactSubjectStorage extends SubjectStorage {
+
+    private static final int MAGIC = 0x4C505344;
+    private static final byte VERSION = 1;
+    private static final String EXTENSION = ".dat";
+
+    /**
+     * The permission service
+     */
+    private final LPPermissionService service;
+
+    /**
+     * The root directory used to store compact files
+     */
+    private final Path container;
+
+    /**
+     * Subject data waiting to be flushed, keyed by collection and then subject
+     */
+    private final Map<String, Map<String, SubjectDataContainer>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Write buffers, keyed by collection
+     */
+    private final Map<String, FlushBuffer> buffers = new ConcurrentHashMap<>();
+
+    public CompactSubjectStorage(LPPermissionService service, Path container, Path legacyContainer) {
+        super(service, legacyContainer);
+        this.service = service;
+        this.container = container;
+    }
+
+    private Path resolveFile(String collectionIdentifier) {
+        return this.container.resolve(collectionIdentifier + EXTENSION);
+    }
+
+    @Override
+    public Set<String> getSavedCollections() {
+        ImmutableSet.Builder<String> collections = ImmutableSet.builder();
+        collections.addAll(super.getSavedCollections());
+
+        if (Files.exists(this.container)) {
+            try (Stream<Path> s = Files.list(this.container)) {
+                s.map(p -> p.getFileName().toString())
+                        .filter(name -> name.endsWith(EXTENSION))
+                        .map(name -> name.substring(0, name.length() - EXTENSION.length()))
+                        .forEach(collections::add);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return collections.build();
+    }
+
+    @Override
+    public void saveToFile(PersistedSubject subject) {
+        String collection = subject.getParentCollection().getIdentifier();
+        this.pending.computeIfAbsent(collection, c -> new ConcurrentHashMap<>())
+                .put(subject.getIdentifier(), SubjectDataContainer.copyOf(subject.getSubjectData()));
+        this.buffers.computeIfAbsent(collection, FlushBuffer::new).request();
+    }
+
+    @Override
+    public Map<String, SubjectDataContainer> loadAllFromFile(String collectionIdentifier) {
+        Path file = resolveFile(collectionIdentifier);
+
+        Map<String, SubjectDataContainer> holders;
+        if (Files.exists(file)) {
+            try {
+                holders = read(file);
+            } catch (IOException | RuntimeException e) {
+                this.service.getPlugin().getLogger().severe("Unable to read subject data from " + file);
+                e.printStackTrace();
+                holders = new HashMap<>();
+            }
+        } else {
+            holders = new HashMap<>(super.loadAllFromFile(collectionIdentifier));
+            if (!holders.isEmpty()) {
+                try {
+                    write(file, holders);
+                    this.service.getPlugin().getLogger().info("Migrated " + holders.size() + " subjects in collection '" + collectionIdentifier + "' to " + file.getFileName());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        // don't let a reload revert changes which haven't been flushed yet
+        Map<String, SubjectDataContainer> unsaved = this.pending.get(collectionIdentifier);
+        if (unsaved != null) {
+            holders.putAll(unsaved);
+        }
+
+        return holders;
+    }
+
+    @Override
+    public void shutdown() {
+        for (FlushBuffer buffer : this.buffers.values()) {
+            buffer.requestDirectly();
+        }
+    }
+
+    private void flush(String collectionIdentifier) {
+        Map<String, SubjectDataContainer> unsaved = this.pending.get(collectionIdentifier);
+        if (unsaved == null || unsaved.isEmpty()) {
+            return;
+        }
+
+        // take a snapshot of the dirty entries, only removing them once they've been written
+        Map<String, SubjectDataContainer> dirty = new HashMap<>(unsaved);
+
+        Path file = resolveFile(collectionIdentifier);
+        try {
+            // fall back to the legacy layout so a first write doesn't drop un-migrated subjects
+            Map<String, ByteBuffer> entries = Files.exists(file) ? readEntries(file) : encode(super.loadAllFromFile(collectionIdentifier));
+            entries.putAll(encode(dirty));
+            writeEntries(file, entries);
+
+            for (Map.Entry<String, SubjectDataContainer> e : dirty.entrySet()) {
+                unsaved.remove(e.getKey(), e.getValue());
+            }
+        } catch (IOException | RuntimeException e) {
+            this.service.getPlugin().getLogger().severe("Unable to save subject data to " + file);
+            e.printStackTrace();
+        }
+    }
+
+    private Map<String, SubjectDataContainer> read(Path file) throws IOException {
+        Map<String, ByteBuffer> entries = readEntries(file);
+        Map<String, SubjectDataContainer> holders = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<String, ByteBuffer> e : entries.entrySet()) {
+            holders.put(e.getKey(), SubjectDataContainer.deserializeBinary(this.service, e.getValue()));
+        }
+        return holders;
+    }
+
+    private void write(Path file, Map<String, SubjectDataContainer> holders) throws IOException {
+        writeEntries(file, encode(holders));
+    }
+
+    /**
+     * Reads the encoded data of each subject in a file, without decoding it.
+     *
+     * @param file the file
+     * @return the encoded subjects, keyed by identifier
+     * @throws IOException if the file can't be read
+     */
+    private static Map<String, ByteBuffer> readEntries(Path file) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        if (buf.remaining() == 0) {
+            return new LinkedHashMap<>();
+        }
+
+        if (buf.getInt() != MAGIC) {
+            throw new IOException("Not a subject data file: " + file);
+        }
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported subject data version " + version + ": " + file);
+        }
+
+        int size = BinaryIO.readLength(buf);
+        String[] identifiers = new String[size];
+        int[] offsets = new int[size];
+        int[] lengths = new int[size];
+        for (int i = 0; i < size; i++) {
+            identifiers[i] = BinaryIO.readString(buf);
+            offsets[i] = buf.getInt();
+            lengths[i] = buf.getInt();
+        }
+
+        int dataStart = buf.position();
+        Map<String, ByteBuffer> entries = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] > buf.limit() - dataStart - lengths[i]) {
+                throw new IOException("Subject data for '" + identifiers[i] + "' is out of bounds: " + file);
+            }
+            ByteBuffer entry = buf.duplicate();
+            entry.position(dataStart + offsets[i]);
+            entry.limit(dataStart + offsets[i] + lengths[i]);
+            entries.put(identifiers[i], entry.slice());
+        }
+        return entries;
+    }
+
+    private static Map<String, ByteBuffer> encode(Map<String, SubjectDataContainer> holders) throws IOException {
+        Map<String, ByteBuffer> entries = new LinkedHashMap<>(holders.size() * 2);
+        for (Map.Entry<String, SubjectDataContainer> e : holders.entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                e.getValue().serializeBinary(out);
+            }
+            entries.put(e.getKey(), ByteBuffer.wrap(bytes.toByteArray()));
+        }
+        return entries;
+    }
+
+    private static void writeEntries(Path file, Map<String, ByteBuffer> entries) throws IOException {
+        MoreFiles.createDirectoriesIfNotExists(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName().toString() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            BinaryIO.writeVarInt(out, entries.size());
+            int offset = 0;
+            for (Map.Entry<String, ByteBuffer> e : entries.entrySet()) {
+                int length = e.getValue().remaining();
+                BinaryIO.writeString(out, e.getKey());
+                out.writeInt(offset);
+                out.writeInt(length);
+                offset += length;
+            }
+
+            // every entry is backed by an array, either read from a file or encoded above
+            for (ByteBuffer entry : entries.values()) {
+                out.write(entry.array(), entry.arrayOffset() + entry.position(), entry.remaining());
+            }
+        }
+
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private final class FlushBuffer extends BufferedRequest<Void> {
+        private final String collectionIdentifier;
+
+        FlushBuffer(String collectionIdentifier) {
+            super(2, TimeUnit.SECONDS, CompactSubjectStorage.this.service.getPlugin().getBootstrap().getScheduler());
+            this.collectionIdentifier = collectionIdentifier;
+        }
+
+        @Override
+        protected Void perform() {
+            synchronized (this) {
+                flush(this.collectionIdentifier);
+            }
+            return null;
+        }
+    }
+
+}
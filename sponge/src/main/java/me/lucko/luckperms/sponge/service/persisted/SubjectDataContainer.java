@@ -40,10 +40,18 @@ import me.lucko.luckperms.sponge.service.model.LPPermissionService;
 import me.lucko.luckperms.sponge.service.model.LPSubjectData;
 import me.lucko.luckperms.sponge.service.model.LPSubjectReference;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static me.lucko.luckperms.common.utils.BinaryIO.readString;
+import static me.lucko.luckperms.common.utils.BinaryIO.readVarInt;
+import static me.lucko.luckperms.common.utils.BinaryIO.writeString;
+import static me.lucko.luckperms.common.utils.BinaryIO.writeVarInt;
+
 /**
  * Immutable container for a subjects persisted data
  */
@@ -70,6 +78,50 @@ public class SubjectDataContainer {
         return new SubjectDataContainer(service, root);
     }
 
+    /**
+     * Deserializes a {@link SubjectDataContainer} container from its binary form
+     *
+     * @param service the permission service
+     * @param buf the buffer to read from
+     * @return a container representing the binary data
+     * @see #serializeBinary(DataOutput)
+     */
+    public static SubjectDataContainer deserializeBinary(LPPermissionService service, ByteBuffer buf) {
+        ImmutableMap.Builder<ImmutableContextSet, Map<String, Boolean>> permissions = ImmutableMap.builder();
+        for (int i = readVarInt(buf); i > 0; i--) {
+            ImmutableContextSet contextSet = readContextSet(buf);
+            ImmutableMap.Builder<String, Boolean> perms = ImmutableMap.builder();
+            for (int j = readVarInt(buf); j > 0; j--) {
+                perms.put(readString(buf), buf.get() != 0);
+            }
+            permissions.put(contextSet, perms.build());
+        }
+
+        ImmutableMap.Builder<ImmutableContextSet, Map<String, String>> options = ImmutableMap.builder();
+        for (int i = readVarInt(buf); i > 0; i--) {
+            ImmutableContextSet contextSet = readContextSet(buf);
+            ImmutableMap.Builder<String, String> opts = ImmutableMap.builder();
+            for (int j = readVarInt(buf); j > 0; j--) {
+                opts.put(readString(buf), readString(buf));
+            }
+            options.put(contextSet, opts.build());
+        }
+
+        ImmutableMap.Builder<ImmutableContextSet, List<LPSubjectReference>> parents = ImmutableMap.builder();
+        for (int i = readVarInt(buf); i > 0; i--) {
+            ImmutableContextSet contextSet = readContextSet(buf);
+            ImmutableList.Builder<LPSubjectReference> pars = ImmutableList.builder();
+            for (int j = readVarInt(buf); j > 0; j--) {
+                String collection = readString(buf);
+                String subject = readString(buf);
+                pars.add(service.getReferenceFactory().obtain(collection, subject));
+            }
+            parents.put(contextSet, pars.build());
+        }
+
+        return new SubjectDataContainer(permissions.build(), options.build(), parents.build());
+    }
+
     private final Map<ImmutableContextSet, Map<String, Boolean>> permissions;
     private final Map<ImmutableContextSet, Map<String, String>> options;
     private final Map<ImmutableContextSet, List<LPSubjectReference>> parents;
@@ -263,6 +315,47 @@ public class SubjectDataContainer {
         return root;
     }
 
+    /**
+     * Writes this container in a compact binary form.
+     *
+     * <p>Strings are length prefixed and UTF-8 encoded, and all counts are
+     * written as variable length integers.</p>
+     *
+     * @param out the output to write to
+     * @throws IOException if the write fails
+     */
+    public void serializeBinary(DataOutput out) throws IOException {
+        writeVarInt(out, this.permissions.size());
+        for (Map.Entry<ImmutableContextSet, Map<String, Boolean>> e : this.permissions.entrySet()) {
+            writeContextSet(out, e.getKey());
+            writeVarInt(out, e.getValue().size());
+            for (Map.Entry<String, Boolean> perm : e.getValue().entrySet()) {
+                writeString(out, perm.getKey());
+                out.writeBoolean(perm.getValue());
+            }
+        }
+
+        writeVarInt(out, this.options.size());
+        for (Map.Entry<ImmutableContextSet, Map<String, String>> e : this.options.entrySet()) {
+            writeContextSet(out, e.getKey());
+            writeVarInt(out, e.getValue().size());
+            for (Map.Entry<String, String> opt : e.getValue().entrySet()) {
+                writeString(out, opt.getKey());
+                writeString(out, opt.getValue());
+            }
+        }
+
+        writeVarInt(out, this.parents.size());
+        for (Map.Entry<ImmutableContextSet, List<LPSubjectReference>> e : this.parents.entrySet()) {
+            writeContextSet(out, e.getKey());
+            writeVarInt(out, e.getValue().size());
+            for (LPSubjectReference ref : e.getValue()) {
+                writeString(out, ref.getCollectionIdentifier());
+                writeString(out, ref.getSubjectIdentifier());
+            }
+        }
+    }
+
     /**
      * Applies the data encapsulated by this container to the given
      * {@link CalculatedSubjectData}.
@@ -281,4 +374,20 @@ public class SubjectDataContainer {
         return entries;
     }
 
+    private static void writeContextSet(DataOutput out, ImmutableContextSet contextSet) throws IOException {
+        writeVarInt(out, contextSet.size());
+        for (Map.Entry<String, String> e : contextSet.toSet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private static ImmutableContextSet readContextSet(ByteBuffer buf) {
+        ImmutableContextSet.Builder builder = ImmutableContextSet.builder();
+        for (int i = readVarInt(buf); i > 0; i--) {
+            builder.add(readString(buf), readString(buf));
+        }
+        return builder.build();
+    }
+
 }
@@ -207,6 +207,12 @@ public class SubjectStorage {
         }
     }
 
+    /**
+     * Writes any buffered data and releases resources held by the storage
+     */
+    public void shutdown() {
+    }
+
     private static final class LoadedSubject {
         private final String identifier;
         private final SubjectDataContainer data;